@@ -0,0 +1,48 @@
+package wargames.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import wargames.models.Army;
+import wargames.models.Soldier;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArmyBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    int armySize;
+
+    @Param
+    ArmyKind armyKind;
+
+    @Param
+    RankDistribution rankDistribution;
+
+    private Army army;
+
+    @Setup(Level.Trial)
+    public void recruit() {
+        this.army = ArmyFixtures.recruit(this.armyKind, this.armySize, this.rankDistribution, 1410);
+    }
+
+    @Benchmark
+    public int totalStrength() {
+        return this.army.getTotalStrength();
+    }
+
+    // what getTotalStrength() used to cost before it was maintained incrementally
+    @Benchmark
+    public int sumOfStrengths() {
+        int strength = 0;
+        for (Soldier s : this.army.getSoldiers()) {
+            strength += s.getStrength();
+        }
+        return strength;
+    }
+}
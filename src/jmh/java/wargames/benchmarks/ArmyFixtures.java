@@ -0,0 +1,20 @@
+package wargames.benchmarks;
+
+import java.util.SplittableRandom;
+
+import wargames.models.*;
+
+// Builds reproducible armies for the benchmarks
+final class ArmyFixtures {
+
+    private ArmyFixtures() { }
+
+    static Army recruit(ArmyKind kind, int size, RankDistribution distribution, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Army army = kind.create(size, random.split());
+        for (int i = 0; i < size; i++) {
+            army.add(Soldier.withRank(distribution.next(random)));
+        }
+        return army;
+    }
+}
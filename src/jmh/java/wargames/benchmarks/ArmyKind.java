@@ -0,0 +1,19 @@
+package wargames.benchmarks;
+
+import java.util.random.RandomGenerator;
+
+import wargames.models.*;
+
+public enum ArmyKind {
+    LIST,
+    COLUMNAR,
+    GROUPED;
+
+    Army create(int size, RandomGenerator random) {
+        switch (this) {
+            case LIST:     return new ListArmy(random);
+            case COLUMNAR: return new ColumnarArmy(size, random);
+            default:       return new GroupedArmy(random);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package wargames.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import wargames.commands.*;
+import wargames.events.publisher.EventDispatcher;
+import wargames.factories.*;
+import wargames.models.*;
+
+// Armies are recruited again before every invocation, because the commands
+// change the soldiers' exp and kill them: after a single attack the defender
+// is all dead soldiers, so every measured attack has to start from the same
+// fresh armies. Recruiting is not measured
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandBenchmark {
+
+    @Param({ "1000", "100000" })
+    int armySize;
+
+    @Param
+    ArmyKind armyKind;
+
+    @Param
+    RankDistribution rankDistribution;
+
+    private final CommandFactory commandFactory =
+        new CommandFactory(EventDispatcher.getInstance(), new SoldierFactory());
+
+    private General       attacker;
+    private General       defender;
+    private List<Soldier> drilled;
+
+    @Setup(Level.Invocation)
+    public void recruit() {
+        EventDispatcher.getInstance().removeAllSubscribers();
+
+        // the attacker is twice as big, so it keeps winning and never runs out of gold
+        Army attackerArmy = ArmyFixtures.recruit(this.armyKind, 2 * this.armySize, this.rankDistribution, 1410);
+        Army defenderArmy = ArmyFixtures.recruit(this.armyKind, this.armySize, this.rankDistribution, 1605);
+
+        this.attacker = new General("Attacker", Integer.MAX_VALUE / 2, attackerArmy);
+        this.defender = new General("Defender", Integer.MAX_VALUE / 2, defenderArmy);
+        this.drilled  = attackerArmy.getSoldiers();
+    }
+
+    @Benchmark
+    public int drill() throws Exception {
+        this.commandFactory.createDrillSoldiers(this.attacker, this.drilled).execute();
+        return this.attacker.getGold();
+    }
+
+    @Benchmark
+    public General attack() throws Exception {
+        AttackCommand attack = this.commandFactory.createAttack(this.attacker, this.defender);
+        attack.execute();
+        return attack.getWinner();
+    }
+}
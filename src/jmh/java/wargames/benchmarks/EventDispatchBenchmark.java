@@ -0,0 +1,70 @@
+package wargames.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import wargames.commands.*;
+import wargames.events.*;
+import wargames.events.publisher.*;
+import wargames.events.subscribers.Subscriber;
+import wargames.factories.*;
+import wargames.models.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDispatchBenchmark {
+
+    private static final int ASYNC_CAPACITY = 4096;
+
+    public enum DispatchMode { SYNC, ASYNC }
+
+    @Param({ "0", "1", "8", "64" })
+    int subscriberCount;
+
+    @Param
+    DispatchMode dispatchMode;
+
+    private final EventDispatcher dispatcher = EventDispatcher.getInstance();
+
+    private Event commandEvent;
+
+    @Setup(Level.Trial)
+    public void subscribe() {
+        this.dispatcher.removeAllSubscribers();
+        for (int i = 0; i < this.subscriberCount; i++) {
+            this.dispatcher.addSubscriber(new CountingSubscriber());
+        }
+        if (this.dispatchMode == DispatchMode.ASYNC) {
+            this.dispatcher.enableAsyncDispatch(ASYNC_CAPACITY, BackPressurePolicy.BLOCK);
+        }
+
+        CommandFactory commandFactory = new CommandFactory(this.dispatcher, new SoldierFactory());
+        General        general        = new General("General", 0);
+        this.commandEvent = new AfterCommandEvent(commandFactory.createRecruitSoldiers(general, 1, Rank.PRIVATE));
+    }
+
+    @TearDown(Level.Trial)
+    public void unsubscribe() {
+        this.dispatcher.disableAsyncDispatch();
+        this.dispatcher.removeAllSubscribers();
+    }
+
+    @Benchmark
+    public void updateSubscribers() {
+        this.dispatcher.updateSubscribers(this.commandEvent);
+    }
+
+    private static class CountingSubscriber implements Subscriber {
+        private long received;
+
+        @Override
+        public void update(Event event) {
+            this.received++;
+        }
+    }
+}
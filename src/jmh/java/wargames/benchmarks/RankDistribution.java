@@ -0,0 +1,26 @@
+package wargames.benchmarks;
+
+import java.util.random.RandomGenerator;
+
+import wargames.models.Rank;
+
+public enum RankDistribution {
+    PRIVATES,   // every soldier is a private
+    UNIFORM,    // every rank equally likely
+    OFFICERS;   // three quarters captains and majors
+
+    private static final Rank[] RANKS = Rank.values();
+
+    Rank next(RandomGenerator random) {
+        switch (this) {
+            case PRIVATES:
+                return Rank.PRIVATE;
+            case UNIFORM:
+                return RANKS[random.nextInt(RANKS.length)];
+            default:
+                return random.nextInt(4) == 0
+                       ? RANKS[random.nextInt(2)]
+                       : RANKS[2 + random.nextInt(2)];
+        }
+    }
+}
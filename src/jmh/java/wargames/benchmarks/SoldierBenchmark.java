@@ -0,0 +1,38 @@
+package wargames.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import wargames.models.Rank;
+import wargames.models.Soldier;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SoldierBenchmark {
+
+    @Param({ "1", "100", "1000000" })
+    int expChange;
+
+    @Param
+    Rank rank;
+
+    @Benchmark
+    public int increaseExpByN() {
+        Soldier soldier = Soldier.withRank(this.rank);
+        soldier.increaseExpByN(this.expChange);
+        return soldier.getStrength();
+    }
+
+    @Benchmark
+    public boolean decreaseExpByN() {
+        Soldier soldier = Soldier.withRank(this.rank);
+        soldier.increaseExpByN(this.expChange);
+        soldier.decreaseExpByN(this.expChange);
+        return soldier.isAlive();
+    }
+}
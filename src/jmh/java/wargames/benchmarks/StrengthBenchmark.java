@@ -0,0 +1,66 @@
+package wargames.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import wargames.models.*;
+
+// Single passes over rank, exp and alive columns, adding the soldiers to a
+// rank histogram and summing their strength, scalar against SIMD lanes. Built
+// with the vector profile, the fork resolves the vector module, so
+// accumulate() takes the vector path; copy() shows the kernel within a bulk
+// append of a whole ColumnarArmy.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class StrengthBenchmark {
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    int armySize;
+
+    @Param
+    RankDistribution rankDistribution;
+
+    private byte[]       ranks;
+    private int[]        exps;
+    private long[]       aliveBits;
+    private ColumnarArmy army;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        SplittableRandom random = new SplittableRandom(1410);
+        this.ranks     = new byte[this.armySize];
+        this.exps      = new int[this.armySize];
+        this.aliveBits = new long[(this.armySize + 63) >>> 6];
+        this.army      = new ColumnarArmy(this.armySize);
+        for (int i = 0; i < this.armySize; i++) {
+            Rank rank = this.rankDistribution.next(random);
+            this.ranks[i] = (byte) rank.ordinal();
+            this.exps[i]  = 1 + random.nextInt(5 * rank.getValue());
+            this.aliveBits[i >>> 6] |= 1L << i;
+            this.army.add(Soldier.withRank(rank));
+        }
+    }
+
+    @Benchmark
+    public int scalarAccumulate() {
+        return StrengthKernel.scalarAccumulate(this.ranks, this.exps, this.aliveBits, 0, this.armySize,
+                                               new RankHistogram());
+    }
+
+    @Benchmark
+    public int accumulate() {
+        return StrengthKernel.accumulate(this.ranks, this.exps, this.aliveBits, 0, this.armySize,
+                                         new RankHistogram());
+    }
+
+    @Benchmark
+    public ColumnarArmy copy() {
+        return this.army.copy();
+    }
+}
@@ -1,6 +1,12 @@
 package wargames.commands;
 
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
 import wargames.events.publisher.EventDispatcher;
+import wargames.exceptions.EmptyArmyException;
 import wargames.exceptions.InsufficientGoldException;
 import wargames.models.Army;
 import wargames.models.General;
@@ -10,35 +16,87 @@ public class AttackCommand extends Command {
 
     public static final double GOLD_LOOT_PERCENTAGE = 0.10;
 
+    public static final int DEFAULT_PARALLEL_AFTERMATH_THRESHOLD = 1 << 16;
+
     private final General attacking;
     private final General attacked;
+    private final long    seed;
 
     private General winner;
     private Boolean isOver;
 
+    private ForkJoinPool aftermathPool;
+    private int          parallelAftermathThreshold = DEFAULT_PARALLEL_AFTERMATH_THRESHOLD;
+
     public AttackCommand(General attacking, 
                          General attacked, 
                          EventDispatcher dispatcher) {
+        this(attacking, attacked, ThreadLocalRandom.current().nextLong(), dispatcher);
+    }
+
+    // the seed picks the soldiers shot in a draw, so an attack
+    // with the same seed on the same armies has the same outcome
+    public AttackCommand(General attacking,
+                         General attacked,
+                         long seed,
+                         EventDispatcher dispatcher) {
         super(attacking, dispatcher);
 
         this.isOver = false;
 
         this.attacking = attacking;
         this.attacked  = attacked;
+        this.seed      = seed;
     }
 
     public General getAttacking() { return this.attacking; }
     public General getAttacked()  { return this.attacked; }
     public General getWinner()    { return this.winner; }
+    public long    getSeed()      { return this.seed; }
+
+    public ForkJoinPool getAftermathPool()              { return this.aftermathPool; }
+    public int          getParallelAftermathThreshold() { return this.parallelAftermathThreshold; }
 
     public Boolean isAttackOver() { return this.isOver; }
     public Boolean isDraw()       { return this.isAttackOver() && this.getWinner() == null; }
 
+    // the winner's exp gains and the loser's exp losses are applied in chunks
+    // on the pool for armies of at least threshold soldiers, with the same
+    // outcome as one by one; a null pool applies them one by one
+    public AttackCommand withParallelAftermath(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("parallel threshold must be positive");
+        }
+        this.aftermathPool              = pool;
+        this.parallelAftermathThreshold = threshold;
+        return this;
+    }
+
     @Override
-    public void execute() throws Exception {
+    public void execute() throws InsufficientGoldException {
         if (this.attacking.equals(this.attacked)) {
             throw new IllegalArgumentException("attacking and attacked are the same general");
         }
+
+        // both generals are locked in the global lock order, so any number
+        // of attacks between any generals can run in parallel without a
+        // deadlock
+        General first  = this.attacking.locksBefore(this.attacked) ? this.attacking : this.attacked;
+        General second = first == this.attacking ? this.attacked : this.attacking;
+
+        first.getLock().lock();
+        second.getLock().lock();
+        try {
+            beforeChange();
+            fight();
+            afterChange();
+        } finally {
+            second.getLock().unlock();
+            first.getLock().unlock();
+        }
+    }
+
+    private void fight() throws InsufficientGoldException {
         throwIfEitherArmyIsEmpty();
         throwIfAttackerHasNoGold();
 
@@ -62,18 +120,18 @@ public class AttackCommand extends Command {
         this.isOver = true;
     }
 
-    private void throwIfEitherArmyIsEmpty() throws IllegalArgumentException {
+    private void throwIfEitherArmyIsEmpty() throws EmptyArmyException {
         Army attackingArmy = this.attacking.getArmy();
         Army attackedArmy  = this.attacked.getArmy();
 
         if (attackingArmy.isEmpty() && attackedArmy.isEmpty()) {
-            throw new IllegalArgumentException("both attacking and attacked armies are empty");
+            throw new EmptyArmyException("both attacking and attacked armies are empty");
 
         } else if (attackingArmy.isEmpty()) {
-            throw new IllegalArgumentException("attacking army is empty");
+            throw new EmptyArmyException("attacking army is empty");
 
         } else if (attackedArmy.isEmpty()) {
-            throw new IllegalArgumentException("attacked army is empty");
+            throw new EmptyArmyException("attacked army is empty");
         }
     }
 
@@ -85,8 +143,9 @@ public class AttackCommand extends Command {
     }
 
     private void handleDraw() {
-        this.attacking.getArmy().killAndRemoveRandom();
-        this.attacked.getArmy().killAndRemoveRandom();
+        RandomGenerator random = new SplittableRandom(this.seed);
+        this.attacking.getArmy().killAndRemoveRandom(random);
+        this.attacked.getArmy().killAndRemoveRandom(random);
     }
 
     private void handleWinnerAndLoser(General winner, General loser) throws InsufficientGoldException {
@@ -97,14 +156,19 @@ public class AttackCommand extends Command {
 
     private void transferLoot(General winner, General loser) throws InsufficientGoldException {
         int loot = (int) (loser.getGold() * GOLD_LOOT_PERCENTAGE);
-        winner.addGold(loot);
-        loser.subtractGold(loot);
+        loser.transferGold(winner, loot);
     }
 
     private void handleExpGainAndLoss(General winner, General loser) {
         Army winnerArmy = winner.getArmy();
         Army loserArmy  = loser.getArmy();
 
+        if (this.aftermathPool != null) {
+            winnerArmy.changeExpOfAll(1, this.aftermathPool, this.parallelAftermathThreshold);
+            loserArmy.changeExpOfAll(-1, this.aftermathPool, this.parallelAftermathThreshold);
+            return;
+        }
+
         for (Soldier s : winnerArmy.getSoldiers()) {
             s.increaseExpByN(1);
         }
@@ -9,18 +9,77 @@ public abstract class Command {
     protected final General         general;
     protected final EventDispatcher dispatcher;
 
+    private ExecutionListener listener;
+    private long              sequence;
+
     public Command(General general, EventDispatcher dispatcher) {
         this.general    = general;
         this.dispatcher = dispatcher;
     }
 
     public final void executeAndUpdate() throws Exception {
+        if (dispatcher.isEventPoolingEnabled()) {
+            executeAndUpdatePooled();
+            return;
+        }
         dispatcher.updateSubscribers(new BeforeCommandEvent(this));
-        execute();
-        dispatcher.updateSubscribers(new AfterCommandEvent(this));
+        long executeNanos = executeTimed();
+        dispatcher.updateSubscribers(new AfterCommandEvent(this, executeNanos));
+    }
+
+    // events are recycled once the subscribers return, even if one of them throws
+    private void executeAndUpdatePooled() throws Exception {
+        CommandEventPool pool = CommandEventPool.forCurrentThread();
+
+        BeforeCommandEvent before = pool.acquireBefore(this);
+        try {
+            dispatcher.updateSubscribers(before);
+        } finally {
+            pool.release(before);
+        }
+
+        long executeNanos = executeTimed();
+
+        AfterCommandEvent after = pool.acquireAfter(this, executeNanos);
+        try {
+            dispatcher.updateSubscribers(after);
+        } finally {
+            pool.release(after);
+        }
     }
     
+    // failures are rare, so their events are never pooled
+    private long executeTimed() throws Exception {
+        long start = System.nanoTime();
+        try {
+            execute();
+        } catch (Exception e) {
+            dispatcher.updateSubscribers(new FailedCommandEvent(this, e, System.nanoTime() - start));
+            throw e;
+        }
+        return System.nanoTime() - start;
+    }
+
     public abstract void execute() throws Exception;
 
+    // execute() calls it holding the locks of the generals it is about to
+    // change, and afterChange() once they changed, still holding the locks
+    protected final void beforeChange() {
+        if (this.listener != null) {
+            this.sequence = this.listener.beforeChange(this);
+        }
+    }
+
+    protected final void afterChange() {
+        if (this.listener != null) {
+            this.listener.afterChange(this, this.sequence);
+        }
+    }
+
+    // the listener is told about every change the command makes
+    public final void setExecutionListener(ExecutionListener listener) {
+        this.listener = listener;
+    }
+
     public final General getGeneral() { return this.general; }
 }
\ No newline at end of file
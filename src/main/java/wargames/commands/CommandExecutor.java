@@ -0,0 +1,72 @@
+package wargames.commands;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import wargames.models.General;
+
+// Runs commands on virtual threads. Every general has a serial queue, kept
+// as the tail of a chain of futures: a command starts only after the
+// general's previous command finished, while commands of different generals
+// run in parallel. Generals without pending commands take no memory.
+public class CommandExecutor implements AutoCloseable {
+
+    private static final CompletableFuture<Void> IDLE = CompletableFuture.completedFuture(null);
+
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentHashMap<General, CompletableFuture<Void>> queues = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    // the future completes with the executed command, or exceptionally with
+    // whatever it threw, e.g. InsufficientGoldException; a command submitted
+    // while the executor is closing may be rejected instead, completing the
+    // future with a RejectedExecutionException
+    public <C extends Command> CompletableFuture<C> submit(C command) {
+        if (this.closed) {
+            throw new IllegalStateException("command executor is closed");
+        }
+
+        General                 general = command.getGeneral();
+        CompletableFuture<C>    outcome = new CompletableFuture<>();
+        CompletableFuture<Void> tail    = this.queues.compute(general, (g, previous) ->
+            (previous == null ? IDLE : previous).handleAsync((r, e) -> {
+                run(command, outcome);
+                return null;
+            }, this.threads)
+        );
+
+        // the tail fails when the threads already stopped or the command threw
+        // an Error, which run() lets through; forget the queue once its last
+        // command is done
+        tail.whenComplete((r, e) -> {
+            if (e != null) {
+                outcome.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+            }
+            this.queues.remove(general, tail);
+        });
+        return outcome;
+    }
+
+    private static <C extends Command> void run(C command, CompletableFuture<C> outcome) {
+        try {
+            command.executeAndUpdate();
+            outcome.complete(command);
+        } catch (Exception e) {
+            outcome.completeExceptionally(e);
+        }
+    }
+
+    // waits for every submitted command, then stops the threads
+    @Override
+    public void close() {
+        this.closed = true;
+        for (CompletableFuture<Void> tail : this.queues.values()) {
+            tail.join();
+        }
+        this.threads.close();
+    }
+}
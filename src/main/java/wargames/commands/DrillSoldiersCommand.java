@@ -12,6 +12,10 @@ public class DrillSoldiersCommand extends Command {
     
     private final List<Soldier> soldiersToDrill;
 
+    // positions of the drilled soldiers in the army when they were drilled,
+    // or null until the drill ran or when it drills the whole army
+    private int[] drilledPositions;
+
     public DrillSoldiersCommand(General general,
                                 List<Soldier> soldiers,
                                 EventDispatcher dispatcher) {
@@ -20,11 +24,18 @@ public class DrillSoldiersCommand extends Command {
         this.soldiersToDrill = soldiers;
     }
     
+    public int[] getDrilledPositions() {
+        return this.drilledPositions;
+    }
+
     public int getQuantity() {
         return (int) soldiersToDrill.stream().count();
     }
 
     public int getCost() {
+        if (drillsWholeArmy()) {
+            return this.general.getArmy().getRankHistogram().getTotalRankValue();
+        }
         return calculateDrillCost(soldiersToDrill);
     }
     
@@ -34,10 +45,18 @@ public class DrillSoldiersCommand extends Command {
             throw new IllegalArgumentException("null argument passed to DrillSoldiersCommand");
         }
         
-        int drillCost = calculateDrillCost(this.soldiersToDrill);
-        this.general.subtractGold(drillCost);
-        
-        drillSoldiers(this.soldiersToDrill);
+        this.general.getLock().lock();
+        try {
+            beforeChange();
+            // validates every soldier before any gold is charged or exp applied
+            int drillCost = validateAndCalculateDrillCost(this.soldiersToDrill);
+            this.general.subtractGold(drillCost);
+
+            drillSoldiers(this.soldiersToDrill);
+            afterChange();
+        } finally {
+            this.general.getLock().unlock();
+        }
     }
     
     private int calculateDrillCost(List<Soldier> soldiers) {
@@ -46,14 +65,36 @@ public class DrillSoldiersCommand extends Command {
             .sum();
     }
     
-    private void drillSoldiers(List<Soldier> soldiers) {
-        List<Soldier> generalSoldiers = this.general.getArmy().getSoldiers();
+    // drilling the army's own soldier list is always valid,
+    // and its cost comes from the rank histogram in O(number of ranks)
+    public boolean drillsWholeArmy() {
+        return this.general != null && this.soldiersToDrill == this.general.getArmy().getSoldiers();
+    }
+
+    private int validateAndCalculateDrillCost(List<Soldier> soldiers) {
+        if (drillsWholeArmy()) {
+            return this.general.getArmy().getRankHistogram().getTotalRankValue();
+        }
+
+        Army  generalArmy = this.general.getArmy();
+        int[] positions   = new int[soldiers.size()];
+        int   drilled     = 0;
+        int   drillCost   = 0;
         for (Soldier s : soldiers) {
-            if (generalSoldiers.contains(s)) {
-                s.increaseExpByN(EXP_INCREASE);
-                continue;
+            int position = generalArmy.positionOf(s);
+            if (position < 0) {
+                throw new IllegalArgumentException("drilled soldiers must be part of drilling general's army");
             }
-            throw new IllegalArgumentException("drilled soldiers must be part of drilling general's army");
+            positions[drilled++] = position;
+            drillCost += s.getRank().getValue();
+        }
+        this.drilledPositions = positions;
+        return drillCost;
+    }
+    
+    private void drillSoldiers(List<Soldier> soldiers) {
+        for (Soldier s : soldiers) {
+            s.increaseExpByN(EXP_INCREASE);
         }
     }
 }
@@ -0,0 +1,15 @@
+package wargames.commands;
+
+// Told about the changes of the commands it is set on while they hold the
+// locks of the generals they change, so the changes of each general reach
+// it in the order they were made, however the commands are scheduled.
+// Commands without a listener, such as replayed ones, tell nobody.
+public interface ExecutionListener {
+
+    // the command is about to change its generals; what it returns is
+    // handed to afterChange()
+    long beforeChange(Command command);
+
+    // the command changed its generals successfully
+    void afterChange(Command command, long sequence);
+}
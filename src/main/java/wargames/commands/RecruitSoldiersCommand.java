@@ -32,23 +32,30 @@ public class RecruitSoldiersCommand extends Command {
             throw new IllegalArgumentException("soldier quantity must be positive");
         }
 
-        int recruitmentCost = calculateRecruitmentCost(quantity, rank);
-        general.subtractGold(recruitmentCost);
-        
-        recruitSoldiers(quantity, rank); 
+        general.getLock().lock();
+        try {
+            beforeChange();
+            int recruitmentCost = calculateRecruitmentCost(quantity, rank);
+            general.subtractGold(recruitmentCost);
+
+            recruitSoldiers(quantity, rank);
+            afterChange();
+        } finally {
+            general.getLock().unlock();
+        }
     }
     
     private void recruitSoldiers(int quantity, Rank rank) {
-        for (int i = 0; i < quantity; i++) {
-            Soldier newSoldier = soldierFactory.createSoldier(rank);
-            this.general.getArmy().add(newSoldier);
-        }       
+        soldierFactory.recruitInto(this.general.getArmy(), rank, quantity);
     }
     
     private static int calculateRecruitmentCost(int quantity, Rank rank) {
         int costPerSoldier = COST_PER_RANK * rank.getValue();
-        int totalCost = costPerSoldier * quantity;
-        return totalCost;
+        try {
+            return Math.multiplyExact(costPerSoldier, quantity);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Overflow: cannot recruit " + quantity + " soldiers of rank " + rank);
+        }
     }
 
     public int getQuantity() {
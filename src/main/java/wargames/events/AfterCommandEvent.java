@@ -4,6 +4,26 @@ import wargames.commands.Command;
 
 public class AfterCommandEvent extends CommandEvent {
 
-    public AfterCommandEvent(Command command) { super(command); }
+    private long executeNanos;
 
-}
\ No newline at end of file
+    public AfterCommandEvent(Command command) { this(command, 0); }
+
+    // executeNanos is how long execute() took
+    public AfterCommandEvent(Command command, long executeNanos) {
+        super(command);
+        this.executeNanos = executeNanos;
+    }
+
+    AfterCommandEvent() { }
+
+    public long getExecuteNanos() { return this.executeNanos; }
+
+    @Override
+    public AfterCommandEvent copy() { return new AfterCommandEvent(getCommand(), this.executeNanos); }
+
+    void reset(Command command, long executeNanos) {
+        reset(command);
+        this.executeNanos = executeNanos;
+    }
+
+}
@@ -6,4 +6,9 @@ public class BeforeCommandEvent extends CommandEvent {
 
     public BeforeCommandEvent(Command command) { super(command); }
 
-}
\ No newline at end of file
+    BeforeCommandEvent() { }
+
+    @Override
+    public BeforeCommandEvent copy() { return new BeforeCommandEvent(getCommand()); }
+
+}
@@ -3,14 +3,35 @@ package wargames.events;
 import wargames.commands.Command;
 import wargames.models.General;
 
+// Pooled events come from a CommandEventPool and are recycled as soon as
+// every subscriber has returned from update(); subscribers must copy out
+// the data they keep, or keep copy() of the event instead.
 public class CommandEvent implements Event {
-    private final Command command;
+    private Command       command;
+    private final boolean pooled;
 
-    public CommandEvent(Command command) { this.command = command; }
+    public CommandEvent(Command command) {
+        this.command = command;
+        this.pooled  = false;
+    }
+
+    // empty event owned by a CommandEventPool
+    CommandEvent() {
+        this.pooled = true;
+    }
 
     public String  getGeneralName() { return command.getGeneral().getName(); }
     public General getGeneral()     { return command.getGeneral(); }
 
     public String  getCommandName() { return command.getClass().getSimpleName(); }
     public Command getCommand()     { return command; }
+
+    public boolean isPooled() { return this.pooled; }
+
+    // event of the same type about the same command that is never recycled
+    public CommandEvent copy() { return new CommandEvent(this.command); }
+
+    void reset(Command command) {
+        this.command = command;
+    }
 }
@@ -0,0 +1,61 @@
+package wargames.events;
+
+import java.util.ArrayDeque;
+
+import wargames.commands.Command;
+
+// Per-thread free lists of command events. A command executed from within
+// a subscriber takes another pair of events, so the pool of a thread grows
+// to the deepest nesting of commands it has seen and then stops allocating.
+public final class CommandEventPool {
+
+    private static final ThreadLocal<CommandEventPool> pools =
+        ThreadLocal.withInitial(CommandEventPool::new);
+
+    private final ArrayDeque<BeforeCommandEvent> freeBefore = new ArrayDeque<>();
+    private final ArrayDeque<AfterCommandEvent>  freeAfter  = new ArrayDeque<>();
+
+    private CommandEventPool() { }
+
+    public static CommandEventPool forCurrentThread() {
+        return pools.get();
+    }
+
+    public BeforeCommandEvent acquireBefore(Command command) {
+        BeforeCommandEvent event = this.freeBefore.poll();
+        if (event == null) {
+            event = new BeforeCommandEvent();
+        }
+        event.reset(command);
+        return event;
+    }
+
+    public AfterCommandEvent acquireAfter(Command command, long executeNanos) {
+        AfterCommandEvent event = this.freeAfter.poll();
+        if (event == null) {
+            event = new AfterCommandEvent();
+        }
+        event.reset(command, executeNanos);
+        return event;
+    }
+
+    // returns a pooled event acquired from this pool; the event
+    // no longer refers to its command afterwards
+    public void release(BeforeCommandEvent event) {
+        checkPooled(event);
+        event.reset(null);
+        this.freeBefore.push(event);
+    }
+
+    public void release(AfterCommandEvent event) {
+        checkPooled(event);
+        event.reset(null, 0);
+        this.freeAfter.push(event);
+    }
+
+    private static void checkPooled(CommandEvent event) {
+        if (!event.isPooled()) {
+            throw new IllegalArgumentException("event does not come from a pool");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package wargames.events;
+
+import wargames.commands.Command;
+
+// Published instead of an AfterCommandEvent when execute() throws;
+// the failure is rethrown to the caller once the subscribers return
+public class FailedCommandEvent extends CommandEvent {
+
+    private final Exception failure;
+    private final long      executeNanos;
+
+    public FailedCommandEvent(Command command, Exception failure, long executeNanos) {
+        super(command);
+        this.failure      = failure;
+        this.executeNanos = executeNanos;
+    }
+
+    public Exception getFailure()      { return this.failure; }
+    public long      getExecuteNanos() { return this.executeNanos; }
+
+    @Override
+    public FailedCommandEvent copy() { return new FailedCommandEvent(getCommand(), this.failure, this.executeNanos); }
+
+}
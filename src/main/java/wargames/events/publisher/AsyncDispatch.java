@@ -0,0 +1,87 @@
+package wargames.events.publisher;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import wargames.events.Event;
+
+// Consumer thread draining an EventRingBuffer in batches and handing
+// each event to the dispatcher's subscribers
+final class AsyncDispatch {
+
+    static final int BATCH_SIZE = 64;
+
+    private final EventRingBuffer    buffer;
+    private final BackPressurePolicy policy;
+    private final Consumer<Event>    delivery;
+    private final AtomicLong         droppedEvents = new AtomicLong();
+
+    AsyncDispatch(int capacity, BackPressurePolicy policy, Consumer<Event> delivery) {
+        this.buffer   = new EventRingBuffer(capacity);
+        this.policy   = policy;
+        this.delivery = delivery;
+
+        Thread consumer = new Thread(this::drain, "event-dispatcher");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    // returns false when the caller has to notify the subscribers itself
+    boolean publish(Event e) {
+        switch (this.policy) {
+            case BLOCK:
+                return this.buffer.publish(e, true);
+
+            case DROP:
+                if (!this.buffer.publish(e, false)) {
+                    this.droppedEvents.incrementAndGet();
+                }
+                return true;
+
+            default:
+                return this.buffer.publish(e, false);
+        }
+    }
+
+    long getDroppedEvents() {
+        return this.droppedEvents.get();
+    }
+
+    void awaitProcessed() {
+        this.buffer.awaitProcessed();
+    }
+
+    // stops accepting events and waits until the already published ones are delivered
+    void shutdown() {
+        this.buffer.close();
+        this.buffer.awaitProcessed();
+    }
+
+    private void drain() {
+        Event[] batch = new Event[BATCH_SIZE];
+        int count;
+        while ((count = this.buffer.take(batch)) > 0) {
+            for (int i = 0; i < count; i++) {
+                deliver(batch[i]);
+                batch[i] = null;
+            }
+            this.buffer.markProcessed(count);
+        }
+    }
+
+    // a failing subscriber must not stop the consumer thread, or every later
+    // awaitProcessed() would wait forever, so even an Error is only handed to
+    // the thread's uncaught exception handler, which must not stop it either
+    private void deliver(Event e) {
+        try {
+            this.delivery.accept(e);
+        } catch (Throwable failure) {
+            Thread current = Thread.currentThread();
+            try {
+                current.getUncaughtExceptionHandler().uncaughtException(current, failure);
+            } catch (Throwable ignored) {
+                // the failure was already a subscriber's
+            }
+        }
+    }
+}
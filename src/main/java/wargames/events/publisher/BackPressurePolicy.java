@@ -0,0 +1,12 @@
+package wargames.events.publisher;
+
+// What an asynchronous EventDispatcher does with an event published
+// while its buffer is full. CALLER_RUNS delivers the event on the publishing
+// thread at once, concurrently with the consumer thread and ahead of the
+// events still in the buffer, so subscribers see events out of order and
+// have to be thread-safe.
+public enum BackPressurePolicy {
+    BLOCK,       // wait until the consumer thread frees a slot
+    DROP,        // discard the event
+    CALLER_RUNS  // notify subscribers on the publishing thread
+}
@@ -0,0 +1,57 @@
+package wargames.events.publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import wargames.events.*;
+import wargames.events.subscribers.Subscriber;
+
+// Immutable snapshot of subscriptions with a lazily filled routing cache
+// keyed by event class and command class. Once an (event, command) pair
+// has been seen, publishing it touches only the interested subscribers.
+final class DispatchTable {
+
+    // inner routing key of events not related to a command
+    private static final Class<?> NO_COMMAND = Object.class;
+
+    private final Subscription[] subscriptions;
+    private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Class<?>, Subscriber[]>> routes;
+
+    DispatchTable(List<Subscription> subscriptions) {
+        this.subscriptions = subscriptions.toArray(new Subscription[0]);
+        this.routes        = new ConcurrentHashMap<>();
+    }
+
+    Subscriber[] route(Event e) {
+        Class<?> eventClass   = e.getClass();
+        Class<?> commandClass = e instanceof CommandEvent
+                                ? ((CommandEvent) e).getCommand().getClass()
+                                : NO_COMMAND;
+
+        // plain lookups first: the resolving lambda captures eventClass,
+        // so computeIfAbsent would allocate on every published event
+        ConcurrentHashMap<Class<?>, Subscriber[]> byCommand = this.routes.get(eventClass);
+        if (byCommand != null) {
+            Subscriber[] route = byCommand.get(commandClass);
+            if (route != null) {
+                return route;
+            }
+        }
+        return this.routes
+            .computeIfAbsent(eventClass, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(commandClass, k -> resolve(eventClass, k));
+    }
+
+    private Subscriber[] resolve(Class<?> eventClass, Class<?> commandClass) {
+        Class<?> command = commandClass == NO_COMMAND ? null : commandClass;
+
+        List<Subscriber> interested = new ArrayList<>();
+        for (Subscription s : this.subscriptions) {
+            if (s.matches(eventClass, command)) {
+                interested.add(s.subscriber);
+            }
+        }
+        return interested.toArray(new Subscriber[0]);
+    }
+}
@@ -1,17 +1,41 @@
 package wargames.events.publisher;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
+import wargames.commands.Command;
 import wargames.events.*;
 import wargames.events.subscribers.*;
 
 // Thread-safe implementation of Publisher with lazy loading
 // https://refactoring.guru/design-patterns/singleton/java/example#example-2
+//
+// By default subscribers are notified synchronously on the publishing thread.
+// In asynchronous mode events go through a bounded ring buffer drained by a
+// dedicated consumer thread, so slow subscribers do not delay commands.
+// Events reach subscribers in publishing order, except under CALLER_RUNS,
+// which delivers on the publishing thread whenever the buffer is full.
+//
+// Subscribers may subscribe to a type of event and, optionally, a type of
+// command. Events are routed through a dispatch table keyed by event and
+// command class, so publishing only touches interested subscribers.
+//
+// With event pooling enabled, commands publish CommandEvents taken from a
+// per-thread CommandEventPool and recycle them once the subscribers return,
+// so subscribers must copy out whatever they keep. Asynchronous dispatch
+// outlives that window, so it buffers a copy of pooled events instead.
 public class EventDispatcher implements Publisher { 
 
     private static volatile EventDispatcher instance;
-    private final List<Subscriber> subscribers;
+
+    private final List<Subscription> subscriptions;
+    private final Object             subscriptionsLock = new Object();
+
+    private volatile DispatchTable dispatchTable;
+
+    private volatile AsyncDispatch asyncDispatch;
+
+    private volatile boolean eventPooling;
 
     public static EventDispatcher getInstance() {
         /* 
@@ -35,30 +59,110 @@ public class EventDispatcher implements Publisher {
     }
 
     private EventDispatcher() {
-        subscribers = new CopyOnWriteArrayList<>();
+        subscriptions = new ArrayList<>();
+        dispatchTable = new DispatchTable(subscriptions);
     }
     
+    // subscribes to every event
     @Override
     public void addSubscriber(Subscriber s) {
-        this.subscribers.add(s);
-        
+        addSubscriber(Event.class, s);
+    }
+
+    public void addSubscriber(Class<? extends Event> eventType, Subscriber s) {
+        addSubscription(new Subscription(eventType, null, s));
+    }
+
+    // subscribes to CommandEvents of eventType about commands of commandType
+    public void addSubscriber(Class<? extends CommandEvent> eventType,
+                              Class<? extends Command> commandType,
+                              Subscriber s) {
+        addSubscription(new Subscription(eventType, commandType, s));
     }
     
     public void removeAllSubscribers() {
-        for (Subscriber s : this.subscribers) {
-            removeSubscriber(s);
+        synchronized (this.subscriptionsLock) {
+            this.subscriptions.clear();
+            rebuildDispatchTable();
         }
     }
 
+    // removes every subscription of the subscriber
     @Override
     public void removeSubscriber(Subscriber s) {
-        this.subscribers.remove(s);
+        synchronized (this.subscriptionsLock) {
+            this.subscriptions.removeIf(subscription -> subscription.subscriber == s);
+            rebuildDispatchTable();
+        }
     }
 
     @Override
     public void updateSubscribers(Event e) {
-        for (Subscriber s : this.subscribers) {
+        AsyncDispatch async = this.asyncDispatch;
+        if (async != null && e instanceof CommandEvent && ((CommandEvent) e).isPooled()) {
+            e = ((CommandEvent) e).copy();
+        }
+        if (async == null || !async.publish(e)) {
+            notifySubscribers(e);
+        }
+    }
+
+    public synchronized void enableAsyncDispatch(int capacity, BackPressurePolicy policy) {
+        if (this.asyncDispatch != null) {
+            throw new IllegalStateException("asynchronous dispatch is already enabled");
+        }
+        this.asyncDispatch = new AsyncDispatch(capacity, policy, this::notifySubscribers);
+    }
+
+    // delivers the events still in the buffer and returns to synchronous dispatch
+    public synchronized void disableAsyncDispatch() {
+        AsyncDispatch async = this.asyncDispatch;
+        if (async == null) {
+            return;
+        }
+        this.asyncDispatch = null;
+        async.shutdown();
+    }
+
+    public void enableEventPooling()  { this.eventPooling = true; }
+    public void disableEventPooling() { this.eventPooling = false; }
+
+    public boolean isEventPoolingEnabled() {
+        return this.eventPooling;
+    }
+
+    public boolean isAsyncDispatchEnabled() {
+        return this.asyncDispatch != null;
+    }
+
+    // waits until every event published so far has reached the subscribers
+    public void awaitDispatched() {
+        AsyncDispatch async = this.asyncDispatch;
+        if (async != null) {
+            async.awaitProcessed();
+        }
+    }
+
+    // events discarded by the DROP policy since asynchronous dispatch was enabled
+    public long getDroppedEvents() {
+        AsyncDispatch async = this.asyncDispatch;
+        return async == null ? 0 : async.getDroppedEvents();
+    }
+
+    private void notifySubscribers(Event e) {
+        for (Subscriber s : this.dispatchTable.route(e)) {
             s.update(e);
         }
     }
+
+    private void addSubscription(Subscription subscription) {
+        synchronized (this.subscriptionsLock) {
+            this.subscriptions.add(subscription);
+            rebuildDispatchTable();
+        }
+    }
+
+    private void rebuildDispatchTable() {
+        this.dispatchTable = new DispatchTable(this.subscriptions);
+    }
 }
\ No newline at end of file
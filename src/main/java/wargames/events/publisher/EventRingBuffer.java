@@ -0,0 +1,113 @@
+package wargames.events.publisher;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import wargames.events.Event;
+
+// Bounded, preallocated ring of events shared by publishing threads
+// and a single consumer thread
+final class EventRingBuffer {
+
+    private final Event[] slots;
+
+    private final ReentrantLock lock      = new ReentrantLock();
+    private final Condition     notEmpty  = lock.newCondition();
+    private final Condition     notFull   = lock.newCondition();
+    private final Condition     delivered = lock.newCondition();
+
+    private long published;   // events put into the ring
+    private long taken;       // events handed to the consumer
+    private long processed;   // events the consumer is done with
+    private boolean closed;
+
+    EventRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("ring buffer capacity must be positive");
+        }
+        this.slots = new Event[capacity];
+    }
+
+    // returns false if the event was not accepted: the buffer is closed,
+    // or it is full and the caller does not want to wait
+    boolean publish(Event e, boolean waitIfFull) {
+        lock.lock();
+        try {
+            while (!closed && isFull()) {
+                if (!waitIfFull) {
+                    return false;
+                }
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                return false;
+            }
+
+            slots[(int) (published++ % slots.length)] = e;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // waits for events and moves up to batch.length of them into batch;
+    // returns 0 once the buffer is closed and empty
+    int take(Event[] batch) {
+        lock.lock();
+        try {
+            while (!closed && published == taken) {
+                notEmpty.awaitUninterruptibly();
+            }
+
+            int count = (int) Math.min(batch.length, published - taken);
+            for (int i = 0; i < count; i++) {
+                int slot = (int) (taken++ % slots.length);
+                batch[i] = slots[slot];
+                slots[slot] = null;
+            }
+            notFull.signalAll();
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void markProcessed(int count) {
+        lock.lock();
+        try {
+            processed += count;
+            delivered.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // waits until every event published so far has been processed
+    void awaitProcessed() {
+        lock.lock();
+        try {
+            long target = published;
+            while (processed < target) {
+                delivered.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isFull() {
+        return published - taken == slots.length;
+    }
+}
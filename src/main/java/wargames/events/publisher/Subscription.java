@@ -0,0 +1,31 @@
+package wargames.events.publisher;
+
+import wargames.commands.Command;
+import wargames.events.*;
+import wargames.events.subscribers.Subscriber;
+
+// Subscriber interested in events of eventType (or its subtypes) and,
+// when commandType is set, only in CommandEvents about such commands
+final class Subscription {
+
+    final Class<? extends Event>   eventType;
+    final Class<? extends Command> commandType;
+    final Subscriber               subscriber;
+
+    Subscription(Class<? extends Event> eventType,
+                 Class<? extends Command> commandType,
+                 Subscriber subscriber) {
+        this.eventType   = eventType;
+        this.commandType = commandType;
+        this.subscriber  = subscriber;
+    }
+
+    // commandClass is null for events not related to a command
+    boolean matches(Class<?> eventClass, Class<?> commandClass) {
+        if (!this.eventType.isAssignableFrom(eventClass)) {
+            return false;
+        }
+        return this.commandType == null
+            || (commandClass != null && this.commandType.isAssignableFrom(commandClass));
+    }
+}
@@ -0,0 +1,310 @@
+package wargames.events.subscribers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import wargames.events.publisher.BackPressurePolicy;
+
+// Report sink handing reports over to a background writer thread, so command
+// latency does not depend on disk or terminal speed. The writer collects up
+// to batchSize reports, or whatever arrived within flushInterval, and writes
+// each batch as UTF-8 with a single FileChannel.write. At most capacity
+// reports wait for the writer; what happens to a report written while they
+// are all waiting is up to the back-pressure policy, as in the asynchronous
+// EventDispatcher.
+public class BackgroundReportWriter implements ReportSink, AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final int INITIAL_BATCH_BUFFER_SIZE = 8192;
+
+    private final FileChannel        channel;
+    private final int                batchSize;
+    private final long               flushIntervalNanos;
+    private final FsyncPolicy        fsyncPolicy;
+    private final int                capacity;
+    private final BackPressurePolicy policy;
+
+    private final ArrayDeque<String> reports;
+    private final ReentrantLock      lock           = new ReentrantLock();
+    private final Condition          notFull        = lock.newCondition();
+    private final AtomicLong         submitted      = new AtomicLong();
+    private final AtomicLong         flushTarget    = new AtomicLong();
+    private final AtomicLong         droppedReports = new AtomicLong();
+    private final Object             progress       = new Object();
+    private final Thread             writer;
+
+    private volatile long        written;
+    private volatile boolean     closed;    // set under lock
+    private volatile boolean     stopped;   // set under lock
+    private volatile IOException failure;
+
+    // used by the writer thread only
+    private final String[] pending;
+    private ByteBuffer     batch = ByteBuffer.allocate(INITIAL_BATCH_BUFFER_SIZE);
+
+    public BackgroundReportWriter(FileChannel channel,
+                                  int batchSize,
+                                  Duration flushInterval,
+                                  FsyncPolicy fsyncPolicy) {
+        this(channel, batchSize, flushInterval, fsyncPolicy, DEFAULT_CAPACITY, BackPressurePolicy.BLOCK);
+    }
+
+    public BackgroundReportWriter(FileChannel channel,
+                                  int batchSize,
+                                  Duration flushInterval,
+                                  FsyncPolicy fsyncPolicy,
+                                  int capacity,
+                                  BackPressurePolicy policy) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("flush interval must be positive");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("report writer capacity must be positive");
+        }
+
+        // a batch never waits for more reports than may be waiting at once
+        this.channel            = channel;
+        this.batchSize          = Math.min(batchSize, capacity);
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.fsyncPolicy        = fsyncPolicy;
+        this.capacity           = capacity;
+        this.policy             = policy;
+        this.reports            = new ArrayDeque<>(Math.min(capacity, INITIAL_BATCH_BUFFER_SIZE));
+        this.pending            = new String[this.batchSize];
+
+        this.writer = new Thread(this::run, "report-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public long getDroppedReports() {
+        return this.droppedReports.get();
+    }
+
+    // copies the report and returns without waiting for the write, unless
+    // capacity reports are already waiting: then BLOCK waits for the writer
+    // to take some, DROP discards the report and CALLER_RUNS writes it on
+    // the calling thread, possibly ahead of the waiting ones
+    @Override
+    public void write(CharSequence report) {
+        throwIfFailed();
+        String text = report.toString();
+
+        boolean accepted;
+        boolean wakeWriter = false;
+        this.lock.lock();
+        try {
+            while (this.policy == BackPressurePolicy.BLOCK
+                   && !this.closed && !this.stopped && this.reports.size() == this.capacity) {
+                this.notFull.awaitUninterruptibly();
+            }
+            if (this.closed) {
+                throw new IllegalStateException("report writer is closed");
+            }
+            throwIfFailed();
+
+            accepted = this.reports.size() < this.capacity;
+            if (accepted) {
+                this.reports.add(text);
+                wakeWriter = this.submitted.incrementAndGet() - this.written >= this.batchSize;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (wakeWriter) {
+            LockSupport.unpark(this.writer);
+        }
+        if (!accepted) {
+            overflow(text);
+        }
+    }
+
+    private void overflow(String report) {
+        if (this.policy == BackPressurePolicy.DROP) {
+            this.droppedReports.incrementAndGet();
+            return;
+        }
+
+        ByteBuffer bytes = ByteBuffer.wrap(report.getBytes(StandardCharsets.UTF_8));
+        try {
+            while (bytes.hasRemaining()) {
+                this.channel.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not write report", e);
+        }
+    }
+
+    // waits until every report written so far has reached the channel
+    @Override
+    public void flush() {
+        long target = this.submitted.get();
+        this.flushTarget.accumulateAndGet(target, Math::max);
+        LockSupport.unpark(this.writer);
+
+        awaitWritten(target);
+    }
+
+    // writes the remaining reports and stops the writer thread; reports are
+    // accepted under the same lock that closes the writer, so every accepted
+    // report is written. The channel itself is left open
+    @Override
+    public void close() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+        LockSupport.unpark(this.writer);
+
+        awaitWritten(this.submitted.get());
+    }
+
+    private void awaitWritten(long target) {
+        synchronized (this.progress) {
+            while (this.written < target && !this.stopped) {
+                try {
+                    this.progress.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        throwIfFailed();
+
+        if (this.fsyncPolicy == FsyncPolicy.ON_FLUSH) {
+            force();
+        }
+    }
+
+    private void force() {
+        try {
+            this.channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not force reports to storage", e);
+        }
+    }
+
+    private void throwIfFailed() {
+        IOException e = this.failure;
+        if (e != null) {
+            throw new UncheckedIOException("report writer failed", e);
+        }
+    }
+
+    private void run() {
+        try {
+            // closed is read before the queue, so once it is seen set
+            // no report can be added behind the last batch
+            while (!this.closed || hasReports()) {
+                awaitBatch();
+                int count;
+                while ((count = takeBatch()) > 0) {
+                    writeBatch(count);
+                }
+            }
+        } catch (IOException e) {
+            this.failure = e;
+        } finally {
+            this.lock.lock();
+            try {
+                this.stopped = true;
+                this.notFull.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+            synchronized (this.progress) {
+                this.progress.notifyAll();
+            }
+        }
+    }
+
+    // parks until a full batch is pending, a flush or close is requested,
+    // or the flush interval passes
+    private void awaitBatch() {
+        long deadline = System.nanoTime() + this.flushIntervalNanos;
+        long remaining;
+        while (!this.closed
+               && this.submitted.get() - this.written < this.batchSize
+               && this.flushTarget.get() <= this.written
+               && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    private boolean hasReports() {
+        this.lock.lock();
+        try {
+            return !this.reports.isEmpty();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // moves up to batchSize waiting reports into pending
+    private int takeBatch() {
+        this.lock.lock();
+        try {
+            int    count = 0;
+            String report;
+            while (count < this.pending.length && (report = this.reports.poll()) != null) {
+                this.pending[count++] = report;
+            }
+            if (count > 0) {
+                this.notFull.signalAll();
+            }
+            return count;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void writeBatch(int count) throws IOException {
+        this.batch.clear();
+        for (int i = 0; i < count; i++) {
+            append(this.pending[i].getBytes(StandardCharsets.UTF_8));
+            this.pending[i] = null;
+        }
+
+        this.batch.flip();
+        while (this.batch.hasRemaining()) {
+            this.channel.write(this.batch);
+        }
+        if (this.fsyncPolicy == FsyncPolicy.EVERY_BATCH) {
+            this.channel.force(false);
+        }
+
+        this.written += count;
+        synchronized (this.progress) {
+            this.progress.notifyAll();
+        }
+    }
+
+    private void append(byte[] bytes) {
+        if (this.batch.remaining() < bytes.length) {
+            int newCapacity = Math.max(2 * this.batch.capacity(), this.batch.position() + bytes.length);
+            ByteBuffer grown = ByteBuffer.allocate(newCapacity);
+            this.batch.flip();
+            grown.put(this.batch);
+            this.batch = grown;
+        }
+        this.batch.put(bytes);
+    }
+}
@@ -0,0 +1,89 @@
+package wargames.events.subscribers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+// Encodes reports into a reusable byte buffer and writes it to a channel
+// (e.g. a FileChannel) only when the buffer fills up or on flush()
+public class ChannelReportSink implements ReportSink {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder      encoder;
+    private final ByteBuffer          bytes;
+
+    private CharBuffer chars;
+
+    public ChannelReportSink(WritableByteChannel channel) {
+        this(channel, StandardCharsets.UTF_8, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ChannelReportSink(WritableByteChannel channel, Charset charset, int bufferSize) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        if (bufferSize < this.encoder.maxBytesPerChar()) {
+            throw new IllegalArgumentException("buffer too small for charset " + charset);
+        }
+
+        this.bytes = ByteBuffer.allocate(bufferSize);
+        this.chars = CharBuffer.allocate(256);
+    }
+
+    @Override
+    public synchronized void write(CharSequence report) {
+        CharBuffer in = copy(report);
+
+        this.encoder.reset();
+        while (this.encoder.encode(in, this.bytes, true).isOverflow()) {
+            drain();
+        }
+        while (this.encoder.flush(this.bytes).isOverflow()) {
+            drain();
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        drain();
+    }
+
+    // CharBuffer.append() would allocate a String, so chars are copied one by one
+    private CharBuffer copy(CharSequence report) {
+        int length = report.length();
+        if (this.chars.capacity() < length) {
+            this.chars = CharBuffer.allocate(Math.max(length, 2 * this.chars.capacity()));
+        }
+
+        this.chars.clear();
+        for (int i = 0; i < length; i++) {
+            this.chars.put(report.charAt(i));
+        }
+        this.chars.flip();
+
+        return this.chars;
+    }
+
+    private void drain() {
+        this.bytes.flip();
+        try {
+            while (this.bytes.hasRemaining()) {
+                this.channel.write(this.bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not write reports", e);
+        } finally {
+            this.bytes.clear();
+        }
+    }
+}
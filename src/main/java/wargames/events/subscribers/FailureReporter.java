@@ -0,0 +1,48 @@
+package wargames.events.subscribers;
+
+import wargames.events.*;
+
+// Reports every command that threw, naming the failure. Secretary leaves
+// failed commands out; subscribe this next to it to have them reported in
+// the same sink.
+public class FailureReporter implements Subscriber {
+
+    private static final ThreadLocal<StringBuilder> messageBuffer =
+        ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    private final String messagePrefix = "FailureReporter: ";
+    private final String messageSuffix = "\n";
+
+    private final String failedCmdSubjectInfix = " failed to execute ";
+    private final String detailsPrefix         = ": ";
+
+    private final ReportSink sink;
+
+    public FailureReporter() {
+        this(new SystemOutReportSink());
+    }
+
+    public FailureReporter(ReportSink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void update(Event event) {
+        if (!(event instanceof FailedCommandEvent)) {
+            return;
+        }
+        FailedCommandEvent failed = (FailedCommandEvent) event;
+
+        StringBuilder message = messageBuffer.get();
+        message.setLength(0);
+
+        message.append(messagePrefix)
+               .append(failed.getGeneralName())
+               .append(failedCmdSubjectInfix)
+               .append(failed.getCommandName())
+               .append(detailsPrefix)
+               .append(failed.getFailure().getClass().getSimpleName())
+               .append(messageSuffix);
+        this.sink.write(message);
+    }
+}
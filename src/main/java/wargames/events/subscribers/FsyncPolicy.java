@@ -0,0 +1,9 @@
+package wargames.events.subscribers;
+
+// When a BackgroundReportWriter or a CommandJournal forces what it wrote
+// to the storage device
+public enum FsyncPolicy {
+    NEVER,        // leave it to the operating system
+    EVERY_BATCH,  // after every batch written
+    ON_FLUSH      // when flush() or close() is called
+}
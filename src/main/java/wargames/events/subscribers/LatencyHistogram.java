@@ -0,0 +1,68 @@
+package wargames.events.subscribers;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear latency histogram in the style of HdrHistogram: every power
+// of two is split into SUB_BUCKETS linear buckets, so recorded values keep
+// 1 / SUB_BUCKETS relative precision over the whole range of a long.
+// Buckets are striped LongAdders, so recording never takes a lock.
+final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS     = 1 << SUB_BUCKET_BITS;
+
+    // values below SUB_BUCKETS get a bucket each, every larger
+    // power of two up to 2^62 gets SUB_BUCKETS of them
+    static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final LongAdder[]     buckets  = new LongAdder[BUCKETS];
+    private final LongAdder       totalSum = new LongAdder();
+    private final LongAccumulator max      = new LongAccumulator(Long::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    // negative values, e.g. from a clock going backwards, count as 0
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        this.buckets[bucketOf(value)].increment();
+        this.totalSum.add(value);
+        this.max.accumulate(value);
+    }
+
+    // counts per bucket; not atomic with respect to concurrent recording
+    long[] bucketCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets[i].sum();
+        }
+        return counts;
+    }
+
+    long sum() { return this.totalSum.sum(); }
+    long max() { return this.max.get(); }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift     = magnitude - SUB_BUCKET_BITS;
+        int sub       = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    // highest value that falls into the bucket
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int  shift  = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
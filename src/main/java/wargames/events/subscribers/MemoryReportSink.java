@@ -0,0 +1,23 @@
+package wargames.events.subscribers;
+
+// Keeps reports in an in-memory buffer
+public class MemoryReportSink implements ReportSink {
+
+    private final StringBuilder reports = new StringBuilder();
+
+    @Override
+    public synchronized void write(CharSequence report) {
+        this.reports.append(report);
+    }
+
+    @Override
+    public void flush() { }
+
+    public synchronized String getReports() {
+        return this.reports.toString();
+    }
+
+    public synchronized void clear() {
+        this.reports.setLength(0);
+    }
+}
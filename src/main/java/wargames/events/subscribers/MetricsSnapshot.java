@@ -0,0 +1,146 @@
+package wargames.events.subscribers;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Point-in-time copy of the metrics of a MetricsSubscriber, keyed by command
+// class name. Counters of one command are read one after another while
+// commands keep running, so they may be off by the commands in flight.
+public final class MetricsSnapshot {
+
+    // percentiles included in text and JSON dumps
+    static final double[] DUMPED_PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private final Map<String, CommandMetrics> commands;
+
+    MetricsSnapshot(Map<String, CommandMetrics> commands) {
+        this.commands = Collections.unmodifiableMap(new TreeMap<>(commands));
+    }
+
+    public Map<String, CommandMetrics> getCommands() { return this.commands; }
+
+    public CommandMetrics getCommand(String commandName) {
+        return this.commands.get(commandName);
+    }
+
+    // one line per command, e.g.
+    // AttackCommand started=10 succeeded=9 failed=1 failures={InsufficientGoldException=1} latency[ns] mean=... p50=... max=...
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        for (CommandMetrics m : this.commands.values()) {
+            text.append(m.getCommandName())
+                .append(" started=").append(m.getStarted())
+                .append(" succeeded=").append(m.getSucceeded())
+                .append(" failed=").append(m.getFailed())
+                .append(" failures=").append(m.getFailures())
+                .append(" latency[ns] mean=").append(m.getMeanLatencyNanos());
+            for (double p : DUMPED_PERCENTILES) {
+                text.append(" p").append(percentileLabel(p)).append('=').append(m.getLatencyPercentileNanos(p));
+            }
+            text.append(" max=").append(m.getMaxLatencyNanos())
+                .append('\n');
+        }
+        return text.toString();
+    }
+
+    // command and exception names are Java identifiers, so they need no escaping
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        String separator = "";
+        for (CommandMetrics m : this.commands.values()) {
+            json.append(separator).append('"').append(m.getCommandName()).append("\":{")
+                .append("\"started\":").append(m.getStarted())
+                .append(",\"succeeded\":").append(m.getSucceeded())
+                .append(",\"failed\":").append(m.getFailed())
+                .append(",\"failures\":{");
+            String failureSeparator = "";
+            for (Map.Entry<String, Long> failure : m.getFailures().entrySet()) {
+                json.append(failureSeparator).append('"').append(failure.getKey()).append("\":").append(failure.getValue());
+                failureSeparator = ",";
+            }
+            json.append("},\"latencyNanos\":{")
+                .append("\"count\":").append(m.getLatencyCount())
+                .append(",\"mean\":").append(m.getMeanLatencyNanos());
+            for (double p : DUMPED_PERCENTILES) {
+                json.append(",\"p").append(percentileLabel(p)).append("\":").append(m.getLatencyPercentileNanos(p));
+            }
+            json.append(",\"max\":").append(m.getMaxLatencyNanos())
+                .append("}}");
+            separator = ",";
+        }
+        return json.append('}').toString();
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+
+    // 50 -> "50", 99.9 -> "99_9"
+    private static String percentileLabel(double p) {
+        return p == Math.rint(p) ? Long.toString((long) p) : Double.toString(p).replace('.', '_');
+    }
+
+    public static final class CommandMetrics {
+        private final String            commandName;
+        private final long              started;
+        private final long              succeeded;
+        private final long              failed;
+        private final Map<String, Long> failures;
+        private final long[]            latencyBuckets;
+        private final long              latencyCount;
+        private final long              latencySum;
+        private final long              maxLatency;
+
+        CommandMetrics(String commandName, long started, long succeeded, long failed,
+                       Map<String, Long> failures, long[] latencyBuckets, long latencySum, long maxLatency) {
+            this.commandName    = commandName;
+            this.started        = started;
+            this.succeeded      = succeeded;
+            this.failed         = failed;
+            this.failures       = Collections.unmodifiableMap(new TreeMap<>(failures));
+            this.latencyBuckets = latencyBuckets;
+            this.latencySum     = latencySum;
+            this.maxLatency     = maxLatency;
+
+            long count = 0;
+            for (long c : latencyBuckets) {
+                count += c;
+            }
+            this.latencyCount = count;
+        }
+
+        public String            getCommandName() { return this.commandName; }
+        public long              getStarted()     { return this.started; }
+        public long              getSucceeded()   { return this.succeeded; }
+        public long              getFailed()      { return this.failed; }
+        public Map<String, Long> getFailures()    { return this.failures; }
+
+        public long getLatencyCount()    { return this.latencyCount; }
+        public long getMaxLatencyNanos() { return this.maxLatency; }
+
+        public long getMeanLatencyNanos() {
+            return this.latencyCount == 0 ? 0 : this.latencySum / this.latencyCount;
+        }
+
+        // highest latency of the percentile's bucket, capped at the maximum;
+        // accurate to the histogram's relative precision
+        public long getLatencyPercentileNanos(double percentile) {
+            if (!(percentile > 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile must be in (0, 100]");
+            }
+            if (this.latencyCount == 0) {
+                return 0;
+            }
+
+            long rank = (long) Math.ceil(percentile / 100 * this.latencyCount);
+            long seen = 0;
+            int  bucket = 0;
+            while ((seen += this.latencyBuckets[bucket]) < rank) {
+                bucket++;
+            }
+            return Math.min(LatencyHistogram.highestValueOf(bucket), this.maxLatency);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package wargames.events.subscribers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import wargames.commands.Command;
+import wargames.events.*;
+
+// Counts started, succeeded and failed commands per command class, failures
+// per exception class, and records execute() latencies in a log-linear
+// histogram. Recording only touches striped counters and lock-free map
+// lookups, so it can be subscribed on every command. getSnapshot() reads
+// the counters into a MetricsSnapshot that can be dumped as text or JSON.
+public class MetricsSubscriber implements Subscriber {
+
+    private final ConcurrentHashMap<Class<?>, Metrics> metrics = new ConcurrentHashMap<>();
+
+    @Override
+    public void update(Event e) {
+        if (!(e instanceof CommandEvent)) {
+            return;
+        }
+        Command command = ((CommandEvent) e).getCommand();
+        Metrics m       = metricsOf(command.getClass());
+
+        if (e instanceof BeforeCommandEvent) {
+            m.started.increment();
+
+        } else if (e instanceof AfterCommandEvent) {
+            m.succeeded.increment();
+            m.latency.record(((AfterCommandEvent) e).getExecuteNanos());
+
+        } else if (e instanceof FailedCommandEvent) {
+            FailedCommandEvent failed = (FailedCommandEvent) e;
+            m.failed.increment();
+            m.failureCounter(failed.getFailure().getClass()).increment();
+            m.latency.record(failed.getExecuteNanos());
+        }
+    }
+
+    public MetricsSnapshot getSnapshot() {
+        Map<String, MetricsSnapshot.CommandMetrics> commands = new HashMap<>();
+        for (Map.Entry<Class<?>, Metrics> entry : this.metrics.entrySet()) {
+            String name = entry.getKey().getSimpleName();
+            commands.put(name, entry.getValue().snapshot(name));
+        }
+        return new MetricsSnapshot(commands);
+    }
+
+    // plain lookup first: the hot path must not allocate
+    private Metrics metricsOf(Class<?> commandClass) {
+        Metrics m = this.metrics.get(commandClass);
+        return m != null ? m : this.metrics.computeIfAbsent(commandClass, k -> new Metrics());
+    }
+
+    private static final class Metrics {
+        final LongAdder        started   = new LongAdder();
+        final LongAdder        succeeded = new LongAdder();
+        final LongAdder        failed    = new LongAdder();
+        final LatencyHistogram latency   = new LatencyHistogram();
+
+        final ConcurrentHashMap<Class<?>, LongAdder> failures = new ConcurrentHashMap<>();
+
+        LongAdder failureCounter(Class<?> failureClass) {
+            LongAdder counter = this.failures.get(failureClass);
+            return counter != null ? counter : this.failures.computeIfAbsent(failureClass, k -> new LongAdder());
+        }
+
+        MetricsSnapshot.CommandMetrics snapshot(String commandName) {
+            Map<String, Long> failureCounts = new HashMap<>();
+            for (Map.Entry<Class<?>, LongAdder> entry : this.failures.entrySet()) {
+                failureCounts.put(entry.getKey().getSimpleName(), entry.getValue().sum());
+            }
+            return new MetricsSnapshot.CommandMetrics(
+                commandName, this.started.sum(), this.succeeded.sum(), this.failed.sum(),
+                failureCounts, this.latency.bucketCounts(), this.latency.sum(), this.latency.max());
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package wargames.events.subscribers;
+
+// Destination of Secretary reports. The report passed to write() is only
+// valid during the call; sinks must copy out whatever they keep.
+public interface ReportSink {
+    void write(CharSequence report);
+    void flush();
+}
@@ -2,168 +2,131 @@ package wargames.events.subscribers;
 
 import wargames.commands.*;
 import wargames.events.*;
-import wargames.models.Rank;
 
+// Reports every event it receives except failed commands, which
+// FailureReporter reports. Messages are formatted into a reusable
+// per-thread StringBuilder without String.format and handed to a ReportSink,
+// System.out by default.
 public class Secretary implements Subscriber {
 
+    private static final ThreadLocal<StringBuilder> messageBuffer =
+        ThreadLocal.withInitial(() -> new StringBuilder(128));
+
     private final String messagePrefix = "Secretary: ";
     private final String messageSuffix = "\n";
 
-    private final String eventSubjectTemplate     = "%s event occured";
-    private final String beforeCmdSubjectTemplate = "%s is about to execute %s";
-    private final String afterCmdSubjectTemplate  = "%s executed %s";
+    private final String eventSubjectSuffix    = " event occured";
+    private final String beforeCmdSubjectInfix = " is about to execute ";
+    private final String afterCmdSubjectInfix  = " executed ";
 
-    private final String recruitmentDetailsTemplate = ": %d soldiers of rank %s";
-    private final String drillDetailsTemplate       = ": %d soldiers for %d gold";
-    private final String preAttackDetailsTemplate   = ": attacking %s";
-    private final String wonAttackDetailsTemplate   = ": won with %s";
-    private final String lostAttackDetailsTemplate  = ": lost with %s";
-    private final String drewAttackDetailsTemplate  = ": drew with %s";
+    private final String detailsPrefix           = ": ";
+    private final String recruitmentDetailsInfix = " soldiers of rank ";
+    private final String drillDetailsInfix       = " soldiers for ";
+    private final String drillDetailsSuffix      = " gold";
+    private final String preAttackDetailsPrefix  = ": attacking ";
+    private final String wonAttackDetailsPrefix  = ": won with ";
+    private final String lostAttackDetailsPrefix = ": lost with ";
+    private final String drewAttackDetailsPrefix = ": drew with ";
 
-    @Override
-    public void update(Event event) {
-        String message = prepareMessage(event);
-        printMessageToSystemOut(message);
+    private final ReportSink sink;
+
+    public Secretary() {
+        this(new SystemOutReportSink());
     }
 
-    private String prepareMessage(Event event) {
-        String message = ""; 
+    public Secretary(ReportSink sink) {
+        this.sink = sink;
+    }
 
-        message += messagePrefix;
-        message += prepareMessageBody(event);
-        message += messageSuffix;
+    @Override
+    public void update(Event event) {
+        if (event instanceof FailedCommandEvent) {
+            return;
+        }
 
-        return message;
-    }
+        StringBuilder message = messageBuffer.get();
+        message.setLength(0);
 
-    private String prepareMessageBody(Event event) {
-        String messageBody = "";
-        
-        messageBody += prepareMessageSubject(event);
-        messageBody += prepareMessageDetails(event);
+        prepareMessage(event, message);
+        this.sink.write(message);
+    }
 
-        return messageBody;
+    private void prepareMessage(Event event, StringBuilder message) {
+        message.append(messagePrefix);
+        prepareMessageBody(event, message);
+        message.append(messageSuffix);
     }
-    
-    private String prepareMessageSubject(Event event) {
-        String messageSubject;
 
+    private void prepareMessageBody(Event event, StringBuilder message) {
         if (event instanceof CommandEvent) {
-            messageSubject = prepareEventSubject((CommandEvent) event);
+            CommandEvent cmdEvent = (CommandEvent) event;
+            prepareEventSubject(cmdEvent, message);
+            prepareMessageDetails(cmdEvent.getCommand(), message);
         } else {
-            messageSubject = prepareEventSubject(event);
+            prepareEventSubject(event, message);
         }
-
-        return messageSubject;
     }
 
-    private String prepareEventSubject(CommandEvent cmdEv) {
-        String eventSubject;
-
-        eventSubject = String.format(
-                cmdEv instanceof BeforeCommandEvent ? 
-                beforeCmdSubjectTemplate : afterCmdSubjectTemplate,
-                cmdEv.getGeneralName(), 
-                cmdEv.getCommandName()
-            );
-
-        return eventSubject;
+    private void prepareEventSubject(CommandEvent cmdEv, StringBuilder message) {
+        message.append(cmdEv.getGeneralName())
+               .append(cmdEv instanceof BeforeCommandEvent
+                       ? beforeCmdSubjectInfix : afterCmdSubjectInfix)
+               .append(cmdEv.getCommandName());
     }
 
-    private String prepareEventSubject(Event ev) {
-        String eventSubject;
-
-        eventSubject = String.format(
-                eventSubjectTemplate, 
-                ev.getClass().getSimpleName()
-            );
-
-        return eventSubject;
+    private void prepareEventSubject(Event ev, StringBuilder message) {
+        message.append(ev.getClass().getSimpleName())
+               .append(eventSubjectSuffix);
     }
 
-    private String prepareMessageDetails(Event event) {
-        if (!(event instanceof CommandEvent)) {
-            return "";
-        }
-
-        CommandEvent cmdEvent = (CommandEvent) event;
-        Command      command  = cmdEvent.getCommand();
-
-        String messageDetails;
+    private void prepareMessageDetails(Command command, StringBuilder message) {
         if (command instanceof RecruitSoldiersCommand) {
-            messageDetails = prepareCommandDetails(
-                (RecruitSoldiersCommand) command
-            );
+            prepareCommandDetails((RecruitSoldiersCommand) command, message);
 
         } else if (command instanceof DrillSoldiersCommand) {
-            messageDetails = prepareCommandDetails(
-                (DrillSoldiersCommand) command
-            );
+            prepareCommandDetails((DrillSoldiersCommand) command, message);
 
         } else if (command instanceof AttackCommand) {
-            messageDetails = prepareCommandDetails(
-                (AttackCommand) command
-            );
-
-        } else {
-            messageDetails = "";
+            prepareCommandDetails((AttackCommand) command, message);
         }
-
-        return messageDetails;
     }
 
-    private String prepareCommandDetails(RecruitSoldiersCommand cmd) {
-        String commandDetails;
-        int  recruitedQuantity = cmd.getQuantity();
-        Rank recruitedRank     = cmd.getRank();
-
-        commandDetails = String.format(
-            recruitmentDetailsTemplate, recruitedQuantity, recruitedRank
-        );
-
-        return commandDetails;
+    private void prepareCommandDetails(RecruitSoldiersCommand cmd, StringBuilder message) {
+        message.append(detailsPrefix)
+               .append(cmd.getQuantity())
+               .append(recruitmentDetailsInfix)
+               .append(cmd.getRank().name());
     }
 
-    private String prepareCommandDetails(DrillSoldiersCommand cmd) {
-        String commandDetails;
-        int drilledQuantity = cmd.getQuantity();
-        int drillCost       = cmd.getCost();
-
-        commandDetails = String.format(
-            drillDetailsTemplate, drilledQuantity, drillCost
-        );
-
-        return commandDetails;
+    private void prepareCommandDetails(DrillSoldiersCommand cmd, StringBuilder message) {
+        message.append(detailsPrefix)
+               .append(cmd.getQuantity())
+               .append(drillDetailsInfix)
+               .append(cmd.getCost())
+               .append(drillDetailsSuffix);
     }
 
-    private String prepareCommandDetails(AttackCommand cmd) {
-        String commandDetails, detailsTemplate;
+    private void prepareCommandDetails(AttackCommand cmd, StringBuilder message) {
+        String outcomePrefix;
         String attackedName = cmd.getAttacked().getName();
-        
+
         if (!cmd.isAttackOver()) {
-            detailsTemplate = preAttackDetailsTemplate;    
+            outcomePrefix = preAttackDetailsPrefix;
 
         } else {
             if (cmd.isDraw()) {
-                detailsTemplate = drewAttackDetailsTemplate;
+                outcomePrefix = drewAttackDetailsPrefix;
 
             } else {
                 String winnerName = cmd.getWinner().getName();
-                detailsTemplate = winnerName == attackedName
-                                  ? lostAttackDetailsTemplate
-                                  : wonAttackDetailsTemplate;
-                }
+                outcomePrefix = winnerName == attackedName
+                                ? lostAttackDetailsPrefix
+                                : wonAttackDetailsPrefix;
+            }
         }
 
-        commandDetails = String.format(
-            detailsTemplate, attackedName
-        );
-
-        return commandDetails;
-    }
-
-    private void printMessageToSystemOut(String message) {
-        System.out.print(message);
+        message.append(outcomePrefix)
+               .append(attackedName);
     }
 
 }
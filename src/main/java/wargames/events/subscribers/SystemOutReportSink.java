@@ -0,0 +1,15 @@
+package wargames.events.subscribers;
+
+// Prints reports to the current System.out
+public class SystemOutReportSink implements ReportSink {
+
+    @Override
+    public void write(CharSequence report) {
+        System.out.append(report);
+    }
+
+    @Override
+    public void flush() {
+        System.out.flush();
+    }
+}
@@ -0,0 +1,11 @@
+package wargames.exceptions;
+
+// Thrown when an attack is given to a general without soldiers, or against
+// one. It stays an IllegalArgumentException for callers that already catch
+// those, while letting simulations tell an empty army from a misuse.
+public class EmptyArmyException extends IllegalArgumentException {
+
+    public EmptyArmyException(String message) {
+        super(message);
+    }
+}
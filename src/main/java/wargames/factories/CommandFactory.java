@@ -1,6 +1,7 @@
 package wargames.factories;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import wargames.commands.*;
 import wargames.models.*;
@@ -10,27 +11,64 @@ public class CommandFactory {
     private final EventDispatcher eventDispatcher;
     private final SoldierFactory  soldierFactory;
 
+    private ForkJoinPool      aftermathPool;
+    private int               parallelAftermathThreshold = AttackCommand.DEFAULT_PARALLEL_AFTERMATH_THRESHOLD;
+    private ExecutionListener executionListener;
+
     public CommandFactory(EventDispatcher d, SoldierFactory sf) {
         this.eventDispatcher = d;
         this.soldierFactory  = sf;
     }
 
+    // attacks created from now on apply their aftermath in parallel
+    public void enableParallelAftermath(ForkJoinPool pool, int threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("aftermath pool must not be null");
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException("parallel threshold must be positive");
+        }
+        this.aftermathPool              = pool;
+        this.parallelAftermathThreshold = threshold;
+    }
+
+    public void disableParallelAftermath() {
+        this.aftermathPool = null;
+    }
+
+    // commands created from now on tell the listener about their changes,
+    // such as a CommandJournal; null for none
+    public void setExecutionListener(ExecutionListener listener) {
+        this.executionListener = listener;
+    }
+
     public RecruitSoldiersCommand createRecruitSoldiers(General general,
                                                         int quantity,
                                                         Rank rank) {
-        return new RecruitSoldiersCommand(general, 
-                                          soldierFactory, 
-                                          quantity, 
-                                          rank, 
-                                          eventDispatcher);
+        return listened(new RecruitSoldiersCommand(general, 
+                                                   soldierFactory, 
+                                                   quantity, 
+                                                   rank, 
+                                                   eventDispatcher));
     }
     
     public DrillSoldiersCommand createDrillSoldiers(General general,
                                                     List<Soldier> soldiers) {
-        return new DrillSoldiersCommand(general, soldiers, eventDispatcher);
+        return listened(new DrillSoldiersCommand(general, soldiers, eventDispatcher));
     } 
     
     public AttackCommand createAttack(General attacking, General attacked) {
-        return new AttackCommand(attacking, attacked, eventDispatcher);
+        return listened(new AttackCommand(attacking, attacked, eventDispatcher)
+            .withParallelAftermath(aftermathPool, parallelAftermathThreshold));
+    }
+
+    public AttackCommand createAttack(General attacking, General attacked, long seed) {
+        return listened(new AttackCommand(attacking, attacked, seed, eventDispatcher)
+            .withParallelAftermath(aftermathPool, parallelAftermathThreshold));
+    }
+
+    private <C extends Command> C listened(C command) {
+        command.setExecutionListener(this.executionListener);
+        return command;
     }
 }
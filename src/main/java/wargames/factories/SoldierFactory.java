@@ -1,5 +1,6 @@
 package wargames.factories;
 
+import wargames.models.Army;
 import wargames.models.Soldier;
 import wargames.models.Rank;
 
@@ -23,4 +24,24 @@ public class SoldierFactory {
     public Soldier createMajor() {
         return Soldier.withRank(Rank.MAJOR);
     }
-}
\ No newline at end of file
+
+    // adds quantity soldiers made by createSoldier(rank) to the army, so
+    // subclasses changing how soldiers are made change recruitment too;
+    // when it makes fresh soldiers of the rank, the army stores all of
+    // them in bulk instead
+    public void recruitInto(Army army, Rank rank, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("soldier quantity must not be negative");
+        }
+
+        Soldier recruit = createSoldier(rank);
+        if (recruit.getRank() == rank && recruit.getExp() == 1 && recruit.isAlive()) {
+            army.recruit(rank, quantity);
+            return;
+        }
+
+        for (int i = 0; i < quantity; i++) {
+            army.add(i == 0 ? recruit : createSoldier(rank));
+        }
+    }
+}
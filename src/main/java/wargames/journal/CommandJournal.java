@@ -0,0 +1,373 @@
+package wargames.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32C;
+
+import wargames.commands.*;
+import wargames.events.*;
+import wargames.events.subscribers.FsyncPolicy;
+import wargames.events.subscribers.Subscriber;
+import wargames.models.*;
+
+// Append-only binary journal of executed commands, see JournalFormat.
+// As the ExecutionListener of commands, e.g. set through a CommandFactory,
+// it numbers every command right before the command changes its generals
+// and appends the command once it changed them, both while the command
+// holds the generals' locks. So the records of each general are in the
+// order its commands ran, however many threads, executors or attacks run
+// them, and JournalReplay rebuilds the game exactly. Subscribed to a
+// dispatcher as well, it returns from the command's AfterCommandEvent once
+// the record is written; otherwise records are written by the next commit
+// or flush.
+//
+// Change listeners, such as a Checkpointer, are told each general a command
+// is about to change together with the command's sequence number, and cut()
+// takes a sequence number that splits the commands into those numbered
+// before and after it. A journal opened on a non-empty channel, which then
+// has to be readable, numbers on from its records.
+//
+// Records are encoded into a shared buffer, and whichever thread commits
+// first writes everything appended so far with a single FileChannel.write,
+// so concurrent commands share writes (group commit).
+public class CommandJournal implements ExecutionListener, Subscriber, AutoCloseable {
+
+    // called holding the general's lock, before the command numbered
+    // sequence changes the general
+    public interface ChangeListener {
+        void beforeChange(General general, long sequence);
+    }
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    // marks a drill of the whole army; an empty drill encodes as zero indices
+    private static final int[] WHOLE_ARMY_INDICES = new int[0];
+
+    private final FileChannel channel;
+    private final FsyncPolicy fsyncPolicy;
+    private final CRC32C      crc = new CRC32C();
+
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    // guards the pending buffer, the sequence number and the appended count
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // held by the thread writing a batch
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer spare   = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long       sequence;
+    private long       appended;
+    private long       length;
+
+    private volatile long        committed;
+    private volatile boolean     closed;
+    private volatile IOException failure;
+
+    // appends to the channel's current end, writing the header into an empty channel
+    public CommandJournal(FileChannel channel, FsyncPolicy fsyncPolicy) throws IOException {
+        this.channel     = channel;
+        this.fsyncPolicy = fsyncPolicy;
+
+        if (channel.size() > 0) {
+            this.sequence = JournalReplay.lastSequence(channel);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(JournalFormat.HEADER_SIZE)
+                .putInt(JournalFormat.MAGIC)
+                .putShort(JournalFormat.VERSION)
+                .flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        }
+        channel.position(channel.size());
+        this.length = channel.size();
+    }
+
+    // called by the command holding its generals' locks
+    @Override
+    public long beforeChange(Command command) {
+        long sequence = nextSequence();
+        if (command instanceof AttackCommand) {
+            AttackCommand attack = (AttackCommand) command;
+            notifyChangeListeners(attack.getAttacking(), sequence);
+            notifyChangeListeners(attack.getAttacked(), sequence);
+        } else {
+            notifyChangeListeners(command.getGeneral(), sequence);
+        }
+        return sequence;
+    }
+
+    @Override
+    public void afterChange(Command command, long sequence) {
+        append(command, sequence);
+    }
+
+    // waits until the executed command's record is written
+    @Override
+    public void update(Event e) {
+        if (e instanceof AfterCommandEvent && canJournal(((AfterCommandEvent) e).getCommand())) {
+            commit(appended());
+        }
+    }
+
+    public static boolean canJournal(Command command) {
+        return command instanceof RecruitSoldiersCommand
+            || command instanceof DrillSoldiersCommand
+            || command instanceof AttackCommand;
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        this.changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        this.changeListeners.remove(listener);
+    }
+
+    // takes the next sequence number and hands it to the cut before any
+    // command can be numbered after it
+    public long cut(LongConsumer cut) {
+        this.appendLock.lock();
+        try {
+            long sequence = ++this.sequence;
+            cut.accept(sequence);
+            return sequence;
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    // appends a command executed without the journal as its listener under
+    // the next sequence number
+    public long append(Command command) {
+        return append(command, nextSequence());
+    }
+
+    // encodes the command into the pending batch and returns the number of
+    // records appended so far, which commit() waits for; the record is
+    // written by the next commit
+    private long append(Command command, long sequence) {
+        throwIfFailed();
+        if (this.closed) {
+            throw new IllegalStateException("command journal is closed");
+        }
+        if (!canJournal(command)) {
+            throw new IllegalArgumentException("cannot journal " + command.getClass().getSimpleName());
+        }
+
+        int[] drilled = command instanceof DrillSoldiersCommand
+                        ? drilledIndices((DrillSoldiersCommand) command)
+                        : null;
+
+        this.appendLock.lock();
+        try {
+            encode(command, sequence, drilled);
+            return ++this.appended;
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    // length of the journal in bytes once every record appended so far is written
+    public long length() {
+        this.appendLock.lock();
+        try {
+            return this.length;
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    // waits until the first records appended are written; the first waiting
+    // thread writes the batch of every thread that appended meanwhile
+    public void commit(long records) {
+        if (this.committed >= records) {
+            return;
+        }
+
+        this.commitLock.lock();
+        try {
+            throwIfFailed();
+            if (this.committed >= records) {
+                return;
+            }
+
+            ByteBuffer batch;
+            long       upTo;
+            this.appendLock.lock();
+            try {
+                batch        = this.pending;
+                this.pending = this.spare;
+                this.spare   = batch;
+                upTo         = this.appended;
+            } finally {
+                this.appendLock.unlock();
+            }
+
+            write(batch.flip());
+            if (this.fsyncPolicy == FsyncPolicy.EVERY_BATCH) {
+                force();
+            }
+            batch.clear();
+            this.committed = upTo;
+        } finally {
+            this.commitLock.unlock();
+        }
+    }
+
+    // writes every appended record and, under ON_FLUSH, forces them to storage
+    public void flush() {
+        commit(appended());
+
+        if (this.fsyncPolicy == FsyncPolicy.ON_FLUSH) {
+            this.commitLock.lock();
+            try {
+                force();
+            } finally {
+                this.commitLock.unlock();
+            }
+        }
+    }
+
+    // writes the remaining records; the channel itself is left open
+    @Override
+    public void close() {
+        this.closed = true;
+        flush();
+    }
+
+    private long nextSequence() {
+        throwIfFailed();
+        if (this.closed) {
+            throw new IllegalStateException("command journal is closed");
+        }
+
+        this.appendLock.lock();
+        try {
+            return ++this.sequence;
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    private void notifyChangeListeners(General general, long sequence) {
+        for (ChangeListener listener : this.changeListeners) {
+            listener.beforeChange(general, sequence);
+        }
+    }
+
+    private long appended() {
+        this.appendLock.lock();
+        try {
+            return this.appended;
+        } finally {
+            this.appendLock.unlock();
+        }
+    }
+
+    private void encode(Command command, long sequence, int[] drilled) {
+        int bodySize = JournalFormat.BODY_HEADER_SIZE;
+        if (command instanceof RecruitSoldiersCommand) {
+            bodySize += Byte.BYTES + Integer.BYTES;
+        } else if (command instanceof DrillSoldiersCommand) {
+            bodySize += Integer.BYTES * (1 + drilled.length);
+        } else {
+            bodySize += 2 * Long.BYTES;
+        }
+        ensureCapacity(JournalFormat.RECORD_HEADER_SIZE + bodySize);
+
+        ByteBuffer buffer = this.pending;
+        int        start  = buffer.position();
+        buffer.position(start + JournalFormat.RECORD_HEADER_SIZE);
+
+        if (command instanceof RecruitSoldiersCommand) {
+            RecruitSoldiersCommand recruit = (RecruitSoldiersCommand) command;
+            buffer.put(JournalFormat.RECRUIT)
+                  .putLong(sequence)
+                  .putLong(recruit.getGeneral().getId())
+                  .put((byte) recruit.getRank().ordinal())
+                  .putInt(recruit.getQuantity());
+
+        } else if (command instanceof DrillSoldiersCommand) {
+            buffer.put(JournalFormat.DRILL)
+                  .putLong(sequence)
+                  .putLong(command.getGeneral().getId());
+            if (drilled == WHOLE_ARMY_INDICES) {
+                buffer.putInt(JournalFormat.WHOLE_ARMY);
+            } else {
+                buffer.putInt(drilled.length);
+                for (int idx : drilled) {
+                    buffer.putInt(idx);
+                }
+            }
+
+        } else {
+            AttackCommand attack = (AttackCommand) command;
+            buffer.put(JournalFormat.ATTACK)
+                  .putLong(sequence)
+                  .putLong(attack.getAttacking().getId())
+                  .putLong(attack.getAttacked().getId())
+                  .putLong(attack.getSeed());
+        }
+
+        this.crc.reset();
+        this.crc.update(buffer.slice(start + JournalFormat.RECORD_HEADER_SIZE, bodySize));
+        buffer.putInt(start, bodySize)
+              .putInt(start + Integer.BYTES, (int) this.crc.getValue());
+        this.length += JournalFormat.RECORD_HEADER_SIZE + bodySize;
+    }
+
+    // the positions the drill recorded while it ran, so the record matches
+    // the army the drill saw even if it is appended after later changes
+    private static int[] drilledIndices(DrillSoldiersCommand drill) {
+        if (drill.drillsWholeArmy()) {
+            return WHOLE_ARMY_INDICES;
+        }
+
+        int[] positions = drill.getDrilledPositions();
+        if (positions == null) {
+            throw new IllegalArgumentException("drills are journaled once they executed");
+        }
+        return positions;
+    }
+
+    private void ensureCapacity(int recordSize) {
+        if (this.pending.remaining() < recordSize) {
+            int capacity = Math.max(2 * this.pending.capacity(), this.pending.position() + recordSize);
+            this.pending = ByteBuffer.allocate(capacity).put(this.pending.flip());
+        }
+    }
+
+    private void write(ByteBuffer batch) {
+        try {
+            while (batch.hasRemaining()) {
+                this.channel.write(batch);
+            }
+        } catch (IOException e) {
+            this.failure = e;
+            throw new UncheckedIOException("command journal failed", e);
+        }
+    }
+
+    private void force() {
+        try {
+            this.channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not force the command journal to storage", e);
+        }
+    }
+
+    private void throwIfFailed() {
+        IOException e = this.failure;
+        if (e != null) {
+            throw new UncheckedIOException("command journal failed", e);
+        }
+    }
+}
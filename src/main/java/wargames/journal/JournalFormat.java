@@ -0,0 +1,32 @@
+package wargames.journal;
+
+// Layout of a command journal. Numbers are big-endian.
+//
+//   header:  int MAGIC, short VERSION
+//   record:  int body length, int CRC32C of the body, body
+//   body:    byte type, long sequence number, long general id, then by type
+//            RECRUIT  byte rank ordinal, int quantity
+//            DRILL    int soldier count or WHOLE_ARMY, int[] soldier indices
+//            ATTACK   long attacked general id, long seed
+//
+// Sequence numbers are unique and increase with the commands of each
+// general; records of different generals may be out of sequence. A record
+// cut short by a crash is the end of the journal.
+final class JournalFormat {
+
+    static final int   MAGIC   = 0x57474A4C; // "WGJL"
+    static final short VERSION = 3;
+
+    static final int HEADER_SIZE        = Integer.BYTES + Short.BYTES;
+    static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    static final int BODY_HEADER_SIZE   = Byte.BYTES + 2 * Long.BYTES;
+
+    static final byte RECRUIT = 1;
+    static final byte DRILL   = 2;
+    static final byte ATTACK  = 3;
+
+    // soldier count of a drill of the general's whole army
+    static final int WHOLE_ARMY = -1;
+
+    private JournalFormat() { }
+}
@@ -0,0 +1,203 @@
+package wargames.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+import java.util.zip.CRC32C;
+
+import wargames.commands.Command;
+import wargames.events.publisher.EventDispatcher;
+import wargames.factories.*;
+import wargames.models.*;
+
+// Re-executes the commands of a CommandJournal against generals restored to
+// the state they had when the journal was started. Commands are executed
+// directly, without notifying any subscriber or execution listener, so replay
+// runs at the speed of the commands themselves and journals nothing.
+// Journaled general ids are mapped to the restored generals by the given
+// lookup, such as the generals Checkpointer.recover() restored under the ids
+// they were journaled with.
+public class JournalReplay {
+
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    private final LongFunction<General> generals;
+    private final CommandFactory        commandFactory =
+        new CommandFactory(EventDispatcher.getInstance(), new SoldierFactory());
+    private final CRC32C                crc            = new CRC32C();
+
+    private ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE).flip();
+    private long       offset;
+    private long       lastSequence;
+
+    public JournalReplay(LongFunction<General> generals) {
+        this.generals = generals;
+    }
+
+    // replays every complete record and returns their number; a record cut
+    // short at the end of the journal is ignored
+    public long replay(ReadableByteChannel channel) throws IOException {
+        if (!readHeader(channel)) {
+            return 0;
+        }
+        return replayRecords(channel, Long.MIN_VALUE);
+    }
+
+    // replays the tail of the journal from a record boundary, such as a
+    // CommandJournal's length() when a checkpoint was taken, skipping the
+    // records numbered up to the checkpoint's cut, which it already holds
+    public long replay(SeekableByteChannel channel, long position, long cut) throws IOException {
+        channel.position(0);
+        if (!readHeader(channel)) {
+            throw new IOException("journal is empty");
+        }
+        if (position < JournalFormat.HEADER_SIZE || position > channel.size()) {
+            throw new IOException("journal position " + position + " is out of bounds");
+        }
+        channel.position(position);
+        this.buffer.clear().flip();
+        this.offset = position;
+        return replayRecords(channel, cut);
+    }
+
+    // the highest sequence number of the journal's complete records, 0 for none
+    static long lastSequence(SeekableByteChannel channel) throws IOException {
+        JournalReplay scan = new JournalReplay(id -> null);
+        channel.position(0);
+        if (scan.readHeader(channel)) {
+            scan.replayRecords(channel, Long.MAX_VALUE);
+        }
+        return scan.lastSequence;
+    }
+
+    // returns false for an empty journal
+    private boolean readHeader(ReadableByteChannel channel) throws IOException {
+        this.buffer.clear().flip();
+        this.offset = 0;
+
+        if (!fill(channel, JournalFormat.HEADER_SIZE)) {
+            if (this.buffer.hasRemaining()) {
+                throw new IOException("journal header is incomplete");
+            }
+            return false;
+        }
+        if (this.buffer.getInt() != JournalFormat.MAGIC) {
+            throw new IOException("not a command journal");
+        }
+        short version = this.buffer.getShort();
+        if (version != JournalFormat.VERSION) {
+            throw new IOException("unsupported journal version " + version);
+        }
+        this.offset += JournalFormat.HEADER_SIZE;
+        return true;
+    }
+
+    private long replayRecords(ReadableByteChannel channel, long cut) throws IOException {
+        long replayed = 0;
+        while (fill(channel, JournalFormat.RECORD_HEADER_SIZE)) {
+            int position = this.buffer.position();
+            int length   = this.buffer.getInt(position);
+            int checksum = this.buffer.getInt(position + Integer.BYTES);
+            if (length < JournalFormat.BODY_HEADER_SIZE) {
+                throw new IOException("corrupt journal record at offset " + this.offset);
+            }
+            if (!fill(channel, JournalFormat.RECORD_HEADER_SIZE + length)) {
+                break;
+            }
+
+            position = this.buffer.position();
+            ByteBuffer body = this.buffer.slice(position + JournalFormat.RECORD_HEADER_SIZE, length);
+            this.crc.reset();
+            this.crc.update(body.duplicate());
+            if ((int) this.crc.getValue() != checksum) {
+                throw new IOException("corrupt journal record at offset " + this.offset);
+            }
+
+            long sequence = body.getLong(Byte.BYTES);
+            this.lastSequence = Math.max(this.lastSequence, sequence);
+            if (sequence > cut) {
+                execute(decode(body));
+                replayed++;
+            }
+
+            this.buffer.position(position + JournalFormat.RECORD_HEADER_SIZE + length);
+            this.offset += JournalFormat.RECORD_HEADER_SIZE + length;
+        }
+        return replayed;
+    }
+
+    private Command decode(ByteBuffer body) throws IOException {
+        byte    type    = body.get();
+        General general = general(body.getLong(JournalFormat.BODY_HEADER_SIZE - Long.BYTES));
+        body.position(JournalFormat.BODY_HEADER_SIZE);
+
+        switch (type) {
+            case JournalFormat.RECRUIT: {
+                Rank rank     = Rank.values()[body.get()];
+                int  quantity = body.getInt();
+                return this.commandFactory.createRecruitSoldiers(general, quantity, rank);
+            }
+            case JournalFormat.DRILL: {
+                List<Soldier> soldiers = general.getArmy().getSoldiers();
+                int           count    = body.getInt();
+                if (count == JournalFormat.WHOLE_ARMY) {
+                    return this.commandFactory.createDrillSoldiers(general, soldiers);
+                }
+                List<Soldier> drilled = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    drilled.add(soldiers.get(body.getInt()));
+                }
+                return this.commandFactory.createDrillSoldiers(general, drilled);
+            }
+            case JournalFormat.ATTACK: {
+                General attacked = general(body.getLong());
+                return this.commandFactory.createAttack(general, attacked, body.getLong());
+            }
+            default:
+                throw new IOException("unknown command type " + type + " at offset " + this.offset);
+        }
+    }
+
+    private General general(long id) {
+        General general = this.generals.apply(id);
+        if (general == null) {
+            throw new IllegalStateException("no general with journaled id " + id);
+        }
+        return general;
+    }
+
+    // a journaled command executed successfully, so failing
+    // now means the generals were not restored correctly
+    private void execute(Command command) {
+        try {
+            command.execute();
+        } catch (Exception e) {
+            throw new IllegalStateException("journal record at offset " + this.offset + " does not replay", e);
+        }
+    }
+
+    // makes at least needed bytes readable; returns false if the channel ends first
+    private boolean fill(ReadableByteChannel channel, int needed) throws IOException {
+        if (this.buffer.remaining() >= needed) {
+            return true;
+        }
+        if (this.buffer.capacity() < needed) {
+            this.buffer = ByteBuffer.allocate(needed).put(this.buffer).flip();
+        }
+        this.buffer.compact();
+        try {
+            while (this.buffer.position() < needed) {
+                if (channel.read(this.buffer) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            this.buffer.flip();
+        }
+    }
+}
@@ -1,50 +1,65 @@
 package wargames.models;
 
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.List;
-import java.util.ArrayList;
-import java.util.Random;
-
-public class Army {
-
-    private List<Soldier> soldiers;    
-
-    public Army() {
-        this.soldiers = new ArrayList<Soldier>();
-    }
-
-    public int           getSize()          { return this.soldiers.size(); }
-    public List<Soldier> getSoldiers()      { return this.soldiers; }    
-    public int           getTotalStrength() {
-        int totalStrength = 0;
-        for (Soldier s : this.soldiers) {
-            totalStrength += s.getStrength();
-        }
-        return totalStrength;
-    }
-    
-    public boolean isEmpty() { return this.soldiers.isEmpty(); }
-
-    public void add(Soldier s) { this.soldiers.add(s); }
-
-    public void killAndRemoveRandom() {
-        if (soldiers.isEmpty()) {
-            return;
-        }
-
-        Random random = new Random();
-        int idx = random.nextInt(soldiers.size());
-        
-        killAndRemove(this.soldiers.get(idx));
-    }
-
-    private void killAndRemove(Soldier soldier) {
-        int soldierExp = soldier.getExp();
-        soldier.decreaseExpByN(soldierExp); 
-
-        remove(soldier);
-    }
-
-    private void remove(Soldier s) {
-        this.soldiers.remove(s);
-    }
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+
+// Dead soldiers stay in an army, with no strength, until it purges them.
+// Whenever they make up more than the compaction threshold of the army, its
+// next add, recruit or removal first purges all of them in one pass, so
+// iteration cost follows the living soldiers. getSize() and getSoldiers()
+// include dead soldiers that were not purged yet; the rank histogram's
+// living counts never do. A threshold of 1 never purges on its own.
+public interface Army {
+    double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+    int           getSize();
+    List<Soldier> getSoldiers();
+    int           getTotalStrength();
+    RankHistogram getRankHistogram();
+
+    boolean isEmpty();
+    boolean contains(Soldier s);
+
+    // position of the soldier in getSoldiers(), or -1 when the army does
+    // not contain it; found in O(1)
+    int positionOf(Soldier s);
+
+    void add(Soldier s);
+
+    // adds quantity fresh soldiers of the rank in a single operation,
+    // sizing the army's storage once
+    void recruit(Rank rank, int quantity);
+
+    // appends count soldiers from packed columns: a rank ordinal and an exp per
+    // soldier and alive bits in 64-bit words, soldier i being bit i % 64 of
+    // word i / 64; the buffers are read from their positions, which stay put.
+    // Dead soldiers are taken as they are, without purging the army
+    void appendColumns(ByteBuffer ranks, IntBuffer exps, LongBuffer aliveBits, int count);
+
+    void killAndRemoveRandom();
+
+    // picks the killed soldier with the given random source instead of the
+    // army's own, so a seeded battle removes the same soldiers on replay
+    void killAndRemoveRandom(RandomGenerator random);
+
+    // purges all dead soldiers now, keeping the order of the living ones
+    void compact();
+
+    // every soldier gains n exp, or loses -n exp for a negative n, with the
+    // promotions and deaths increaseExpByN() and decreaseExpByN() would give
+    // it; armies of at least parallelThreshold soldiers may change them in
+    // chunks run on the pool, with the same result
+    void changeExpOfAll(int n, ForkJoinPool pool, int parallelThreshold);
+
+    double getCompactionThreshold();
+    void   setCompactionThreshold(double threshold);
+
+    // grows with every change to the army: adds, removals, purges and
+    // changes made through its soldiers, so a reader that saw the same
+    // count twice knows the army did not change in between
+    long getModificationCount();
 }
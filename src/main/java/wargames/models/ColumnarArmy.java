@@ -0,0 +1,392 @@
+package wargames.models;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+
+// Structure-of-arrays Army for very large armies. Soldiers are kept as
+// parallel primitive columns (rank ordinals, exp, packed alive bits) instead
+// of separate objects. getSoldiers() hands out lightweight views that read and
+// write the columns directly; a view addresses a position in the army, so it
+// is only valid until the next add or removal. The total strength is kept up
+// to date on every add, removal and change made through a view. Removal
+// moves the last soldier into the freed position, and every removal or purge
+// starts a new layout, so views handed out before it are no longer contained
+// and changing a soldier through them throws IllegalStateException.
+public class ColumnarArmy implements Army {
+
+    private static final int    DEFAULT_CAPACITY = 16;
+    private static final Rank[] RANKS            = Rank.values();
+
+    private byte[] ranks;
+    private int[]  exps;
+    private long[] aliveBits;
+    private int    size;
+
+    private int  totalStrength;
+    private long modifications;
+    private long layout;
+
+    private final List<Soldier>   soldierViews  = new SoldierViews();
+    private final RankHistogram   rankHistogram = new RankHistogram();
+    private final CompactionPolicy compaction   = new CompactionPolicy();
+    private final RandomGenerator random;
+
+    public ColumnarArmy() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ColumnarArmy(int initialCapacity) {
+        this(initialCapacity, new SplittableRandom());
+    }
+
+    // the random source picks soldiers killed in killAndRemoveRandom();
+    // a seeded generator makes removals reproducible
+    public ColumnarArmy(int initialCapacity, RandomGenerator random) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initial capacity must not be negative");
+        }
+
+        this.ranks     = new byte[initialCapacity];
+        this.exps      = new int[initialCapacity];
+        this.aliveBits = new long[wordsFor(initialCapacity)];
+        this.random    = random;
+    }
+
+    @Override public int           getSize()          { return this.size; }
+    @Override public List<Soldier> getSoldiers()      { return this.soldierViews; }
+    @Override public int           getTotalStrength() { return this.totalStrength; }
+    @Override public RankHistogram getRankHistogram() { return this.rankHistogram; }
+
+    @Override public boolean isEmpty() { return this.size == 0; }
+
+    @Override public double getCompactionThreshold()                 { return this.compaction.getThreshold(); }
+    @Override public void   setCompactionThreshold(double threshold) { this.compaction.setThreshold(threshold); }
+
+    @Override public long getModificationCount() { return this.modifications; }
+
+    // a view belongs to the army that handed it out, as long as no soldier
+    // was moved to another position since
+    @Override
+    public boolean contains(Soldier s) {
+        if (!(s instanceof SoldierView)) {
+            return false;
+        }
+        SoldierView view = (SoldierView) s;
+        return view.army() == this && view.layout == this.layout && view.idx < this.size;
+    }
+
+    @Override
+    public int positionOf(Soldier s) {
+        return contains(s) ? ((SoldierView) s).idx : -1;
+    }
+
+    // copies the soldier's current state into the army's columns
+    @Override
+    public void add(Soldier s) {
+        compactIfDue();
+        ensureCapacity(this.size + 1);
+
+        int idx = this.size++;
+        this.ranks[idx] = (byte) s.getRank().ordinal();
+        this.exps[idx]  = s.getExp();
+        setAlive(idx, s.isAlive());
+
+        this.totalStrength += s.getStrength();
+        this.rankHistogram.add(s.getRank(), s.getExp(), s.isAlive(), 1);
+        this.modifications++;
+    }
+
+    // fills the columns of all recruits at once
+    @Override
+    public void recruit(Rank rank, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("soldier quantity must not be negative");
+        }
+        compactIfDue();
+
+        int from = this.size;
+        int to   = from + quantity;
+        ensureCapacity(to);
+
+        Arrays.fill(this.ranks, from, to, (byte) rank.ordinal());
+        Arrays.fill(this.exps, from, to, 1);
+        setAlive(from, to);
+
+        this.size           = to;
+        this.totalStrength += rank.getValue() * quantity;
+        this.rankHistogram.add(rank, 1, true, quantity);
+        this.modifications++;
+    }
+
+    @Override
+    public void killAndRemoveRandom() {
+        killAndRemoveRandom(this.random);
+    }
+
+    @Override
+    public void killAndRemoveRandom(RandomGenerator random) {
+        compactIfDue();
+        if (this.size == 0) {
+            return;
+        }
+
+        int idx = random.nextInt(this.size);
+
+        // the killed soldier's slot is reclaimed right away,
+        // so there is no state left to mark as dead
+        remove(idx);
+    }
+
+    // moves the living soldiers to the front of the columns in one pass
+    @Override
+    public void compact() {
+        int kept = 0;
+        for (int idx = 0; idx < this.size; idx++) {
+            if (isAlive(idx)) {
+                this.ranks[kept] = this.ranks[idx];
+                this.exps[kept]  = this.exps[idx];
+                setAlive(kept++, true);
+            } else {
+                this.totalStrength -= strengthAt(idx);
+                this.rankHistogram.remove(RANKS[this.ranks[idx]], this.exps[idx], false, 1);
+            }
+        }
+        for (int idx = kept; idx < this.size; idx++) {
+            setAlive(idx, false);
+        }
+        this.size = kept;
+        this.modifications++;
+        this.layout++;
+    }
+
+    // chunks start at multiples of 64 soldiers, so each one writes its own
+    // words of alive bits; their changes are added to the totals at the end
+    @Override
+    public void changeExpOfAll(int n, ForkJoinPool pool, int parallelThreshold) {
+        ExpChanges changes = ExpChangeTask.run(this::changeExp, this.size, n, pool, parallelThreshold);
+
+        this.totalStrength += changes.getStrength();
+        this.rankHistogram.addAll(changes.getHistogram());
+        if (changes.isChanged()) {
+            this.modifications++;
+        }
+    }
+
+    private void changeExp(int from, int to, int n, ExpChanges changes) {
+        ChunkView view = new ChunkView(changes);
+        for (int idx = from; idx < to; idx++) {
+            view.idx = idx;
+            ExpChanges.apply(view, n);
+        }
+    }
+
+    @Override
+    public void appendColumns(ByteBuffer ranks, IntBuffer exps, LongBuffer aliveBits, int count) {
+        Columns.checkRanks(ranks, count);
+
+        int from = this.size;
+        ensureCapacity(from + count);
+        ranks.get(ranks.position(), this.ranks, from, count);
+        exps.get(exps.position(), this.exps, from, count);
+        if ((from & 63) == 0) {
+            aliveBits.get(aliveBits.position(), this.aliveBits, from >>> 6, wordsFor(count));
+            // bits past the last soldier must stay clear
+            if ((count & 63) != 0) {
+                this.aliveBits[(from + count) >>> 6] &= (1L << count) - 1;
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                setAlive(from + i, Columns.isAlive(aliveBits, i));
+            }
+        }
+        this.size = from + count;
+
+        this.totalStrength += StrengthKernel.accumulate(this.ranks, this.exps, this.aliveBits, from, this.size,
+                                                        this.rankHistogram);
+        this.modifications++;
+    }
+
+    // writes the army's columns into the buffers in the layout appendColumns()
+    // reads, from the buffers' positions, which stay put
+    public void copyColumns(ByteBuffer ranks, IntBuffer exps, LongBuffer aliveBits) {
+        ranks.put(ranks.position(), this.ranks, 0, this.size);
+        exps.put(exps.position(), this.exps, 0, this.size);
+        aliveBits.put(aliveBits.position(), this.aliveBits, 0, wordsFor(this.size));
+    }
+
+    // an independent army holding the same soldiers in the same order,
+    // filled by bulk copies of the columns
+    public ColumnarArmy copy() {
+        ColumnarArmy copy = new ColumnarArmy(this.size);
+        copy.appendColumns(ByteBuffer.wrap(this.ranks), IntBuffer.wrap(this.exps),
+                           LongBuffer.wrap(this.aliveBits), this.size);
+        copy.setCompactionThreshold(getCompactionThreshold());
+        return copy;
+    }
+
+    private void compactIfDue() {
+        if (this.compaction.isDue(this.size, this.rankHistogram)) {
+            compact();
+        }
+    }
+
+    // swaps the last soldier into idx, so removal does not shift the columns
+    private void remove(int idx) {
+        this.totalStrength -= strengthAt(idx);
+        this.rankHistogram.remove(RANKS[this.ranks[idx]], this.exps[idx], isAlive(idx), 1);
+
+        int last = --this.size;
+        this.ranks[idx] = this.ranks[last];
+        this.exps[idx]  = this.exps[last];
+        setAlive(idx, isAlive(last));
+        setAlive(last, false);
+        this.modifications++;
+        this.layout++;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        int capacity = this.exps.length;
+        if (minCapacity <= capacity) {
+            return;
+        }
+
+        int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1));
+        this.ranks     = Arrays.copyOf(this.ranks, newCapacity);
+        this.exps      = Arrays.copyOf(this.exps, newCapacity);
+        this.aliveBits = Arrays.copyOf(this.aliveBits, wordsFor(newCapacity));
+    }
+
+    private int strengthAt(int idx) {
+        return RANKS[this.ranks[idx]].getValue() * this.exps[idx];
+    }
+
+    private boolean isAlive(int idx) {
+        return (this.aliveBits[idx >>> 6] & (1L << idx)) != 0;
+    }
+
+    private void setAlive(int idx, boolean alive) {
+        if (alive) {
+            this.aliveBits[idx >>> 6] |= 1L << idx;
+        } else {
+            this.aliveBits[idx >>> 6] &= ~(1L << idx);
+        }
+    }
+
+    // marks positions from (inclusive) to (exclusive) alive,
+    // whole words at a time where possible
+    private void setAlive(int from, int to) {
+        int idx = from;
+        while (idx < to && (idx & 63) != 0) {
+            setAlive(idx++, true);
+        }
+        while (idx + 64 <= to) {
+            this.aliveBits[idx >>> 6] = -1L;
+            idx += 64;
+        }
+        while (idx < to) {
+            setAlive(idx++, true);
+        }
+    }
+
+    private static int wordsFor(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+
+    private class SoldierViews extends AbstractList<Soldier> {
+        @Override
+        public Soldier get(int idx) {
+            Objects.checkIndex(idx, ColumnarArmy.this.size);
+            return new SoldierView(idx);
+        }
+
+        @Override
+        public int size() {
+            return ColumnarArmy.this.size;
+        }
+    }
+
+    private class SoldierView extends Soldier {
+        private final int  idx;
+        private final long layout;
+
+        SoldierView(int idx) {
+            this.idx    = idx;
+            this.layout = ColumnarArmy.this.layout;
+        }
+
+        @Override public Rank    getRank() { return RANKS[ranks[this.idx]]; }
+        @Override public int     getExp()  { return exps[this.idx]; }
+        @Override public boolean isAlive() { return ColumnarArmy.this.isAlive(this.idx); }
+
+        @Override void setRank(Rank rank) { ranks[current()] = (byte) rank.ordinal(); }
+        @Override void setExp(int exp)    { exps[current()] = exp; }
+        @Override void kill()             { setAlive(current(), false); }
+
+        @Override
+        void changed(Rank rankBefore, int expBefore) {
+            totalStrength += getStrength() - rankBefore.getValue() * expBefore;
+            rankHistogram.changed(this, rankBefore, expBefore);
+            modifications++;
+        }
+
+        private ColumnarArmy army() {
+            return ColumnarArmy.this;
+        }
+
+        // a view from before a removal or purge may address another soldier
+        // by now, so changing through it would corrupt that soldier
+        private int current() {
+            if (this.layout != ColumnarArmy.this.layout) {
+                throw new IllegalStateException("stale soldier view: the army removed soldiers since");
+            }
+            return this.idx;
+        }
+
+        // two views are equal when they address the same position of the same army
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SoldierView)) {
+                return false;
+            }
+            SoldierView other = (SoldierView) o;
+            return other.army() == this.army() && other.idx == this.idx;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.army()) + this.idx;
+        }
+    }
+
+    // a view moved along a chunk of positions, reporting its changes
+    // to the chunk instead of the army
+    private class ChunkView extends Soldier {
+        private final ExpChanges changes;
+        private int              idx;
+
+        ChunkView(ExpChanges changes) {
+            this.changes = changes;
+        }
+
+        @Override public Rank    getRank() { return RANKS[ranks[this.idx]]; }
+        @Override public int     getExp()  { return exps[this.idx]; }
+        @Override public boolean isAlive() { return ColumnarArmy.this.isAlive(this.idx); }
+
+        @Override void setRank(Rank rank) { ranks[this.idx] = (byte) rank.ordinal(); }
+        @Override void setExp(int exp)    { exps[this.idx] = exp; }
+        @Override void kill()             { setAlive(this.idx, false); }
+
+        @Override
+        void changed(Rank rankBefore, int expBefore) {
+            this.changes.record(this, rankBefore, expBefore, 1);
+        }
+    }
+}
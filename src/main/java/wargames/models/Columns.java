@@ -0,0 +1,33 @@
+package wargames.models;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+// Reads the packed columns Army.appendColumns() takes
+final class Columns {
+
+    private static final Rank[] RANKS = Rank.values();
+
+    private Columns() { }
+
+    // all soldiers are checked before an army takes any of them
+    static void checkRanks(ByteBuffer ranks, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("soldier quantity must not be negative");
+        }
+        for (int i = 0; i < count; i++) {
+            byte rank = ranks.get(ranks.position() + i);
+            if (rank < 0 || rank >= RANKS.length) {
+                throw new IllegalArgumentException("rank ordinal out of range at soldier " + i);
+            }
+        }
+    }
+
+    static Rank rankAt(ByteBuffer ranks, int i) {
+        return RANKS[ranks.get(ranks.position() + i)];
+    }
+
+    static boolean isAlive(LongBuffer aliveBits, int i) {
+        return (aliveBits.get(aliveBits.position() + (i >>> 6)) & (1L << i)) != 0;
+    }
+}
@@ -0,0 +1,24 @@
+package wargames.models;
+
+// Decides when an army purges its dead soldiers: once they make up more
+// than the threshold fraction of the army
+final class CompactionPolicy {
+
+    private double threshold = Army.DEFAULT_COMPACTION_THRESHOLD;
+
+    double getThreshold() {
+        return this.threshold;
+    }
+
+    void setThreshold(double threshold) {
+        if (!(threshold >= 0.0 && threshold <= 1.0)) {
+            throw new IllegalArgumentException("compaction threshold must be between 0 and 1");
+        }
+        this.threshold = threshold;
+    }
+
+    boolean isDue(int size, RankHistogram histogram) {
+        int dead = size - histogram.getTotalLivingCount();
+        return dead > 0 && dead > this.threshold * size;
+    }
+}
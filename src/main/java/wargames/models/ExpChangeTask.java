@@ -0,0 +1,58 @@
+package wargames.models;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Changes the exp of an army's soldiers from (inclusive) to (exclusive),
+// split in halves until a range holds fewer than threshold soldiers. Halves
+// are cut at multiples of 64 soldiers, so no two ranges share a word of
+// ColumnarArmy's alive bits. Every range records its changes on its own and
+// they are merged as the halves are joined.
+final class ExpChangeTask extends RecursiveTask<ExpChanges> {
+
+    // changes the exp of the soldiers of one range by n, recording into changes
+    interface Range {
+        void changeExp(int from, int to, int n, ExpChanges changes);
+    }
+
+    private final Range range;
+    private final int   from;
+    private final int   to;
+    private final int   n;
+    private final int   threshold;
+
+    private ExpChangeTask(Range range, int from, int to, int n, int threshold) {
+        this.range     = range;
+        this.from      = from;
+        this.to        = to;
+        this.n         = n;
+        this.threshold = threshold;
+    }
+
+    // armies smaller than the threshold are changed on the calling thread
+    static ExpChanges run(Range range, int size, int n, ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("parallel threshold must be positive");
+        }
+
+        ExpChangeTask task = new ExpChangeTask(range, 0, size, n, threshold);
+        return size < threshold ? task.compute() : pool.invoke(task);
+    }
+
+    @Override
+    protected ExpChanges compute() {
+        int mid = ((this.from + this.to) >>> 1) & ~63;
+        if (this.to - this.from < this.threshold || mid <= this.from) {
+            ExpChanges changes = new ExpChanges();
+            this.range.changeExp(this.from, this.to, this.n, changes);
+            return changes;
+        }
+
+        ExpChangeTask left  = new ExpChangeTask(this.range, this.from, mid, this.n, this.threshold);
+        ExpChangeTask right = new ExpChangeTask(this.range, mid, this.to, this.n, this.threshold);
+
+        left.fork();
+        ExpChanges rightChanges = right.compute();
+        return left.join().merge(rightChanges);
+    }
+}
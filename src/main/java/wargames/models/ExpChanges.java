@@ -0,0 +1,41 @@
+package wargames.models;
+
+// Strength and rank histogram changes of soldiers whose exp changed in one
+// range of an army, kept apart from the army while ranges are changed in
+// parallel and added to it once they are all done
+final class ExpChanges {
+
+    private final RankHistogram histogram = new RankHistogram();
+
+    private int     strength;
+    private boolean changed;
+
+    int           getStrength()  { return this.strength; }
+    RankHistogram getHistogram() { return this.histogram; }
+    boolean       isChanged()    { return this.changed; }
+
+    // count soldiers that were alive with rankBefore and expBefore
+    // are now in the soldier's state
+    void record(Soldier soldier, Rank rankBefore, int expBefore, int count) {
+        this.strength += (soldier.getStrength() - rankBefore.getValue() * expBefore) * count;
+        this.histogram.remove(rankBefore, expBefore, true, count);
+        this.histogram.add(soldier.getRank(), soldier.getExp(), soldier.isAlive(), count);
+        this.changed = true;
+    }
+
+    ExpChanges merge(ExpChanges other) {
+        this.strength += other.strength;
+        this.histogram.addAll(other.histogram);
+        this.changed |= other.changed;
+        return this;
+    }
+
+    // the exp change of Army.changeExpOfAll() for one soldier
+    static void apply(Soldier soldier, int n) {
+        if (n > 0) {
+            soldier.increaseExpByN(n);
+        } else {
+            soldier.decreaseExpByN(-n);
+        }
+    }
+}
@@ -1,19 +1,64 @@
 package wargames.models;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
 import wargames.commands.Command;
 import wargames.exceptions.InsufficientGoldException;
 
 public class General {
 
-    private final Army   army;    
-    private final String name;
+    private static final AtomicLong nextId     = new AtomicLong();
+    private static final AtomicLong nextSerial = new AtomicLong();
 
-    private int gold;
+    private final long       id;
+    private final long       serial = nextSerial.getAndIncrement();
+    private final Lock       lock = new ReentrantLock();
+    private final Army       army;
+    private final String     name;
+    private final GoldLedger gold;
 
     public General(String name, int gold) {
-        this.army = new Army();
+        this(name, gold, new ListArmy());
+    }
+
+    public General(String name, int gold, Army army) {
+        this(nextId.getAndIncrement(), name, gold, army);
+    }
+
+    private General(long id, String name, int gold, Army army) {
+        this.id   = id;
+        this.army = army;
         this.name = name;
-        this.gold = gold;
+        this.gold = new GoldLedger(gold);
+    }
+
+    // a general recorded by an earlier run, under its recorded id; generals
+    // created afterwards get higher ids. Restoring the same run twice gives
+    // two generals with one id, so the lock order breaks ties by creation.
+    public static General restore(long id, String name, int gold, Army army) {
+        if (id < 0) {
+            throw new IllegalArgumentException("general id must not be negative");
+        }
+        nextId.accumulateAndGet(id + 1, Math::max);
+        return new General(id, name, gold, army);
+    }
+
+    // unique among the generals of one run
+    public long getId() {
+        return this.id;
+    }
+
+    // the global lock order: commands locking two generals take this one's
+    // lock first if it returns true
+    public boolean locksBefore(General other) {
+        return this.id != other.id ? this.id < other.id : this.serial < other.serial;
+    }
+
+    // commands hold it while they change the general's army
+    public Lock getLock() {
+        return this.lock;
     }
 
     public Army getArmy() {
@@ -25,33 +70,23 @@ public class General {
     }
 
     public int getGold() {
-        return this.gold;
+        return this.gold.getBalance();
     }
-    
-    public void addGold(int goldToAdd) {
-        if (goldToAdd < 0) {
-            throw new IllegalArgumentException("summand should be a positive value");
-        }
-
-        if (goldToAdd > Integer.MAX_VALUE - this.gold) {
-            throw new ArithmeticException("Overflow: cannot add " + goldToAdd + " to current gold: " + this.gold);
-        }
 
-        this.gold += goldToAdd;
+    // the gold methods are safe to call from many threads at once
+    public void addGold(int goldToAdd) {
+        this.gold.deposit(goldToAdd);
     }
-    
+
     public void subtractGold(int goldToSubtract) throws InsufficientGoldException {
-        if (goldToSubtract < 0) {
-            throw new IllegalArgumentException("subtrahend should be a positive value");
-        }
+        this.gold.withdraw(goldToSubtract);
+    }
 
-        if (goldToSubtract > this.gold) {
-            throw new InsufficientGoldException(this.gold, goldToSubtract);
-        }
-        
-        this.gold -= goldToSubtract;
+    // atomically moves gold from this general to the recipient
+    public void transferGold(General recipient, int goldToTransfer) throws InsufficientGoldException {
+        this.gold.transferTo(recipient.gold, goldToTransfer);
     }
-    
+
     public void executeCommand(Command cmd) throws Exception {
         cmd.executeAndUpdate();
     }
@@ -0,0 +1,147 @@
+package wargames.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import wargames.exceptions.InsufficientGoldException;
+
+// Gold balance that can be changed from many threads. Deposits and
+// withdrawals take no lock: each is a compare-and-set retried until no other
+// thread changed the ledger in between, so the overflow and insufficient
+// funds checks always see the balance they update. Only a transfer locks,
+// both ledgers in id order like the generals' locks of an attack, so
+// transfers and totalBalance() exclude each other.
+//
+// A transfer withdraws first and holds the gold on the sender until the
+// recipient took it. The balance and the held gold share one atomic long,
+// and deposits count the held gold against overflow, so giving it back
+// when the recipient is full always fits.
+public class GoldLedger {
+
+    private static final AtomicLong nextId = new AtomicLong();
+
+    private static final long BALANCE_MASK = 0xFFFF_FFFFL;
+
+    private final long          id    = nextId.getAndIncrement();
+    private final ReentrantLock lock  = new ReentrantLock();
+    private final AtomicLong    state;
+
+    public GoldLedger(int initialBalance) {
+        this.state = new AtomicLong(pack(initialBalance, 0));
+    }
+
+    public int getBalance() {
+        return balance(this.state.get());
+    }
+
+    public void deposit(int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("summand should be a positive value");
+        }
+
+        long current;
+        do {
+            current = this.state.get();
+            throwIfOverflows(current, amount);
+        } while (!this.state.compareAndSet(current, pack(balance(current) + amount, held(current))));
+    }
+
+    public void withdraw(int amount) throws InsufficientGoldException {
+        if (amount < 0) {
+            throw new IllegalArgumentException("subtrahend should be a positive value");
+        }
+
+        withdrawAndHold(amount, 0);
+    }
+
+    // moves gold to the recipient all or nothing
+    public void transferTo(GoldLedger recipient, int amount) throws InsufficientGoldException {
+        if (amount < 0) {
+            throw new IllegalArgumentException("transferred amount should be a positive value");
+        }
+
+        GoldLedger first  = this.id < recipient.id ? this : recipient;
+        GoldLedger second = first == this ? recipient : this;
+
+        first.lock.lock();
+        second.lock.lock();
+        try {
+            if (recipient == this) {
+                throwIfInsufficient(this.state.get(), amount);
+                return;
+            }
+
+            withdrawAndHold(amount, amount);
+            try {
+                recipient.deposit(amount);
+            } catch (ArithmeticException e) {
+                this.state.getAndUpdate(s -> pack(balance(s) + amount, held(s) - amount));
+                throw e;
+            }
+            this.state.getAndUpdate(s -> pack(balance(s), held(s) - amount));
+        } finally {
+            second.lock.unlock();
+            first.lock.unlock();
+        }
+    }
+
+    // the sum of the balances with no transfer in flight, every ledger
+    // locked in id order while it is read
+    public static long totalBalance(Collection<GoldLedger> ledgers) {
+        List<GoldLedger> ordered = new ArrayList<>(ledgers);
+        ordered.sort(Comparator.comparingLong(ledger -> ledger.id));
+
+        for (GoldLedger ledger : ordered) {
+            ledger.lock.lock();
+        }
+        try {
+            long total = 0;
+            for (GoldLedger ledger : ordered) {
+                total += ledger.getBalance();
+            }
+            return total;
+        } finally {
+            for (GoldLedger ledger : ordered) {
+                ledger.lock.unlock();
+            }
+        }
+    }
+
+    private void withdrawAndHold(int amount, int hold) throws InsufficientGoldException {
+        long current;
+        do {
+            current = this.state.get();
+            throwIfInsufficient(current, amount);
+        } while (!this.state.compareAndSet(current, pack(balance(current) - amount, held(current) + hold)));
+    }
+
+    private static void throwIfOverflows(long state, int amount) {
+        int current = balance(state);
+        if (amount > Integer.MAX_VALUE - current - held(state)) {
+            throw new ArithmeticException("Overflow: cannot add " + amount + " to current gold: " + current);
+        }
+    }
+
+    private static void throwIfInsufficient(long state, int amount) throws InsufficientGoldException {
+        int current = balance(state);
+        if (amount > current) {
+            throw new InsufficientGoldException(current, amount);
+        }
+    }
+
+    private static long pack(int balance, int held) {
+        return ((long) held << 32) | (balance & BALANCE_MASK);
+    }
+
+    private static int balance(long state) {
+        return (int) state;
+    }
+
+    private static int held(long state) {
+        return (int) (state >>> 32);
+    }
+}
@@ -0,0 +1,445 @@
+package wargames.models;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+
+// Army keeping runs of identical soldiers as (rank, exp, alive, count)
+// groups, so a freshly recruited army of any size is a single group.
+// getSoldiers() hands out views addressing a position in the army; a change
+// made through a view splits the soldier off its group, and groups that
+// become identical to a neighbour are merged back, so drilling or fighting
+// with a whole army keeps it compact. Views are only valid until the next
+// add or removal. Removal shifts the soldiers after the removed one, and
+// every removal or purge starts a new layout, so views handed out before it
+// are no longer contained and changing a soldier through them throws
+// IllegalStateException. Reading through views is safe from many threads
+// as long as none of them changes the army.
+public class GroupedArmy implements Army {
+
+    private final ArrayList<Group> groups        = new ArrayList<>();
+    private final List<Soldier>    soldierViews  = new SoldierViews();
+    private final RankHistogram    rankHistogram = new RankHistogram();
+    private final CompactionPolicy compaction    = new CompactionPolicy();
+    private final RandomGenerator  random;
+
+    private int  size;
+    private int  totalStrength;
+    private long modifications;
+    private long layout;
+
+    // lookups mostly walk forward through the army, so they continue from
+    // the last group found: its index in the high half and the position of
+    // its first soldier in the low half. Being a single volatile word, it
+    // always holds a matching pair, even with readers on many threads
+    private volatile long cursor;
+
+    public GroupedArmy() {
+        this(new SplittableRandom());
+    }
+
+    // the random source picks soldiers killed in killAndRemoveRandom();
+    // a seeded generator makes removals reproducible
+    public GroupedArmy(RandomGenerator random) {
+        this.random = random;
+    }
+
+    @Override public int           getSize()          { return this.size; }
+    @Override public List<Soldier> getSoldiers()      { return this.soldierViews; }
+    @Override public int           getTotalStrength() { return this.totalStrength; }
+    @Override public RankHistogram getRankHistogram() { return this.rankHistogram; }
+
+    @Override public boolean isEmpty() { return this.size == 0; }
+
+    @Override public double getCompactionThreshold()                 { return this.compaction.getThreshold(); }
+    @Override public void   setCompactionThreshold(double threshold) { this.compaction.setThreshold(threshold); }
+
+    @Override public long getModificationCount() { return this.modifications; }
+
+    public int getGroupCount() {
+        return this.groups.size();
+    }
+
+    @Override
+    public boolean contains(Soldier s) {
+        if (!(s instanceof SoldierView)) {
+            return false;
+        }
+        SoldierView view = (SoldierView) s;
+        return view.army() == this && view.layout == this.layout && view.idx < this.size;
+    }
+
+    @Override
+    public int positionOf(Soldier s) {
+        return contains(s) ? ((SoldierView) s).idx : -1;
+    }
+
+    // copies the soldier's current state into the army
+    @Override
+    public void add(Soldier s) {
+        compactIfDue();
+        append(s.getRank(), s.getExp(), s.isAlive(), 1);
+        this.totalStrength += s.getStrength();
+        this.rankHistogram.add(s.getRank(), s.getExp(), s.isAlive(), 1);
+        this.modifications++;
+    }
+
+    @Override
+    public void recruit(Rank rank, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("soldier quantity must not be negative");
+        }
+        if (quantity == 0) {
+            return;
+        }
+        compactIfDue();
+
+        append(rank, 1, true, quantity);
+        this.totalStrength += rank.getValue() * quantity;
+        this.rankHistogram.add(rank, 1, true, quantity);
+        this.modifications++;
+    }
+
+    @Override
+    public void appendColumns(ByteBuffer ranks, IntBuffer exps, LongBuffer aliveBits, int count) {
+        Columns.checkRanks(ranks, count);
+
+        for (int i = 0; i < count; i++) {
+            Rank    rank  = Columns.rankAt(ranks, i);
+            int     exp   = exps.get(exps.position() + i);
+            boolean alive = Columns.isAlive(aliveBits, i);
+            append(rank, exp, alive, 1);
+            this.totalStrength += rank.getValue() * exp;
+            this.rankHistogram.add(rank, exp, alive, 1);
+        }
+        this.modifications++;
+    }
+
+    @Override
+    public void killAndRemoveRandom() {
+        killAndRemoveRandom(this.random);
+    }
+
+    @Override
+    public void killAndRemoveRandom(RandomGenerator random) {
+        compactIfDue();
+        if (this.size == 0) {
+            return;
+        }
+
+        // the killed soldier leaves the army right away,
+        // so there is no state left to mark as dead
+        remove(random.nextInt(this.size));
+    }
+
+    // drops the dead groups, merging living neighbours that meet
+    @Override
+    public void compact() {
+        List<Group> all = new ArrayList<>(this.groups);
+        this.groups.clear();
+        this.size = 0;
+        for (Group group : all) {
+            if (group.alive) {
+                append(group.rank, group.exp, true, group.count);
+            } else {
+                this.totalStrength -= group.strength() * group.count;
+                this.rankHistogram.remove(group.rank, group.exp, false, group.count);
+            }
+        }
+        this.cursor = 0;
+        this.modifications++;
+        this.layout++;
+    }
+
+    // changes whole groups at once, so the army is split into chunks of
+    // groups rather than soldiers; groups left in the same state are
+    // merged afterwards
+    @Override
+    public void changeExpOfAll(int n, ForkJoinPool pool, int parallelThreshold) {
+        ExpChanges changes = ExpChangeTask.run(this::changeExp, this.groups.size(), n, pool, parallelThreshold);
+        if (!changes.isChanged()) {
+            return;
+        }
+
+        List<Group> all = new ArrayList<>(this.groups);
+        this.groups.clear();
+        this.size = 0;
+        for (Group group : all) {
+            append(group.rank, group.exp, group.alive, group.count);
+        }
+        this.cursor = 0;
+
+        this.totalStrength += changes.getStrength();
+        this.rankHistogram.addAll(changes.getHistogram());
+        this.modifications++;
+    }
+
+    private void changeExp(int from, int to, int n, ExpChanges changes) {
+        GroupSoldier soldier = new GroupSoldier(changes);
+        for (int gi = from; gi < to; gi++) {
+            soldier.group = this.groups.get(gi);
+            ExpChanges.apply(soldier, n);
+        }
+    }
+
+    private void compactIfDue() {
+        if (this.compaction.isDue(this.size, this.rankHistogram)) {
+            compact();
+        }
+    }
+
+    private void append(Rank rank, int exp, boolean alive, int count) {
+        Group last = this.groups.isEmpty() ? null : this.groups.get(this.groups.size() - 1);
+        if (last != null && last.hasState(rank, exp, alive)) {
+            last.count += count;
+        } else {
+            this.groups.add(new Group(rank, exp, alive, count));
+        }
+        this.size += count;
+    }
+
+    private void remove(int idx) {
+        int   gi    = groupOf(locate(idx));
+        Group group = this.groups.get(gi);
+
+        group.count--;
+        this.size--;
+        this.totalStrength -= group.strength();
+        this.rankHistogram.remove(group.rank, group.exp, group.alive, 1);
+
+        if (group.count == 0) {
+            this.groups.remove(gi);
+            if (gi > 0 && gi < this.groups.size()
+                && this.groups.get(gi - 1).hasStateOf(this.groups.get(gi))) {
+                this.groups.get(gi - 1).count += this.groups.remove(gi).count;
+            }
+        }
+        this.cursor = 0;
+        this.modifications++;
+        this.layout++;
+    }
+
+    // the group holding the soldier at idx and the position of its first
+    // soldier, packed like the cursor; leaves the cursor on it
+    private long locate(int idx) {
+        long found = this.cursor;
+        int  gi    = groupOf(found);
+        int  start = startOf(found);
+        if (idx < start) {
+            gi    = 0;
+            start = 0;
+        }
+        while (idx >= start + this.groups.get(gi).count) {
+            start += this.groups.get(gi).count;
+            gi++;
+        }
+        found       = cursorAt(gi, start);
+        this.cursor = found;
+        return found;
+    }
+
+    private static long cursorAt(int group, int start) {
+        return (long) group << 32 | start;
+    }
+
+    private static int groupOf(long cursor) {
+        return (int) (cursor >>> 32);
+    }
+
+    private static int startOf(long cursor) {
+        return (int) cursor;
+    }
+
+    // splits the soldier at idx off its group and returns the index of its
+    // own single-soldier group
+    private int isolate(int idx) {
+        long  found = locate(idx);
+        int   gi    = groupOf(found);
+        Group group = this.groups.get(gi);
+        if (group.count == 1) {
+            return gi;
+        }
+
+        int before = idx - startOf(found);
+        int after  = group.count - before - 1;
+
+        if (after > 0) {
+            this.groups.add(gi + 1, group.copy(after));
+        }
+        if (before > 0) {
+            group.count = before;
+            this.groups.add(gi + 1, group.copy(1));
+            this.cursor = cursorAt(gi + 1, startOf(found) + before);
+            return gi + 1;
+        }
+        group.count = 1;
+        return gi;
+    }
+
+    // merges the group at gi with neighbours in the same state
+    private void mergeAround(int gi) {
+        Group group = this.groups.get(gi);
+
+        if (gi + 1 < this.groups.size() && group.hasStateOf(this.groups.get(gi + 1))) {
+            group.count += this.groups.remove(gi + 1).count;
+        }
+        if (gi > 0 && this.groups.get(gi - 1).hasStateOf(group)) {
+            Group previous = this.groups.get(gi - 1);
+            this.cursor     = cursorAt(gi - 1, startOf(this.cursor) - previous.count);
+            previous.count += this.groups.remove(gi).count;
+        }
+    }
+
+    private static class Group {
+        private Rank    rank;
+        private int     exp;
+        private boolean alive;
+        private int     count;
+
+        Group(Rank rank, int exp, boolean alive, int count) {
+            this.rank  = rank;
+            this.exp   = exp;
+            this.alive = alive;
+            this.count = count;
+        }
+
+        Group copy(int count) {
+            return new Group(this.rank, this.exp, this.alive, count);
+        }
+
+        // strength of one soldier of the group
+        int strength() {
+            return this.rank.getValue() * this.exp;
+        }
+
+        boolean hasState(Rank rank, int exp, boolean alive) {
+            return this.rank == rank && this.exp == exp && this.alive == alive;
+        }
+
+        boolean hasStateOf(Group other) {
+            return hasState(other.rank, other.exp, other.alive);
+        }
+    }
+
+    private class SoldierViews extends AbstractList<Soldier> {
+        @Override
+        public Soldier get(int idx) {
+            Objects.checkIndex(idx, GroupedArmy.this.size);
+            return new SoldierView(idx);
+        }
+
+        @Override
+        public int size() {
+            return GroupedArmy.this.size;
+        }
+    }
+
+    private class SoldierView extends Soldier {
+        private final int  idx;
+        private final long layout;
+
+        SoldierView(int idx) {
+            this.idx    = idx;
+            this.layout = GroupedArmy.this.layout;
+        }
+
+        private Group group() {
+            return groups.get(groupOf(locate(this.idx)));
+        }
+
+        @Override public Rank    getRank() { return group().rank; }
+        @Override public int     getExp()  { return group().exp; }
+        @Override public boolean isAlive() { return group().alive; }
+
+        @Override
+        void setRank(Rank rank) {
+            if (group().rank != rank) {
+                int gi = isolate(current());
+                groups.get(gi).rank = rank;
+                mergeAround(gi);
+            }
+        }
+
+        @Override
+        void setExp(int exp) {
+            if (group().exp != exp) {
+                int gi = isolate(current());
+                groups.get(gi).exp = exp;
+                mergeAround(gi);
+            }
+        }
+
+        @Override
+        void kill() {
+            int gi = isolate(current());
+            groups.get(gi).alive = false;
+            mergeAround(gi);
+        }
+
+        @Override
+        void changed(Rank rankBefore, int expBefore) {
+            totalStrength += getStrength() - rankBefore.getValue() * expBefore;
+            rankHistogram.changed(this, rankBefore, expBefore);
+            modifications++;
+        }
+
+        private GroupedArmy army() {
+            return GroupedArmy.this;
+        }
+
+        // a view from before a removal or purge may address another soldier
+        // by now, so changing through it would corrupt that soldier
+        private int current() {
+            if (this.layout != GroupedArmy.this.layout) {
+                throw new IllegalStateException("stale soldier view: the army removed soldiers since");
+            }
+            return this.idx;
+        }
+
+        // two views are equal when they address the same position of the same army
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SoldierView)) {
+                return false;
+            }
+            SoldierView other = (SoldierView) o;
+            return other.army() == this.army() && other.idx == this.idx;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.army()) + this.idx;
+        }
+    }
+
+    // changes every soldier of a group at once, reporting the change
+    // of all of them to the chunk instead of the army
+    private static final class GroupSoldier extends Soldier {
+        private final ExpChanges changes;
+        private Group            group;
+
+        GroupSoldier(ExpChanges changes) {
+            this.changes = changes;
+        }
+
+        @Override public Rank    getRank() { return this.group.rank; }
+        @Override public int     getExp()  { return this.group.exp; }
+        @Override public boolean isAlive() { return this.group.alive; }
+
+        @Override void setRank(Rank rank) { this.group.rank = rank; }
+        @Override void setExp(int exp)    { this.group.exp = exp; }
+        @Override void kill()             { this.group.alive = false; }
+
+        @Override
+        void changed(Rank rankBefore, int expBefore) {
+            this.changes.record(this, rankBefore, expBefore, this.group.count);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package wargames.models;
+
+// Soldier keeping its own state on the heap
+final class HeapSoldier extends Soldier {
+
+    private Rank    rank;
+    private int     exp;
+    private boolean alive;
+
+    private ListArmy army;
+    private int      position;
+
+    HeapSoldier(Rank rank, int exp, boolean alive) {
+        this.rank  = rank;
+        this.exp   = exp;
+        this.alive = alive;
+    }
+
+    @Override public Rank    getRank() { return this.rank; }
+    @Override public int     getExp()  { return this.exp; }
+    @Override public boolean isAlive() { return this.alive; }
+
+    @Override void setRank(Rank rank) { this.rank = rank; }
+    @Override void setExp(int exp)    { this.exp = exp; }
+    @Override void kill()             { this.alive = false; }
+
+    @Override
+    void changed(Rank rankBefore, int expBefore) {
+        if (this.army != null) {
+            this.army.soldierChanged(this, rankBefore, expBefore);
+        }
+    }
+
+    int  getPosition()             { return this.position; }
+    void setPosition(int position) { this.position = position; }
+
+    boolean belongsTo(ListArmy army) {
+        return this.army == army;
+    }
+
+    void enlist(ListArmy army) {
+        if (this.army != null) {
+            throw new IllegalArgumentException("soldier already belongs to an army");
+        }
+        this.army = army;
+    }
+
+    void discharge() {
+        this.army = null;
+    }
+}
@@ -0,0 +1,230 @@
+package wargames.models;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+
+// Army keeping its soldiers as separate objects in an ArrayList.
+// Every soldier belongs to at most one ListArmy and reports its strength
+// changes to it, so the total strength is kept up to date incrementally.
+// Removal moves the last soldier into the freed position, so the order of
+// soldiers is not preserved.
+public class ListArmy implements Army {
+
+    private final ArrayList<HeapSoldier> soldiers;
+    private final List<Soldier>          soldiersView;
+    private final RandomGenerator        random;
+    private final RankHistogram          rankHistogram = new RankHistogram();
+    private final CompactionPolicy       compaction    = new CompactionPolicy();
+
+    private int  totalStrength;
+    private long modifications;
+
+    public ListArmy() {
+        this(new SplittableRandom());
+    }
+
+    // the random source picks soldiers killed in killAndRemoveRandom();
+    // a seeded generator makes removals reproducible
+    public ListArmy(RandomGenerator random) {
+        this.soldiers     = new ArrayList<HeapSoldier>();
+        this.soldiersView = Collections.unmodifiableList(this.soldiers);
+        this.random       = random;
+    }
+
+    @Override public int           getSize()          { return this.soldiers.size(); }
+    @Override public List<Soldier> getSoldiers()      { return this.soldiersView; }    
+    @Override public int           getTotalStrength() { return this.totalStrength; }
+    @Override public RankHistogram getRankHistogram() { return this.rankHistogram; }
+    
+    @Override public boolean isEmpty() { return this.soldiers.isEmpty(); }
+
+    @Override public double getCompactionThreshold()                 { return this.compaction.getThreshold(); }
+    @Override public void   setCompactionThreshold(double threshold) { this.compaction.setThreshold(threshold); }
+
+    @Override public long getModificationCount() { return this.modifications; }
+
+    // O(1) membership check through the soldier's army tag
+    @Override
+    public boolean contains(Soldier s) {
+        return s instanceof HeapSoldier && ((HeapSoldier) s).belongsTo(this);
+    }
+
+    // every soldier keeps its position, updated whenever it moves
+    @Override
+    public int positionOf(Soldier s) {
+        return contains(s) ? ((HeapSoldier) s).getPosition() : -1;
+    }
+
+    @Override
+    public void add(Soldier s) {
+        if (!(s instanceof HeapSoldier)) {
+            throw new IllegalArgumentException("soldier views of another army cannot be enlisted");
+        }
+
+        HeapSoldier soldier = (HeapSoldier) s;
+        soldier.enlist(this);
+        compactIfDue();
+
+        soldier.setPosition(this.soldiers.size());
+        this.soldiers.add(soldier);
+        this.totalStrength += soldier.getStrength();
+        this.rankHistogram.add(soldier.getRank(), soldier.getExp(), soldier.isAlive(), 1);
+        this.modifications++;
+    }
+
+    @Override
+    public void recruit(Rank rank, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("soldier quantity must not be negative");
+        }
+        compactIfDue();
+
+        this.soldiers.ensureCapacity(this.soldiers.size() + quantity);
+        for (int i = 0; i < quantity; i++) {
+            HeapSoldier soldier = new HeapSoldier(rank, 1, true);
+            soldier.enlist(this);
+            soldier.setPosition(this.soldiers.size());
+            this.soldiers.add(soldier);
+        }
+        this.totalStrength += rank.getValue() * quantity;
+        this.rankHistogram.add(rank, 1, true, quantity);
+        this.modifications++;
+    }
+
+    @Override
+    public void appendColumns(ByteBuffer ranks, IntBuffer exps, LongBuffer aliveBits, int count) {
+        Columns.checkRanks(ranks, count);
+
+        this.soldiers.ensureCapacity(this.soldiers.size() + count);
+        for (int i = 0; i < count; i++) {
+            HeapSoldier soldier = new HeapSoldier(Columns.rankAt(ranks, i), exps.get(exps.position() + i),
+                                                  Columns.isAlive(aliveBits, i));
+            soldier.enlist(this);
+            soldier.setPosition(this.soldiers.size());
+            this.soldiers.add(soldier);
+            this.totalStrength += soldier.getStrength();
+            this.rankHistogram.add(soldier.getRank(), soldier.getExp(), soldier.isAlive(), 1);
+        }
+        this.modifications++;
+    }
+
+    @Override
+    public void killAndRemoveRandom() {
+        killAndRemoveRandom(this.random);
+    }
+
+    @Override
+    public void killAndRemoveRandom(RandomGenerator random) {
+        compactIfDue();
+        if (soldiers.isEmpty()) {
+            return;
+        }
+
+        int idx = random.nextInt(soldiers.size());
+        
+        killAndRemove(idx);
+    }
+
+    @Override
+    public void compact() {
+        int kept = 0;
+        for (HeapSoldier soldier : this.soldiers) {
+            if (soldier.isAlive()) {
+                soldier.setPosition(kept);
+                this.soldiers.set(kept++, soldier);
+            } else {
+                this.totalStrength -= soldier.getStrength();
+                this.rankHistogram.remove(soldier.getRank(), soldier.getExp(), false, 1);
+                soldier.discharge();
+            }
+        }
+        this.soldiers.subList(kept, this.soldiers.size()).clear();
+        this.modifications++;
+    }
+
+    // chunks change their soldiers through a proxy reporting to the chunk's
+    // own changes, which are added to the army's totals at the end
+    @Override
+    public void changeExpOfAll(int n, ForkJoinPool pool, int parallelThreshold) {
+        ExpChanges changes = ExpChangeTask.run(this::changeExp, this.soldiers.size(), n, pool, parallelThreshold);
+
+        this.totalStrength += changes.getStrength();
+        this.rankHistogram.addAll(changes.getHistogram());
+        if (changes.isChanged()) {
+            this.modifications++;
+        }
+    }
+
+    private void changeExp(int from, int to, int n, ExpChanges changes) {
+        ChunkSoldier soldier = new ChunkSoldier(changes);
+        for (int idx = from; idx < to; idx++) {
+            soldier.target = this.soldiers.get(idx);
+            ExpChanges.apply(soldier, n);
+        }
+    }
+
+    private void compactIfDue() {
+        if (this.compaction.isDue(this.soldiers.size(), this.rankHistogram)) {
+            compact();
+        }
+    }
+
+    void soldierChanged(HeapSoldier soldier, Rank rankBefore, int expBefore) {
+        this.totalStrength += soldier.getStrength() - rankBefore.getValue() * expBefore;
+        this.rankHistogram.changed(soldier, rankBefore, expBefore);
+        this.modifications++;
+    }
+
+    private void killAndRemove(int idx) {
+        HeapSoldier soldier = this.soldiers.get(idx);
+        int soldierExp = soldier.getExp();
+        soldier.decreaseExpByN(soldierExp); 
+
+        remove(idx);
+    }
+
+    // swaps the last soldier into idx, so removal does not shift the list
+    private void remove(int idx) {
+        int         last    = this.soldiers.size() - 1;
+        HeapSoldier moved   = this.soldiers.get(last);
+        HeapSoldier removed = this.soldiers.set(idx, moved);
+        this.soldiers.remove(last);
+        moved.setPosition(idx);
+
+        this.totalStrength -= removed.getStrength();
+        this.rankHistogram.remove(removed.getRank(), removed.getExp(), removed.isAlive(), 1);
+        removed.discharge();
+        this.modifications++;
+    }
+
+    // changes the target soldier's state like the soldier itself would,
+    // but reports the change to the chunk instead of the army
+    private static final class ChunkSoldier extends Soldier {
+        private final ExpChanges changes;
+        private HeapSoldier      target;
+
+        ChunkSoldier(ExpChanges changes) {
+            this.changes = changes;
+        }
+
+        @Override public Rank    getRank() { return this.target.getRank(); }
+        @Override public int     getExp()  { return this.target.getExp(); }
+        @Override public boolean isAlive() { return this.target.isAlive(); }
+
+        @Override void setRank(Rank rank) { this.target.setRank(rank); }
+        @Override void setExp(int exp)    { this.target.setExp(exp); }
+        @Override void kill()             { this.target.kill(); }
+
+        @Override
+        void changed(Rank rankBefore, int expBefore) {
+            this.changes.record(this, rankBefore, expBefore, 1);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package wargames.models;
+
+// Per-rank soldier counts and exp of an army, kept up to date by the army on
+// every recruitment, removal, exp change, promotion and death, so per-rank
+// queries take O(number of ranks) instead of a pass over the soldiers.
+// Dead soldiers are counted, but have no exp.
+public final class RankHistogram {
+
+    private static final Rank[] RANKS = Rank.values();
+
+    private final int[]  counts       = new int[RANKS.length];
+    private final int[]  livingCounts = new int[RANKS.length];
+    private final long[] totalExps    = new long[RANKS.length];
+
+    public RankHistogram() { }
+
+    public int  getCount(Rank rank)       { return this.counts[rank.ordinal()]; }
+    public int  getLivingCount(Rank rank) { return this.livingCounts[rank.ordinal()]; }
+    public long getTotalExp(Rank rank)    { return this.totalExps[rank.ordinal()]; }
+
+    public int getTotalLivingCount() {
+        int total = 0;
+        for (int living : this.livingCounts) {
+            total += living;
+        }
+        return total;
+    }
+
+    // sum of the rank values of all soldiers, which is what drilling
+    // the whole army costs
+    public int getTotalRankValue() {
+        int total = 0;
+        for (Rank rank : RANKS) {
+            total += this.counts[rank.ordinal()] * rank.getValue();
+        }
+        return total;
+    }
+
+    void add(Rank rank, int exp, boolean alive, int count) {
+        int r = rank.ordinal();
+        this.counts[r]    += count;
+        this.totalExps[r] += (long) exp * count;
+        if (alive) {
+            this.livingCounts[r] += count;
+        }
+    }
+
+    // count soldiers of the rank, living of them alive, with exps adding up
+    // to totalExp
+    void addTotals(Rank rank, int count, int living, long totalExp) {
+        int r = rank.ordinal();
+        this.counts[r]       += count;
+        this.livingCounts[r] += living;
+        this.totalExps[r]    += totalExp;
+    }
+
+    void remove(Rank rank, int exp, boolean alive, int count) {
+        add(rank, exp, alive, -count);
+    }
+
+    void addAll(RankHistogram other) {
+        for (int r = 0; r < RANKS.length; r++) {
+            this.counts[r]       += other.counts[r];
+            this.livingCounts[r] += other.livingCounts[r];
+            this.totalExps[r]    += other.totalExps[r];
+        }
+    }
+
+    // moves a soldier that was alive with rankBefore and expBefore
+    // to its current state
+    void changed(Soldier soldier, Rank rankBefore, int expBefore) {
+        remove(rankBefore, expBefore, true, 1);
+        add(soldier.getRank(), soldier.getExp(), soldier.isAlive(), 1);
+    }
+}
@@ -1,86 +1,89 @@
 package wargames.models;
 
-public class Soldier
+// Soldier's promotion and death rules. The state itself is kept by subclasses,
+// either in the soldier object (HeapSoldier) or in an army's columns
+// (ColumnarArmy's soldier views)
+public abstract class Soldier
 {
-    private Rank    rank;
-    private int     exp;
-    private boolean alive;
-
     public static final int PROMOTION_RANK_MULTIPLIER = 5;
 
     // constructors
     public static Soldier withRank(Rank rank) {
-        return new Soldier(rank, 1, true);
-    }
-
-    private Soldier(Rank rank, int exp, boolean alive) {
-        this.rank  = rank;
-        this.exp   = exp;
-        this.alive = alive;
+        return new HeapSoldier(rank, 1, true);
     }
 
     // accessors
-    public Rank getRank() {
-        return this.rank;
-    }
+    public abstract Rank getRank();
 
-    public int getExp() {
-        return this.exp;
-    }
+    public abstract int getExp();
 
     public int getStrength() {
-        return this.rank.getValue() * this.exp;
+        return this.getRank().getValue() * this.getExp();
     }
 
     // predicates
-    public boolean isAlive() {
-        return this.alive;
-    }
+    public abstract boolean isAlive();
 
     // mutators
+
+    // same result as n single-exp increments with a promotion check after
+    // each of them, computed in O(number of promotions)
     public void increaseExpByN(int n) {
-        for (int i = 0; i < n; i++) {
-            incrementExp();
+        if (n <= 0 || !this.isAlive()) {
+            return;
         }
-    }
 
-    public void decreaseExpByN(int n) {
-        for (int i = 0; i < n; i++) {
-            decrementExp();
+        Rank rankBefore = this.getRank();
+        int  expBefore  = this.getExp();
+        Rank rank       = rankBefore;
+        int  exp        = expBefore;
+        int  remaining  = n;
+
+        while (rank.getValue() < Rank.MAJOR.getValue()) {
+            int stepsToPromotion = Math.max(1, PROMOTION_RANK_MULTIPLIER * rank.getValue() - exp);
+            if (remaining < stepsToPromotion) {
+                break;
+            }
+
+            remaining -= stepsToPromotion;
+            rank = Rank.fromValue(rank.getValue() + 1);
+            exp  = 1;
         }
+
+        this.setRank(rank);
+        this.setExp(exp + remaining);
+
+        this.changed(rankBefore, expBefore);
     }
 
-    private void incrementExp() {
-        if (!this.alive) {
+    // same result as n single-exp decrements, where the soldier dies
+    // at the first one leaving it with exp < 1
+    public void decreaseExpByN(int n) {
+        if (n <= 0 || !this.isAlive()) {
             return;
         }
 
-        this.exp += 1;
-
-        promoteIfNeeded();
-    } 
+        int exp          = this.getExp();
+        int stepsToDeath = Math.max(1, exp);
 
-    private void decrementExp() {
-        if (!this.alive) {
-            return;
+        if (n < stepsToDeath) {
+            this.setExp(exp - n);
+        } else {
+            this.setExp(exp - stepsToDeath);
+            this.kill();
         }
 
-        this.exp -= 1;
-
-        killIfNeeded();
+        this.changed(this.getRank(), exp);
     }
 
-    private void promoteIfNeeded() {
-        int rankValue = this.rank.getValue();
-        if (this.exp >= PROMOTION_RANK_MULTIPLIER * rankValue && rankValue < Rank.MAJOR.getValue()) {
-            this.rank = Rank.fromValue(rankValue + 1);
-            this.exp = 1;
-        }
-    }
+    // state primitives
+    abstract void setRank(Rank rank);
 
-    private void killIfNeeded() {
-        if (this.exp < 1) {
-            this.alive = false;
-        }
-    }
+    abstract void setExp(int exp);
+
+    abstract void kill();
+
+    // lets the army holding the soldier keep its total strength and rank
+    // histogram up to date; the soldier was alive before the change
+    abstract void changed(Rank rankBefore, int expBefore);
 }
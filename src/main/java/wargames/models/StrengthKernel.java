@@ -0,0 +1,80 @@
+package wargames.models;
+
+import java.util.Objects;
+
+// Adds soldiers to a rank histogram straight from rank ordinal, exp and alive
+// bit columns, and sums their strength, rank value times exp, in the same
+// pass: the strength of a range is the rank values times the exps the pass
+// counted per rank. The SIMD kernel lives in src/vector/java, built only by
+// the vector profile, and is loaded by name; without it, or without the
+// jdk.incubator.vector module in the boot layer, the scalar loop runs.
+// Strength wraps around like the armies' int total strength, so both give
+// the same result for any columns.
+public final class StrengthKernel {
+
+    // adds the soldiers from (inclusive) to (exclusive) to the histogram
+    interface Kernel {
+        void accumulate(byte[] ranks, int[] exps, long[] aliveBits, int from, int to, RankHistogram histogram);
+    }
+
+    private static final Rank[] RANKS  = Rank.values();
+    private static final Kernel SCALAR = new ScalarKernel();
+    private static final Kernel KERNEL = load("wargames.models.VectorStrengthKernel");
+
+    private StrengthKernel() { }
+
+    public static boolean isVectorized() {
+        return KERNEL != SCALAR;
+    }
+
+    // adds the soldiers from (inclusive) to (exclusive) to the histogram and
+    // returns their strength; ranks must be valid rank ordinals and alive
+    // bits are laid out as Army.appendColumns() takes them
+    public static int accumulate(byte[] ranks, int[] exps, long[] aliveBits, int from, int to,
+                                 RankHistogram histogram) {
+        return accumulate(KERNEL, ranks, exps, aliveBits, from, to, histogram);
+    }
+
+    // the fallback, also kept for comparing against the vectorized pass
+    public static int scalarAccumulate(byte[] ranks, int[] exps, long[] aliveBits, int from, int to,
+                                       RankHistogram histogram) {
+        return accumulate(SCALAR, ranks, exps, aliveBits, from, to, histogram);
+    }
+
+    // the kernel of the named class, or the scalar loop when the class was
+    // not built or cannot link against the vector module
+    static Kernel load(String className) {
+        try {
+            return (Kernel) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+
+    private static int accumulate(Kernel kernel, byte[] ranks, int[] exps, long[] aliveBits, int from, int to,
+                                  RankHistogram histogram) {
+        Objects.checkFromToIndex(from, to, ranks.length);
+        Objects.checkFromToIndex(from, to, exps.length);
+        Objects.checkFromToIndex(from >>> 6, (to + 63) >>> 6, aliveBits.length);
+
+        RankHistogram added = new RankHistogram();
+        kernel.accumulate(ranks, exps, aliveBits, from, to, added);
+        histogram.addAll(added);
+
+        int strength = 0;
+        for (Rank rank : RANKS) {
+            strength += rank.getValue() * (int) added.getTotalExp(rank);
+        }
+        return strength;
+    }
+
+    private static final class ScalarKernel implements Kernel {
+        @Override
+        public void accumulate(byte[] ranks, int[] exps, long[] aliveBits, int from, int to,
+                               RankHistogram histogram) {
+            for (int idx = from; idx < to; idx++) {
+                histogram.add(RANKS[ranks[idx]], exps[idx], (aliveBits[idx >>> 6] & (1L << idx)) != 0, 1);
+            }
+        }
+    }
+}
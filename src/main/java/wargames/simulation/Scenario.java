@@ -0,0 +1,32 @@
+package wargames.simulation;
+
+import wargames.models.General;
+
+// A single battle of a simulation. Scenarios run in parallel, so generals
+// and armies must not be shared between them. The seed picks the soldiers
+// shot in a draw, so running the same scenarios again gives the same
+// statistics and leaves the same armies behind.
+public class Scenario {
+
+    private final General attacking;
+    private final General attacked;
+    private final long    seed;
+
+    public Scenario(General attacking, General attacked) {
+        this(attacking, attacked, 0);
+    }
+
+    public Scenario(General attacking, General attacked, long seed) {
+        if (attacking == null || attacked == null) {
+            throw new IllegalArgumentException("null general passed to Scenario");
+        }
+
+        this.attacking = attacking;
+        this.attacked  = attacked;
+        this.seed      = seed;
+    }
+
+    public General getAttacking() { return this.attacking; }
+    public General getAttacked()  { return this.attacked; }
+    public long    getSeed()      { return this.seed; }
+}
@@ -0,0 +1,111 @@
+package wargames.simulation;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import wargames.commands.AttackCommand;
+import wargames.events.publisher.EventDispatcher;
+import wargames.exceptions.EmptyArmyException;
+import wargames.exceptions.InsufficientGoldException;
+import wargames.models.*;
+
+// Runs many independent battles in parallel on a ForkJoinPool. The scenarios
+// are split in halves until at most batchSize remain; each such batch is
+// fought on one worker into its own SimulationStatistics, and the results
+// are merged while the tasks are joined. Battles are fought with
+// AttackCommand.execute(), so no events are published. Casualties are read
+// off the armies' rank histograms, so recording a battle does not walk the
+// armies. Battles with an empty army or an attacker without gold are
+// counted as rejected.
+public class SimulationEngine {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final ForkJoinPool    pool;
+    private final int             batchSize;
+    private final EventDispatcher dispatcher = EventDispatcher.getInstance();
+
+    public SimulationEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    public SimulationEngine(ForkJoinPool pool, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+
+        this.pool      = pool;
+        this.batchSize = batchSize;
+    }
+
+    public SimulationStatistics run(List<Scenario> scenarios) {
+        return this.pool.invoke(new BattleTask(scenarios, 0, scenarios.size()));
+    }
+
+    private void fight(Scenario scenario, SimulationStatistics statistics) {
+        General attacking = scenario.getAttacking();
+        General attacked  = scenario.getAttacked();
+
+        int attackingGold  = attacking.getGold();
+        int attackingAlive = livingCount(attacking);
+        int attackedAlive  = livingCount(attacked);
+
+        AttackCommand attack = new AttackCommand(attacking, attacked, scenario.getSeed(), this.dispatcher);
+        try {
+            attack.execute();
+        } catch (EmptyArmyException | InsufficientGoldException e) {
+            // a battle that cannot be fought; any other failure is a broken
+            // scenario and ends the run
+            statistics.recordRejected();
+            return;
+        }
+
+        int loot               = Math.abs(attacking.getGold() - attackingGold);
+        int attackerCasualties = attackingAlive - livingCount(attacking);
+        int defenderCasualties = attackedAlive - livingCount(attacked);
+
+        if (attack.isDraw()) {
+            statistics.recordDraw(attackerCasualties, defenderCasualties);
+        } else if (attack.getWinner() == attacking) {
+            statistics.recordAttackerWin(loot, attackerCasualties, defenderCasualties);
+        } else {
+            statistics.recordDefenderWin(loot, attackerCasualties, defenderCasualties);
+        }
+    }
+
+    private static int livingCount(General general) {
+        return general.getArmy().getRankHistogram().getTotalLivingCount();
+    }
+
+    private class BattleTask extends RecursiveTask<SimulationStatistics> {
+        private final List<Scenario> scenarios;
+        private final int            from;
+        private final int            to;
+
+        BattleTask(List<Scenario> scenarios, int from, int to) {
+            this.scenarios = scenarios;
+            this.from      = from;
+            this.to        = to;
+        }
+
+        @Override
+        protected SimulationStatistics compute() {
+            if (this.to - this.from <= batchSize) {
+                SimulationStatistics statistics = new SimulationStatistics();
+                for (int i = this.from; i < this.to; i++) {
+                    fight(this.scenarios.get(i), statistics);
+                }
+                return statistics;
+            }
+
+            int        mid   = (this.from + this.to) >>> 1;
+            BattleTask left  = new BattleTask(this.scenarios, this.from, mid);
+            BattleTask right = new BattleTask(this.scenarios, mid, this.to);
+
+            left.fork();
+            SimulationStatistics rightStatistics = right.compute();
+            return left.join().merge(rightStatistics);
+        }
+    }
+}
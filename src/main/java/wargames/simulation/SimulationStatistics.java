@@ -0,0 +1,74 @@
+package wargames.simulation;
+
+// Outcome statistics of a simulation. Every worker fills its own instance,
+// which are merged once the workers are done, so recording needs no
+// synchronization.
+public class SimulationStatistics {
+
+    private long attackerWins;
+    private long defenderWins;
+    private long draws;
+    private long rejected;
+
+    private long goldLooted;
+    private long attackerCasualties;
+    private long defenderCasualties;
+
+    public long getAttackerWins()       { return this.attackerWins; }
+    public long getDefenderWins()       { return this.defenderWins; }
+    public long getDraws()              { return this.draws; }
+    public long getRejected()           { return this.rejected; }
+    public long getGoldLooted()         { return this.goldLooted; }
+    public long getAttackerCasualties() { return this.attackerCasualties; }
+    public long getDefenderCasualties() { return this.defenderCasualties; }
+
+    // battles that were fought, i.e. not rejected by AttackCommand
+    public long getBattles() {
+        return this.attackerWins + this.defenderWins + this.draws;
+    }
+
+    public double getAttackerWinRate() { return rateOf(this.attackerWins); }
+    public double getDefenderWinRate() { return rateOf(this.defenderWins); }
+    public double getDrawRate()        { return rateOf(this.draws); }
+
+    private double rateOf(long count) {
+        long battles = getBattles();
+        return battles == 0 ? 0.0 : (double) count / battles;
+    }
+
+    void recordAttackerWin(int loot, int attackerCasualties, int defenderCasualties) {
+        this.attackerWins++;
+        recordLosses(loot, attackerCasualties, defenderCasualties);
+    }
+
+    void recordDefenderWin(int loot, int attackerCasualties, int defenderCasualties) {
+        this.defenderWins++;
+        recordLosses(loot, attackerCasualties, defenderCasualties);
+    }
+
+    void recordDraw(int attackerCasualties, int defenderCasualties) {
+        this.draws++;
+        recordLosses(0, attackerCasualties, defenderCasualties);
+    }
+
+    void recordRejected() {
+        this.rejected++;
+    }
+
+    private void recordLosses(int loot, int attackerCasualties, int defenderCasualties) {
+        this.goldLooted         += loot;
+        this.attackerCasualties += attackerCasualties;
+        this.defenderCasualties += defenderCasualties;
+    }
+
+    SimulationStatistics merge(SimulationStatistics other) {
+        this.attackerWins       += other.attackerWins;
+        this.defenderWins       += other.defenderWins;
+        this.draws              += other.draws;
+        this.rejected           += other.rejected;
+        this.goldLooted         += other.goldLooted;
+        this.attackerCasualties += other.attackerCasualties;
+        this.defenderCasualties += other.defenderCasualties;
+        return this;
+    }
+}
@@ -0,0 +1,47 @@
+package wargames.snapshot;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Layout of a checkpoint. Checkpoint n is a world snapshot holding the
+// generals it captured, checkpoint-n.snapshot, and a manifest,
+// checkpoint-n.manifest, numbers being little-endian like in snapshots:
+//
+//   int MAGIC, short VERSION, byte full, byte 0,
+//   long journal length, long journal sequence number of the cut,
+//   int general count, int 0,
+//   long[] ids of the snapshot's generals, in snapshot order
+//
+// The manifest is written once the snapshot is on storage, to a temporary
+// file that is then renamed, so a checkpoint exists exactly when its
+// manifest does. File numbers are zero-padded, so names sort in order.
+final class CheckpointFormat {
+
+    static final int   MAGIC   = 0x57474350; // "WGCP"
+    static final short VERSION = 3;
+
+    static final int HEADER_SIZE = 32;
+
+    static final String SNAPSHOT  = ".snapshot";
+    static final String MANIFEST  = ".manifest";
+    static final String TEMPORARY = ".tmp";
+
+    private static final Pattern FILE_NAME =
+        Pattern.compile("checkpoint-(\\d{12})\\.(snapshot|manifest)(\\.tmp)?");
+
+    private CheckpointFormat() { }
+
+    static String fileName(long number, String suffix) {
+        return String.format("checkpoint-%012d%s", number, suffix);
+    }
+
+    // the checkpoint number of a checkpoint file, -1 for other files
+    static long number(String fileName) {
+        Matcher matcher = FILE_NAME.matcher(fileName);
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    static boolean isManifest(String fileName) {
+        return number(fileName) >= 0 && fileName.endsWith(MANIFEST);
+    }
+}
@@ -0,0 +1,483 @@
+package wargames.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import wargames.journal.CommandJournal;
+import wargames.journal.JournalReplay;
+import wargames.models.*;
+
+// Periodic incremental checkpoints of registered generals, see
+// CheckpointFormat. A checkpoint holds only the generals that changed since
+// the previous one, told by their armies' modification counts and their gold,
+// and records the length of the CommandJournal and the journal sequence
+// number of its cut; every fullEvery-th checkpoint holds every general, and
+// older checkpoints are deleted once it is written. Recovery restores the
+// latest full checkpoint, applies the deltas after it and replays the journal
+// from the length the last one recorded, skipping the commands numbered
+// before its cut, so its cost is bounded by the checkpoint interval.
+//
+// Commands are never held back as a whole: a checkpoint takes a sequence
+// number from the journal as its cut and then hands the generals over one at
+// a time under their own locks, writing each section without any lock held.
+// A general that a command numbered after the cut is about to change first is
+// copied by that command, as the commands before the cut left it; any other
+// general is copied at its handover. Registering generals takes a checkpoint
+// holding them, so they have to be registered before their first journaled
+// command. Recovered generals get back their ids, army kinds and compaction
+// thresholds, so the journal replays onto armies that remove and purge
+// soldiers as the played ones did, and generals created after a recovery get
+// ids above the recovered ones.
+public final class Checkpointer implements AutoCloseable {
+
+    private static final long NO_CUT = Long.MAX_VALUE;
+
+    private final Path                          directory;
+    private final CommandJournal                journal;
+    private final long                          intervalNanos;
+    private final int                           fullEvery;
+    private final Map<General, Tracked>         registered = new ConcurrentHashMap<>();
+    private final List<Tracked>                 tracked    = new CopyOnWriteArrayList<>();
+    private final CommandJournal.ChangeListener copier     = this::copyOnWrite;
+    private final Thread                        worker;
+
+    // guarded by the checkpointer's monitor
+    private long    lastNumber;
+    private long    lastJournalLength = -1;
+    private int     sinceFull;
+    private boolean fullDue = true;
+
+    // the sequence number of the cut being taken; no command is after NO_CUT
+    private volatile long    cut = NO_CUT;
+    private volatile boolean cutFull;
+
+    private volatile boolean   closed;
+    private volatile Exception lastFailure;
+
+    // numbers checkpoints on from those already in the directory;
+    // the first checkpoint taken is always a full one
+    public Checkpointer(Path directory, CommandJournal journal, Duration interval, int fullEvery) throws IOException {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("checkpoint interval must be positive");
+        }
+        if (fullEvery < 1) {
+            throw new IllegalArgumentException("full checkpoint period must be positive");
+        }
+
+        this.directory     = Files.createDirectories(directory);
+        this.journal       = journal;
+        this.intervalNanos = interval.toNanos();
+        this.fullEvery     = fullEvery;
+        for (Path file : files(directory)) {
+            this.lastNumber = Math.max(this.lastNumber, CheckpointFormat.number(file.getFileName().toString()));
+        }
+
+        journal.addChangeListener(this.copier);
+        this.worker = new Thread(this::run, "checkpointer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // takes a checkpoint holding the generals, which are tracked from then
+    // on, and returns its number
+    public long register(General... generals) throws IOException {
+        for (General general : generals) {
+            Tracked tracked = new Tracked(general);
+            if (this.registered.putIfAbsent(general, tracked) == null) {
+                this.tracked.add(tracked);
+            }
+        }
+        return checkpoint();
+    }
+
+    // takes a checkpoint now, on the calling thread, and returns its number;
+    // when nothing changed since the last one, returns the last one's number
+    public long checkpoint() throws IOException {
+        if (this.closed) {
+            throw new IllegalStateException("checkpointer is closed");
+        }
+        return take();
+    }
+
+    // failure of the latest periodic checkpoint, null if it succeeded
+    public Exception getLastFailure() {
+        return this.lastFailure;
+    }
+
+    // stops periodic checkpoints, waiting for one in progress
+    @Override
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.worker);
+        try {
+            this.worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.journal.removeChangeListener(this.copier);
+    }
+
+    // rebuilds the generals from the directory's checkpoints and the journal's
+    // tail, keyed by the ids they had when they were checkpointed; a journal
+    // reopened on the file numbers the commands run from then on after the
+    // recovered ones
+    public static Map<Long, General> recover(Path directory, Path journal) throws IOException {
+        List<Path>     manifests = new ArrayList<>();
+        List<Manifest> contents  = new ArrayList<>();
+        int            latestFull = -1;
+        for (Path file : files(directory)) {
+            if (CheckpointFormat.isManifest(file.getFileName().toString())) {
+                Manifest manifest = Manifest.read(file);
+                if (manifest.full) {
+                    latestFull = manifests.size();
+                }
+                manifests.add(file);
+                contents.add(manifest);
+            }
+        }
+        if (latestFull < 0) {
+            throw new IOException("no full checkpoint in " + directory);
+        }
+
+        Map<Long, General> generals      = new LinkedHashMap<>();
+        long               journalLength = 0;
+        long               cut           = 0;
+        for (int i = latestFull; i < manifests.size(); i++) {
+            Manifest manifest = contents.get(i);
+            String   name     = manifests.get(i).getFileName().toString();
+            Path     snapshot = directory.resolve(name.replace(CheckpointFormat.MANIFEST, CheckpointFormat.SNAPSHOT));
+            try (WorldSnapshot world = WorldSnapshot.open(snapshot)) {
+                if (world.getGeneralCount() != manifest.ids.length) {
+                    throw new IOException(name + " does not match its snapshot");
+                }
+                for (int j = 0; j < manifest.ids.length; j++) {
+                    generals.put(manifest.ids[j], world.getGeneral(j).restore(manifest.ids[j]));
+                }
+            }
+            journalLength = manifest.journalLength;
+            cut           = manifest.cut;
+        }
+
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+            new JournalReplay(generals::get).replay(channel, journalLength, cut);
+        }
+        return generals;
+    }
+
+    private synchronized long take() throws IOException {
+        boolean full = this.fullDue || this.sinceFull + 1 >= this.fullEvery;
+
+        // every record before the cut's journal length comes from a command
+        // numbered before the cut
+        long          journalLength = this.journal.length();
+        long          number        = this.lastNumber + 1;
+        List<Capture> captured;
+        long          cut;
+        this.cutFull = full;
+        try {
+            cut      = this.journal.cut(sequence -> this.cut = sequence);
+            captured = capture(cut, full);
+            if (!full && captured.isEmpty() && journalLength == this.lastJournalLength) {
+                return this.lastNumber;
+            }
+
+            // a failed checkpoint may leave the tracked state behind the files,
+            // so the next one starts over with a full checkpoint
+            this.fullDue = true;
+            WorldSnapshot.write(this.directory.resolve(CheckpointFormat.fileName(number, CheckpointFormat.SNAPSHOT)),
+                                new CapturedSections(captured));
+        } finally {
+            this.cut = NO_CUT;
+        }
+
+        // the records up to the cut's journal length have to be on storage
+        // before the manifest
+        this.journal.flush();
+        long[] ids = new long[captured.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = captured.get(i).tracked.general.getId();
+        }
+        new Manifest(full, journalLength, cut, ids).write(this.directory, number);
+
+        for (Capture capture : captured) {
+            capture.publish();
+        }
+        this.lastNumber        = number;
+        this.lastJournalLength = journalLength;
+        this.sinceFull         = full ? 0 : this.sinceFull + 1;
+        this.fullDue           = false;
+        if (full) {
+            deleteBefore(number);
+        }
+        return number;
+    }
+
+    // the changed generals, each as the commands before the cut left it
+    private List<Capture> capture(long cut, boolean full) {
+        List<Capture> captured = new ArrayList<>();
+        for (Tracked tracked : this.tracked) {
+            General general = tracked.general;
+            general.getLock().lock();
+            try {
+                Capture capture = tracked.captureAt(cut, full);
+                if (capture != null) {
+                    captured.add(capture);
+                }
+            } finally {
+                general.getLock().unlock();
+            }
+        }
+        return captured;
+    }
+
+    // a command numbered after the cut is about to change a general, so the
+    // checkpoint gets a copy unless it has been handed the general already
+    private void copyOnWrite(General general, long sequence) {
+        long    cut     = this.cut;
+        Tracked tracked = sequence > cut ? this.registered.get(general) : null;
+        if (tracked == null) {
+            return;
+        }
+
+        Capture capture = tracked.captureAt(cut, this.cutFull);
+        if (capture != null) {
+            capture.settle();
+        }
+    }
+
+    // the copy keeps the army's kind and the soldiers' order, which journaled
+    // drills address
+    private static General copyOf(General general, int gold) {
+        return new General(general.getName(), gold, copyOf(general.getArmy()));
+    }
+
+    private static Army copyOf(Army army) {
+        if (army instanceof ColumnarArmy) {
+            return ((ColumnarArmy) army).copy();
+        }
+
+        int    size  = army.getSize();
+        byte[] ranks = new byte[size];
+        int[]  exps  = new int[size];
+        long[] alive = new long[SnapshotFormat.aliveWords(size)];
+        int    idx   = 0;
+        for (Soldier s : army.getSoldiers()) {
+            ranks[idx] = (byte) s.getRank().ordinal();
+            exps[idx]  = s.getExp();
+            if (s.isAlive()) {
+                alive[idx >>> 6] |= 1L << idx;
+            }
+            idx++;
+        }
+
+        Army copy = SnapshotFormat.createArmy(SnapshotFormat.armyKind(army), size);
+        copy.appendColumns(ByteBuffer.wrap(ranks), IntBuffer.wrap(exps), LongBuffer.wrap(alive), size);
+        copy.setCompactionThreshold(army.getCompactionThreshold());
+        return copy;
+    }
+
+    // also removes what an interrupted checkpoint left behind
+    private void deleteBefore(long number) throws IOException {
+        for (Path file : files(this.directory)) {
+            long fileNumber = CheckpointFormat.number(file.getFileName().toString());
+            if (fileNumber >= 0 && fileNumber < number) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    // the directory's checkpoint files in checkpoint order,
+    // manifests before snapshots of the same number
+    private static List<Path> files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> CheckpointFormat.number(file.getFileName().toString()) >= 0)
+                        .sorted()
+                        .toList();
+        }
+    }
+
+    private void run() {
+        long deadline = System.nanoTime() + this.intervalNanos;
+        while (!this.closed) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                LockSupport.parkNanos(this, remaining);
+                continue;
+            }
+
+            try {
+                take();
+                this.lastFailure = null;
+            } catch (IOException | RuntimeException e) {
+                this.lastFailure = e;
+            }
+            deadline = System.nanoTime() + this.intervalNanos;
+        }
+    }
+
+    private static final class Tracked {
+        final General general;
+
+        // what the latest written checkpoint holds of the general, written
+        // by the checkpointer while no cut is being taken
+        boolean published;
+        long    modifications;
+        int     gold;
+
+        // guarded by the general's lock: the last cut the general was looked
+        // at, and what the checkpoint holds of it then
+        long    lastCut = -1;
+        Capture capture;
+
+        Tracked(General general) {
+            this.general = general;
+        }
+
+        // null if the general did not change since the latest written checkpoint
+        Capture captureAt(long cut, boolean full) {
+            if (this.lastCut != cut) {
+                long    modifications = this.general.getArmy().getModificationCount();
+                int     gold          = this.general.getGold();
+                boolean changed       = full || !this.published
+                                        || this.modifications != modifications || this.gold != gold;
+                this.lastCut = cut;
+                this.capture = changed ? new Capture(this, modifications, gold) : null;
+            }
+            return this.capture;
+        }
+    }
+
+    // a changed general of the checkpoint being taken: the live general until
+    // a command or the handover copies it, then settled
+    private static final class Capture {
+        final Tracked tracked;
+        final long    modifications;
+        final int     gold;
+
+        // guarded by the general's lock
+        General general;
+        boolean settled;
+
+        Capture(Tracked tracked, long modifications, int gold) {
+            this.tracked       = tracked;
+            this.modifications = modifications;
+            this.gold          = gold;
+            this.general       = tracked.general;
+        }
+
+        // called holding the general's lock
+        void settle() {
+            if (!this.settled) {
+                this.general = copyOf(this.general, this.gold);
+                this.settled = true;
+            }
+        }
+
+        void publish() {
+            this.tracked.published     = true;
+            this.tracked.modifications = this.modifications;
+            this.tracked.gold          = this.gold;
+        }
+    }
+
+    // hands each general over under its lock, as a copy the snapshot then
+    // reads without holding the lock
+    private static final class CapturedSections implements WorldSnapshot.Sections {
+        private final List<Capture> captured;
+
+        CapturedSections(List<Capture> captured) {
+            this.captured = captured;
+        }
+
+        @Override
+        public int count() {
+            return this.captured.size();
+        }
+
+        @Override
+        public General get(int index) {
+            Capture capture = this.captured.get(index);
+            General general = capture.tracked.general;
+            general.getLock().lock();
+            try {
+                capture.settle();
+                return capture.general;
+            } finally {
+                general.getLock().unlock();
+            }
+        }
+    }
+
+    private static final class Manifest {
+        final boolean full;
+        final long    journalLength;
+        final long    cut;
+        final long[]  ids;
+
+        Manifest(boolean full, long journalLength, long cut, long[] ids) {
+            this.full          = full;
+            this.journalLength = journalLength;
+            this.cut           = cut;
+            this.ids           = ids;
+        }
+
+        static Manifest read(Path path) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < CheckpointFormat.HEADER_SIZE || buffer.getInt() != CheckpointFormat.MAGIC) {
+                throw new IOException(path.getFileName() + " is not a checkpoint manifest");
+            }
+            short version = buffer.getShort();
+            if (version != CheckpointFormat.VERSION) {
+                throw new IOException("unsupported checkpoint version " + version);
+            }
+            boolean full          = buffer.get() != 0;
+            long    journalLength = buffer.position(buffer.position() + 1).getLong();
+            long    cut           = buffer.getLong();
+            int     count         = buffer.getInt();
+            if (count < 0 || (long) count * Long.BYTES != buffer.position(CheckpointFormat.HEADER_SIZE).remaining()) {
+                throw new IOException(path.getFileName() + " is incomplete");
+            }
+
+            long[] ids = new long[count];
+            buffer.asLongBuffer().get(ids);
+            return new Manifest(full, journalLength, cut, ids);
+        }
+
+        void write(Path directory, long number) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(CheckpointFormat.HEADER_SIZE + this.ids.length * Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(CheckpointFormat.MAGIC)
+                .putShort(CheckpointFormat.VERSION)
+                .put((byte) (this.full ? 1 : 0))
+                .put((byte) 0)
+                .putLong(this.journalLength)
+                .putLong(this.cut)
+                .putInt(this.ids.length)
+                .putInt(0);
+            buffer.asLongBuffer().put(this.ids);
+            buffer.clear();
+
+            Path manifest  = directory.resolve(CheckpointFormat.fileName(number, CheckpointFormat.MANIFEST));
+            Path temporary = directory.resolve(manifest.getFileName() + CheckpointFormat.TEMPORARY);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temporary, manifest, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package wargames.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import wargames.models.*;
+
+// One general of a WorldSnapshot, read straight from its mapped section.
+// Soldiers are addressed by their position in the army when it was written.
+// A section whose soldiers do not add up to its header is rejected.
+public final class GeneralSnapshot {
+
+    private static final Rank[] RANKS = Rank.values();
+
+    private final ByteBuffer section;
+    private final String     name;
+    private final int        gold;
+    private final int        totalStrength;
+    private final int        armySize;
+    private final double     compactionThreshold;
+    private final int        armyKind;
+    private final int        aliveOffset;
+    private final int        expsOffset;
+    private final int        ranksOffset;
+
+    GeneralSnapshot(ByteBuffer section) throws IOException {
+        this.section       = section;
+        this.gold          = section.getInt(0);
+        this.totalStrength = section.getInt(Integer.BYTES);
+        this.armySize      = section.getInt(2 * Integer.BYTES);
+
+        this.compactionThreshold = section.getDouble(SnapshotFormat.THRESHOLD_OFFSET);
+        this.armyKind            = section.getInt(SnapshotFormat.KIND_OFFSET);
+
+        int nameLength = section.getInt(3 * Integer.BYTES);
+        if (this.armySize < 0 || nameLength < 0
+            || SnapshotFormat.sectionLength(nameLength, this.armySize) > section.capacity()) {
+            throw new IOException("snapshot section of " + this.armySize + " soldiers is corrupt");
+        }
+        if (!(this.compactionThreshold >= 0 && this.compactionThreshold <= 1)
+            || SnapshotFormat.createArmy(this.armyKind, 0) == null) {
+            throw new IOException("snapshot section has an unknown army kind " + this.armyKind
+                                  + " or compaction threshold " + this.compactionThreshold);
+        }
+        byte[] name = new byte[nameLength];
+        section.get(SnapshotFormat.SECTION_HEADER_SIZE, name);
+        this.name = new String(name, StandardCharsets.UTF_8);
+
+        this.aliveOffset = (int) SnapshotFormat.columnsOffset(nameLength);
+        this.expsOffset  = this.aliveOffset + SnapshotFormat.aliveWords(this.armySize) * Long.BYTES;
+        this.ranksOffset = this.expsOffset + this.armySize * Integer.BYTES;
+        checkTotals();
+    }
+
+    public String getName()          { return this.name; }
+    public int    getGold()          { return this.gold; }
+    public int    getTotalStrength() { return this.totalStrength; }
+    public int    getArmySize()      { return this.armySize; }
+
+    public double getCompactionThreshold() { return this.compactionThreshold; }
+
+    public Rank getRank(int idx) {
+        return RANKS[this.section.get(this.ranksOffset + checkIndex(idx))];
+    }
+
+    public int getExp(int idx) {
+        return this.section.getInt(this.expsOffset + checkIndex(idx) * Integer.BYTES);
+    }
+
+    public boolean isAlive(int idx) {
+        long word = this.section.getLong(this.aliveOffset + (checkIndex(idx) >>> 6) * Long.BYTES);
+        return (word & (1L << idx)) != 0;
+    }
+
+    // a new general with an army of the kind and compaction threshold it
+    // was written with, holding the snapshot's soldiers in the same order
+    public General restore() {
+        return new General(this.name, this.gold, restoreArmy());
+    }
+
+    // the general as it was written, under its recorded id
+    General restore(long id) {
+        return General.restore(id, this.name, this.gold, restoreArmy());
+    }
+
+    private Army restoreArmy() {
+        Army army = SnapshotFormat.createArmy(this.armyKind, this.armySize);
+        army.appendColumns(
+            this.section.slice(this.ranksOffset, this.armySize),
+            this.section.slice(this.expsOffset, this.armySize * Integer.BYTES)
+                .order(this.section.order()).asIntBuffer(),
+            this.section.slice(this.aliveOffset, SnapshotFormat.aliveWords(this.armySize) * Long.BYTES)
+                .order(this.section.order()).asLongBuffer(),
+            this.armySize);
+        army.setCompactionThreshold(this.compactionThreshold);
+        return army;
+    }
+
+    // rank ordinals must be known and add up, with the exps, to the total
+    // strength in the header
+    private void checkTotals() throws IOException {
+        int strength = 0;
+        for (int idx = 0; idx < this.armySize; idx++) {
+            byte rank = this.section.get(this.ranksOffset + idx);
+            if (rank < 0 || rank >= RANKS.length) {
+                throw new IOException("snapshot of " + this.name + " has an unknown rank at soldier " + idx);
+            }
+            strength += RANKS[rank].getValue() * this.section.getInt(this.expsOffset + idx * Integer.BYTES);
+        }
+        if (strength != this.totalStrength) {
+            throw new IOException("snapshot of " + this.name + " holds a total strength of " + strength
+                                  + ", its header says " + this.totalStrength);
+        }
+    }
+
+    private int checkIndex(int idx) {
+        if (idx < 0 || idx >= this.armySize) {
+            throw new IndexOutOfBoundsException("soldier " + idx + " is outside an army of " + this.armySize);
+        }
+        return idx;
+    }
+}
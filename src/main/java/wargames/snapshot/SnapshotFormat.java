@@ -0,0 +1,77 @@
+package wargames.snapshot;
+
+import wargames.models.Army;
+import wargames.models.ColumnarArmy;
+import wargames.models.GroupedArmy;
+import wargames.models.ListArmy;
+
+// Layout of a world snapshot. Numbers are little-endian, so the columns
+// copy straight into arrays on common hardware.
+//
+//   header:     int MAGIC, short VERSION, short 0, int general count, int 0
+//   directory:  long section offset, long section length per general
+//   section:    int gold, int total strength, int army size, int name length,
+//               double compaction threshold, int army kind, int 0,
+//               UTF-8 name, padding to 8 bytes,
+//               long[] alive bits, int[] exps, byte[] rank ordinals
+//
+// Sections start at multiples of 8 bytes, so every column is aligned to
+// the size of its elements. Each section is mapped on its own and has to
+// fit a single MappedByteBuffer; the file as a whole has no size limit.
+// The army kind restores an army that removes and purges soldiers the way
+// the written one did, so a journal replays onto it as it was played.
+final class SnapshotFormat {
+
+    static final int   MAGIC   = 0x57475331; // "WGS1"
+    static final short VERSION = 2;
+
+    static final int HEADER_SIZE           = 16;
+    static final int DIRECTORY_ENTRY_SIZE  = 2 * Long.BYTES;
+    static final int SECTION_HEADER_SIZE   = 6 * Integer.BYTES + Double.BYTES;
+    static final int THRESHOLD_OFFSET      = 4 * Integer.BYTES;
+    static final int KIND_OFFSET           = THRESHOLD_OFFSET + Double.BYTES;
+
+    static final int LIST_ARMY     = 0;
+    static final int COLUMNAR_ARMY = 1;
+    static final int GROUPED_ARMY  = 2;
+
+    private SnapshotFormat() { }
+
+    // armies of other kinds are restored as ColumnarArmies
+    static int armyKind(Army army) {
+        if (army instanceof ListArmy) {
+            return LIST_ARMY;
+        }
+        return army instanceof GroupedArmy ? GROUPED_ARMY : COLUMNAR_ARMY;
+    }
+
+    // an empty army of the kind, or null for an unknown kind
+    static Army createArmy(int kind, int capacity) {
+        switch (kind) {
+            case LIST_ARMY:     return new ListArmy();
+            case COLUMNAR_ARMY: return new ColumnarArmy(capacity);
+            case GROUPED_ARMY:  return new GroupedArmy();
+            default:            return null;
+        }
+    }
+
+    static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    static int aliveWords(int armySize) {
+        return (armySize + 63) >>> 6;
+    }
+
+    // offset of the alive bits column from the start of the section
+    static long columnsOffset(int nameLength) {
+        return align(SECTION_HEADER_SIZE + nameLength);
+    }
+
+    static long sectionLength(int nameLength, int armySize) {
+        return columnsOffset(nameLength)
+             + (long) aliveWords(armySize) * Long.BYTES
+             + (long) armySize * Integer.BYTES
+             + armySize;
+    }
+}
@@ -0,0 +1,236 @@
+package wargames.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import wargames.models.*;
+
+// Versioned binary snapshot of generals and their armies, see SnapshotFormat.
+// An opened snapshot maps each general's section only when it is first
+// asked for, and a GeneralSnapshot reads its soldiers straight from the
+// mapping, so a huge world can be inspected without creating any soldier.
+// write() and restore() move ColumnarArmy columns by bulk copies.
+public final class WorldSnapshot implements AutoCloseable {
+
+    private static final long REGION_SIZE = 1024 * 1024;
+
+    private final FileChannel       channel;
+    private final ByteBuffer        directory;
+    private final GeneralSnapshot[] generals;
+
+    // hands out the generals of a snapshot being written. A general is asked
+    // for twice, to lay out the directory and to write its section, and must
+    // not change until it is written
+    interface Sections {
+        int     count();
+        General get(int index);
+    }
+
+    private WorldSnapshot(FileChannel channel, ByteBuffer directory, int generalCount) {
+        this.channel   = channel;
+        this.directory = directory;
+        this.generals  = new GeneralSnapshot[generalCount];
+    }
+
+    // returns once the snapshot is forced to storage
+    public static void write(Path path, List<General> generals) throws IOException {
+        write(path, new Sections() {
+            @Override public int     count()         { return generals.size(); }
+            @Override public General get(int index) { return generals.get(index); }
+        });
+    }
+
+    static void write(Path path, Sections sections) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            new Writer(channel).write(sections);
+            channel.force(false);
+        }
+    }
+
+    public static WorldSnapshot open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < SnapshotFormat.HEADER_SIZE) {
+                throw new IOException("snapshot header is incomplete");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, SnapshotFormat.HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != SnapshotFormat.MAGIC) {
+                throw new IOException("not a world snapshot");
+            }
+            short version = header.getShort(Integer.BYTES);
+            if (version != SnapshotFormat.VERSION) {
+                throw new IOException("unsupported snapshot version " + version);
+            }
+
+            int  generalCount  = header.getInt(2 * Integer.BYTES);
+            long directorySize = (long) generalCount * SnapshotFormat.DIRECTORY_ENTRY_SIZE;
+            if (generalCount < 0 || SnapshotFormat.HEADER_SIZE + directorySize > size) {
+                throw new IOException("snapshot directory is incomplete");
+            }
+            ByteBuffer directory = channel.map(FileChannel.MapMode.READ_ONLY, SnapshotFormat.HEADER_SIZE, directorySize)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < generalCount; i++) {
+                long offset = directory.getLong(i * SnapshotFormat.DIRECTORY_ENTRY_SIZE);
+                long length = directory.getLong(i * SnapshotFormat.DIRECTORY_ENTRY_SIZE + Long.BYTES);
+                if (offset < 0 || length < SnapshotFormat.SECTION_HEADER_SIZE || length > Integer.MAX_VALUE
+                    || offset + length > size) {
+                    throw new IOException("snapshot section of general " + i + " is out of bounds");
+                }
+            }
+            return new WorldSnapshot(channel, directory, generalCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getGeneralCount() {
+        return this.generals.length;
+    }
+
+    // maps the general's section on first access
+    public synchronized GeneralSnapshot getGeneral(int index) throws IOException {
+        GeneralSnapshot general = this.generals[index];
+        if (general == null) {
+            long offset = this.directory.getLong(index * SnapshotFormat.DIRECTORY_ENTRY_SIZE);
+            long length = this.directory.getLong(index * SnapshotFormat.DIRECTORY_ENTRY_SIZE + Long.BYTES);
+            MappedByteBuffer section = this.channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            general = new GeneralSnapshot(section.order(ByteOrder.LITTLE_ENDIAN));
+            this.generals[index] = general;
+        }
+        return general;
+    }
+
+    // rebuilds every general of the snapshot, in the order they were written
+    public List<General> restore() throws IOException {
+        List<General> restored = new ArrayList<>(this.generals.length);
+        for (int i = 0; i < this.generals.length; i++) {
+            restored.add(getGeneral(i).restore());
+        }
+        return restored;
+    }
+
+    // mapped sections stay readable until they are garbage collected
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    // maps the sections a region at a time and writes them in place; the
+    // directory is known up front, since section lengths only depend on name
+    // lengths and army sizes. ColumnarArmy columns are bulk copied into their
+    // section, other armies are written soldier by soldier.
+    private static final class Writer {
+        private final FileChannel channel;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void write(Sections sections) throws IOException {
+            int      count   = sections.count();
+            byte[][] names   = new byte[count][];
+            long[]   offsets = new long[count];
+            long[]   lengths = new long[count];
+
+            long directoryEnd = SnapshotFormat.HEADER_SIZE + (long) count * SnapshotFormat.DIRECTORY_ENTRY_SIZE;
+            long offset       = SnapshotFormat.align(directoryEnd);
+            for (int i = 0; i < count; i++) {
+                General general = sections.get(i);
+                names[i]   = general.getName().getBytes(StandardCharsets.UTF_8);
+                lengths[i] = SnapshotFormat.sectionLength(names[i].length, general.getArmy().getSize());
+                if (lengths[i] > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("army of " + general.getName()
+                                                       + " is too large for one snapshot section");
+                }
+                offsets[i] = offset;
+                offset     = SnapshotFormat.align(offset + lengths[i]);
+            }
+
+            MappedByteBuffer head = map(0, directoryEnd);
+            head.putInt(SnapshotFormat.MAGIC)
+                .putShort(SnapshotFormat.VERSION)
+                .putShort((short) 0)
+                .putInt(count)
+                .putInt(0);
+            for (int i = 0; i < count; i++) {
+                head.putLong(offsets[i]).putLong(lengths[i]);
+            }
+            head.force();
+
+            // consecutive sections share a region while it stays within
+            // REGION_SIZE; the file grows zero-filled, which pads the gaps
+            int first = 0;
+            while (first < count) {
+                int last = first + 1;
+                while (last < count && offsets[last] + lengths[last] - offsets[first] <= REGION_SIZE) {
+                    last++;
+                }
+                MappedByteBuffer region = map(offsets[first], offsets[last - 1] + lengths[last - 1] - offsets[first]);
+                for (int i = first; i < last; i++) {
+                    ByteBuffer section = region.slice((int) (offsets[i] - offsets[first]), (int) lengths[i])
+                                             .order(ByteOrder.LITTLE_ENDIAN);
+                    writeSection(sections.get(i), names[i], section);
+                }
+                region.force();
+                first = last;
+            }
+        }
+
+        private void writeSection(General general, byte[] name, ByteBuffer section) {
+            Army army = general.getArmy();
+            int  size = army.getSize();
+
+            section.putInt(0, general.getGold())
+                   .putInt(Integer.BYTES, army.getTotalStrength())
+                   .putInt(2 * Integer.BYTES, size)
+                   .putInt(3 * Integer.BYTES, name.length)
+                   .putDouble(SnapshotFormat.THRESHOLD_OFFSET, army.getCompactionThreshold())
+                   .putInt(SnapshotFormat.KIND_OFFSET, SnapshotFormat.armyKind(army))
+                   .put(SnapshotFormat.SECTION_HEADER_SIZE, name);
+
+            int        aliveOffset = (int) SnapshotFormat.columnsOffset(name.length);
+            int        expsOffset  = aliveOffset + SnapshotFormat.aliveWords(size) * Long.BYTES;
+            int        ranksOffset = expsOffset + size * Integer.BYTES;
+            LongBuffer aliveBits   = section.slice(aliveOffset, expsOffset - aliveOffset)
+                                        .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            IntBuffer  exps        = section.slice(expsOffset, size * Integer.BYTES)
+                                        .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            ByteBuffer ranks       = section.slice(ranksOffset, size);
+
+            if (army instanceof ColumnarArmy) {
+                ((ColumnarArmy) army).copyColumns(ranks, exps, aliveBits);
+                return;
+            }
+
+            List<Soldier> soldiers = army.getSoldiers();
+            for (int idx = 0; idx < size; idx++) {
+                Soldier s = soldiers.get(idx);
+                ranks.put(idx, (byte) s.getRank().ordinal());
+                exps.put(idx, s.getExp());
+                if (s.isAlive()) {
+                    aliveBits.put(idx >>> 6, aliveBits.get(idx >>> 6) | 1L << idx);
+                }
+            }
+        }
+
+        private MappedByteBuffer map(long position, long length) throws IOException {
+            MappedByteBuffer buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, position, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+}
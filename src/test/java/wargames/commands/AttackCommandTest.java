@@ -6,6 +6,8 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.*;
 import org.junit.jupiter.params.provider.*;
 
+import java.util.concurrent.ForkJoinPool;
+
 import wargames.factories.*;
 import wargames.models.*;
 import wargames.events.publisher.EventDispatcher;
@@ -215,6 +217,65 @@ public class AttackCommandTest {
         assertGoldNotChanged();
     }
 
+    @ParameterizedTest(name = "parallel threshold = {0}")
+    @ValueSource(ints = {1, 4, TEST_ARMY_SIZE + 1})
+    @DisplayName("Parallel aftermath should leave both armies as the one by one aftermath does")
+    void testParallelAftermath(int threshold) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            General parallelAttacking = new General(ATTACKER_NAME, STARTING_GOLD, new ColumnarArmy());
+            General parallelAttacked  = new General(ATTACKED_NAME, STARTING_GOLD, new ColumnarArmy());
+            setUpTestArmy(parallelAttacking);
+            setUpTestArmy(parallelAttacked);
+            attacking.getArmy().add(soldierFactory.createPrivate());
+            parallelAttacking.getArmy().recruit(Rank.PRIVATE, 1);
+
+            commandFactory.enableParallelAftermath(pool, threshold);
+            AttackCommand parallel = commandFactory.createAttack(parallelAttacking, parallelAttacked);
+            commandFactory.disableParallelAftermath();
+            AttackCommand sequential = commandFactory.createAttack(attacking, attacked);
+
+            assertSame(pool, parallel.getAftermathPool());
+            assertEquals(threshold, parallel.getParallelAftermathThreshold());
+            assertNull(sequential.getAftermathPool());
+
+            parallel.execute();
+            parallel.execute();
+            sequential.execute();
+            sequential.execute();
+
+            assertSameSoldiers(attacking.getArmy(), parallelAttacking.getArmy());
+            assertSameSoldiers(attacked.getArmy(), parallelAttacked.getArmy());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("IllegalArgumentException on a missing pool or a parallel threshold below 1")
+    void testParallelAftermathThrows() {
+        AttackCommand cmd = commandFactory.createAttack(attacking, attacked);
+
+        assertThrows(IllegalArgumentException.class, () -> cmd.withParallelAftermath(null, 0));
+        assertThrows(IllegalArgumentException.class,
+                     () -> commandFactory.enableParallelAftermath(ForkJoinPool.commonPool(), 0));
+        assertThrows(IllegalArgumentException.class,
+                     () -> commandFactory.enableParallelAftermath(null, 1));
+        assertEquals(AttackCommand.DEFAULT_PARALLEL_AFTERMATH_THRESHOLD, cmd.getParallelAftermathThreshold());
+    }
+
+    private void assertSameSoldiers(Army expected, Army actual) {
+        assertEquals(expected.getSize(), actual.getSize());
+        assertEquals(expected.getTotalStrength(), actual.getTotalStrength());
+        for (int i = 0; i < expected.getSize(); i++) {
+            Soldier e = expected.getSoldiers().get(i);
+            Soldier a = actual.getSoldiers().get(i);
+            assertEquals(e.getRank(), a.getRank());
+            assertEquals(e.getExp(), a.getExp());
+            assertEquals(e.isAlive(), a.isAlive());
+        }
+    }
+
     private void assertBothArmiesSizeEqualsTo(int size) {
         assertEquals(size, attacking.getArmy().getSize());
         assertEquals(size, attacked.getArmy().getSize());
@@ -0,0 +1,199 @@
+package wargames.commands;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import wargames.events.publisher.EventDispatcher;
+import wargames.exceptions.InsufficientGoldException;
+import wargames.factories.*;
+import wargames.models.*;
+
+public class CommandExecutorTest {
+
+    private static final int STARTING_GOLD = 1000;
+
+    private final SoldierFactory  soldierFactory = new SoldierFactory();
+    private final EventDispatcher dispatcher     = EventDispatcher.getInstance();
+    private final CommandFactory  commandFactory = new CommandFactory(dispatcher, soldierFactory);
+
+    private CommandExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new CommandExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    // runs an action on behalf of a general and records the thread it ran on
+    private class ActionCommand extends Command {
+        private final Callable<?> action;
+        private volatile Thread   thread;
+
+        ActionCommand(General general, Callable<?> action) {
+            super(general, EventDispatcher.getInstance());
+            this.action = action;
+        }
+
+        @Override
+        public void execute() throws Exception {
+            this.thread = Thread.currentThread();
+            this.action.call();
+        }
+    }
+
+    @Test
+    @DisplayName("Commands run on virtual threads and the future carries the executed command")
+    void testRunsOnVirtualThreads() throws Exception {
+        General general = new General("Hannibal", STARTING_GOLD);
+        RecruitSoldiersCommand recruit = commandFactory.createRecruitSoldiers(general, 3, Rank.PRIVATE);
+        ActionCommand          action  = new ActionCommand(general, () -> null);
+
+        assertSame(recruit, executor.submit(recruit).get(10, TimeUnit.SECONDS));
+        assertSame(action, executor.submit(action).get(10, TimeUnit.SECONDS));
+
+        assertEquals(3, general.getArmy().getSize());
+        assertTrue(action.thread.isVirtual());
+    }
+
+    @Test
+    @DisplayName("Failed commands complete their future exceptionally and do not stop the general's queue")
+    void testFailureIsDelivered() throws Exception {
+        General general = new General("Hannibal", 0);
+
+        CompletableFuture<RecruitSoldiersCommand> broke =
+            executor.submit(commandFactory.createRecruitSoldiers(general, 1, Rank.MAJOR));
+        CompletableFuture<ActionCommand> failed = executor.submit(new ActionCommand(general, () -> {
+            throw new IllegalStateException("out of ammunition");
+        }));
+        CompletableFuture<ActionCommand> next = executor.submit(new ActionCommand(general, () -> null));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> broke.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientGoldException.class, e.getCause());
+        e = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertDoesNotThrow(() -> next.get(10, TimeUnit.SECONDS));
+        assertTrue(general.getArmy().isEmpty());
+    }
+
+    @Test
+    @DisplayName("One general's commands run one at a time in submission order")
+    void testCommandsOfOneGeneralAreSerial() throws Exception {
+        General       general  = new General("Hannibal", STARTING_GOLD);
+        List<Integer> order    = Collections.synchronizedList(new ArrayList<>());
+        int[]         running  = new int[1];
+        int           quantity = 200;
+
+        List<CompletableFuture<ActionCommand>> futures = new ArrayList<>();
+        for (int i = 0; i < quantity; i++) {
+            int position = i;
+            futures.add(executor.submit(new ActionCommand(general, () -> {
+                assertEquals(1, ++running[0], "Only one command of a general may run at a time");
+                Thread.yield();
+                order.add(position);
+                running[0]--;
+                return null;
+            })));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        for (int i = 0; i < quantity; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Commands of different generals run in parallel")
+    void testGeneralsRunInParallel() throws Exception {
+        int            generals = 50;
+        CountDownLatch together = new CountDownLatch(generals);
+
+        List<CompletableFuture<ActionCommand>> futures = new ArrayList<>();
+        for (int i = 0; i < generals; i++) {
+            futures.add(executor.submit(new ActionCommand(new General("General " + i, STARTING_GOLD), () -> {
+                together.countDown();
+                return together.await(10, TimeUnit.SECONDS);
+            })));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertEquals(0, together.getCount(), "Every general's command should run at the same time");
+    }
+
+    @Test
+    @DisplayName("close() waits for queued commands and rejects new ones")
+    void testClose() {
+        General general = new General("Hannibal", STARTING_GOLD);
+        List<CompletableFuture<RecruitSoldiersCommand>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit(commandFactory.createRecruitSoldiers(general, 1, Rank.PRIVATE)));
+        }
+
+        executor.close();
+
+        for (CompletableFuture<RecruitSoldiersCommand> f : futures) {
+            assertTrue(f.isDone());
+        }
+        assertEquals(20, general.getArmy().getSize());
+        assertThrows(IllegalStateException.class,
+            () -> executor.submit(commandFactory.createRecruitSoldiers(general, 1, Rank.PRIVATE)));
+    }
+
+    @Test
+    @DisplayName("An Error thrown by a command completes its future and keeps the general's queue going")
+    void testErrorCompletesOutcome() throws Exception {
+        General        general = new General("Hannibal", STARTING_GOLD);
+        AssertionError error   = new AssertionError("broken invariant");
+
+        CompletableFuture<ActionCommand> failed = executor.submit(new ActionCommand(general, () -> { throw error; }));
+        CompletableFuture<ActionCommand> next   = executor.submit(new ActionCommand(general, () -> null));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+        assertSame(error, e.getCause());
+        assertNotNull(next.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Commands submitted while the executor closes complete, run or rejected")
+    void testCloseWhileSubmitting() throws Exception {
+        List<CompletableFuture<ActionCommand>> outcomes  = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch                         submitted = new CountDownLatch(4);
+        List<Thread>                           producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            General general = new General("General " + t, STARTING_GOLD);
+            Thread producer = new Thread(() -> {
+                try {
+                    while (true) {
+                        outcomes.add(executor.submit(new ActionCommand(general, () -> null)));
+                        submitted.countDown();
+                    }
+                } catch (IllegalStateException e) {
+                    // closed
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+
+        submitted.await();
+        executor.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        for (CompletableFuture<ActionCommand> outcome : outcomes) {
+            try {
+                outcome.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertInstanceOf(RejectedExecutionException.class, e.getCause());
+            }
+        }
+    }
+}
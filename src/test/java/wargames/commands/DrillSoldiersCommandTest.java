@@ -2,6 +2,7 @@ package wargames.commands;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
 import java.util.*;
 
 import org.junit.jupiter.api.*;
@@ -38,6 +39,22 @@ public class DrillSoldiersCommandTest {
         army.add(s1); army.add(s2); army.add(s3); army.add(s4);
     }
     
+    @Test
+    @DisplayName("Drilling the army's own soldier list charges the cost given by the rank histogram")
+    void testDrillWholeArmyUsesRankHistogram() {
+        List<Soldier> wholeArmy = general.getArmy().getSoldiers();
+        int drillCost = getDrillCost(new ArrayList<>(wholeArmy));
+        DrillSoldiersCommand cmd = commandFactory.createDrillSoldiers(general, wholeArmy);
+
+        assertEquals(drillCost, cmd.getCost());
+        assertDoesNotThrow(() -> cmd.execute());
+
+        for (Soldier s : wholeArmy) {
+            assertEquals(1 + EXP_INCREASE, s.getExp());
+        }
+        assertEquals(TEST_STARTING_GOLD - drillCost, general.getGold());
+    }
+
     @Test
     @DisplayName("DrillSoldiersCommand should increase exp of given soldiers")
     void testDrillOnlyGivenSubset() {
@@ -81,7 +98,36 @@ public class DrillSoldiersCommandTest {
         assertThrows(IllegalArgumentException.class, () -> { drillSoldiers.execute(); });
         
         assertEquals(1, outsider.getExp());
-        assertEquals(TEST_STARTING_GOLD - outsider.getRank().getValue(), general.getGold());
+        assertEquals(TEST_STARTING_GOLD, general.getGold());
+    }
+
+    @Test
+    @DisplayName("DrillSoldiersCommand should validate all soldiers before charging gold or drilling any of them")
+    void testValidateBeforeDrilling() {
+        Soldier outsider = soldierFactory.createPrivate();
+        DrillSoldiersCommand drillSoldiers = commandFactory.createDrillSoldiers(general, List.of(s1, s2, outsider));
+
+        assertThrows(IllegalArgumentException.class, () -> { drillSoldiers.execute(); });
+
+        assertEquals(1, s1.getExp());
+        assertEquals(1, s2.getExp());
+        assertEquals(TEST_STARTING_GOLD, general.getGold());
+    }
+
+    @Test
+    @DisplayName("DrillSoldiersCommand should drill a large army in a single pass over its soldiers")
+    void testDrillLargeArmy() {
+        int armySize = 200000;
+        general = new General(TEST_GENERAL_NAME, armySize);
+        for (int i = 0; i < armySize; i++) {
+            general.getArmy().add(soldierFactory.createPrivate());
+        }
+        DrillSoldiersCommand cmd = commandFactory.createDrillSoldiers(general, general.getArmy().getSoldiers());
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> cmd.execute());
+
+        assertEquals(0, general.getGold());
+        assertEquals(armySize * (1 + EXP_INCREASE), general.getArmy().getTotalStrength());
     }
     
     @Test
@@ -0,0 +1,70 @@
+package wargames.commands;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+import wargames.events.publisher.EventDispatcher;
+import wargames.factories.*;
+import wargames.models.*;
+
+public class ExecutionListenerTest {
+
+    private final CommandFactory commandFactory =
+        new CommandFactory(EventDispatcher.getInstance(), new SoldierFactory());
+
+    private final List<String> calls = new ArrayList<>();
+    private long               next  = 1;
+
+    private final ExecutionListener listener = new ExecutionListener() {
+        @Override
+        public long beforeChange(Command command) {
+            assertTrue(((ReentrantLock) command.getGeneral().getLock()).isHeldByCurrentThread());
+            calls.add("before " + command.getClass().getSimpleName());
+            return next++;
+        }
+
+        @Override
+        public void afterChange(Command command, long sequence) {
+            assertTrue(((ReentrantLock) command.getGeneral().getLock()).isHeldByCurrentThread());
+            calls.add("after " + command.getClass().getSimpleName() + "@" + sequence);
+        }
+    };
+
+    @Test
+    @DisplayName("Commands number their change before making it and report it after, holding their generals' locks")
+    void testCommandsCallListener() throws Exception {
+        commandFactory.setExecutionListener(listener);
+        General hannibal = new General("Hannibal", 10_000);
+        General scipio   = new General("Scipio", 10_000);
+        scipio.getArmy().recruit(Rank.PRIVATE, 1);
+
+        commandFactory.createRecruitSoldiers(hannibal, 2, Rank.MAJOR).execute();
+        commandFactory.createDrillSoldiers(hannibal, hannibal.getArmy().getSoldiers()).execute();
+        commandFactory.createAttack(hannibal, scipio, 1).execute();
+
+        assertEquals(List.of("before RecruitSoldiersCommand", "after RecruitSoldiersCommand@1",
+                             "before DrillSoldiersCommand",   "after DrillSoldiersCommand@2",
+                             "before AttackCommand",          "after AttackCommand@3"),
+                     calls);
+    }
+
+    @Test
+    @DisplayName("Rejected commands are not reported after, commands without a listener run alone")
+    void testRejectedCommands() throws Exception {
+        commandFactory.setExecutionListener(listener);
+        General hannibal = new General("Hannibal", 10);
+
+        assertThrows(Exception.class, () -> commandFactory.createRecruitSoldiers(hannibal, 100, Rank.MAJOR).execute());
+        assertTrue(calls.stream().noneMatch(call -> call.startsWith("after")));
+
+        commandFactory.setExecutionListener(null);
+        calls.clear();
+        commandFactory.createRecruitSoldiers(hannibal, 1, Rank.PRIVATE).execute();
+        assertEquals(List.of(), calls);
+        assertEquals(1, hannibal.getArmy().getSize());
+    }
+}
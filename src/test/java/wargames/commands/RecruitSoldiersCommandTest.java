@@ -6,6 +6,7 @@ import org.junit.jupiter.api.*;
 
 import org.junit.jupiter.params.*;
 import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import wargames.events.publisher.EventDispatcher;
 import wargames.exceptions.InsufficientGoldException;
@@ -138,4 +139,98 @@ public class RecruitSoldiersCommandTest {
         assertEquals(TEST_STARTING_GOLD, general.getGold());
         assertEquals(quantity, general.getArmy().getSize());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("ArithmeticException when the recruitment cost overflows, before any gold is charged")
+    void testRecruitSoldiersCommandCostOverflow() {
+        int quantity = Integer.MAX_VALUE / (Rank.MAJOR.getValue() * COST_PER_RANK) + 1;
+
+        Command recruitSoldiersCommand = commandFactory.createRecruitSoldiers(
+            general, quantity, Rank.MAJOR
+        );
+
+        Exception exception = assertThrows(ArithmeticException.class, recruitSoldiersCommand::execute);
+
+        assertEquals("Overflow: cannot recruit " + quantity + " soldiers of rank MAJOR", exception.getMessage());
+        assertEquals(TEST_STARTING_GOLD, general.getGold());
+        assertTrue(general.getArmy().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Recruitment into a columnar army adds every soldier in bulk")
+    void testRecruitSoldiersCommandColumnarArmy() {
+        General columnar = new General(TEST_GENERAL_NAME, TEST_STARTING_GOLD, new ColumnarArmy(0));
+        int     quantity = TEST_STARTING_GOLD / (Rank.CORPORAL.getValue() * COST_PER_RANK);
+
+        Command recruitSoldiersCommand = commandFactory.createRecruitSoldiers(
+            columnar, quantity, Rank.CORPORAL
+        );
+
+        assertDoesNotThrow(() -> columnar.executeCommand(recruitSoldiersCommand));
+
+        assertEquals(0, columnar.getGold());
+        assertEquals(quantity, columnar.getArmy().getSize());
+        assertEquals(quantity * Rank.CORPORAL.getValue(), columnar.getArmy().getTotalStrength());
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Bulk recruitment gives the same soldiers as adding createSoldier() soldiers one by one")
+    void testRecruitIntoMatchesCreateSoldier(String kind) {
+        Army bulk     = createArmy(kind);
+        Army oneByOne = createArmy(kind);
+
+        soldierFactory.recruitInto(bulk, Rank.CAPTAIN, 5);
+        for (int i = 0; i < 5; i++) {
+            oneByOne.add(soldierFactory.createSoldier(Rank.CAPTAIN));
+        }
+
+        assertSameSoldiers(oneByOne, bulk);
+        assertThrows(IllegalArgumentException.class, () -> soldierFactory.recruitInto(bulk, Rank.MAJOR, -1));
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Recruitment goes through a factory subclass's createSoldier()")
+    void testRecruitThroughCreateSoldierOverride(String kind) {
+        SoldierFactory veterans = new SoldierFactory() {
+            @Override
+            public Soldier createSoldier(Rank rank) {
+                Soldier soldier = super.createSoldier(rank);
+                soldier.increaseExpByN(3);
+                return soldier;
+            }
+        };
+        General veteran  = new General(TEST_GENERAL_NAME, TEST_STARTING_GOLD, createArmy(kind));
+        Army    expected = createArmy(kind);
+        for (int i = 0; i < 4; i++) {
+            expected.add(veterans.createSoldier(Rank.PRIVATE));
+        }
+
+        Command recruitSoldiersCommand = new RecruitSoldiersCommand(veteran, veterans, 4, Rank.PRIVATE, dispatcher);
+        assertDoesNotThrow(() -> veteran.executeCommand(recruitSoldiersCommand));
+
+        assertSameSoldiers(expected, veteran.getArmy());
+        assertEquals(4 * 4, veteran.getArmy().getTotalStrength());
+    }
+
+    private static Army createArmy(String kind) {
+        switch (kind) {
+            case "list":     return new ListArmy();
+            case "columnar": return new ColumnarArmy();
+            default:         return new GroupedArmy();
+        }
+    }
+
+    private static void assertSameSoldiers(Army expected, Army actual) {
+        assertEquals(expected.getSize(), actual.getSize());
+        assertEquals(expected.getTotalStrength(), actual.getTotalStrength());
+        for (int i = 0; i < expected.getSize(); i++) {
+            Soldier e = expected.getSoldiers().get(i);
+            Soldier a = actual.getSoldiers().get(i);
+            assertEquals(e.getRank(), a.getRank());
+            assertEquals(e.getExp(), a.getExp());
+            assertEquals(e.isAlive(), a.isAlive());
+        }
+    }
+}
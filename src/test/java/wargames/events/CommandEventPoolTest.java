@@ -0,0 +1,193 @@
+package wargames.events;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import wargames.commands.Command;
+import wargames.events.publisher.*;
+import wargames.events.subscribers.Subscriber;
+import wargames.models.General;
+
+public class CommandEventPoolTest {
+
+    private static final int WARMUP_COMMANDS   = 50_000;
+    private static final int MEASURED_COMMANDS = 10_000;
+
+    private static class TestCommand extends Command {
+        TestCommand() { super(new General("Hannibal", 0), EventDispatcher.getInstance()); }
+
+        @Override
+        public void execute() { }
+    }
+
+    // records the events it receives and the commands they carried at that time
+    private class RecordingSubscriber implements Subscriber {
+        final List<CommandEvent> events = Collections.synchronizedList(new ArrayList<>());
+        final List<Command>      seen   = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void update(Event e) {
+            CommandEvent event = (CommandEvent) e;
+            events.add(event);
+            seen.add(event.getCommand());
+        }
+    }
+
+    private final EventDispatcher     dispatcher = EventDispatcher.getInstance();
+    private final RecordingSubscriber recorder   = new RecordingSubscriber();
+
+    @BeforeEach
+    void setUp() {
+        dispatcher.enableEventPooling();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.disableEventPooling();
+        dispatcher.disableAsyncDispatch();
+        dispatcher.removeAllSubscribers();
+    }
+
+    @Test
+    @DisplayName("Pooled events carry the command while subscribers run and are recycled afterwards")
+    void testEventsAreRecycled() throws Exception {
+        dispatcher.addSubscriber(recorder);
+        TestCommand first  = new TestCommand();
+        TestCommand second = new TestCommand();
+
+        first.executeAndUpdate();
+        second.executeAndUpdate();
+
+        assertEquals(List.of(first, first, second, second), recorder.seen);
+        assertInstanceOf(BeforeCommandEvent.class, recorder.events.get(0));
+        assertInstanceOf(AfterCommandEvent.class, recorder.events.get(1));
+        assertSame(recorder.events.get(0), recorder.events.get(2));
+        assertSame(recorder.events.get(1), recorder.events.get(3));
+        assertTrue(recorder.events.get(0).isPooled());
+        assertNull(recorder.events.get(0).getCommand());
+    }
+
+    @Test
+    @DisplayName("A command executed by a subscriber gets its own events")
+    void testNestedCommands() throws Exception {
+        TestCommand inner = new TestCommand();
+        TestCommand outer = new TestCommand();
+        dispatcher.addSubscriber(BeforeCommandEvent.class, e -> {
+            if (((CommandEvent) e).getCommand() == outer) {
+                assertDoesNotThrow(inner::executeAndUpdate);
+                assertSame(outer, ((CommandEvent) e).getCommand());
+            }
+        });
+        dispatcher.addSubscriber(recorder);
+
+        outer.executeAndUpdate();
+
+        assertEquals(List.of(inner, inner, outer, outer), recorder.seen);
+        assertNotSame(recorder.events.get(0), recorder.events.get(2));
+    }
+
+    @Test
+    @DisplayName("Events are recycled even if a subscriber fails")
+    void testRecycledOnFailure() throws Exception {
+        RuntimeException  failure = new IllegalStateException("subscriber failed");
+        FailingSubscriber failing = new FailingSubscriber(failure);
+        dispatcher.addSubscriber(failing);
+        TestCommand command = new TestCommand();
+
+        assertSame(failure, assertThrows(IllegalStateException.class, command::executeAndUpdate));
+        dispatcher.removeSubscriber(failing);
+        dispatcher.addSubscriber(recorder);
+        command.executeAndUpdate();
+
+        assertSame(failing.event, recorder.events.get(0));
+    }
+
+    @Test
+    @DisplayName("Asynchronous dispatch delivers copies that outlive the recycled events")
+    void testAsyncDispatchGetsCopies() throws Exception {
+        dispatcher.addSubscriber(recorder);
+        dispatcher.enableAsyncDispatch(16, BackPressurePolicy.BLOCK);
+        TestCommand command = new TestCommand();
+
+        command.executeAndUpdate();
+        dispatcher.awaitDispatched();
+
+        assertEquals(List.of(command, command), recorder.seen);
+        assertInstanceOf(BeforeCommandEvent.class, recorder.events.get(0));
+        assertInstanceOf(AfterCommandEvent.class, recorder.events.get(1));
+        for (CommandEvent e : recorder.events) {
+            assertFalse(e.isPooled());
+            assertSame(command, e.getCommand());
+        }
+    }
+
+    @Test
+    @DisplayName("Only pooled events can be released and copies are never pooled")
+    void testReleaseAndCopy() {
+        CommandEventPool pool    = CommandEventPool.forCurrentThread();
+        TestCommand      command = new TestCommand();
+        CommandEvent     event   = new CommandEvent(command);
+
+        assertThrows(IllegalArgumentException.class, () -> pool.release(new BeforeCommandEvent(command)));
+        assertThrows(IllegalArgumentException.class, () -> pool.release(new AfterCommandEvent(command)));
+        assertFalse(event.copy().isPooled());
+        assertSame(command, event.copy().getCommand());
+        assertSame(pool, CommandEventPool.forCurrentThread());
+    }
+
+    @Test
+    @DisplayName("With event pooling enabled, executing a command allocates nothing on the dispatch path")
+    void testZeroAllocationPerCommand() throws Exception {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        CountingSubscriber counter = new CountingSubscriber();
+        TestCommand        command = new TestCommand();
+        dispatcher.addSubscriber(counter);
+        dispatcher.addSubscriber(AfterCommandEvent.class, TestCommand.class, counter);
+
+        runCommands(command, WARMUP_COMMANDS);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        runCommands(command, MEASURED_COMMANDS);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals((WARMUP_COMMANDS + MEASURED_COMMANDS) * 3L, counter.updates);
+        assertTrue(allocated < MEASURED_COMMANDS,
+                   "Expected no allocation per command, got " + allocated + " bytes for "
+                   + MEASURED_COMMANDS + " commands");
+    }
+
+    private static void runCommands(Command command, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            command.executeAndUpdate();
+        }
+    }
+
+    private static class CountingSubscriber implements Subscriber {
+        long updates;
+
+        @Override
+        public void update(Event e) {
+            updates++;
+        }
+    }
+
+    // throws on every event, remembering the last one
+    private static class FailingSubscriber implements Subscriber {
+        final RuntimeException failure;
+        Event event;
+
+        FailingSubscriber(RuntimeException failure) { this.failure = failure; }
+
+        @Override
+        public void update(Event e) {
+            event = e;
+            throw failure;
+        }
+    }
+}
@@ -48,6 +48,21 @@ public class CommandEventTest {
             assertEquals(commandName, aft.getCommandName());
             assertEquals(command, aft.getCommand());
         }
+
+        @Test
+        @DisplayName("AfterCommandEvent and FailedCommandEvent should carry execute time, copies keep it")
+        void testExecuteNanos() {
+            Exception          failure = new IllegalStateException("out of ammunition");
+            AfterCommandEvent  aft     = new AfterCommandEvent(command, 42);
+            FailedCommandEvent failed  = new FailedCommandEvent(command, failure, 7);
+
+            assertEquals(0, new AfterCommandEvent(command).getExecuteNanos());
+            assertEquals(42, aft.copy().getExecuteNanos());
+            assertSame(command, aft.copy().getCommand());
+            assertSame(failure, failed.copy().getFailure());
+            assertEquals(7, failed.copy().getExecuteNanos());
+            assertSame(command, failed.copy().getCommand());
+        }
     }
         
 }
@@ -3,8 +3,13 @@ package wargames.events.publisher;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.*;
 
-import wargames.events.Event;
+import java.util.*;
+import java.util.concurrent.*;
+
+import wargames.commands.Command;
+import wargames.events.*;
 import wargames.events.subscribers.*;
+import wargames.models.General;
 
 public class EventDispatcherTest {
     
@@ -25,6 +30,7 @@ public class EventDispatcherTest {
 
     @AfterEach
     void tearDown() {
+        dispatcher.disableAsyncDispatch();
         dispatcher.removeAllSubscribers();
     }
     
@@ -49,4 +55,318 @@ public class EventDispatcherTest {
         dispatcher.updateSubscribers(new DummyEvent());
         assertFalse(subscriber1.called);    
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Asynchronous dispatch")
+    class AsyncDispatchTest {
+
+        // records events and the threads that delivered them
+        class RecordingSubscriber implements Subscriber {
+            final List<Event>  events  = Collections.synchronizedList(new ArrayList<>());
+            final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+
+            @Override
+            public void update(Event e) {
+                events.add(e);
+                threads.add(Thread.currentThread());
+            }
+        }
+
+        // blocks the consumer thread on the first event until released
+        class BlockingSubscriber implements Subscriber {
+            final CountDownLatch entered  = new CountDownLatch(1);
+            final CountDownLatch released = new CountDownLatch(1);
+
+            @Override
+            public void update(Event e) {
+                entered.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+
+        private final RecordingSubscriber recorder = new RecordingSubscriber();
+
+        @Test
+        @DisplayName("Events are delivered in order on the consumer thread")
+        void testDeliversInOrderOnConsumerThread() {
+            dispatcher.addSubscriber(recorder);
+            dispatcher.enableAsyncDispatch(8, BackPressurePolicy.BLOCK);
+
+            List<Event> published = publish(100);
+            dispatcher.awaitDispatched();
+
+            assertTrue(dispatcher.isAsyncDispatchEnabled());
+            assertEquals(published, recorder.events);
+            assertFalse(recorder.threads.contains(Thread.currentThread()));
+        }
+
+        @Test
+        @DisplayName("BLOCK policy makes publishers wait for a free slot")
+        void testBlockPolicyWaits() throws Exception {
+            BlockingSubscriber blocker = new BlockingSubscriber();
+            dispatcher.addSubscriber(blocker);
+            dispatcher.addSubscriber(recorder);
+            dispatcher.enableAsyncDispatch(1, BackPressurePolicy.BLOCK);
+
+            List<Event> published = publish(2);
+            blocker.entered.await();
+
+            DummyEvent last = new DummyEvent();
+            Thread publisher = new Thread(() -> dispatcher.updateSubscribers(last));
+            publisher.start();
+            while (publisher.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+            blocker.released.countDown();
+            publisher.join();
+            dispatcher.awaitDispatched();
+
+            published.add(last);
+            assertEquals(published, recorder.events);
+            assertEquals(0, dispatcher.getDroppedEvents());
+        }
+
+        @Test
+        @DisplayName("DROP policy discards events published while the buffer is full")
+        void testDropPolicyDiscards() throws Exception {
+            BlockingSubscriber blocker = new BlockingSubscriber();
+            dispatcher.addSubscriber(blocker);
+            dispatcher.addSubscriber(recorder);
+            dispatcher.enableAsyncDispatch(2, BackPressurePolicy.DROP);
+
+            List<Event> published = publish(1);
+            blocker.entered.await();
+            published.addAll(publish(2));
+            publish(3);
+
+            assertEquals(3, dispatcher.getDroppedEvents());
+
+            blocker.released.countDown();
+            dispatcher.awaitDispatched();
+            assertEquals(published, recorder.events);
+        }
+
+        @Test
+        @DisplayName("CALLER_RUNS policy notifies subscribers on the publishing thread while the buffer is full")
+        void testCallerRunsPolicy() throws Exception {
+            BlockingSubscriber blocker = new BlockingSubscriber();
+            dispatcher.addSubscriber(blocker);
+            dispatcher.enableAsyncDispatch(1, BackPressurePolicy.CALLER_RUNS);
+
+            publish(1);
+            blocker.entered.await();
+            publish(1);
+            dispatcher.addSubscriber(recorder);
+            dispatcher.removeSubscriber(blocker);
+
+            List<Event> callerRun = publish(1);
+
+            assertEquals(callerRun, recorder.events);
+            assertEquals(List.of(Thread.currentThread()), recorder.threads);
+
+            blocker.released.countDown();
+            dispatcher.awaitDispatched();
+            assertEquals(2, recorder.events.size());
+        }
+
+        @Test
+        @DisplayName("A failing subscriber is reported and does not stop the consumer thread")
+        void testFailingSubscriber() {
+            Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+            List<Throwable> reported = Collections.synchronizedList(new ArrayList<>());
+            Thread.setDefaultUncaughtExceptionHandler((t, ex) -> reported.add(ex));
+            try {
+                RuntimeException failure = new IllegalStateException("subscriber failed");
+                dispatcher.addSubscriber(e -> { throw failure; });
+                dispatcher.enableAsyncDispatch(4, BackPressurePolicy.BLOCK);
+
+                publish(2);
+                dispatcher.awaitDispatched();
+
+                assertEquals(List.of(failure, failure), reported);
+            } finally {
+                Thread.setDefaultUncaughtExceptionHandler(previous);
+            }
+        }
+
+        @Test
+        @DisplayName("A subscriber throwing an Error does not stop the consumer thread, nor does the handler")
+        void testSubscriberError() {
+            Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+            List<Throwable> reported = Collections.synchronizedList(new ArrayList<>());
+            Thread.setDefaultUncaughtExceptionHandler((t, ex) -> {
+                reported.add(ex);
+                throw new IllegalStateException("handler failed");
+            });
+            try {
+                Error failure = new Error("subscriber failed");
+                dispatcher.addSubscriber(recorder);
+                dispatcher.addSubscriber(e -> { throw failure; });
+                dispatcher.enableAsyncDispatch(4, BackPressurePolicy.BLOCK);
+
+                List<Event> published = publish(3);
+                dispatcher.awaitDispatched();
+
+                assertEquals(List.of(failure, failure, failure), reported);
+                assertEquals(published, recorder.events);
+            } finally {
+                Thread.setDefaultUncaughtExceptionHandler(previous);
+            }
+        }
+
+        @Test
+        @DisplayName("Disabling asynchronous dispatch delivers pending events and returns to synchronous mode")
+        void testDisableDeliversPendingEvents() {
+            dispatcher.addSubscriber(recorder);
+            dispatcher.enableAsyncDispatch(256, BackPressurePolicy.BLOCK);
+            List<Event> published = publish(200);
+
+            dispatcher.disableAsyncDispatch();
+
+            assertFalse(dispatcher.isAsyncDispatchEnabled());
+            assertEquals(published, recorder.events);
+
+            publish(1);
+            assertSame(Thread.currentThread(), recorder.threads.get(200));
+        }
+
+        @Test
+        @DisplayName("Synchronous mode has nothing to await or drop, and can be disabled again")
+        void testSynchronousModeDefaults() {
+            assertFalse(dispatcher.isAsyncDispatchEnabled());
+            assertDoesNotThrow(() -> dispatcher.awaitDispatched());
+            assertDoesNotThrow(() -> dispatcher.disableAsyncDispatch());
+            assertEquals(0, dispatcher.getDroppedEvents());
+        }
+
+        @Test
+        @DisplayName("Asynchronous dispatch cannot be enabled twice")
+        void testEnableTwice() {
+            dispatcher.enableAsyncDispatch(4, BackPressurePolicy.DROP);
+
+            assertThrows(IllegalStateException.class,
+                         () -> dispatcher.enableAsyncDispatch(4, BackPressurePolicy.BLOCK));
+        }
+
+        private List<Event> publish(int count) {
+            List<Event> published = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                DummyEvent e = new DummyEvent();
+                published.add(e);
+                dispatcher.updateSubscribers(e);
+            }
+            return published;
+        }
+    }
+
+    @Nested
+    @DisplayName("Typed subscriptions")
+    class TypedSubscriptionTest {
+
+        class MarchCommand extends Command {
+            MarchCommand(General g) { super(g, EventDispatcher.getInstance()); }
+
+            @Override public void execute() { }
+        }
+
+        class ForcedMarchCommand extends MarchCommand {
+            ForcedMarchCommand(General g) { super(g); }
+        }
+
+        class RetreatCommand extends Command {
+            RetreatCommand(General g) { super(g, EventDispatcher.getInstance()); }
+
+            @Override public void execute() { }
+        }
+
+        // records every event it receives
+        class RecordingSubscriber implements Subscriber {
+            final List<Event> events = new ArrayList<>();
+
+            @Override public void update(Event e) { events.add(e); }
+        }
+
+        private final General general = new General("Alexander", 0);
+
+        private final DummyEvent         dummy        = new DummyEvent();
+        private final BeforeCommandEvent beforeMarch  = new BeforeCommandEvent(new MarchCommand(general));
+        private final AfterCommandEvent  afterMarch   = new AfterCommandEvent(new MarchCommand(general));
+        private final AfterCommandEvent  afterForced  = new AfterCommandEvent(new ForcedMarchCommand(general));
+        private final AfterCommandEvent  afterRetreat = new AfterCommandEvent(new RetreatCommand(general));
+
+        private final RecordingSubscriber everything   = new RecordingSubscriber();
+        private final RecordingSubscriber afterOnly    = new RecordingSubscriber();
+        private final RecordingSubscriber afterMarches = new RecordingSubscriber();
+
+        @BeforeEach
+        void setUp() {
+            dispatcher.addSubscriber(everything);
+            dispatcher.addSubscriber(AfterCommandEvent.class, afterOnly);
+            dispatcher.addSubscriber(AfterCommandEvent.class, MarchCommand.class, afterMarches);
+        }
+
+        @Test
+        @DisplayName("Subscribers only receive events of their event and command types, including subtypes")
+        void testRouting() {
+            List<Event> all = List.of(dummy, beforeMarch, afterMarch, afterForced, afterRetreat);
+            for (int round = 0; round < 2; round++) {
+                all.forEach(dispatcher::updateSubscribers);
+            }
+
+            assertEquals(concat(all, all), everything.events);
+            assertEquals(List.of(afterMarch, afterForced, afterRetreat, afterMarch, afterForced, afterRetreat),
+                         afterOnly.events);
+            assertEquals(List.of(afterMarch, afterForced, afterMarch, afterForced),
+                         afterMarches.events);
+        }
+
+        @Test
+        @DisplayName("Command-typed subscriptions do not receive events unrelated to commands")
+        void testCommandTypedIgnoresPlainEvents() {
+            RecordingSubscriber anyCommand = new RecordingSubscriber();
+            dispatcher.addSubscriber(CommandEvent.class, Command.class, anyCommand);
+
+            dispatcher.updateSubscribers(dummy);
+            dispatcher.updateSubscribers(beforeMarch);
+
+            assertEquals(List.of(beforeMarch), anyCommand.events);
+        }
+
+        @Test
+        @DisplayName("Subscription changes take effect for already routed event types")
+        void testSubscriptionChangesInvalidateRoutes() {
+            dispatcher.updateSubscribers(afterRetreat);
+            RecordingSubscriber retreats = new RecordingSubscriber();
+            dispatcher.addSubscriber(AfterCommandEvent.class, RetreatCommand.class, retreats);
+            dispatcher.removeSubscriber(afterOnly);
+
+            dispatcher.updateSubscribers(afterRetreat);
+
+            assertEquals(List.of(afterRetreat), retreats.events);
+            assertEquals(List.of(afterRetreat), afterOnly.events);
+        }
+
+        @Test
+        @DisplayName("removeSubscriber() removes every subscription of the subscriber")
+        void testRemoveSubscriberRemovesAllSubscriptions() {
+            dispatcher.addSubscriber(BeforeCommandEvent.class, afterMarches);
+
+            dispatcher.removeSubscriber(afterMarches);
+            dispatcher.updateSubscribers(beforeMarch);
+            dispatcher.updateSubscribers(afterMarch);
+
+            assertTrue(afterMarches.events.isEmpty());
+            assertEquals(List.of(beforeMarch, afterMarch), everything.events);
+        }
+
+        private List<Event> concat(List<Event> first, List<Event> second) {
+            List<Event> all = new ArrayList<>(first);
+            all.addAll(second);
+            return all;
+        }
+    }
+}
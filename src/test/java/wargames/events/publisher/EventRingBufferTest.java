@@ -0,0 +1,96 @@
+package wargames.events.publisher;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import wargames.events.Event;
+
+public class EventRingBufferTest {
+
+    static class DummyEvent implements Event { }
+
+    @Test
+    @DisplayName("Capacity must be positive")
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new EventRingBuffer(0));
+    }
+
+    @Test
+    @DisplayName("Events wrap around the ring and are taken in batches in publishing order")
+    void testWrapAroundAndBatches() {
+        EventRingBuffer buffer = new EventRingBuffer(3);
+        Event[] batch = new Event[2];
+
+        for (int round = 0; round < 4; round++) {
+            Event first  = new DummyEvent();
+            Event second = new DummyEvent();
+            Event third  = new DummyEvent();
+            assertTrue(buffer.publish(first, false));
+            assertTrue(buffer.publish(second, false));
+            assertTrue(buffer.publish(third, false));
+            assertFalse(buffer.publish(new DummyEvent(), false));
+
+            assertEquals(2, buffer.take(batch));
+            assertSame(first, batch[0]);
+            assertSame(second, batch[1]);
+            assertEquals(1, buffer.take(batch));
+            assertSame(third, batch[0]);
+            buffer.markProcessed(3);
+        }
+
+        buffer.awaitProcessed();
+    }
+
+    @Test
+    @DisplayName("Publishers wait for a free slot, consumers for events and awaitProcessed() for their processing")
+    void testWaits() throws InterruptedException {
+        EventRingBuffer buffer = new EventRingBuffer(1);
+        Event[]         batch  = new Event[1];
+        Event           first  = new DummyEvent();
+        Event           second = new DummyEvent();
+
+        Thread consumer = new Thread(() -> buffer.take(batch));
+        consumer.start();
+        awaitWaiting(consumer);
+        assertTrue(buffer.publish(first, true));
+        consumer.join();
+        assertSame(first, batch[0]);
+
+        assertTrue(buffer.publish(new DummyEvent(), false));
+        Thread publisher = new Thread(() -> buffer.publish(second, true));
+        publisher.start();
+        awaitWaiting(publisher);
+        assertEquals(1, buffer.take(batch));
+        publisher.join();
+        assertEquals(1, buffer.take(batch));
+        assertSame(second, batch[0]);
+
+        Thread waiter = new Thread(buffer::awaitProcessed);
+        waiter.start();
+        awaitWaiting(waiter);
+        buffer.markProcessed(3);
+        waiter.join();
+    }
+
+    // only the waiting thread and the test's own use the buffer, so a
+    // waiting thread waits for one of its conditions
+    private static void awaitWaiting(Thread thread) {
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    @DisplayName("A closed buffer rejects events and stops the consumer once drained")
+    void testClose() {
+        EventRingBuffer buffer = new EventRingBuffer(2);
+        Event[] batch = new Event[2];
+        buffer.publish(new DummyEvent(), true);
+
+        buffer.close();
+
+        assertFalse(buffer.publish(new DummyEvent(), true));
+        assertEquals(1, buffer.take(batch));
+        assertEquals(0, buffer.take(batch));
+    }
+}
@@ -0,0 +1,480 @@
+package wargames.events.subscriber;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import wargames.commands.*;
+import wargames.events.*;
+import wargames.events.publisher.BackPressurePolicy;
+import wargames.events.publisher.EventDispatcher;
+import wargames.events.subscribers.*;
+import wargames.factories.*;
+import wargames.models.*;
+
+public class BackgroundReportWriterTest {
+
+    private static final Duration LONG_INTERVAL  = Duration.ofHours(1);
+    private static final Duration SHORT_INTERVAL = Duration.ofMillis(20);
+
+    private RecordingFileChannel   channel;
+    private BackgroundReportWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        channel = new RecordingFileChannel();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.unblock();
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Constructor rejects non-positive batch sizes and flush intervals")
+    void testConstructorValidation() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new BackgroundReportWriter(channel, 0, LONG_INTERVAL, FsyncPolicy.NEVER));
+        assertThrows(IllegalArgumentException.class,
+            () -> new BackgroundReportWriter(channel, 1, Duration.ZERO, FsyncPolicy.NEVER));
+        assertThrows(IllegalArgumentException.class,
+            () -> new BackgroundReportWriter(channel, 1, Duration.ofMillis(-1), FsyncPolicy.NEVER));
+        assertThrows(IllegalArgumentException.class,
+            () -> new BackgroundReportWriter(channel, 1, LONG_INTERVAL, FsyncPolicy.NEVER, 0, BackPressurePolicy.BLOCK));
+    }
+
+    @Test
+    @DisplayName("A full batch is written with a single channel write without flushing")
+    void testFullBatchIsWrittenOnce() {
+        writer = new BackgroundReportWriter(channel, 3, LONG_INTERVAL, FsyncPolicy.NEVER);
+
+        writer.write("first\n");
+        writer.write("second\n");
+        writer.write("third\n");
+
+        channel.awaitWrites(1);
+        assertEquals(1, channel.getWrites());
+        assertEquals("first\nsecond\nthird\n", channel.getContent());
+    }
+
+    @Test
+    @DisplayName("Reports of an incomplete batch are written once the flush interval passes")
+    void testFlushIntervalWritesPartialBatch() {
+        writer = new BackgroundReportWriter(channel, 1000, SHORT_INTERVAL, FsyncPolicy.NEVER);
+
+        writer.write("lonely report\n");
+
+        channel.awaitWrites(1);
+        assertEquals("lonely report\n", channel.getContent());
+    }
+
+    @Test
+    @DisplayName("flush() waits for every report and writes at most batch size reports per write")
+    void testFlushWritesEverythingInBatches() {
+        int batchSize = 4;
+        int reports   = 10;
+        writer = new BackgroundReportWriter(channel, batchSize, LONG_INTERVAL, FsyncPolicy.NEVER);
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < reports; i++) {
+            String report = "report " + i + "\n";
+            writer.write(report);
+            expected.append(report);
+        }
+        writer.flush();
+
+        assertEquals(expected.toString(), channel.getContent());
+        assertTrue(channel.getWrites() >= (reports + batchSize - 1) / batchSize);
+        assertTrue(channel.getWrites() <= reports);
+    }
+
+    @Test
+    @DisplayName("flush() waits while the writer thread is still writing")
+    void testFlushWaitsForWriter() throws InterruptedException {
+        channel.block();
+        writer = new BackgroundReportWriter(channel, 1, LONG_INTERVAL, FsyncPolicy.NEVER);
+        writer.write("slow\n");
+
+        Thread flusher = new Thread(writer::flush);
+        flusher.start();
+        awaitState(flusher, Thread.State.WAITING);
+        channel.unblock();
+        flusher.join();
+
+        assertEquals("slow\n", channel.getContent());
+    }
+
+    @Test
+    @DisplayName("Reports larger than the batch buffer are written whole")
+    void testLargeReports() {
+        writer = new BackgroundReportWriter(channel, 2, LONG_INTERVAL, FsyncPolicy.NEVER);
+        String large = "x".repeat(20_000) + "\n";
+        String small = "żółć\n";
+
+        writer.write(small);
+        writer.write(large);
+        writer.flush();
+
+        assertEquals(small + large, channel.getContent());
+    }
+
+    @Test
+    @DisplayName("The writer copies reports, so the caller may reuse its buffer right away")
+    void testReportsAreCopied() {
+        writer = new BackgroundReportWriter(channel, 10, LONG_INTERVAL, FsyncPolicy.NEVER);
+        StringBuilder buffer = new StringBuilder("first\n");
+
+        writer.write(buffer);
+        buffer.setLength(0);
+        buffer.append("second\n");
+        writer.write(buffer);
+        writer.flush();
+
+        assertEquals("first\nsecond\n", channel.getContent());
+    }
+
+    @ParameterizedTest
+    @EnumSource(FsyncPolicy.class)
+    @DisplayName("Written reports are forced to storage according to the fsync policy")
+    void testFsyncPolicy(FsyncPolicy policy) {
+        writer = new BackgroundReportWriter(channel, 1, LONG_INTERVAL, policy);
+
+        writer.write("first\n");
+        writer.write("second\n");
+        writer.flush();
+
+        int writes = channel.getWrites();
+        switch (policy) {
+            case NEVER:       assertEquals(0, channel.getForces());      break;
+            case EVERY_BATCH: assertEquals(writes, channel.getForces()); break;
+            case ON_FLUSH:    assertEquals(1, channel.getForces());      break;
+        }
+    }
+
+    @Test
+    @DisplayName("close() writes pending reports and rejects further reports")
+    void testClose() {
+        writer = new BackgroundReportWriter(channel, 100, LONG_INTERVAL, FsyncPolicy.ON_FLUSH);
+
+        writer.write("last words\n");
+        writer.close();
+
+        assertEquals("last words\n", channel.getContent());
+        assertEquals(1, channel.getForces());
+        assertThrows(IllegalStateException.class, () -> writer.write("too late\n"));
+        assertDoesNotThrow(() -> writer.close());
+    }
+
+    @Test
+    @DisplayName("BLOCK makes writers wait while capacity reports are waiting for a slow channel")
+    void testBlockWhenFull() throws InterruptedException {
+        channel.blockWriter();
+        writer = new BackgroundReportWriter(channel, 1, LONG_INTERVAL, FsyncPolicy.NEVER, 1, BackPressurePolicy.BLOCK);
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 5; i++) {
+                writer.write("report " + i + "\n");
+            }
+        });
+        producer.start();
+        awaitState(producer, Thread.State.WAITING);
+        assertEquals("", channel.getContent());
+
+        channel.unblock();
+        producer.join();
+        writer.flush();
+
+        assertEquals("report 0\nreport 1\nreport 2\nreport 3\nreport 4\n", channel.getContent());
+    }
+
+    @Test
+    @DisplayName("DROP discards and counts reports written while capacity reports are waiting")
+    void testDropWhenFull() {
+        channel.blockWriter();
+        writer = new BackgroundReportWriter(channel, 1, LONG_INTERVAL, FsyncPolicy.NEVER, 2, BackPressurePolicy.DROP);
+
+        for (int i = 0; i < 10; i++) {
+            writer.write(i + "\n");
+        }
+        channel.unblock();
+        writer.flush();
+
+        String[] lines = channel.getContent().split("\n");
+        assertTrue(lines.length <= 3);
+        assertEquals(10, lines.length + writer.getDroppedReports());
+        for (int i = 1; i < lines.length; i++) {
+            assertTrue(Integer.parseInt(lines[i - 1]) < Integer.parseInt(lines[i]));
+        }
+    }
+
+    @Test
+    @DisplayName("CALLER_RUNS writes reports on the calling thread while capacity reports are waiting")
+    void testCallerRunsWhenFull() {
+        channel.blockWriter();
+        writer = new BackgroundReportWriter(channel, 1, LONG_INTERVAL, FsyncPolicy.NEVER, 1, BackPressurePolicy.CALLER_RUNS);
+
+        for (int i = 0; i < 5; i++) {
+            writer.write(i + "\n");
+        }
+        assertTrue(channel.getContent().split("\n").length >= 3);
+
+        channel.unblock();
+        writer.flush();
+
+        String[] lines = channel.getContent().split("\n");
+        Arrays.sort(lines);
+        assertArrayEquals(new String[] { "0", "1", "2", "3", "4" }, lines);
+        assertEquals(0, writer.getDroppedReports());
+    }
+
+    @Test
+    @DisplayName("A report written on the calling thread reports write failures as UncheckedIOException")
+    void testCallerRunsFailure() {
+        channel.blockWriter();
+        writer = new BackgroundReportWriter(channel, 1, LONG_INTERVAL, FsyncPolicy.NEVER, 1, BackPressurePolicy.CALLER_RUNS);
+        channel.failWrites();
+
+        assertThrows(UncheckedIOException.class, () -> {
+            for (int i = 0; i < 3; i++) {
+                writer.write(i + "\n");
+            }
+        });
+        writer = null;
+    }
+
+    @Test
+    @DisplayName("Every report accepted while the writer is closing is written")
+    void testCloseWhileWriting() throws InterruptedException {
+        writer = new BackgroundReportWriter(channel, 8, LONG_INTERVAL, FsyncPolicy.NEVER, 16, BackPressurePolicy.BLOCK);
+        AtomicInteger  accepted  = new AtomicInteger();
+        CountDownLatch start     = new CountDownLatch(1);
+        List<Thread>   producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                    while (true) {
+                        writer.write("x\n");
+                        accepted.incrementAndGet();
+                    }
+                } catch (IllegalStateException | InterruptedException e) {
+                    // closed
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+
+        start.countDown();
+        channel.awaitWrites(10);
+        writer.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertEquals(accepted.get(), channel.getContent().length() / 2);
+    }
+
+    @Test
+    @DisplayName("Writers waiting for a slot fail once the writer thread failed")
+    void testBlockedWriterSeesFailure() throws InterruptedException {
+        channel.blockWriter();
+        writer = new BackgroundReportWriter(channel, 1, LONG_INTERVAL, FsyncPolicy.NEVER, 1, BackPressurePolicy.BLOCK);
+        AtomicReference<RuntimeException> thrown = new AtomicReference<>();
+
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 5; i++) {
+                    writer.write(i + "\n");
+                }
+            } catch (RuntimeException e) {
+                thrown.set(e);
+            }
+        });
+        producer.start();
+        awaitState(producer, Thread.State.WAITING);
+
+        channel.failWrites();
+        channel.unblock();
+        producer.join();
+
+        assertInstanceOf(UncheckedIOException.class, thrown.get());
+        writer = null;
+    }
+
+    private static void awaitState(Thread thread, Thread.State state) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (thread.getState() != state && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(state, thread.getState());
+    }
+
+    @Test
+    @DisplayName("Write failures are reported to later callers as UncheckedIOException")
+    void testWriteFailure() {
+        channel.failWrites();
+        writer = new BackgroundReportWriter(channel, 1, LONG_INTERVAL, FsyncPolicy.NEVER);
+
+        writer.write("lost\n");
+
+        assertThrows(UncheckedIOException.class, () -> writer.flush());
+        assertThrows(UncheckedIOException.class, () -> writer.write("also lost\n"));
+        writer = null;
+    }
+
+    @Test
+    @DisplayName("Force failures are reported as UncheckedIOException")
+    void testForceFailure() {
+        channel.failForces();
+        writer = new BackgroundReportWriter(channel, 1, LONG_INTERVAL, FsyncPolicy.ON_FLUSH);
+
+        writer.write("written but not forced\n");
+
+        assertThrows(UncheckedIOException.class, () -> writer.flush());
+        assertEquals("written but not forced\n", channel.getContent());
+        channel = new RecordingFileChannel();
+        writer  = null;
+    }
+
+    @Test
+    @DisplayName("Interrupted flush() returns early and keeps the interrupt status")
+    void testInterruptedFlush() {
+        channel.block();
+        writer = new BackgroundReportWriter(channel, 1, LONG_INTERVAL, FsyncPolicy.NEVER);
+        writer.write("stuck\n");
+
+        Thread.currentThread().interrupt();
+        writer.flush();
+
+        assertTrue(Thread.interrupted());
+        assertEquals("", channel.getContent());
+    }
+
+    @Test
+    @DisplayName("Secretary writing through the background writer produces the same reports")
+    void testSecretaryReports() throws IOException {
+        EventDispatcher dispatcher     = EventDispatcher.getInstance();
+        CommandFactory  commandFactory = new CommandFactory(dispatcher, new SoldierFactory());
+        General         general        = new General("Jan Zamoyski", 100);
+        List<Event>     events         = List.of(
+            new BeforeCommandEvent(commandFactory.createRecruitSoldiers(general, 3, Rank.CAPTAIN)),
+            new AfterCommandEvent(commandFactory.createDrillSoldiers(general, List.of()))
+        );
+
+        Path file = Files.createTempFile("reports", ".log");
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            MemoryReportSink memory = new MemoryReportSink();
+            writer = new BackgroundReportWriter(fileChannel, 16, SHORT_INTERVAL, FsyncPolicy.ON_FLUSH);
+            Secretary toMemory = new Secretary(memory);
+            Secretary toFile   = new Secretary(writer);
+
+            for (Event e : events) {
+                toMemory.update(e);
+                toFile.update(e);
+            }
+            writer.close();
+            writer = null;
+
+            assertEquals(memory.getReports(), Files.readString(file, StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // in-memory file channel counting writes and forces; while blocked, writes
+    // wait until it is unblocked
+    static class RecordingFileChannel extends FileChannel {
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        private final AtomicInteger         writes  = new AtomicInteger();
+        private final AtomicInteger         forces  = new AtomicInteger();
+
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private volatile boolean        writerOnly;
+        private volatile boolean        failWrites;
+        private volatile boolean        failForces;
+
+        void block()       { gate = new CountDownLatch(1); }
+        void blockWriter() { writerOnly = true; block(); }
+        void unblock()    { gate.countDown(); }
+        void failWrites() { failWrites = true; }
+        void failForces() { failForces = true; }
+
+        int getWrites() { return writes.get(); }
+        int getForces() { return forces.get(); }
+
+        synchronized String getContent() {
+            return content.toString(StandardCharsets.UTF_8);
+        }
+
+        void awaitWrites(int expected) {
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (writes.get() < expected && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            try {
+                if (!writerOnly || Thread.currentThread().getName().equals("report-writer")) {
+                    gate.await();
+                }
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            if (failWrites) {
+                throw new IOException("disk full");
+            }
+
+            int written = src.remaining();
+            synchronized (this) {
+                content.write(src.array(), src.arrayOffset() + src.position(), written);
+            }
+            src.position(src.limit());
+            writes.incrementAndGet();
+            return written;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failForces) {
+                throw new IOException("device gone");
+            }
+            forces.incrementAndGet();
+        }
+
+        @Override public int  read(ByteBuffer dst)                                   { throw new UnsupportedOperationException(); }
+        @Override public long read(ByteBuffer[] dsts, int offset, int length)        { throw new UnsupportedOperationException(); }
+        @Override public long write(ByteBuffer[] srcs, int offset, int length)       { throw new UnsupportedOperationException(); }
+        @Override public long position()                                             { throw new UnsupportedOperationException(); }
+        @Override public FileChannel position(long newPosition)                      { throw new UnsupportedOperationException(); }
+        @Override public long size()                                                 { throw new UnsupportedOperationException(); }
+        @Override public FileChannel truncate(long size)                             { throw new UnsupportedOperationException(); }
+        @Override public long transferTo(long position, long count, WritableByteChannel target)  { throw new UnsupportedOperationException(); }
+        @Override public long transferFrom(ReadableByteChannel src, long position, long count)   { throw new UnsupportedOperationException(); }
+        @Override public int  read(ByteBuffer dst, long position)                    { throw new UnsupportedOperationException(); }
+        @Override public int  write(ByteBuffer src, long position)                   { throw new UnsupportedOperationException(); }
+        @Override public MappedByteBuffer map(MapMode mode, long position, long size)           { throw new UnsupportedOperationException(); }
+        @Override public FileLock lock(long position, long size, boolean shared)     { throw new UnsupportedOperationException(); }
+        @Override public FileLock tryLock(long position, long size, boolean shared)  { throw new UnsupportedOperationException(); }
+        @Override protected void implCloseChannel()                                  { }
+    }
+}
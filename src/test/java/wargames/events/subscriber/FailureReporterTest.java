@@ -0,0 +1,55 @@
+package wargames.events.subscriber;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import wargames.commands.*;
+import wargames.events.*;
+import wargames.events.publisher.*;
+import wargames.events.subscribers.*;
+import wargames.exceptions.InsufficientGoldException;
+import wargames.factories.*;
+import wargames.models.*;
+
+public class FailureReporterTest {
+
+    private final EventDispatcher  dispatcher     = EventDispatcher.getInstance();
+    private final MemoryReportSink sink           = new MemoryReportSink();
+    private final CommandFactory   commandFactory = new CommandFactory(dispatcher, new SoldierFactory());
+
+    @BeforeEach
+    void setUp() {
+        dispatcher.removeAllSubscribers();
+        dispatcher.addSubscriber(new FailureReporter(sink));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.removeAllSubscribers();
+    }
+
+    @Test
+    @DisplayName("Should report a command that threw, naming the failure")
+    void testFailedCommand() {
+        General general = new General("Napoleon Bonaparte", 128);
+        RecruitSoldiersCommand command = commandFactory.createRecruitSoldiers(general, 1000, Rank.MAJOR);
+
+        assertThrows(InsufficientGoldException.class, command::executeAndUpdate);
+
+        assertEquals("FailureReporter: Napoleon Bonaparte failed to execute RecruitSoldiersCommand: "
+                     + "InsufficientGoldException\n", sink.getReports());
+    }
+
+    @Test
+    @DisplayName("Should stay silent for commands that succeed and for other events")
+    void testOtherEvents() throws Exception {
+        General general = new General("Napoleon Bonaparte", 128);
+        dispatcher.addSubscriber(new FailureReporter());
+
+        commandFactory.createRecruitSoldiers(general, 1, Rank.PRIVATE).executeAndUpdate();
+        dispatcher.updateSubscribers(new Event() { });
+
+        assertEquals("", sink.getReports());
+    }
+}
@@ -0,0 +1,180 @@
+package wargames.events.subscriber;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import wargames.commands.*;
+import wargames.events.*;
+import wargames.events.publisher.EventDispatcher;
+import wargames.events.subscribers.*;
+import wargames.exceptions.InsufficientGoldException;
+import wargames.factories.*;
+import wargames.models.*;
+
+public class MetricsSubscriberTest {
+
+    private final EventDispatcher   dispatcher     = EventDispatcher.getInstance();
+    private final CommandFactory    commandFactory = new CommandFactory(dispatcher, new SoldierFactory());
+    private final MetricsSubscriber metrics        = new MetricsSubscriber();
+    private final General           general        = new General("Hannibal", 100);
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.disableEventPooling();
+        dispatcher.removeAllSubscribers();
+    }
+
+    // toy command; most tests publish its events directly
+    private static class TestCommand extends Command {
+        TestCommand() { super(new General("Scipio", 0), EventDispatcher.getInstance()); }
+
+        @Override
+        public void execute() { }
+    }
+
+    @ParameterizedTest(name = "event pooling = {0}")
+    @ValueSource(booleans = { false, true })
+    @DisplayName("Counts started, succeeded and failed commands and failures per command class")
+    void testCountsCommands(boolean pooling) throws Exception {
+        if (pooling) {
+            dispatcher.enableEventPooling();
+        }
+        dispatcher.addSubscriber(metrics);
+
+        commandFactory.createRecruitSoldiers(general, 2, Rank.PRIVATE).executeAndUpdate();
+        assertThrows(InsufficientGoldException.class,
+            () -> commandFactory.createRecruitSoldiers(general, 1000, Rank.MAJOR).executeAndUpdate());
+        assertThrows(IllegalArgumentException.class,
+            () -> commandFactory.createAttack(general, general).executeAndUpdate());
+
+        MetricsSnapshot.CommandMetrics recruit = metrics.getSnapshot().getCommand("RecruitSoldiersCommand");
+        assertEquals(2, recruit.getStarted());
+        assertEquals(1, recruit.getSucceeded());
+        assertEquals(1, recruit.getFailed());
+        assertEquals(Map.of("InsufficientGoldException", 1L), recruit.getFailures());
+        assertEquals(2, recruit.getLatencyCount());
+
+        MetricsSnapshot.CommandMetrics attack = metrics.getSnapshot().getCommand("AttackCommand");
+        assertEquals(1, attack.getStarted());
+        assertEquals(0, attack.getSucceeded());
+        assertEquals(Map.of("IllegalArgumentException", 1L), attack.getFailures());
+        assertEquals(Set.of("AttackCommand", "RecruitSoldiersCommand"), metrics.getSnapshot().getCommands().keySet());
+    }
+
+    @Test
+    @DisplayName("Latency percentiles are accurate to the histogram precision")
+    void testLatencyPercentiles() {
+        TestCommand command = new TestCommand();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            metrics.update(new AfterCommandEvent(command, nanos));
+        }
+
+        MetricsSnapshot.CommandMetrics m = metrics.getSnapshot().getCommand("TestCommand");
+        assertEquals(100_000, m.getLatencyCount());
+        assertEquals(50_000, m.getMeanLatencyNanos());
+        assertEquals(100_000, m.getMaxLatencyNanos());
+        assertEquals(100_000, m.getLatencyPercentileNanos(100));
+        for (double p : new double[] { 1, 50, 90, 99, 99.9 }) {
+            long exact  = (long) Math.ceil(p * 1000);
+            long actual = m.getLatencyPercentileNanos(p);
+            assertTrue(actual >= exact && actual <= exact * 1.125,
+                       "p" + p + " should be close to " + exact + " but was " + actual);
+        }
+    }
+
+    @Test
+    @DisplayName("Small, huge and negative latencies land in the right buckets")
+    void testLatencyRange() {
+        TestCommand command = new TestCommand();
+        metrics.update(new AfterCommandEvent(command, -5));
+        metrics.update(new AfterCommandEvent(command, 3));
+        metrics.update(new AfterCommandEvent(command, Long.MAX_VALUE));
+
+        MetricsSnapshot.CommandMetrics m = metrics.getSnapshot().getCommand("TestCommand");
+        assertEquals(0, m.getLatencyPercentileNanos(30));
+        assertEquals(3, m.getLatencyPercentileNanos(60));
+        assertEquals(Long.MAX_VALUE, m.getLatencyPercentileNanos(100));
+        assertEquals(Long.MAX_VALUE, m.getMaxLatencyNanos());
+    }
+
+    @Test
+    @DisplayName("Percentiles must be in (0, 100]; metrics without latencies report zeros")
+    void testPercentileArgument() {
+        metrics.update(new BeforeCommandEvent(new TestCommand()));
+
+        MetricsSnapshot.CommandMetrics m = metrics.getSnapshot().getCommand("TestCommand");
+        assertThrows(IllegalArgumentException.class, () -> m.getLatencyPercentileNanos(0));
+        assertThrows(IllegalArgumentException.class, () -> m.getLatencyPercentileNanos(100.5));
+        assertThrows(IllegalArgumentException.class, () -> m.getLatencyPercentileNanos(Double.NaN));
+        assertEquals(0, m.getLatencyPercentileNanos(50));
+        assertEquals(0, m.getMeanLatencyNanos());
+        assertEquals(1, m.getStarted());
+    }
+
+    @Test
+    @DisplayName("Events not about commands are ignored")
+    void testIgnoresOtherEvents() {
+        metrics.update(new Event() { });
+
+        assertTrue(metrics.getSnapshot().getCommands().isEmpty());
+        assertEquals("{}", metrics.getSnapshot().toJson());
+        assertEquals("", metrics.getSnapshot().toText());
+    }
+
+    @Test
+    @DisplayName("Snapshots can be dumped as text and JSON")
+    void testDumps() {
+        TestCommand command = new TestCommand();
+        metrics.update(new BeforeCommandEvent(command));
+        metrics.update(new AfterCommandEvent(command, 100));
+        metrics.update(new BeforeCommandEvent(command));
+        metrics.update(new FailedCommandEvent(command, new IllegalStateException(), 300));
+
+        MetricsSnapshot snapshot = metrics.getSnapshot();
+        assertEquals("TestCommand started=2 succeeded=1 failed=1 failures={IllegalStateException=1}"
+                     + " latency[ns] mean=200 p50=103 p90=300 p99=300 p99_9=300 max=300\n",
+                     snapshot.toText());
+        assertEquals(snapshot.toText(), snapshot.toString());
+        assertEquals("{\"TestCommand\":{\"started\":2,\"succeeded\":1,\"failed\":1,"
+                     + "\"failures\":{\"IllegalStateException\":1},"
+                     + "\"latencyNanos\":{\"count\":2,\"mean\":200,\"p50\":103,\"p90\":300,\"p99\":300,\"p99_9\":300,\"max\":300}}}",
+                     snapshot.toJson());
+    }
+
+    @Test
+    @DisplayName("Commands recorded from many threads are all counted")
+    void testConcurrentRecording() throws Exception {
+        int             threads  = 8;
+        int             commands = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    TestCommand command = new TestCommand();
+                    for (int i = 0; i < commands; i++) {
+                        metrics.update(new BeforeCommandEvent(command));
+                        metrics.update(new AfterCommandEvent(command, i));
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        MetricsSnapshot.CommandMetrics m = metrics.getSnapshot().getCommand("TestCommand");
+        assertEquals(threads * commands, m.getStarted());
+        assertEquals(threads * commands, m.getSucceeded());
+        assertEquals(threads * commands, m.getLatencyCount());
+        assertEquals(commands - 1, m.getMaxLatencyNanos());
+    }
+}
@@ -0,0 +1,180 @@
+package wargames.events.subscriber;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import wargames.commands.*;
+import wargames.events.*;
+import wargames.events.publisher.EventDispatcher;
+import wargames.events.subscribers.*;
+import wargames.factories.*;
+import wargames.models.*;
+
+public class ReportSinkTest {
+
+    private static final EventDispatcher dispatcher = EventDispatcher.getInstance();
+
+    private final SoldierFactory soldierFactory = new SoldierFactory();
+    private final CommandFactory commandFactory = new CommandFactory(dispatcher, soldierFactory);
+
+    private class TestEvent implements Event { }
+
+    @Test
+    @DisplayName("Secretary writes the same report lines as String.format templates")
+    void testReportLinesMatchTemplates() {
+        MemoryReportSink sink      = new MemoryReportSink();
+        Secretary        secretary = new Secretary(sink);
+        General          general   = new General("Jan Zamoyski", 100);
+        RecruitSoldiersCommand recruit = commandFactory.createRecruitSoldiers(general, 3, Rank.CAPTAIN);
+        DrillSoldiersCommand   drill   = commandFactory.createDrillSoldiers(general, List.of());
+
+        secretary.update(new TestEvent());
+        secretary.update(new BeforeCommandEvent(recruit));
+        secretary.update(new AfterCommandEvent(drill));
+
+        String expected = String.format("Secretary: %s event occured\n", "TestEvent")
+            + String.format("Secretary: %s is about to execute %s: %d soldiers of rank %s\n",
+                            "Jan Zamoyski", "RecruitSoldiersCommand", 3, Rank.CAPTAIN)
+            + String.format("Secretary: %s executed %s: %d soldiers for %d gold\n",
+                            "Jan Zamoyski", "DrillSoldiersCommand", 0, 0);
+        assertEquals(expected, sink.getReports());
+    }
+
+    @Test
+    @DisplayName("Channel sink output is byte-identical to System.out output")
+    void testChannelSinkMatchesSystemOut() {
+        List<Event> events = sampleEvents();
+
+        ByteArrayOutputStream channelBytes = new ByteArrayOutputStream();
+        ChannelReportSink     channelSink  = new ChannelReportSink(Channels.newChannel(channelBytes));
+        Secretary             toChannel    = new Secretary(channelSink);
+
+        ByteArrayOutputStream systemOutBytes = new ByteArrayOutputStream();
+        PrintStream           systemOut      = System.out;
+        System.setOut(new PrintStream(systemOutBytes, true, StandardCharsets.UTF_8));
+        try {
+            Secretary toSystemOut = new Secretary();
+            for (Event e : events) {
+                toSystemOut.update(e);
+                toChannel.update(e);
+            }
+            new SystemOutReportSink().flush();
+        } finally {
+            System.setOut(systemOut);
+        }
+        channelSink.flush();
+
+        assertTrue(systemOutBytes.size() > 0);
+        assertArrayEquals(systemOutBytes.toByteArray(), channelBytes.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Channel sink buffers reports until the buffer fills up or it is flushed")
+    void testChannelSinkBuffering() {
+        ByteArrayOutputStream out  = new ByteArrayOutputStream();
+        ChannelReportSink     sink = new ChannelReportSink(Channels.newChannel(out), StandardCharsets.UTF_8, 8);
+
+        sink.write("abc");
+        assertEquals(0, out.size());
+
+        sink.write("Władysław");
+        assertTrue(out.size() > 0);
+
+        sink.flush();
+        assertEquals("abcWładysław", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Channel sink accepts reports longer than its buffers")
+    void testChannelSinkLongReport() {
+        ByteArrayOutputStream out    = new ByteArrayOutputStream();
+        ChannelReportSink     sink   = new ChannelReportSink(Channels.newChannel(out), StandardCharsets.UTF_8, 16);
+        String                report = "Secretary: ".repeat(100);
+
+        sink.write(report);
+        sink.write(report);
+        sink.flush();
+
+        assertEquals(report + report, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Channel sink writes the trailing bytes of stateful charsets")
+    void testChannelSinkStatefulCharset() {
+        Charset               charset = Charset.forName("ISO-2022-JP");
+        ByteArrayOutputStream out     = new ByteArrayOutputStream();
+        ChannelReportSink     sink    = new ChannelReportSink(Channels.newChannel(out), charset, 8);
+
+        sink.write("日本");
+        sink.flush();
+
+        assertEquals("日本", out.toString(charset));
+    }
+
+    @Test
+    @DisplayName("Channel sink rejects a buffer too small for one encoded character")
+    void testChannelSinkTooSmallBuffer() {
+        WritableByteChannel channel = Channels.newChannel(new ByteArrayOutputStream());
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> new ChannelReportSink(channel, StandardCharsets.UTF_8, 2));
+    }
+
+    @Test
+    @DisplayName("Channel sink reports write failures as UncheckedIOException")
+    void testChannelSinkWriteFailure() {
+        WritableByteChannel failing = new WritableByteChannel() {
+            @Override public int write(ByteBuffer src) throws IOException { throw new IOException("disk full"); }
+            @Override public boolean isOpen() { return true; }
+            @Override public void close() { }
+        };
+        ChannelReportSink sink = new ChannelReportSink(failing);
+        sink.write("report");
+
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, sink::flush);
+        assertEquals("disk full", e.getCause().getMessage());
+    }
+
+    @Test
+    @DisplayName("Memory sink keeps reports until cleared")
+    void testMemorySink() {
+        MemoryReportSink sink = new MemoryReportSink();
+
+        sink.write("first\n");
+        sink.write(new StringBuilder("second\n"));
+        sink.flush();
+        assertEquals("first\nsecond\n", sink.getReports());
+
+        sink.clear();
+        assertEquals("", sink.getReports());
+    }
+
+    private List<Event> sampleEvents() {
+        General attacking = new General("Stefan Czarniecki", 500);
+        General attacked  = new General("Karl Gustav", 500);
+        attacking.getArmy().add(soldierFactory.createCaptain());
+        attacked.getArmy().add(soldierFactory.createPrivate());
+
+        RecruitSoldiersCommand recruit = commandFactory.createRecruitSoldiers(attacking, 2, Rank.MAJOR);
+        DrillSoldiersCommand   drill   = commandFactory.createDrillSoldiers(attacking, attacking.getArmy().getSoldiers());
+        AttackCommand          attack  = commandFactory.createAttack(attacking, attacked);
+
+        List<Event> events = new ArrayList<>();
+        events.add(new TestEvent());
+        events.add(new BeforeCommandEvent(recruit));
+        events.add(new AfterCommandEvent(drill));
+        events.add(new BeforeCommandEvent(attack));
+        assertDoesNotThrow(attack::execute);
+        events.add(new AfterCommandEvent(attack));
+        return events;
+    }
+}
@@ -15,6 +15,7 @@ import wargames.factories.*;
 import wargames.events.*;
 import wargames.events.publisher.*;
 import wargames.events.subscribers.*;
+import wargames.exceptions.InsufficientGoldException;
 
 public class SecretaryTest {
 
@@ -164,6 +165,21 @@ public class SecretaryTest {
 
                 updateAndAssert(new AfterCommandEvent(aCommand));
             }
+
+            @Test
+            @DisplayName("Should leave the failure of a command that threw to FailureReporter")
+            void testFailedCommand() {
+                RecruitSoldiersCommand rsCommand = commandFactory.createRecruitSoldiers(
+                    general, 1000, Rank.MAJOR
+                );
+                out.reset();
+
+                assertThrows(InsufficientGoldException.class, rsCommand::executeAndUpdate);
+
+                assertEquals(expectedMessagePrefix + generalName
+                    + " is about to execute RecruitSoldiersCommand: 1000 soldiers of rank MAJOR"
+                    + expectedMessageSuffix, out.toString());
+            }
         }
 
         private void updateAndAssert(CommandEvent e) {
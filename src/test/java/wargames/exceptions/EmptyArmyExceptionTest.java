@@ -0,0 +1,19 @@
+package wargames.exceptions;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class EmptyArmyExceptionTest {
+
+    @Test
+    @DisplayName("Exception keeps its message and is an IllegalArgumentException")
+    void testMessageAndInheritance() {
+        EmptyArmyException ex = new EmptyArmyException("attacked army is empty");
+
+        assertEquals("attacked army is empty", ex.getMessage());
+        assertTrue(ex instanceof IllegalArgumentException);
+        assertNull(ex.getCause());
+    }
+}
@@ -0,0 +1,103 @@
+package wargames.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import wargames.commands.*;
+import wargames.events.publisher.EventDispatcher;
+import wargames.factories.*;
+import wargames.models.*;
+
+public class ColumnarArmyCommandsTest {
+
+    private static final int STARTING_GOLD = 1000;
+
+    private final SoldierFactory  soldierFactory = new SoldierFactory();
+    private final EventDispatcher dispatcher     = EventDispatcher.getInstance();
+    private final CommandFactory  commandFactory = new CommandFactory(dispatcher, soldierFactory);
+
+    private General attacking;
+    private General attacked;
+
+    @BeforeEach
+    void setUp() {
+        attacking = new General("Hannibal", STARTING_GOLD, new ColumnarArmy());
+        attacked  = new General("Scipio", STARTING_GOLD, new ColumnarArmy());
+    }
+
+    @Test
+    @DisplayName("RecruitSoldiersCommand fills a columnar army")
+    void testRecruit() {
+        RecruitSoldiersCommand cmd = commandFactory.createRecruitSoldiers(attacking, 10, Rank.CORPORAL);
+
+        assertDoesNotThrow(() -> attacking.executeCommand(cmd));
+
+        Army army = attacking.getArmy();
+        assertEquals(10, army.getSize());
+        assertEquals(10 * Rank.CORPORAL.getValue(), army.getTotalStrength());
+        assertEquals(STARTING_GOLD - 10 * Rank.CORPORAL.getValue() * RecruitSoldiersCommand.COST_PER_RANK,
+                     attacking.getGold());
+    }
+
+    @Test
+    @DisplayName("DrillSoldiersCommand drills soldier views of a columnar army and rejects other armies' views")
+    void testDrill() {
+        recruit(attacking, 4, Rank.PRIVATE);
+        recruit(attacked, 1, Rank.PRIVATE);
+        List<Soldier> soldiers = attacking.getArmy().getSoldiers();
+
+        DrillSoldiersCommand cmd = commandFactory.createDrillSoldiers(attacking, soldiers);
+        assertDoesNotThrow(() -> attacking.executeCommand(cmd));
+
+        for (Soldier s : attacking.getArmy().getSoldiers()) {
+            assertEquals(1 + DrillSoldiersCommand.EXP_INCREASE, s.getExp());
+        }
+
+        DrillSoldiersCommand outsiders = commandFactory.createDrillSoldiers(
+            attacking, attacked.getArmy().getSoldiers()
+        );
+        assertThrows(IllegalArgumentException.class, () -> attacking.executeCommand(outsiders));
+        assertEquals(1, attacked.getArmy().getSoldiers().get(0).getExp());
+    }
+
+    @Test
+    @DisplayName("AttackCommand updates exp and loot on columnar armies")
+    void testAttack() {
+        recruit(attacking, 3, Rank.PRIVATE);
+        recruit(attacked, 2, Rank.PRIVATE);
+        int attackingGold = attacking.getGold();
+        int attackedGold  = attacked.getGold();
+
+        AttackCommand cmd = commandFactory.createAttack(attacking, attacked);
+        assertDoesNotThrow(() -> attacking.executeCommand(cmd));
+
+        int loot = (int) (attackedGold * AttackCommand.GOLD_LOOT_PERCENTAGE);
+        assertSame(attacking, cmd.getWinner());
+        assertEquals(3 * 2, attacking.getArmy().getTotalStrength());
+        assertEquals(0, attacked.getArmy().getTotalStrength());
+        assertEquals(attackingGold + loot, attacking.getGold());
+        assertEquals(attackedGold - loot, attacked.getGold());
+    }
+
+    @Test
+    @DisplayName("AttackCommand draw removes one soldier from each columnar army")
+    void testDraw() {
+        recruit(attacking, 3, Rank.PRIVATE);
+        recruit(attacked, 3, Rank.PRIVATE);
+
+        AttackCommand cmd = commandFactory.createAttack(attacking, attacked);
+        assertDoesNotThrow(() -> attacking.executeCommand(cmd));
+
+        assertTrue(cmd.isDraw());
+        assertEquals(2, attacking.getArmy().getSize());
+        assertEquals(2, attacked.getArmy().getSize());
+    }
+
+    private void recruit(General general, int quantity, Rank rank) {
+        RecruitSoldiersCommand cmd = commandFactory.createRecruitSoldiers(general, quantity, rank);
+        assertDoesNotThrow(() -> general.executeCommand(cmd));
+    }
+}
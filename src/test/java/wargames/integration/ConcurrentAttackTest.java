@@ -0,0 +1,141 @@
+package wargames.integration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import wargames.commands.*;
+import wargames.events.publisher.EventDispatcher;
+import wargames.exceptions.InsufficientGoldException;
+import wargames.factories.*;
+import wargames.models.*;
+
+public class ConcurrentAttackTest {
+
+    private static final int GENERALS      = 6;
+    private static final int THREADS       = 8;
+    private static final int ATTACKS       = 3000;
+    private static final int STARTING_GOLD = 100_000;
+
+    private final SoldierFactory  soldierFactory = new SoldierFactory();
+    private final EventDispatcher dispatcher     = EventDispatcher.getInstance();
+    private final CommandFactory  commandFactory = new CommandFactory(dispatcher, soldierFactory);
+
+    private final AtomicLong goldSpent = new AtomicLong();
+
+    private List<General> generals;
+
+    @BeforeEach
+    void setUp() {
+        generals = new ArrayList<>();
+        for (int i = 0; i < GENERALS; i++) {
+            General general = new General("General " + i, STARTING_GOLD);
+            for (int j = 0; j < 50; j++) {
+                general.getArmy().add(soldierFactory.createSoldier(Rank.values()[(i + j) % Rank.values().length]));
+            }
+            generals.add(general);
+        }
+    }
+
+    @Test
+    @DisplayName("Generals get unique ids")
+    void testUniqueIds() {
+        Set<Long> ids = new HashSet<>();
+        for (General g : generals) {
+            assertTrue(ids.add(g.getId()));
+        }
+    }
+
+    @Test
+    @DisplayName("Attacks in every direction run in parallel without deadlocks, lost gold or corrupted armies")
+    void testConcurrentAttackGraph() throws Exception {
+        runConcurrently(random -> {
+            General attacking = generals.get(random.nextInt(GENERALS));
+            General attacked  = generals.get(random.nextInt(GENERALS));
+            if (attacking == attacked) {
+                return;
+            }
+            if (random.nextInt(4) == 0) {
+                recruitAndDrill(attacking);
+            }
+            commandFactory.createAttack(attacking, attacked).execute();
+        });
+
+        long totalGold = 0;
+        for (General g : generals) {
+            totalGold += g.getGold();
+            assertTrue(g.getGold() >= 0);
+            assertEquals(sumOfStrengths(g.getArmy()), g.getArmy().getTotalStrength());
+            assertEquals(g.getArmy().getSize(), new HashSet<>(g.getArmy().getSoldiers()).size(),
+                         "No soldier should be in the army twice");
+        }
+        assertEquals(STARTING_GOLD * (long) GENERALS, totalGold + goldSpent.get(),
+                     "Attacks must neither create nor lose gold");
+    }
+
+    private void recruitAndDrill(General general) throws Exception {
+        commandFactory.createRecruitSoldiers(general, 1, Rank.PRIVATE).execute();
+        goldSpent.addAndGet(RecruitSoldiersCommand.COST_PER_RANK * Rank.PRIVATE.getValue());
+
+        general.getLock().lock();
+        try {
+            // another thread's attack may have wiped out the army since the recruit
+            List<Soldier> soldiers = general.getArmy().getSoldiers();
+            if (soldiers.isEmpty()) {
+                return;
+            }
+            List<Soldier> drilled  = List.of(soldiers.get(soldiers.size() - 1));
+            int           cost     = drilled.get(0).getRank().getValue();
+            commandFactory.createDrillSoldiers(general, drilled).execute();
+            goldSpent.addAndGet(cost);
+        } finally {
+            general.getLock().unlock();
+        }
+    }
+
+    interface Work {
+        void run(SplittableRandom random) throws Exception;
+    }
+
+    // every thread runs ATTACKS rounds; rejected commands are expected once
+    // armies are wiped out or generals go broke
+    private static void runConcurrently(Work work) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch  start    = new CountDownLatch(1);
+        List<Future<?>> futures  = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                SplittableRandom random = new SplittableRandom(t);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTACKS; i++) {
+                        try {
+                            work.run(random);
+                        } catch (IllegalArgumentException | InsufficientGoldException e) {
+                            // rejected command
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int sumOfStrengths(Army army) {
+        int strength = 0;
+        for (Soldier s : army.getSoldiers()) {
+            strength += s.getStrength();
+        }
+        return strength;
+    }
+}
@@ -0,0 +1,321 @@
+package wargames.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+import wargames.commands.*;
+import wargames.events.publisher.EventDispatcher;
+import wargames.events.subscribers.FsyncPolicy;
+import wargames.factories.*;
+import wargames.models.*;
+
+public class CommandJournalTest {
+
+    private final EventDispatcher dispatcher     = EventDispatcher.getInstance();
+    private final CommandFactory  commandFactory = new CommandFactory(dispatcher, new SoldierFactory());
+
+    @TempDir
+    Path dir;
+
+    private Path                journalPath;
+    private CountingFileChannel channel;
+    private General             hannibal;
+    private General             scipio;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        journalPath = dir.resolve("commands.journal");
+        channel     = open(journalPath);
+        hannibal    = new General("Hannibal", 10_000);
+        scipio      = new General("Scipio", 10_000);
+        hannibal.getArmy().recruit(Rank.PRIVATE, 5);
+        scipio.getArmy().recruit(Rank.PRIVATE, 5);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dispatcher.removeAllSubscribers();
+        channel.close();
+    }
+
+    private static CountingFileChannel open(Path path) throws Exception {
+        return new CountingFileChannel(FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    // nothing but the journal's locks and the channel's held back writes
+    // make the test's threads wait
+    private static void awaitWaiting(Thread thread) {
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // toy command the journal cannot encode
+    private static class TestCommand extends Command {
+        TestCommand(General general) { super(general, EventDispatcher.getInstance()); }
+
+        @Override
+        public void execute() { }
+    }
+
+    @Test
+    @DisplayName("Subscribed journal writes the header and one record per successful command")
+    void testJournalsSuccessfulCommands() throws Exception {
+        CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER);
+        dispatcher.addSubscriber(journal);
+        commandFactory.setExecutionListener(journal);
+
+        commandFactory.createRecruitSoldiers(hannibal, 2, Rank.MAJOR).executeAndUpdate();
+        assertThrows(Exception.class,
+            () -> commandFactory.createRecruitSoldiers(hannibal, 10_000, Rank.MAJOR).executeAndUpdate());
+        new TestCommand(hannibal).executeAndUpdate();
+        journal.close();
+
+        // header, then recruit: 8 byte record header, 17 byte body header, rank and quantity
+        assertEquals(JournalFormat.HEADER_SIZE + JournalFormat.RECORD_HEADER_SIZE + 17 + 1 + 4,
+                     Files.size(journalPath));
+        assertEquals(2, channel.getWrites());
+    }
+
+    @Test
+    @DisplayName("Commands are numbered before they change their generals, which change listeners are told")
+    void testChangeListeners() throws Exception {
+        CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER);
+        List<String>   changes = new ArrayList<>();
+        CommandJournal.ChangeListener listener = (general, sequence) -> {
+            assertTrue(((ReentrantLock) general.getLock()).isHeldByCurrentThread());
+            changes.add(general.getName() + "@" + sequence);
+        };
+        journal.addChangeListener(listener);
+        commandFactory.setExecutionListener(journal);
+
+        commandFactory.createRecruitSoldiers(hannibal, 1, Rank.PRIVATE).execute();
+        commandFactory.createAttack(hannibal, scipio, 1).execute();
+        assertEquals(3, journal.cut(sequence -> changes.add("cut@" + sequence)));
+        journal.removeChangeListener(listener);
+        commandFactory.createRecruitSoldiers(scipio, 1, Rank.PRIVATE).execute();
+        journal.close();
+
+        assertEquals(List.of("Hannibal@1", "Hannibal@2", "Scipio@2", "cut@3"), changes);
+    }
+
+    @Test
+    @DisplayName("A journal closed before a command changes its general stops it, closed during the change rejects its record")
+    void testClosedJournalStopsCommands() throws Exception {
+        CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER);
+        commandFactory.setExecutionListener(journal);
+        journal.addChangeListener((general, sequence) -> journal.close());
+
+        assertThrows(IllegalStateException.class,
+            () -> commandFactory.createRecruitSoldiers(hannibal, 1, Rank.PRIVATE).execute());
+        assertEquals(6, hannibal.getArmy().getSize());
+        assertThrows(IllegalStateException.class,
+            () -> commandFactory.createRecruitSoldiers(hannibal, 1, Rank.PRIVATE).execute());
+        assertEquals(6, hannibal.getArmy().getSize());
+        assertEquals(JournalFormat.HEADER_SIZE, Files.size(journalPath));
+    }
+
+    @Test
+    @DisplayName("Records appended before a commit are written together")
+    void testGroupCommit() throws Exception {
+        CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER);
+        int            writes  = channel.getWrites();
+
+        long first = journal.append(commandFactory.createRecruitSoldiers(hannibal, 1, Rank.PRIVATE));
+        journal.append(commandFactory.createDrillSoldiers(hannibal, hannibal.getArmy().getSoldiers()));
+        long last  = journal.append(commandFactory.createAttack(hannibal, scipio, 7));
+        journal.commit(last);
+        journal.commit(first);
+
+        assertEquals(1, first);
+        assertEquals(3, last);
+        assertEquals(writes + 1, channel.getWrites());
+    }
+
+    @Test
+    @DisplayName("A commit that waited for a write holding its records writes nothing itself")
+    void testCommitWaitsForCoveringWrite() throws Exception {
+        CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER);
+        int            writes  = channel.getWrites();
+        long           records = journal.append(commandFactory.createRecruitSoldiers(hannibal, 1, Rank.PRIVATE));
+
+        channel.blockWrites();
+        Thread writing = new Thread(() -> journal.commit(records));
+        writing.start();
+        awaitWaiting(writing);
+        Thread waiting = new Thread(() -> journal.commit(records));
+        waiting.start();
+        awaitWaiting(waiting);
+        channel.unblockWrites();
+        writing.join();
+        waiting.join();
+
+        assertEquals(writes + 1, channel.getWrites());
+    }
+
+    @Test
+    @DisplayName("Commands journaled concurrently are all written, sharing writes")
+    void testConcurrentCommits() throws Exception {
+        CommandJournal  journal  = new CommandJournal(channel, FsyncPolicy.NEVER);
+        int             threads  = 8;
+        int             commands = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < commands; i++) {
+                        journal.commit(journal.append(commandFactory.createAttack(hannibal, scipio, i)));
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        journal.close();
+
+        long recordSize = JournalFormat.RECORD_HEADER_SIZE + JournalFormat.BODY_HEADER_SIZE + 2 * Long.BYTES;
+        assertEquals(JournalFormat.HEADER_SIZE + threads * commands * recordSize, Files.size(journalPath));
+        assertTrue(channel.getWrites() <= threads * commands + 1);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(FsyncPolicy.class)
+    @DisplayName("Fsync policy decides whether commits or flushes force the journal")
+    void testFsyncPolicy(FsyncPolicy policy) throws Exception {
+        CommandJournal journal = new CommandJournal(channel, policy);
+
+        journal.commit(journal.append(commandFactory.createAttack(hannibal, scipio, 1)));
+        journal.commit(journal.append(commandFactory.createAttack(hannibal, scipio, 2)));
+        int afterCommits = channel.getForces();
+        journal.flush();
+
+        switch (policy) {
+            case NEVER:       assertEquals(0, channel.getForces());                          break;
+            case EVERY_BATCH: assertEquals(2, afterCommits); assertEquals(2, channel.getForces()); break;
+            default:          assertEquals(0, afterCommits); assertEquals(1, channel.getForces()); break;
+        }
+    }
+
+    @Test
+    @DisplayName("Reopening a journal appends after its records without a second header")
+    void testReopen() throws Exception {
+        CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER);
+        journal.commit(journal.append(commandFactory.createAttack(hannibal, scipio, 1)));
+        journal.close();
+        long size = Files.size(journalPath);
+        channel.close();
+
+        channel = open(journalPath);
+        journal = new CommandJournal(channel, FsyncPolicy.NEVER);
+        journal.commit(journal.append(commandFactory.createAttack(hannibal, scipio, 2)));
+
+        assertEquals(2 * size - JournalFormat.HEADER_SIZE, Files.size(journalPath));
+        // numbered on from the records already in the journal
+        assertEquals(3, journal.cut(sequence -> { }));
+    }
+
+    @Test
+    @DisplayName("length() counts every appended record, written or not, from the journal's end")
+    void testLength() throws Exception {
+        CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER);
+        assertEquals(JournalFormat.HEADER_SIZE, journal.length());
+
+        journal.append(commandFactory.createAttack(hannibal, scipio, 1));
+        long appended = journal.length();
+        assertEquals(JournalFormat.HEADER_SIZE, Files.size(journalPath));
+
+        journal.close();
+        assertEquals(appended, Files.size(journalPath));
+        assertEquals(appended, new CommandJournal(channel, FsyncPolicy.NEVER).length());
+    }
+
+    @Test
+    @DisplayName("append() rejects unknown commands, soldiers outside the army and a closed journal")
+    void testAppendRejects() throws Exception {
+        CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER);
+
+        assertFalse(CommandJournal.canJournal(new TestCommand(hannibal)));
+        assertThrows(IllegalArgumentException.class, () -> journal.append(new TestCommand(hannibal)));
+        assertThrows(IllegalArgumentException.class, () -> journal.append(commandFactory.createDrillSoldiers(
+            hannibal, List.of(scipio.getArmy().getSoldiers().get(0)))));
+
+        journal.close();
+        assertThrows(IllegalStateException.class,
+            () -> journal.append(commandFactory.createAttack(hannibal, scipio, 1)));
+    }
+
+    @Test
+    @DisplayName("Drills are journaled with the positions their soldiers had when the drill ran")
+    void testDrillPositionsCapturedOnExecute() throws Exception {
+        CommandJournal journal  = new CommandJournal(channel, FsyncPolicy.NEVER);
+        List<Soldier>  soldiers = hannibal.getArmy().getSoldiers();
+        Command        drill    = commandFactory.createDrillSoldiers(hannibal, List.of(soldiers.get(4), soldiers.get(1)));
+
+        // a drill that never ran has no positions to journal
+        assertThrows(IllegalArgumentException.class, () -> journal.append(drill));
+
+        drill.execute();
+        // removing a soldier moves the last one, before the journal sees the drill
+        hannibal.getArmy().killAndRemoveRandom();
+        journal.commit(journal.append(drill));
+
+        ByteBuffer written = ByteBuffer.wrap(Files.readAllBytes(journalPath));
+        int        end     = written.capacity();
+        assertEquals(4, written.getInt(end - 2 * Integer.BYTES));
+        assertEquals(1, written.getInt(end - Integer.BYTES));
+    }
+
+    @Test
+    @DisplayName("A failed write fails the commit and every later append")
+    void testWriteFailure() throws Exception {
+        CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER);
+        channel.failWrites();
+
+        long sequence = journal.append(commandFactory.createAttack(hannibal, scipio, 1));
+        assertThrows(UncheckedIOException.class, () -> journal.commit(sequence));
+        assertThrows(UncheckedIOException.class,
+            () -> journal.append(commandFactory.createAttack(hannibal, scipio, 2)));
+    }
+
+    @Test
+    @DisplayName("A failed force is reported")
+    void testForceFailure() throws Exception {
+        CommandJournal journal = new CommandJournal(channel, FsyncPolicy.ON_FLUSH);
+        channel.failForces();
+
+        assertThrows(UncheckedIOException.class, journal::flush);
+    }
+
+    @Test
+    @DisplayName("Records larger than the batch buffer grow it")
+    void testLargeRecord() throws Exception {
+        CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER);
+        hannibal.getArmy().recruit(Rank.PRIVATE, 40_000);
+        hannibal.addGold(40_000);
+        List<Soldier> drilled = new ArrayList<>(hannibal.getArmy().getSoldiers().subList(0, 40_000));
+        Command       drill   = commandFactory.createDrillSoldiers(hannibal, drilled);
+        drill.execute();
+
+        journal.commit(journal.append(drill));
+
+        assertEquals(JournalFormat.HEADER_SIZE + JournalFormat.RECORD_HEADER_SIZE + JournalFormat.BODY_HEADER_SIZE
+                     + Integer.BYTES * (1 + 40_000), Files.size(journalPath));
+    }
+}
@@ -0,0 +1,76 @@
+package wargames.journal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// FileChannel delegating to a real one while counting writes and forces;
+// writes can be held back, writes and forces can be made to fail
+class CountingFileChannel extends FileChannel {
+    private final FileChannel   channel;
+    private final AtomicInteger writes = new AtomicInteger();
+    private final AtomicInteger forces = new AtomicInteger();
+
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+    private volatile boolean        failWrites;
+    private volatile boolean        failForces;
+
+    CountingFileChannel(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    void blockWrites()   { gate = new CountDownLatch(1); }
+    void unblockWrites() { gate.countDown(); }
+    void failWrites() { failWrites = true; }
+    void failForces() { failForces = true; }
+
+    int getWrites() { return writes.get(); }
+    int getForces() { return forces.get(); }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        try {
+            gate.await();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+        if (failWrites) {
+            throw new IOException("disk full");
+        }
+        writes.incrementAndGet();
+        return channel.write(src);
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+        if (failForces) {
+            throw new IOException("device gone");
+        }
+        forces.incrementAndGet();
+        channel.force(metaData);
+    }
+
+    @Override public long        size() throws IOException                   { return channel.size(); }
+    @Override public long        position() throws IOException               { return channel.position(); }
+    @Override public FileChannel position(long newPosition) throws IOException {
+        channel.position(newPosition);
+        return this;
+    }
+
+    @Override public int         read(ByteBuffer dst) throws IOException     { return channel.read(dst); }
+    @Override public long read(ByteBuffer[] dsts, int offset, int length)        { throw new UnsupportedOperationException(); }
+    @Override public long write(ByteBuffer[] srcs, int offset, int length)       { throw new UnsupportedOperationException(); }
+    @Override public FileChannel truncate(long size)                             { throw new UnsupportedOperationException(); }
+    @Override public long transferTo(long position, long count, WritableByteChannel target)  { throw new UnsupportedOperationException(); }
+    @Override public long transferFrom(ReadableByteChannel src, long position, long count)   { throw new UnsupportedOperationException(); }
+    @Override public int  read(ByteBuffer dst, long position)                    { throw new UnsupportedOperationException(); }
+    @Override public int  write(ByteBuffer src, long position)                   { throw new UnsupportedOperationException(); }
+    @Override public MappedByteBuffer map(MapMode mode, long position, long size)           { throw new UnsupportedOperationException(); }
+    @Override public FileLock lock(long position, long size, boolean shared)     { throw new UnsupportedOperationException(); }
+    @Override public FileLock tryLock(long position, long size, boolean shared)  { throw new UnsupportedOperationException(); }
+    @Override protected void implCloseChannel() throws IOException               { channel.close(); }
+}
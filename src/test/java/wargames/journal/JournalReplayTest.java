@@ -0,0 +1,364 @@
+package wargames.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import wargames.commands.*;
+import wargames.events.publisher.EventDispatcher;
+import wargames.events.subscribers.FsyncPolicy;
+import wargames.exceptions.InsufficientGoldException;
+import wargames.factories.*;
+import wargames.models.*;
+
+public class JournalReplayTest {
+
+    private static final int GENERALS = 4;
+
+    private final EventDispatcher dispatcher     = EventDispatcher.getInstance();
+    private final CommandFactory  commandFactory = new CommandFactory(dispatcher, new SoldierFactory());
+
+    @TempDir
+    Path dir;
+
+    private Path journalPath;
+
+    @BeforeEach
+    void setUp() {
+        journalPath = dir.resolve("commands.journal");
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.removeAllSubscribers();
+    }
+
+    // the same starting world every time, with fresh general ids
+    private static List<General> createWorld(String armyKind) {
+        List<General> generals = new ArrayList<>();
+        for (int i = 0; i < GENERALS; i++) {
+            Army army;
+            switch (armyKind) {
+                case "list":     army = new ListArmy();        break;
+                case "columnar": army = new ColumnarArmy(0);   break;
+                default:         army = new GroupedArmy();     break;
+            }
+            General general = new General("General " + i, 50_000, army);
+            general.getArmy().recruit(Rank.values()[i % Rank.values().length], 20 + i);
+            generals.add(general);
+        }
+        return generals;
+    }
+
+    // executes random commands, ignoring rejected ones
+    private void playCampaign(List<General> generals, long seed, int commands) throws Exception {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < commands; i++) {
+            General general = generals.get(random.nextInt(GENERALS));
+            Army    army    = general.getArmy();
+            Command command;
+            switch (random.nextInt(4)) {
+                case 0:
+                    command = commandFactory.createRecruitSoldiers(
+                        general, random.nextInt(1, 5), Rank.values()[random.nextInt(Rank.values().length)]);
+                    break;
+                case 1:
+                    command = commandFactory.createDrillSoldiers(general, army.getSoldiers());
+                    break;
+                case 2:
+                    List<Soldier> drilled = new ArrayList<>();
+                    for (int j = 0; j < 3 && !army.isEmpty(); j++) {
+                        drilled.add(army.getSoldiers().get(random.nextInt(army.getSize())));
+                    }
+                    command = commandFactory.createDrillSoldiers(general, drilled);
+                    break;
+                default:
+                    command = commandFactory.createAttack(general, generals.get(random.nextInt(GENERALS)));
+                    break;
+            }
+            try {
+                command.executeAndUpdate();
+            } catch (IllegalArgumentException | InsufficientGoldException e) {
+                // rejected command
+            }
+        }
+    }
+
+    private void journalCampaign(List<General> generals, long seed, int commands) throws Exception {
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             CommandJournal journal = new CommandJournal(channel, FsyncPolicy.ON_FLUSH)) {
+            dispatcher.addSubscriber(journal);
+            commandFactory.setExecutionListener(journal);
+            playCampaign(generals, seed, commands);
+            commandFactory.setExecutionListener(null);
+            dispatcher.removeSubscriber(journal);
+        }
+    }
+
+    private long replay(List<General> original, List<General> restored) throws IOException {
+        Map<Long, General> byId = new HashMap<>();
+        for (int i = 0; i < GENERALS; i++) {
+            byId.put(original.get(i).getId(), restored.get(i));
+        }
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            return new JournalReplay(byId::get).replay(channel);
+        }
+    }
+
+    private static void assertSameWorld(List<General> expected, List<General> actual) {
+        for (int i = 0; i < GENERALS; i++) {
+            General e = expected.get(i);
+            General a = actual.get(i);
+            assertEquals(e.getGold(), a.getGold(), e.getName());
+            assertEquals(e.getArmy().getSize(), a.getArmy().getSize(), e.getName());
+            assertEquals(e.getArmy().getTotalStrength(), a.getArmy().getTotalStrength(), e.getName());
+            for (int j = 0; j < e.getArmy().getSize(); j++) {
+                Soldier es = e.getArmy().getSoldiers().get(j);
+                Soldier as = a.getArmy().getSoldiers().get(j);
+                assertEquals(es.getRank(), as.getRank());
+                assertEquals(es.getExp(), as.getExp());
+                assertEquals(es.isAlive(), as.isAlive());
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0} armies")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Replaying a campaign's journal rebuilds the exact game state")
+    void testReplayRebuildsState(String armyKind) throws Exception {
+        List<General> played   = createWorld(armyKind);
+        List<General> restored = createWorld(armyKind);
+
+        journalCampaign(played, 2024, 3000);
+        long replayed = replay(played, restored);
+
+        assertTrue(replayed > 0);
+        assertSameWorld(played, restored);
+    }
+
+    @ParameterizedTest(name = "{0} armies")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Replaying the journal of commands run concurrently on shared generals rebuilds the exact game state")
+    void testReplayConcurrentCampaign(String armyKind) throws Exception {
+        List<General> played   = createWorld(armyKind);
+        List<General> restored = createWorld(armyKind);
+        int           threads  = 4;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER)) {
+            dispatcher.addSubscriber(journal);
+            commandFactory.setExecutionListener(journal);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                SplittableRandom random = new SplittableRandom(t);
+                futures.add(executor.submit(() -> {
+                    playConcurrentCampaign(played, random, 1000);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(replay(played, restored) > 0);
+        assertSameWorld(played, restored);
+    }
+
+    // only commands that pick no soldiers outside the generals' locks
+    private void playConcurrentCampaign(List<General> generals, SplittableRandom random, int commands) throws Exception {
+        for (int i = 0; i < commands; i++) {
+            General general = generals.get(random.nextInt(GENERALS));
+            Command command;
+            switch (random.nextInt(3)) {
+                case 0:
+                    command = commandFactory.createRecruitSoldiers(general, random.nextInt(1, 5), Rank.PRIVATE);
+                    break;
+                case 1:
+                    command = commandFactory.createDrillSoldiers(general, general.getArmy().getSoldiers());
+                    break;
+                default:
+                    command = commandFactory.createAttack(general, generals.get(random.nextInt(GENERALS)),
+                                                          random.nextLong());
+                    break;
+            }
+            try {
+                command.executeAndUpdate();
+            } catch (IllegalArgumentException | InsufficientGoldException e) {
+                // rejected command
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Records larger than the read buffer are replayed")
+    void testLargeRecord() throws Exception {
+        List<General> played   = createWorld("columnar");
+        List<General> restored = createWorld("columnar");
+        for (List<General> world : List.of(played, restored)) {
+            world.get(0).addGold(1_000_000);
+            world.get(0).getArmy().recruit(Rank.PRIVATE, 300_000);
+        }
+
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER)) {
+            DrillSoldiersCommand drill = commandFactory.createDrillSoldiers(
+                played.get(0), new ArrayList<>(played.get(0).getArmy().getSoldiers()));
+            drill.execute();
+            journal.append(drill);
+        }
+
+        assertEquals(1, replay(played, restored));
+        assertSameWorld(played, restored);
+    }
+
+    @Test
+    @DisplayName("Replaying from a journal length replays only the records appended after it and numbered after the cut")
+    void testReplayTail() throws Exception {
+        List<General> played   = createWorld("list");
+        List<General> restored = createWorld("list");
+        long          tail;
+        long          cut;
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER)) {
+            RecruitSoldiersCommand skipped = commandFactory.createRecruitSoldiers(played.get(0), 1, Rank.PRIVATE);
+            skipped.execute();
+            journal.append(skipped);
+            tail = journal.length();
+            RecruitSoldiersCommand early = commandFactory.createRecruitSoldiers(played.get(1), 2, Rank.MAJOR);
+            early.execute();
+            journal.append(early);
+            cut = journal.cut(sequence -> { });
+            RecruitSoldiersCommand late = commandFactory.createRecruitSoldiers(played.get(2), 2, Rank.MAJOR);
+            late.execute();
+            journal.append(late);
+        }
+
+        Map<Long, General> byId = new HashMap<>();
+        for (int i = 0; i < GENERALS; i++) {
+            byId.put(played.get(i).getId(), restored.get(i));
+        }
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            JournalReplay replay = new JournalReplay(byId::get);
+            assertEquals(1, replay.replay(channel, tail, cut));
+            assertThrows(IOException.class, () -> replay.replay(channel, JournalFormat.HEADER_SIZE - 1, -1));
+            assertThrows(IOException.class, () -> replay.replay(channel, channel.size() + 1, -1));
+        }
+        assertEquals(played.get(0).getArmy().getSize() - 1, restored.get(0).getArmy().getSize());
+        assertEquals(played.get(1).getArmy().getSize() - 2, restored.get(1).getArmy().getSize());
+        assertEquals(played.get(2).getArmy().getSize(), restored.get(2).getArmy().getSize());
+
+        Files.write(journalPath, new byte[0]);
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            assertThrows(IOException.class, () -> new JournalReplay(byId::get).replay(channel, 0, -1));
+        }
+    }
+
+    @Test
+    @DisplayName("Replay does not notify subscribers")
+    void testReplayBypassesSubscribers() throws Exception {
+        List<General> played   = createWorld("list");
+        List<General> restored = createWorld("list");
+        journalCampaign(played, 7, 200);
+
+        List<Object> notified = new ArrayList<>();
+        dispatcher.addSubscriber(notified::add);
+        replay(played, restored);
+
+        assertTrue(notified.isEmpty());
+    }
+
+    @Test
+    @DisplayName("A record cut short at the end of the journal is ignored")
+    void testTornTail() throws Exception {
+        List<General> played = createWorld("list");
+        journalCampaign(played, 11, 100);
+        long complete = replay(played, createWorld("list"));
+
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertEquals(complete - 1, replay(played, createWorld("list")));
+
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.truncate(JournalFormat.HEADER_SIZE + 5);
+        }
+        assertEquals(0, replay(played, createWorld("list")));
+    }
+
+    @Test
+    @DisplayName("Empty journals replay nothing, damaged ones are rejected")
+    void testDamagedJournals() throws Exception {
+        List<General> played = createWorld("list");
+
+        Files.write(journalPath, new byte[0]);
+        assertEquals(0, replay(played, createWorld("list")));
+
+        Files.write(journalPath, new byte[] { 1, 2 });
+        assertThrows(IOException.class, () -> replay(played, createWorld("list")));
+
+        Files.write(journalPath, ByteBuffer.allocate(JournalFormat.HEADER_SIZE).putInt(42).array());
+        assertThrows(IOException.class, () -> replay(played, createWorld("list")));
+
+        Files.write(journalPath, ByteBuffer.allocate(JournalFormat.HEADER_SIZE)
+            .putInt(JournalFormat.MAGIC).putShort((short) 99).array());
+        assertThrows(IOException.class, () -> replay(played, createWorld("list")));
+
+        writeRecord(JournalFormat.ATTACK, played.get(0).getId(), 2, false);
+        assertThrows(IOException.class, () -> replay(played, createWorld("list")));
+
+        writeRecord((byte) 9, played.get(0).getId(), JournalFormat.BODY_HEADER_SIZE, true);
+        assertThrows(IOException.class, () -> replay(played, createWorld("list")));
+
+        writeRecord(JournalFormat.ATTACK, played.get(0).getId(), JournalFormat.BODY_HEADER_SIZE, false);
+        assertThrows(IOException.class, () -> replay(played, createWorld("list")));
+    }
+
+    @Test
+    @DisplayName("Unknown generals and commands that no longer execute stop the replay")
+    void testReplayFailures() throws Exception {
+        List<General> played = createWorld("list");
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             CommandJournal journal = new CommandJournal(channel, FsyncPolicy.NEVER)) {
+            journal.append(commandFactory.createRecruitSoldiers(played.get(0), 1, Rank.PRIVATE));
+        }
+
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            JournalReplay replay = new JournalReplay(id -> null);
+            assertThrows(IllegalStateException.class, () -> replay.replay(channel));
+        }
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            JournalReplay replay = new JournalReplay(id -> new General("Broke", 0));
+            assertThrows(IllegalStateException.class, () -> replay.replay(channel));
+        }
+    }
+
+    // writes a header and a record with the given body length, whose body holds
+    // the type, sequence number 0 and general id; the checksum is right only if
+    // requested
+    private void writeRecord(byte type, long generalId, int length, boolean validChecksum) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(Math.max(length, JournalFormat.BODY_HEADER_SIZE))
+            .put(type).putLong(0).putLong(generalId).flip().limit(length);
+        java.util.zip.CRC32C crc = new java.util.zip.CRC32C();
+        crc.update(body.duplicate());
+
+        ByteBuffer journal = ByteBuffer.allocate(JournalFormat.HEADER_SIZE + JournalFormat.RECORD_HEADER_SIZE + length)
+            .putInt(JournalFormat.MAGIC).putShort(JournalFormat.VERSION)
+            .putInt(length).putInt(validChecksum ? (int) crc.getValue() : 0)
+            .put(body);
+        Files.write(journalPath, journal.array());
+    }
+}
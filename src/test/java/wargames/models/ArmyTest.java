@@ -7,6 +7,8 @@ import org.junit.jupiter.api.*;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import wargames.models.ColumnarArmyTest.FixedIndexRandom;
+
 import wargames.factories.SoldierFactory;
 
 class ArmyTest {
@@ -23,7 +25,7 @@ class ArmyTest {
     @BeforeEach
     void setUp() {
         soldierFactory = new SoldierFactory();
-        army = new Army();
+        army = new ListArmy();
 
         s1 = soldierFactory.createPrivate();
         s1.increaseExpByN(S1_STRENGTH / s1.getRank().getValue());
@@ -74,6 +76,37 @@ class ArmyTest {
                 "Total strength should be equal to all of the soldier's strength");
     }
 
+    @Test
+    @DisplayName("recruit() adds fresh, enlisted soldiers of one rank")
+    void testRecruit() {
+        army.add(s1);
+
+        army.recruit(Rank.CAPTAIN, 1000);
+
+        assertEquals(1001, army.getSize());
+        assertEquals(s1.getStrength() + 1000 * Rank.CAPTAIN.getValue(), army.getTotalStrength());
+        for (Soldier s : army.getSoldiers().subList(1, 1001)) {
+            assertEquals(Rank.CAPTAIN, s.getRank());
+            assertEquals(1, s.getExp());
+            assertTrue(s.isAlive());
+            assertTrue(army.contains(s));
+        }
+
+        army.getSoldiers().get(1).increaseExpByN(1);
+        assertEquals(s1.getStrength() + 1001 * Rank.CAPTAIN.getValue(), army.getTotalStrength(),
+                "Recruits should report their strength changes to the army");
+    }
+
+    @Test
+    @DisplayName("recruit() rejects negative quantities and does nothing for zero")
+    void testRecruitQuantity() {
+        assertThrows(IllegalArgumentException.class, () -> army.recruit(Rank.PRIVATE, -1));
+
+        army.recruit(Rank.PRIVATE, 0);
+
+        assertTrue(army.isEmpty());
+    }
+
     @Test
     @DisplayName("killAndRemoveRandom() on an empty army does nothing")
     void testKillAndRemoveRandomEmptyArmy() {
@@ -134,4 +167,135 @@ class ArmyTest {
         assertEquals(0, army.getTotalStrength(), 
                 "Total army strength should equal to 0");
     }
+
+    @Test
+    @DisplayName("Total strength follows exp changes, promotions and deaths of enlisted soldiers")
+    void testTotalStrengthFollowsSoldiers() {
+        army.add(s1);
+        army.add(s2);
+
+        s1.increaseExpByN(Soldier.PROMOTION_RANK_MULTIPLIER * Rank.PRIVATE.getValue());
+        assertEquals(Rank.CORPORAL, s1.getRank());
+        assertEquals(s1.getStrength() + s2.getStrength(), army.getTotalStrength());
+
+        s2.decreaseExpByN(s2.getExp());
+        assertFalse(s2.isAlive());
+        assertEquals(s1.getStrength(), army.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("Soldiers outside of the army do not change its total strength")
+    void testOutsiderDoesNotChangeStrength() {
+        army.add(s1);
+        int strengthBefore = army.getTotalStrength();
+
+        s2.increaseExpByN(3);
+
+        assertEquals(strengthBefore, army.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("add() rejects a soldier that already belongs to an army")
+    void testAddSoldierTwice() {
+        ListArmy other = new ListArmy();
+        army.add(s1);
+
+        assertThrows(IllegalArgumentException.class, () -> army.add(s1));
+        assertThrows(IllegalArgumentException.class, () -> other.add(s1));
+        assertEquals(1, army.getSize());
+        assertTrue(other.isEmpty());
+    }
+
+    @Test
+    @DisplayName("add() rejects soldier views of a columnar army")
+    void testAddColumnarView() {
+        ColumnarArmy columnar = new ColumnarArmy();
+        columnar.add(s1);
+
+        Soldier view = columnar.getSoldiers().get(0);
+
+        assertThrows(IllegalArgumentException.class, () -> army.add(view));
+        assertTrue(army.isEmpty());
+    }
+
+    @Test
+    @DisplayName("getSoldiers() cannot be used to bypass add()")
+    void testSoldiersListIsUnmodifiable() {
+        List<Soldier> soldiers = army.getSoldiers();
+
+        assertThrows(UnsupportedOperationException.class, () -> soldiers.add(s1));
+    }
+
+    @Test
+    @DisplayName("Removed soldier no longer affects the army and can be enlisted again")
+    void testRemovedSoldierIsDischarged() {
+        army.add(s1);
+        army.killAndRemoveRandom();
+
+        s1.increaseExpByN(1);
+
+        assertEquals(0, army.getTotalStrength());
+        assertDoesNotThrow(() -> new ListArmy().add(s1));
+    }
+
+    @Test
+    @DisplayName("killAndRemoveRandom() moves the last soldier into the freed position")
+    void testKillAndRemoveRandomSwapsWithLast() {
+        army = new ListArmy(new FixedIndexRandom(0));
+        army.add(s1);
+        army.add(s2);
+        army.add(s3);
+
+        army.killAndRemoveRandom();
+
+        assertEquals(List.of(s3, s2), army.getSoldiers());
+        assertFalse(s1.isAlive());
+        assertEquals(s2.getStrength() + s3.getStrength(), army.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("Armies with equally seeded random sources remove the same soldiers")
+    void testSeededRemovalIsReproducible() {
+        long seed = 1415;
+        ListArmy first  = new ListArmy(new SplittableRandom(seed));
+        ListArmy second = new ListArmy(new SplittableRandom(seed));
+        List<Soldier> firstRecruits  = new ArrayList<>();
+        List<Soldier> secondRecruits = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            firstRecruits.add(soldierFactory.createPrivate());
+            secondRecruits.add(soldierFactory.createPrivate());
+            first.add(firstRecruits.get(i));
+            second.add(secondRecruits.get(i));
+        }
+
+        for (int i = 0; i < 30; i++) {
+            first.killAndRemoveRandom();
+            second.killAndRemoveRandom();
+        }
+
+        for (int i = 0; i < first.getSize(); i++) {
+            int firstPosition  = firstRecruits.indexOf(first.getSoldiers().get(i));
+            int secondPosition = secondRecruits.indexOf(second.getSoldiers().get(i));
+            assertEquals(firstPosition, secondPosition);
+        }
+    }
+
+    @Test
+    @DisplayName("contains() is true only for soldiers currently enlisted in the army")
+    void testContains() {
+        ListArmy other = new ListArmy();
+        army.add(s1);
+        other.add(s2);
+
+        assertTrue(army.contains(s1));
+        assertFalse(army.contains(s2));
+        assertFalse(army.contains(s3));
+
+        army.killAndRemoveRandom();
+        assertFalse(army.contains(s1));
+
+        ColumnarArmy columnar = new ColumnarArmy();
+        columnar.add(s3);
+        assertFalse(army.contains(columnar.getSoldiers().get(0)));
+    }
 }
@@ -0,0 +1,410 @@
+package wargames.models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.*;
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+import wargames.factories.SoldierFactory;
+
+class ColumnarArmyTest {
+
+    private ColumnarArmy   army;
+    private SoldierFactory soldierFactory;
+
+    @BeforeEach
+    void setUp() {
+        soldierFactory = new SoldierFactory();
+        army = new ColumnarArmy();
+    }
+
+    @Test
+    @DisplayName("New army is empty and has total strength equal to 0")
+    void testConstructor() {
+        assertTrue(army.isEmpty());
+        assertEquals(0, army.getSize());
+        assertEquals(0, army.getTotalStrength());
+        assertTrue(army.getSoldiers().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Constructor throws IllegalArgumentException on negative initial capacity")
+    void testNegativeInitialCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ColumnarArmy(-1));
+    }
+
+    @Test
+    @DisplayName("add() copies soldier's rank, exp and alive state into the army")
+    void testAddCopiesState() {
+        Soldier captain = soldierFactory.createCaptain();
+        captain.increaseExpByN(3);
+        Soldier dead = soldierFactory.createPrivate();
+        dead.decreaseExpByN(1);
+
+        army.add(captain);
+        army.add(dead);
+
+        Soldier first  = army.getSoldiers().get(0);
+        Soldier second = army.getSoldiers().get(1);
+        assertEquals(2, army.getSize());
+        assertEquals(Rank.CAPTAIN, first.getRank());
+        assertEquals(4, first.getExp());
+        assertTrue(first.isAlive());
+        assertEquals(Rank.PRIVATE, second.getRank());
+        assertFalse(second.isAlive());
+        assertEquals(captain.getStrength() + dead.getStrength(), army.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("Army grows past its initial capacity and keeps every soldier")
+    void testGrowth() {
+        ColumnarArmy small = new ColumnarArmy(0);
+        int quantity = 200;
+
+        for (int i = 0; i < quantity; i++) {
+            small.add(soldierFactory.createMajor());
+        }
+
+        assertEquals(quantity, small.getSize());
+        assertEquals(quantity * Rank.MAJOR.getValue(), small.getTotalStrength());
+        for (Soldier s : small.getSoldiers()) {
+            assertEquals(Rank.MAJOR, s.getRank());
+            assertTrue(s.isAlive());
+        }
+    }
+
+    @Test
+    @DisplayName("recruit() fills the columns of every recruit, across partial and whole alive words")
+    void testRecruit() {
+        ColumnarArmy small = new ColumnarArmy(0);
+        small.setCompactionThreshold(1.0);
+        Soldier dead = soldierFactory.createMajor();
+        dead.decreaseExpByN(1);
+        small.add(dead);
+
+        small.recruit(Rank.CORPORAL, 200);
+        small.recruit(Rank.MAJOR, 3);
+
+        assertEquals(204, small.getSize());
+        assertEquals(200 * Rank.CORPORAL.getValue() + 3 * Rank.MAJOR.getValue(), small.getTotalStrength());
+        assertFalse(small.getSoldiers().get(0).isAlive());
+        for (int i = 1; i < 204; i++) {
+            Soldier s = small.getSoldiers().get(i);
+            assertEquals(i <= 200 ? Rank.CORPORAL : Rank.MAJOR, s.getRank());
+            assertEquals(1, s.getExp());
+            assertTrue(s.isAlive(), "Recruit at position " + i + " should be alive");
+        }
+        assertEquals(sumOfStrengths(small), small.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("appendColumns() appends soldiers from packed columns behind the existing ones")
+    void testAppendColumns() {
+        army.recruit(Rank.PRIVATE, 3);
+        ByteBuffer ranks = ByteBuffer.wrap(new byte[] { 9, (byte) Rank.MAJOR.ordinal(), (byte) Rank.CAPTAIN.ordinal() });
+        IntBuffer  exps  = IntBuffer.wrap(new int[] { 9, 4, 0 });
+        LongBuffer alive = LongBuffer.wrap(new long[] { 9, 0b01 });
+        ranks.position(1);
+        exps.position(1);
+        alive.position(1);
+
+        army.appendColumns(ranks, exps, alive, 2);
+
+        assertEquals(5, army.getSize());
+        assertEquals(Rank.MAJOR, army.getSoldiers().get(3).getRank());
+        assertEquals(4, army.getSoldiers().get(3).getExp());
+        assertTrue(army.getSoldiers().get(3).isAlive());
+        assertFalse(army.getSoldiers().get(4).isAlive());
+        assertEquals(3 * Rank.PRIVATE.getValue() + 4 * Rank.MAJOR.getValue(), army.getTotalStrength());
+        assertEquals(1, army.getRankHistogram().getCount(Rank.CAPTAIN));
+        assertEquals(1, ranks.position());
+    }
+
+    @Test
+    @DisplayName("copy() makes an independent army with the same soldiers in the same order")
+    void testCopy() {
+        army.recruit(Rank.CORPORAL, 70);
+        army.getSoldiers().get(3).increaseExpByN(2);
+        army.getSoldiers().get(65).decreaseExpByN(1);
+        army.setCompactionThreshold(0.75);
+
+        ColumnarArmy copy = army.copy();
+        army.getSoldiers().get(0).increaseExpByN(1);
+
+        assertEquals(70, copy.getSize());
+        assertEquals(3, copy.getSoldiers().get(3).getExp());
+        assertEquals(1, copy.getSoldiers().get(0).getExp());
+        assertFalse(copy.getSoldiers().get(65).isAlive());
+        assertEquals(0.75, copy.getCompactionThreshold());
+        assertEquals(army.getTotalStrength() - Rank.CORPORAL.getValue(), copy.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("appendColumns() rejects negative quantities and unknown ranks")
+    void testAppendColumnsRejects() {
+        ByteBuffer ranks = ByteBuffer.wrap(new byte[] { (byte) Rank.values().length });
+        IntBuffer  exps  = IntBuffer.wrap(new int[] { 1 });
+        LongBuffer alive = LongBuffer.wrap(new long[] { 1 });
+
+        assertThrows(IllegalArgumentException.class, () -> army.appendColumns(ranks, exps, alive, -1));
+        assertThrows(IllegalArgumentException.class, () -> army.appendColumns(ranks, exps, alive, 1));
+        assertTrue(army.isEmpty());
+    }
+
+    @Test
+    @DisplayName("recruit() rejects negative quantities and does nothing for zero")
+    void testRecruitQuantity() {
+        assertThrows(IllegalArgumentException.class, () -> army.recruit(Rank.PRIVATE, -1));
+
+        army.recruit(Rank.PRIVATE, 0);
+
+        assertTrue(army.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Soldier views write exp, promotions and deaths back to the army")
+    void testViewsMutateArmy() {
+        army.add(soldierFactory.createPrivate());
+        army.add(soldierFactory.createCorporal());
+
+        army.getSoldiers().get(0).increaseExpByN(Soldier.PROMOTION_RANK_MULTIPLIER);
+        army.getSoldiers().get(1).decreaseExpByN(1);
+
+        Soldier promoted = army.getSoldiers().get(0);
+        Soldier killed   = army.getSoldiers().get(1);
+        assertEquals(Rank.CORPORAL, promoted.getRank());
+        assertEquals(2, promoted.getExp());
+        assertFalse(killed.isAlive());
+        assertEquals(0, killed.getExp());
+        assertEquals(promoted.getStrength(), army.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("Total strength follows drills, promotions, battle exp and removals")
+    void testTotalStrengthIsMaintained() {
+        for (Rank rank : Rank.values()) {
+            army.add(soldierFactory.createSoldier(rank));
+        }
+
+        List<Soldier> soldiers = army.getSoldiers();
+        soldiers.get(0).increaseExpByN(17);
+        soldiers.get(1).increaseExpByN(1);
+        soldiers.get(2).decreaseExpByN(1);
+        soldiers.get(3).decreaseExpByN(0);
+        assertEquals(sumOfStrengths(army), army.getTotalStrength());
+
+        army.killAndRemoveRandom();
+        assertEquals(sumOfStrengths(army), army.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("Views of the same position are equal, views of different positions or armies are not")
+    void testViewEquality() {
+        ColumnarArmy other = new ColumnarArmy();
+        army.add(soldierFactory.createPrivate());
+        army.add(soldierFactory.createPrivate());
+        other.add(soldierFactory.createPrivate());
+
+        Soldier view = army.getSoldiers().get(0);
+
+        assertEquals(view, army.getSoldiers().get(0));
+        assertEquals(view.hashCode(), army.getSoldiers().get(0).hashCode());
+        assertNotEquals(view, army.getSoldiers().get(1));
+        assertNotEquals(view, other.getSoldiers().get(0));
+        assertNotEquals(view, soldierFactory.createPrivate());
+        assertTrue(army.getSoldiers().contains(view));
+        assertFalse(other.getSoldiers().contains(view));
+    }
+
+    @Test
+    @DisplayName("contains() is true only for this army's views addressing a position inside the army")
+    void testContains() {
+        ColumnarArmy other = new ColumnarArmy();
+        Soldier recruit = soldierFactory.createPrivate();
+        army.add(recruit);
+        army.add(soldierFactory.createPrivate());
+        other.add(soldierFactory.createPrivate());
+
+        Soldier last = army.getSoldiers().get(1);
+        assertTrue(army.contains(army.getSoldiers().get(0)));
+        assertTrue(army.contains(last));
+        assertFalse(army.contains(other.getSoldiers().get(0)));
+        assertFalse(army.contains(recruit));
+
+        army.killAndRemoveRandom();
+        assertFalse(army.contains(last));
+    }
+
+    @Test
+    @DisplayName("contains() rejects views from before a removal or purge moved soldiers around")
+    void testContainsRejectsStaleViews() {
+        army.recruit(Rank.PRIVATE, 3);
+        army.add(Soldier.withRank(Rank.MAJOR));
+        army.setCompactionThreshold(1.0);
+
+        Soldier first = army.getSoldiers().get(0);
+        army.getSoldiers().get(0).decreaseExpByN(1);
+        assertTrue(army.contains(first));
+
+        army.compact();
+        assertEquals(Rank.MAJOR, army.getSoldiers().get(2).getRank());
+        assertFalse(army.contains(first));
+
+        Soldier second = army.getSoldiers().get(1);
+        army.killAndRemoveRandom(new SplittableRandom(0));
+        assertEquals(2, army.getSize());
+        assertFalse(army.contains(second));
+        assertTrue(army.contains(army.getSoldiers().get(1)));
+    }
+
+    @Test
+    @DisplayName("Changing a soldier through a view from before a removal or purge throws")
+    void testStaleViewsRejectChanges() {
+        army.recruit(Rank.PRIVATE, 3);
+        army.add(Soldier.withRank(Rank.MAJOR));
+        army.setCompactionThreshold(1.0);
+
+        Soldier first = army.getSoldiers().get(0);
+        first.decreaseExpByN(1);
+        army.compact();
+        int strength = army.getTotalStrength();
+
+        // the purged soldier's position now holds a living private
+        assertThrows(IllegalStateException.class, () -> first.increaseExpByN(1));
+        assertThrows(IllegalStateException.class, () -> first.decreaseExpByN(1));
+        assertEquals(strength, army.getTotalStrength());
+        assertEquals(1, army.getSoldiers().get(0).getExp());
+
+        Soldier second = army.getSoldiers().get(1);
+        army.killAndRemoveRandom(new SplittableRandom(0));
+        strength = army.getTotalStrength();
+        assertThrows(IllegalStateException.class, () -> second.increaseExpByN(20));
+        assertEquals(strength, army.getTotalStrength());
+        assertEquals(2, army.getRankHistogram().getTotalLivingCount());
+    }
+
+    @Test
+    @DisplayName("getSoldiers() rejects positions outside of the army")
+    void testViewOutOfBounds() {
+        army.add(soldierFactory.createPrivate());
+
+        assertThrows(IndexOutOfBoundsException.class, () -> army.getSoldiers().get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> army.getSoldiers().get(-1));
+    }
+
+    @Test
+    @DisplayName("killAndRemoveRandom() on an empty army does nothing")
+    void testKillAndRemoveRandomEmptyArmy() {
+        assertDoesNotThrow(() -> army.killAndRemoveRandom());
+        assertTrue(army.isEmpty());
+        assertEquals(0, army.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("killAndRemoveRandom() removes exactly one soldier and keeps the others' state")
+    void testKillAndRemoveRandomRemovesOne() {
+        int quantity = 130;
+        for (int i = 0; i < quantity; i++) {
+            Soldier s = soldierFactory.createPrivate();
+            s.increaseExpByN(i % 4);
+            army.add(s);
+        }
+        army.getSoldiers().get(quantity - 1).decreaseExpByN(1);
+
+        List<Integer> before = snapshot(army);
+
+        army.killAndRemoveRandom();
+
+        List<Integer> after = snapshot(army);
+        assertEquals(quantity - 1, army.getSize());
+
+        List<Integer> removed = new ArrayList<>(before);
+        for (Integer soldier : after) {
+            assertTrue(removed.remove(soldier), "Remaining soldiers should keep their state");
+        }
+        assertEquals(1, removed.size());
+    }
+
+    @Test
+    @DisplayName("killAndRemoveRandom() moves the last soldier into the freed position")
+    void testKillAndRemoveRandomSwapsWithLast() {
+        army = new ColumnarArmy(4, new FixedIndexRandom(0));
+        army.add(soldierFactory.createPrivate());
+        army.add(soldierFactory.createCorporal());
+        army.add(soldierFactory.createMajor());
+
+        army.killAndRemoveRandom();
+
+        assertEquals(2, army.getSize());
+        assertEquals(Rank.MAJOR, army.getSoldiers().get(0).getRank());
+        assertEquals(Rank.CORPORAL, army.getSoldiers().get(1).getRank());
+        assertEquals(Rank.MAJOR.getValue() + Rank.CORPORAL.getValue(), army.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("Armies with equally seeded random sources remove the same soldiers")
+    void testSeededRemovalIsReproducible() {
+        long seed = 1805;
+        ColumnarArmy first  = new ColumnarArmy(0, new SplittableRandom(seed));
+        ColumnarArmy second = new ColumnarArmy(0, new SplittableRandom(seed));
+        for (int i = 0; i < 100; i++) {
+            Soldier s = soldierFactory.createSoldier(Rank.values()[i % Rank.values().length]);
+            s.increaseExpByN(i);
+            first.add(s);
+            second.add(s);
+        }
+
+        for (int i = 0; i < 60; i++) {
+            first.killAndRemoveRandom();
+            second.killAndRemoveRandom();
+        }
+
+        assertEquals(snapshot(first), snapshot(second));
+    }
+
+    @Test
+    @DisplayName("Multiple killAndRemoveRandom() eventually empty the army")
+    void testMultipleKillAndRemoveRandomUntilEmpty() {
+        for (Rank rank : Rank.values()) {
+            army.add(soldierFactory.createSoldier(rank));
+        }
+
+        for (int i = 0; i < Rank.values().length; i++) {
+            army.killAndRemoveRandom();
+        }
+
+        assertTrue(army.isEmpty());
+        assertEquals(0, army.getTotalStrength());
+    }
+
+    // always picks the same position
+    static class FixedIndexRandom implements RandomGenerator {
+        private final int idx;
+
+        FixedIndexRandom(int idx) { this.idx = idx; }
+
+        @Override public int  nextInt(int bound) { return idx; }
+        @Override public long nextLong()         { return idx; }
+    }
+
+    private static int sumOfStrengths(Army army) {
+        int strength = 0;
+        for (Soldier s : army.getSoldiers()) {
+            strength += s.getStrength();
+        }
+        return strength;
+    }
+
+    // encodes every soldier as (alive, rank, exp) to compare army contents
+    private static List<Integer> snapshot(Army army) {
+        List<Integer> encoded = new ArrayList<>();
+        for (Soldier s : army.getSoldiers()) {
+            int aliveFlag = s.isAlive() ? 1 : 0;
+            encoded.add((aliveFlag << 30) | (s.getRank().ordinal() << 20) | s.getExp());
+        }
+        return encoded;
+    }
+}
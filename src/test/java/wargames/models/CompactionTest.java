@@ -0,0 +1,148 @@
+package wargames.models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.*;
+
+class CompactionTest {
+
+    private static Army createArmy(String kind) {
+        switch (kind) {
+            case "list":     return new ListArmy(new SplittableRandom(0));
+            case "columnar": return new ColumnarArmy(0, new SplittableRandom(0));
+            default:         return new GroupedArmy(new SplittableRandom(0));
+        }
+    }
+
+    // recruits privates, majors and corporals and kills every soldier at an odd
+    // position up to and including kills * 2 - 1
+    private static Army createArmyWithDead(String kind, int kills) {
+        Army army = createArmy(kind);
+        army.recruit(Rank.PRIVATE, 4);
+        army.recruit(Rank.MAJOR, 4);
+        army.recruit(Rank.CORPORAL, 4);
+        for (int i = 0; i < kills; i++) {
+            army.getSoldiers().get(i * 2 + 1).decreaseExpByN(1);
+        }
+        return army;
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Threshold defaults to one half and must lie between 0 and 1")
+    void testThreshold(String kind) {
+        Army army = createArmy(kind);
+
+        assertEquals(Army.DEFAULT_COMPACTION_THRESHOLD, army.getCompactionThreshold());
+        assertThrows(IllegalArgumentException.class, () -> army.setCompactionThreshold(-0.1));
+        assertThrows(IllegalArgumentException.class, () -> army.setCompactionThreshold(1.1));
+        assertThrows(IllegalArgumentException.class, () -> army.setCompactionThreshold(Double.NaN));
+
+        army.setCompactionThreshold(0.25);
+        assertEquals(0.25, army.getCompactionThreshold());
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Dead soldiers below the threshold stay in the army without strength")
+    void testDeadBelowThresholdStay(String kind) {
+        Army army = createArmyWithDead(kind, 6);
+
+        army.recruit(Rank.CAPTAIN, 1);
+
+        assertEquals(13, army.getSize());
+        assertFalse(army.getSoldiers().get(1).isAlive());
+        assertEquals(7, army.getRankHistogram().getTotalLivingCount());
+        assertEquals(2 * Rank.PRIVATE.getValue() + 2 * Rank.MAJOR.getValue()
+                   + 2 * Rank.CORPORAL.getValue() + Rank.CAPTAIN.getValue(), army.getTotalStrength());
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Once dead soldiers pass the threshold, the next recruitment purges them first")
+    void testRecruitPurgesDead(String kind) {
+        Army army = createArmyWithDead(kind, 6);
+        army.getSoldiers().get(0).decreaseExpByN(1);
+
+        army.recruit(Rank.CAPTAIN, 1);
+
+        List<Soldier> soldiers = army.getSoldiers();
+        Rank[]        expected = { Rank.PRIVATE, Rank.MAJOR, Rank.MAJOR, Rank.CORPORAL, Rank.CORPORAL, Rank.CAPTAIN };
+        assertEquals(expected.length, army.getSize());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], soldiers.get(i).getRank());
+            assertTrue(soldiers.get(i).isAlive());
+        }
+        assertEquals(expected.length, army.getRankHistogram().getTotalLivingCount());
+        assertEquals(1, army.getRankHistogram().getCount(Rank.PRIVATE));
+        assertEquals(sumOfStrengths(army), army.getTotalStrength());
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("add() and killAndRemoveRandom() purge dead soldiers past the threshold too")
+    void testAddAndRemovalPurgeDead(String kind) {
+        Army added = createArmyWithDead(kind, 6);
+        added.getSoldiers().get(0).decreaseExpByN(1);
+        added.add(Soldier.withRank(Rank.CAPTAIN));
+        assertEquals(6, added.getSize());
+
+        Army removed = createArmyWithDead(kind, 6);
+        removed.getSoldiers().get(0).decreaseExpByN(1);
+        removed.killAndRemoveRandom();
+        assertEquals(4, removed.getSize());
+        assertEquals(4, removed.getRankHistogram().getTotalLivingCount());
+        assertEquals(sumOfStrengths(removed), removed.getTotalStrength());
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("A threshold of 1 never purges on its own, compact() purges right away")
+    void testExplicitCompaction(String kind) {
+        Army army = createArmyWithDead(kind, 6);
+        army.setCompactionThreshold(1.0);
+        for (Soldier s : army.getSoldiers()) {
+            if (s.isAlive()) {
+                s.decreaseExpByN(1);
+            }
+        }
+
+        army.recruit(Rank.CAPTAIN, 1);
+        assertEquals(13, army.getSize());
+
+        army.compact();
+        assertEquals(1, army.getSize());
+        assertEquals(Rank.CAPTAIN, army.getSoldiers().get(0).getRank());
+        assertEquals(Rank.CAPTAIN.getValue(), army.getTotalStrength());
+        assertEquals(1, army.getRankHistogram().getCount(Rank.CAPTAIN));
+        assertEquals(0, army.getRankHistogram().getCount(Rank.PRIVATE));
+    }
+
+    @Test
+    @DisplayName("Purged soldiers are discharged from a list army and can be enlisted again")
+    void testPurgedSoldierIsDischarged() {
+        ListArmy army  = new ListArmy();
+        ListArmy other = new ListArmy();
+        Soldier  dead  = Soldier.withRank(Rank.MAJOR);
+        army.add(dead);
+        dead.decreaseExpByN(1);
+
+        army.compact();
+
+        assertTrue(army.isEmpty());
+        assertFalse(army.contains(dead));
+        assertDoesNotThrow(() -> other.add(dead));
+    }
+
+    private static int sumOfStrengths(Army army) {
+        int strength = 0;
+        for (Soldier s : army.getSoldiers()) {
+            strength += s.getStrength();
+        }
+        return strength;
+    }
+}
@@ -0,0 +1,136 @@
+package wargames.models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+class ExpChangeTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    private static final int   ARMY_SIZE  = 1000;
+    private static final int[] THRESHOLDS = { 1, 100, Integer.MAX_VALUE };
+    private static final int[] CHANGES    = { 1, -1, 7, -3, 0 };
+
+    @AfterAll
+    static void tearDown() {
+        pool.shutdown();
+    }
+
+    private static Army createArmy(String kind) {
+        switch (kind) {
+            case "list":     return new ListArmy(new SplittableRandom(0));
+            case "columnar": return new ColumnarArmy(0, new SplittableRandom(0));
+            default:         return new GroupedArmy(new SplittableRandom(0));
+        }
+    }
+
+    // runs of recruits with some soldiers drilled, wounded and killed,
+    // the same for every seed
+    private static Army createMixedArmy(String kind, long seed) {
+        Army             army   = createArmy(kind);
+        SplittableRandom random = new SplittableRandom(seed);
+
+        Rank[] ranks = Rank.values();
+        while (army.getSize() < ARMY_SIZE) {
+            army.recruit(ranks[random.nextInt(ranks.length)], 1 + random.nextInt(40));
+        }
+        for (int i = 0; i < ARMY_SIZE / 4; i++) {
+            Soldier s = army.getSoldiers().get(random.nextInt(army.getSize()));
+            switch (random.nextInt(3)) {
+                case 0:  s.increaseExpByN(1 + random.nextInt(30)); break;
+                case 1:  s.decreaseExpByN(1); break;
+                default: s.decreaseExpByN(100);
+            }
+        }
+        return army;
+    }
+
+    private static void assertSameArmy(Army expected, Army actual) {
+        assertEquals(expected.getSize(), actual.getSize());
+        for (int i = 0; i < expected.getSize(); i++) {
+            Soldier e = expected.getSoldiers().get(i);
+            Soldier a = actual.getSoldiers().get(i);
+            assertEquals(e.getRank(), a.getRank());
+            assertEquals(e.getExp(), a.getExp());
+            assertEquals(e.isAlive(), a.isAlive());
+        }
+
+        assertEquals(expected.getTotalStrength(), actual.getTotalStrength());
+        for (Rank rank : Rank.values()) {
+            assertEquals(expected.getRankHistogram().getCount(rank), actual.getRankHistogram().getCount(rank));
+            assertEquals(expected.getRankHistogram().getLivingCount(rank), actual.getRankHistogram().getLivingCount(rank));
+            assertEquals(expected.getRankHistogram().getTotalExp(rank), actual.getRankHistogram().getTotalExp(rank));
+        }
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Changing the exp of all soldiers matches changing it one by one at any threshold")
+    void testMatchesOneByOne(String kind) {
+        for (int n : CHANGES) {
+            for (int threshold : THRESHOLDS) {
+                Army expected = createMixedArmy(kind, n);
+                Army actual   = createMixedArmy(kind, n);
+
+                for (Soldier s : expected.getSoldiers()) {
+                    ExpChanges.apply(s, n);
+                }
+                actual.changeExpOfAll(n, pool, threshold);
+
+                assertSameArmy(expected, actual);
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Only changes that change a soldier grow the modification count")
+    void testModificationCount(String kind) {
+        Army army = createArmy(kind);
+        army.recruit(Rank.PRIVATE, 3);
+
+        long before = army.getModificationCount();
+        army.changeExpOfAll(0, pool, 1);
+        assertEquals(before, army.getModificationCount());
+
+        army.changeExpOfAll(-1, pool, 1);
+        assertTrue(army.getModificationCount() > before);
+
+        before = army.getModificationCount();
+        army.changeExpOfAll(-1, pool, 1);
+        assertEquals(before, army.getModificationCount());
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("IllegalArgumentException on a parallel threshold below 1")
+    void testThresholdThrows(String kind) {
+        Army army = createArmy(kind);
+        army.recruit(Rank.PRIVATE, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> army.changeExpOfAll(1, pool, 0));
+        assertEquals(3, army.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("Grouped army merges groups left in the same state")
+    void testGroupsMerge() {
+        GroupedArmy army = new GroupedArmy();
+        army.recruit(Rank.PRIVATE, 10);
+        army.getSoldiers().get(3).increaseExpByN(1);
+        army.recruit(Rank.CORPORAL, 5);
+        assertEquals(4, army.getGroupCount());
+
+        army.changeExpOfAll(-5, pool, 1);
+
+        assertEquals(2, army.getGroupCount());
+        assertEquals(0, army.getRankHistogram().getTotalLivingCount());
+        assertEquals(0, army.getTotalStrength());
+    }
+}
@@ -33,6 +33,46 @@ class GeneralTest {
                 "Empty army's strength should equal to 0");
     }
     
+    @Test
+    @DisplayName("Constructor accepts an explicit army implementation")
+    void testConstructorWithArmy() {
+        Army army = new ColumnarArmy();
+
+        General withArmy = new General(TEST_GENERAL_NAME, TEST_STARTING_GOLD, army);
+
+        assertSame(army, withArmy.getArmy());
+        assertEquals(TEST_GENERAL_NAME, withArmy.getName());
+        assertEquals(TEST_STARTING_GOLD, withArmy.getGold());
+    }
+
+    @Test
+    @DisplayName("restore keeps a recorded id and moves later ids past it")
+    void testRestore() {
+        long recorded = new General(TEST_GENERAL_NAME, 0).getId() + 100;
+
+        General restored = General.restore(recorded, TEST_GENERAL_NAME, TEST_STARTING_GOLD, new ListArmy());
+
+        assertEquals(recorded, restored.getId());
+        assertEquals(TEST_STARTING_GOLD, restored.getGold());
+        assertEquals(recorded + 1, new General(TEST_GENERAL_NAME, 0).getId());
+        assertThrows(IllegalArgumentException.class,
+            () -> General.restore(-1, TEST_GENERAL_NAME, TEST_STARTING_GOLD, new ListArmy()));
+    }
+
+    @Test
+    @DisplayName("The lock order follows ids and breaks ties between generals restored twice")
+    void testLocksBefore() {
+        General older = new General(TEST_GENERAL_NAME, 0);
+        General newer = new General(TEST_GENERAL_NAME, 0);
+        General first  = General.restore(older.getId(), TEST_GENERAL_NAME, 0, new ListArmy());
+        General second = General.restore(older.getId(), TEST_GENERAL_NAME, 0, new ListArmy());
+
+        assertTrue(older.locksBefore(newer));
+        assertFalse(newer.locksBefore(older));
+        assertTrue(first.locksBefore(second) != second.locksBefore(first));
+        assertFalse(first.locksBefore(first));
+    }
+
     @Test
     @DisplayName("addGold adds gold correctly")
     void testAddGoldAddsGold() {
@@ -136,4 +176,29 @@ class GeneralTest {
         
         assertEquals(TEST_STARTING_GOLD, general.getGold());
     }
-}
\ No newline at end of file
+    
+    @Test
+    @DisplayName("transferGold moves gold to the recipient")
+    void testTransferGold() {
+        General recipient = new General("Joseph Joffre", 0);
+        int     amount    = 30;
+        
+        assertDoesNotThrow(() -> general.transferGold(recipient, amount));
+        
+        assertEquals(TEST_STARTING_GOLD - amount, general.getGold());
+        assertEquals(amount, recipient.getGold());
+    }
+    
+    @Test
+    @DisplayName("transferGold changes neither balance when the general cannot afford it")
+    void testTransferGoldInsufficientGold() {
+        General recipient = new General("Joseph Joffre", 0);
+        
+        assertThrows(InsufficientGoldException.class, () -> {
+            general.transferGold(recipient, TEST_STARTING_GOLD + 1);
+        });
+        
+        assertEquals(TEST_STARTING_GOLD, general.getGold());
+        assertEquals(0, recipient.getGold());
+    }
+}
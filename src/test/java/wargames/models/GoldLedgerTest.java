@@ -0,0 +1,185 @@
+package wargames.models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import wargames.exceptions.InsufficientGoldException;
+
+class GoldLedgerTest {
+
+    private static final int THREADS    = 8;
+    private static final int OPERATIONS = 20_000;
+
+    @Test
+    @DisplayName("transferTo changes neither balance when the recipient's balance would overflow")
+    void testTransferOverflowChangesNothing() {
+        GoldLedger sender    = new GoldLedger(100);
+        GoldLedger recipient = new GoldLedger(Integer.MAX_VALUE - 10);
+
+        assertThrows(ArithmeticException.class, () -> sender.transferTo(recipient, 11));
+
+        assertEquals(100, sender.getBalance());
+        assertEquals(Integer.MAX_VALUE - 10, recipient.getBalance());
+    }
+
+    @Test
+    @DisplayName("Gold held by a transfer counts against deposits, so giving it back never overflows")
+    void testHeldGoldCountsAgainstDeposits() {
+        GoldLedger sender    = new GoldLedger(100);
+        GoldLedger recipient = new GoldLedger(Integer.MAX_VALUE) {
+            @Override
+            public void deposit(int amount) {
+                // the sender's lock is held, but its deposits go on
+                assertEquals(50, sender.getBalance());
+                assertThrows(ArithmeticException.class, () -> sender.deposit(Integer.MAX_VALUE - 99));
+                sender.deposit(Integer.MAX_VALUE - 100);
+                super.deposit(amount);
+            }
+        };
+
+        assertThrows(ArithmeticException.class, () -> sender.transferTo(recipient, 50));
+
+        assertEquals(Integer.MAX_VALUE, sender.getBalance());
+        assertEquals(Integer.MAX_VALUE, recipient.getBalance());
+        assertThrows(ArithmeticException.class, () -> sender.deposit(1));
+    }
+
+    @Test
+    @DisplayName("Concurrent deposits and withdrawals lose no updates")
+    void testConcurrentDepositsAndWithdrawals() throws Exception {
+        GoldLedger ledger = new GoldLedger(0);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                ledger.deposit(3);
+                ledger.withdraw(2);
+            }
+        });
+
+        assertEquals(THREADS * OPERATIONS, ledger.getBalance());
+    }
+
+    @Test
+    @DisplayName("Concurrent withdrawals never overdraw the balance")
+    void testConcurrentWithdrawalsNeverOverdraw() throws Exception {
+        int        initial    = OPERATIONS;
+        GoldLedger ledger     = new GoldLedger(initial);
+        long[]     successful = new long[THREADS];
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                try {
+                    ledger.withdraw(1);
+                    successful[thread]++;
+                } catch (InsufficientGoldException e) {
+                    assertTrue(e.getDeficit() > 0);
+                }
+            }
+        });
+
+        assertEquals(0, ledger.getBalance());
+        assertEquals(initial, Arrays.stream(successful).sum());
+    }
+
+    @Test
+    @DisplayName("Concurrent transfers between ledgers keep the total amount of gold")
+    void testConcurrentTransfersKeepTotal() throws Exception {
+        GoldLedger[] ledgers = new GoldLedger[4];
+        for (int i = 0; i < ledgers.length; i++) {
+            ledgers[i] = new GoldLedger(1000);
+        }
+
+        runConcurrently(thread -> {
+            SplittableRandom random = new SplittableRandom(thread);
+            for (int i = 0; i < OPERATIONS; i++) {
+                GoldLedger from = ledgers[random.nextInt(ledgers.length)];
+                GoldLedger to   = ledgers[random.nextInt(ledgers.length)];
+                try {
+                    from.transferTo(to, random.nextInt(1, 50));
+                } catch (InsufficientGoldException e) {
+                    // expected when the sender ran dry
+                }
+            }
+        });
+
+        int total = 0;
+        for (GoldLedger ledger : ledgers) {
+            assertTrue(ledger.getBalance() >= 0);
+            total += ledger.getBalance();
+        }
+        assertEquals(1000 * ledgers.length, total);
+    }
+
+    @Test
+    @DisplayName("A transfer to the same ledger or of a negative amount changes nothing")
+    void testTransferEdgeCases() throws Exception {
+        GoldLedger ledger = new GoldLedger(10);
+
+        ledger.transferTo(ledger, 10);
+        assertThrows(InsufficientGoldException.class, () -> ledger.transferTo(ledger, 11));
+        assertThrows(IllegalArgumentException.class, () -> ledger.transferTo(new GoldLedger(0), -1));
+        assertEquals(10, ledger.getBalance());
+    }
+
+    @Test
+    @DisplayName("Readers of the total balance never see gold in neither ledger during concurrent transfers")
+    void testTotalBalanceConservedUnderContention() throws Exception {
+        List<GoldLedger> ledgers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ledgers.add(new GoldLedger(i == 0 ? Integer.MAX_VALUE - 100 : 1000));
+        }
+        long total = GoldLedger.totalBalance(ledgers);
+
+        runConcurrently(thread -> {
+            SplittableRandom random = new SplittableRandom(thread);
+            for (int i = 0; i < OPERATIONS; i++) {
+                if (thread == 0) {
+                    assertEquals(total, GoldLedger.totalBalance(ledgers));
+                    continue;
+                }
+                GoldLedger from = ledgers.get(random.nextInt(ledgers.size()));
+                GoldLedger to   = ledgers.get(random.nextInt(ledgers.size()));
+                try {
+                    from.transferTo(to, random.nextInt(1, 500));
+                } catch (InsufficientGoldException | ArithmeticException e) {
+                    // expected when the sender ran dry or the recipient is full
+                }
+            }
+        });
+
+        assertEquals(total, GoldLedger.totalBalance(ledgers));
+        for (GoldLedger ledger : ledgers) {
+            assertTrue(ledger.getBalance() >= 0);
+        }
+    }
+
+    interface Work {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(Work work) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch  start    = new CountDownLatch(1);
+        List<Future<?>> futures  = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    work.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
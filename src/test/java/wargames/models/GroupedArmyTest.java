@@ -0,0 +1,310 @@
+package wargames.models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import wargames.commands.*;
+import wargames.events.publisher.EventDispatcher;
+import wargames.factories.*;
+
+class GroupedArmyTest {
+
+    private GroupedArmy    army;
+    private SoldierFactory soldierFactory;
+
+    @BeforeEach
+    void setUp() {
+        soldierFactory = new SoldierFactory();
+        army = new GroupedArmy();
+    }
+
+    @Test
+    @DisplayName("New army is empty and has no groups")
+    void testConstructor() {
+        assertTrue(army.isEmpty());
+        assertEquals(0, army.getSize());
+        assertEquals(0, army.getTotalStrength());
+        assertEquals(0, army.getGroupCount());
+        assertTrue(army.getSoldiers().isEmpty());
+    }
+
+    @Test
+    @DisplayName("A freshly recruited army of any size is a single group")
+    void testRecruitIsOneGroup() {
+        army.recruit(Rank.PRIVATE, 1_000_000);
+        army.recruit(Rank.PRIVATE, 500_000);
+        army.add(soldierFactory.createPrivate());
+
+        assertEquals(1_500_001, army.getSize());
+        assertEquals(1, army.getGroupCount());
+        assertEquals(1_500_001 * Rank.PRIVATE.getValue(), army.getTotalStrength());
+
+        army.recruit(Rank.MAJOR, 10);
+        assertEquals(2, army.getGroupCount());
+        assertEquals(Rank.MAJOR, army.getSoldiers().get(1_500_001).getRank());
+    }
+
+    @Test
+    @DisplayName("recruit() rejects negative quantities and does nothing for zero")
+    void testRecruitQuantity() {
+        assertThrows(IllegalArgumentException.class, () -> army.recruit(Rank.PRIVATE, -1));
+
+        army.recruit(Rank.PRIVATE, 0);
+
+        assertTrue(army.isEmpty());
+        assertEquals(0, army.getGroupCount());
+    }
+
+    @Test
+    @DisplayName("Changing one soldier splits its group, changing the rest merges it back")
+    void testSplitAndMerge() {
+        army.recruit(Rank.CORPORAL, 10);
+        List<Soldier> soldiers = army.getSoldiers();
+
+        soldiers.get(4).increaseExpByN(1);
+        assertEquals(3, army.getGroupCount());
+        assertEquals(2, soldiers.get(4).getExp());
+        assertEquals(1, soldiers.get(3).getExp());
+        assertEquals(1, soldiers.get(5).getExp());
+
+        for (Soldier s : soldiers) {
+            if (s.getExp() == 1) {
+                s.increaseExpByN(1);
+            }
+        }
+        assertEquals(1, army.getGroupCount());
+        assertEquals(10 * 2 * Rank.CORPORAL.getValue(), army.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("Promotions and deaths are kept per soldier")
+    void testPromotionAndDeath() {
+        army.recruit(Rank.PRIVATE, 3);
+        List<Soldier> soldiers = army.getSoldiers();
+
+        soldiers.get(0).increaseExpByN(Soldier.PROMOTION_RANK_MULTIPLIER);
+        soldiers.get(2).decreaseExpByN(1);
+
+        assertEquals(Rank.CORPORAL, soldiers.get(0).getRank());
+        assertEquals(2, soldiers.get(0).getExp());
+        assertEquals(Rank.PRIVATE, soldiers.get(1).getRank());
+        assertTrue(soldiers.get(1).isAlive());
+        assertFalse(soldiers.get(2).isAlive());
+        assertEquals(0, soldiers.get(2).getExp());
+        assertEquals(3, army.getGroupCount());
+        assertEquals(sumOfStrengths(army), army.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("Removing the last soldier of a group merges its equal neighbours")
+    void testRemovalMergesNeighbours() {
+        army = new GroupedArmy(new ColumnarArmyTest.FixedIndexRandom(2));
+        army.recruit(Rank.CAPTAIN, 2);
+        army.recruit(Rank.MAJOR, 1);
+        army.recruit(Rank.CAPTAIN, 2);
+        assertEquals(3, army.getGroupCount());
+
+        army.killAndRemoveRandom();
+
+        assertEquals(4, army.getSize());
+        assertEquals(1, army.getGroupCount());
+        assertEquals(4 * Rank.CAPTAIN.getValue(), army.getTotalStrength());
+    }
+
+    @Test
+    @DisplayName("killAndRemoveRandom() on an empty army does nothing")
+    void testKillAndRemoveRandomEmptyArmy() {
+        assertDoesNotThrow(() -> army.killAndRemoveRandom());
+        assertTrue(army.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Random changes and removals match a plain list of soldiers")
+    void testMatchesReferenceModel() {
+        long             seed      = 1683;
+        SplittableRandom ops       = new SplittableRandom(seed);
+        SplittableRandom removals  = new SplittableRandom(seed + 1);
+        List<Soldier>    reference = new ArrayList<>();
+        army = new GroupedArmy(new SplittableRandom(seed + 1));
+
+        for (int step = 0; step < 5000; step++) {
+            int op = ops.nextInt(10);
+            if (op == 0 || reference.isEmpty()) {
+                Rank rank     = Rank.values()[ops.nextInt(Rank.values().length)];
+                int  quantity = ops.nextInt(1, 20);
+                army.recruit(rank, quantity);
+                for (int i = 0; i < quantity; i++) {
+                    reference.add(Soldier.withRank(rank));
+                }
+            } else if (op == 1) {
+                army.killAndRemoveRandom();
+                reference.remove(removals.nextInt(reference.size()));
+            } else {
+                int idx = ops.nextInt(reference.size());
+                int n   = ops.nextInt(1, 4);
+                if (op < 7) {
+                    army.getSoldiers().get(idx).increaseExpByN(n);
+                    reference.get(idx).increaseExpByN(n);
+                } else {
+                    army.getSoldiers().get(idx).decreaseExpByN(n);
+                    reference.get(idx).decreaseExpByN(n);
+                }
+            }
+
+            assertEquals(reference.size(), army.getSize());
+            assertEquals(sumOfStrengths(reference), army.getTotalStrength());
+        }
+
+        List<Soldier> soldiers = army.getSoldiers();
+        for (int i = 0; i < reference.size(); i++) {
+            assertEquals(reference.get(i).getRank(), soldiers.get(i).getRank());
+            assertEquals(reference.get(i).getExp(), soldiers.get(i).getExp());
+            assertEquals(reference.get(i).isAlive(), soldiers.get(i).isAlive());
+        }
+        assertTrue(army.getGroupCount() <= army.getSize());
+    }
+
+    @Test
+    @DisplayName("Views are equal by position and army; contains() accepts only this army's views")
+    void testViewsAndContains() {
+        GroupedArmy other = new GroupedArmy();
+        army.recruit(Rank.PRIVATE, 2);
+        other.recruit(Rank.PRIVATE, 1);
+
+        Soldier view = army.getSoldiers().get(0);
+        Soldier last = army.getSoldiers().get(1);
+
+        assertEquals(view, army.getSoldiers().get(0));
+        assertEquals(view.hashCode(), army.getSoldiers().get(0).hashCode());
+        assertNotEquals(view, last);
+        assertNotEquals(view, other.getSoldiers().get(0));
+        assertNotEquals(view, soldierFactory.createPrivate());
+        assertTrue(army.contains(view));
+        assertFalse(army.contains(other.getSoldiers().get(0)));
+        assertFalse(army.contains(soldierFactory.createPrivate()));
+        assertThrows(IndexOutOfBoundsException.class, () -> army.getSoldiers().get(2));
+
+        army.killAndRemoveRandom();
+        assertFalse(army.contains(last));
+    }
+
+    @Test
+    @DisplayName("contains() rejects views from before a removal or purge shifted soldiers")
+    void testContainsRejectsStaleViews() {
+        army.recruit(Rank.PRIVATE, 3);
+        army.recruit(Rank.MAJOR, 1);
+        army.setCompactionThreshold(1.0);
+
+        Soldier first = army.getSoldiers().get(0);
+        army.getSoldiers().get(0).decreaseExpByN(1);
+        assertTrue(army.contains(first));
+
+        army.compact();
+        assertEquals(Rank.MAJOR, army.getSoldiers().get(2).getRank());
+        assertFalse(army.contains(first));
+
+        Soldier second = army.getSoldiers().get(1);
+        army.killAndRemoveRandom(new SplittableRandom(0));
+        assertFalse(army.contains(second));
+        assertTrue(army.contains(army.getSoldiers().get(1)));
+    }
+
+    @Test
+    @DisplayName("Changing a soldier through a view from before a removal or purge throws")
+    void testStaleViewsRejectChanges() {
+        army.recruit(Rank.PRIVATE, 3);
+        army.recruit(Rank.MAJOR, 1);
+        army.setCompactionThreshold(1.0);
+
+        Soldier first = army.getSoldiers().get(0);
+        first.decreaseExpByN(1);
+        army.compact();
+        int strength = army.getTotalStrength();
+
+        // the purged soldier's position now holds a living private
+        assertThrows(IllegalStateException.class, () -> first.increaseExpByN(1));
+        assertThrows(IllegalStateException.class, () -> first.decreaseExpByN(1));
+        assertEquals(strength, army.getTotalStrength());
+        assertEquals(1, army.getSoldiers().get(0).getExp());
+
+        Soldier second = army.getSoldiers().get(1);
+        army.killAndRemoveRandom(new SplittableRandom(0));
+        strength = army.getTotalStrength();
+        assertThrows(IllegalStateException.class, () -> second.increaseExpByN(20));
+        assertEquals(strength, army.getTotalStrength());
+        assertEquals(2, army.getRankHistogram().getTotalLivingCount());
+    }
+
+    @Test
+    @DisplayName("Many threads may read an unchanging army through its views at once")
+    void testConcurrentReaders() throws Exception {
+        Rank[] ranks = Rank.values();
+        for (int i = 0; i < 2000; i++) {
+            army.recruit(ranks[i % ranks.length], 1 + i % 5);
+        }
+        List<Rank> expected = new ArrayList<>();
+        for (Soldier s : army.getSoldiers()) {
+            expected.add(s.getRank());
+        }
+
+        List<Thread>    readers = new ArrayList<>();
+        List<Throwable> errors  = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < 4; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            Thread reader = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 200_000; i++) {
+                        int idx = random.nextInt(expected.size());
+                        assertEquals(expected.get(idx), army.getSoldiers().get(idx).getRank());
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(List.of(), errors);
+    }
+
+    @Test
+    @DisplayName("Huge grouped armies fight and drill while staying a handful of groups")
+    void testCommandsKeepArmyCompact() {
+        CommandFactory commandFactory = new CommandFactory(EventDispatcher.getInstance(), soldierFactory);
+        General        attacking      = new General("Hannibal", 10_000_000, new GroupedArmy());
+        General        attacked       = new General("Scipio", 10_000_000, new GroupedArmy());
+        attacking.getArmy().recruit(Rank.CAPTAIN, 200_000);
+        attacked.getArmy().recruit(Rank.PRIVATE, 200_000);
+
+        assertDoesNotThrow(() -> commandFactory.createAttack(attacking, attacked).execute());
+        assertDoesNotThrow(() -> commandFactory.createDrillSoldiers(
+            attacking, attacking.getArmy().getSoldiers()).execute());
+
+        GroupedArmy winner = (GroupedArmy) attacking.getArmy();
+        GroupedArmy loser  = (GroupedArmy) attacked.getArmy();
+        assertEquals(1, winner.getGroupCount());
+        assertEquals(1, loser.getGroupCount());
+        assertEquals(200_000 * 3 * Rank.CAPTAIN.getValue(), winner.getTotalStrength());
+        assertEquals(0, loser.getTotalStrength());
+        assertFalse(loser.getSoldiers().get(0).isAlive());
+    }
+
+    private static int sumOfStrengths(Army army) {
+        return sumOfStrengths(army.getSoldiers());
+    }
+
+    private static int sumOfStrengths(List<Soldier> soldiers) {
+        int strength = 0;
+        for (Soldier s : soldiers) {
+            strength += s.getStrength();
+        }
+        return strength;
+    }
+}
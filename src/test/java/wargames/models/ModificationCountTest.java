@@ -0,0 +1,60 @@
+package wargames.models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.SplittableRandom;
+
+class ModificationCountTest {
+
+    private static Army createArmy(String kind) {
+        switch (kind) {
+            case "list":     return new ListArmy(new SplittableRandom(0));
+            case "columnar": return new ColumnarArmy(0, new SplittableRandom(0));
+            default:         return new GroupedArmy(new SplittableRandom(0));
+        }
+    }
+
+    // runs the change and returns whether the count grew
+    private static boolean changes(Army army, Runnable change) {
+        long before = army.getModificationCount();
+        change.run();
+        return army.getModificationCount() > before;
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Adds, removals, purges and soldier changes grow the modification count")
+    void testChangesCount(String kind) {
+        Army army = createArmy(kind);
+
+        assertTrue(changes(army, () -> army.recruit(Rank.PRIVATE, 4)));
+        assertTrue(changes(army, () -> army.add(Soldier.withRank(Rank.MAJOR))));
+        assertTrue(changes(army, () -> army.getSoldiers().get(0).increaseExpByN(2)));
+        assertTrue(changes(army, () -> army.getSoldiers().get(1).decreaseExpByN(1)));
+        assertTrue(changes(army, army::killAndRemoveRandom));
+        assertTrue(changes(army, army::compact));
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Reads and changes that do nothing keep the modification count")
+    void testReadsDoNotCount(String kind) {
+        Army army = createArmy(kind);
+        army.recruit(Rank.CORPORAL, 3);
+        army.getSoldiers().get(2).decreaseExpByN(1);
+
+        assertFalse(changes(army, () -> {
+            army.getTotalStrength();
+            army.getRankHistogram().getTotalLivingCount();
+            for (Soldier s : army.getSoldiers()) {
+                s.getStrength();
+            }
+        }));
+        assertFalse(changes(army, () -> army.getSoldiers().get(0).increaseExpByN(0)));
+        assertFalse(changes(army, () -> army.getSoldiers().get(2).increaseExpByN(1)));
+    }
+}
@@ -0,0 +1,114 @@
+package wargames.models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.*;
+
+class RankHistogramTest {
+
+    private static Army createArmy(String kind, long seed) {
+        switch (kind) {
+            case "list":     return new ListArmy(new SplittableRandom(seed));
+            case "columnar": return new ColumnarArmy(0, new SplittableRandom(seed));
+            default:         return new GroupedArmy(new SplittableRandom(seed));
+        }
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("New army has an empty histogram")
+    void testEmpty(String kind) {
+        RankHistogram histogram = createArmy(kind, 0).getRankHistogram();
+
+        for (Rank rank : Rank.values()) {
+            assertEquals(0, histogram.getCount(rank));
+            assertEquals(0, histogram.getLivingCount(rank));
+            assertEquals(0, histogram.getTotalExp(rank));
+        }
+        assertEquals(0, histogram.getTotalRankValue());
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Histogram follows recruitment, promotions and deaths")
+    void testPromotionAndDeath(String kind) {
+        Army army = createArmy(kind, 0);
+        army.recruit(Rank.PRIVATE, 10);
+        army.add(Soldier.withRank(Rank.MAJOR));
+
+        army.getSoldiers().get(0).increaseExpByN(Soldier.PROMOTION_RANK_MULTIPLIER);
+        army.getSoldiers().get(1).decreaseExpByN(1);
+
+        RankHistogram histogram = army.getRankHistogram();
+        assertEquals(9, histogram.getCount(Rank.PRIVATE));
+        assertEquals(8, histogram.getLivingCount(Rank.PRIVATE));
+        assertEquals(8, histogram.getTotalExp(Rank.PRIVATE));
+        assertEquals(1, histogram.getCount(Rank.CORPORAL));
+        assertEquals(2, histogram.getTotalExp(Rank.CORPORAL));
+        assertEquals(1, histogram.getCount(Rank.MAJOR));
+        assertEquals(9 * 1 + 2 + 4, histogram.getTotalRankValue());
+    }
+
+    @ParameterizedTest(name = "{0} army")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Histogram matches a count over the soldiers after random changes and removals")
+    void testMatchesSoldiers(String kind) {
+        SplittableRandom ops  = new SplittableRandom(303);
+        Army             army = createArmy(kind, 303);
+
+        for (int step = 0; step < 3000; step++) {
+            int op = ops.nextInt(10);
+            if (op == 0 || army.isEmpty()) {
+                army.recruit(Rank.values()[ops.nextInt(Rank.values().length)], ops.nextInt(1, 10));
+            } else if (op == 1) {
+                army.killAndRemoveRandom();
+            } else if (op < 7) {
+                army.getSoldiers().get(ops.nextInt(army.getSize())).increaseExpByN(ops.nextInt(1, 30));
+            } else {
+                army.getSoldiers().get(ops.nextInt(army.getSize())).decreaseExpByN(ops.nextInt(1, 4));
+            }
+        }
+
+        RankHistogram histogram  = army.getRankHistogram();
+        int           rankValues = 0;
+        for (Rank rank : Rank.values()) {
+            int  count  = 0;
+            int  living = 0;
+            long exp    = 0;
+            for (Soldier s : army.getSoldiers()) {
+                if (s.getRank() == rank) {
+                    count++;
+                    living += s.isAlive() ? 1 : 0;
+                    exp    += s.getExp();
+                }
+            }
+            assertEquals(count, histogram.getCount(rank), rank.name());
+            assertEquals(living, histogram.getLivingCount(rank), rank.name());
+            assertEquals(exp, histogram.getTotalExp(rank), rank.name());
+            rankValues += count * rank.getValue();
+        }
+        assertEquals(rankValues, histogram.getTotalRankValue());
+    }
+
+    @Test
+    @DisplayName("Adding per-rank totals matches adding their soldiers one by one")
+    void testAddTotals() {
+        RankHistogram soldiers = new RankHistogram();
+        soldiers.add(Rank.CAPTAIN, 4, true, 1);
+        soldiers.add(Rank.CAPTAIN, 6, true, 1);
+        soldiers.add(Rank.CAPTAIN, 0, false, 1);
+
+        RankHistogram totals = new RankHistogram();
+        totals.addTotals(Rank.CAPTAIN, 3, 2, 10);
+
+        for (Rank rank : Rank.values()) {
+            assertEquals(soldiers.getCount(rank), totals.getCount(rank), rank.name());
+            assertEquals(soldiers.getLivingCount(rank), totals.getLivingCount(rank), rank.name());
+            assertEquals(soldiers.getTotalExp(rank), totals.getTotalExp(rank), rank.name());
+        }
+    }
+}
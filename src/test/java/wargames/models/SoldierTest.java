@@ -7,6 +7,9 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 
+import java.time.Duration;
+import java.util.SplittableRandom;
+
 import wargames.factories.SoldierFactory;
 
 class SoldierTest {
@@ -223,4 +226,79 @@ class SoldierTest {
             assertEquals(aliveBefore, soldier.isAlive());
         }
     }
+
+    @Nested
+    @DisplayName("Bulk exp changes match single-exp steps")
+    class BulkExpChangeTests {
+
+        // reference model applying exp changes one point at a time
+        private class SteppedSoldier {
+            Rank    rank;
+            int     exp   = 1;
+            boolean alive = true;
+
+            SteppedSoldier(Rank rank) { this.rank = rank; }
+
+            void increaseExpByN(int n) {
+                for (int i = 0; i < n && alive; i++) {
+                    exp += 1;
+                    int rankValue = rank.getValue();
+                    if (exp >= Soldier.PROMOTION_RANK_MULTIPLIER * rankValue && rankValue < Rank.MAJOR.getValue()) {
+                        rank = Rank.fromValue(rankValue + 1);
+                        exp  = 1;
+                    }
+                }
+            }
+
+            void decreaseExpByN(int n) {
+                for (int i = 0; i < n && alive; i++) {
+                    exp -= 1;
+                    alive = exp >= 1;
+                }
+            }
+        }
+
+        @ParameterizedTest(name = "Random exp changes starting from {0}")
+        @EnumSource(Rank.class)
+        void testMatchesSteppedModel(Rank startingRank) {
+            SplittableRandom random = new SplittableRandom(startingRank.ordinal());
+
+            for (int run = 0; run < 200; run++) {
+                Soldier        bulk    = factory.createSoldier(startingRank);
+                SteppedSoldier stepped = new SteppedSoldier(startingRank);
+
+                for (int step = 0; step < 50; step++) {
+                    int n = random.nextInt(-2, 60);
+                    if (random.nextInt(3) == 0) {
+                        bulk.decreaseExpByN(n);
+                        stepped.decreaseExpByN(n);
+                    } else {
+                        bulk.increaseExpByN(n);
+                        stepped.increaseExpByN(n);
+                    }
+
+                    assertEquals(stepped.rank, bulk.getRank());
+                    assertEquals(stepped.exp, bulk.getExp());
+                    assertEquals(stepped.alive, bulk.isAlive());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Huge exp changes do not depend on the size of the change")
+        void testHugeExpChanges() {
+            assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+                soldier.increaseExpByN(Integer.MAX_VALUE - 100);
+                assertEquals(Rank.MAJOR, soldier.getRank());
+
+                int expectedExp = Integer.MAX_VALUE - 100 + 1 + 3
+                    - Soldier.PROMOTION_RANK_MULTIPLIER * (Rank.PRIVATE.getValue() + Rank.CORPORAL.getValue() + Rank.CAPTAIN.getValue());
+                assertEquals(expectedExp, soldier.getExp());
+
+                soldier.decreaseExpByN(soldier.getExp());
+                assertFalse(soldier.isAlive());
+                assertEquals(0, soldier.getExp());
+            });
+        }
+    }
 }
@@ -0,0 +1,146 @@
+package wargames.models;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.SplittableRandom;
+
+class StrengthKernelTest {
+
+    private static final Rank[] RANKS = Rank.values();
+
+    // stands in for a kernel class the build compiled
+    static final class RecordingKernel implements StrengthKernel.Kernel {
+        int calls;
+
+        @Override
+        public void accumulate(byte[] ranks, int[] exps, long[] aliveBits, int from, int to,
+                               RankHistogram histogram) {
+            this.calls++;
+        }
+    }
+
+    private static byte[] ranks(SplittableRandom random, int size) {
+        byte[] ranks = new byte[size];
+        for (int i = 0; i < size; i++) {
+            ranks[i] = (byte) random.nextInt(RANKS.length);
+        }
+        return ranks;
+    }
+
+    private static int[] exps(SplittableRandom random, int size, int bound) {
+        int[] exps = new int[size];
+        for (int i = 0; i < size; i++) {
+            exps[i] = random.nextInt(bound);
+        }
+        return exps;
+    }
+
+    private static long[] aliveBits(SplittableRandom random, int size) {
+        long[] aliveBits = new long[(size + 63) >>> 6];
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(5) != 0) {
+                aliveBits[i >>> 6] |= 1L << i;
+            }
+        }
+        return aliveBits;
+    }
+
+    private static void assertSameHistogram(RankHistogram expected, RankHistogram actual) {
+        for (Rank rank : RANKS) {
+            assertEquals(expected.getCount(rank), actual.getCount(rank));
+            assertEquals(expected.getLivingCount(rank), actual.getLivingCount(rank));
+            assertEquals(expected.getTotalExp(rank), actual.getTotalExp(rank));
+        }
+    }
+
+    @Test
+    @DisplayName("The SIMD kernel runs exactly when the vector module is in the boot layer")
+    void testVectorized() {
+        assertEquals(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                     StrengthKernel.isVectorized());
+    }
+
+    @Test
+    @DisplayName("Kernels are loaded by class name, falling back to the scalar loop")
+    void testLoad() {
+        StrengthKernel.Kernel loaded = StrengthKernel.load(RecordingKernel.class.getName());
+        assertInstanceOf(RecordingKernel.class, loaded);
+
+        StrengthKernel.Kernel fallback = StrengthKernel.load("wargames.models.MissingKernel");
+        RankHistogram         counted  = new RankHistogram();
+        fallback.accumulate(new byte[] { 3 }, new int[] { 2 }, new long[] { 1 }, 0, 1, counted);
+        assertEquals(1, counted.getLivingCount(Rank.MAJOR));
+        assertEquals(2, counted.getTotalExp(Rank.MAJOR));
+    }
+
+    @ParameterizedTest(name = "{0} soldiers")
+    @ValueSource(ints = { 0, 1, 7, 31, 64, 65, 1000, 100_003 })
+    @DisplayName("Kernel and scalar passes agree with the soldiers' strengths and counts for every range")
+    void testPassesAgree(int size) {
+        SplittableRandom random    = new SplittableRandom(size);
+        byte[]           ranks     = ranks(random, size);
+        int[]            exps      = exps(random, size, 100);
+        long[]           aliveBits = aliveBits(random, size);
+
+        int           strength = 0;
+        RankHistogram expected = new RankHistogram();
+        for (int i = 0; i < size; i++) {
+            strength += RANKS[ranks[i]].getValue() * exps[i];
+            expected.add(RANKS[ranks[i]], exps[i], (aliveBits[i >>> 6] & (1L << i)) != 0, 1);
+        }
+        RankHistogram kernel = new RankHistogram();
+        RankHistogram scalar = new RankHistogram();
+        assertEquals(strength, StrengthKernel.accumulate(ranks, exps, aliveBits, 0, size, kernel));
+        assertEquals(strength, StrengthKernel.scalarAccumulate(ranks, exps, aliveBits, 0, size, scalar));
+        assertSameHistogram(expected, kernel);
+        assertSameHistogram(expected, scalar);
+
+        for (int from = 0; from < Math.min(size, 40); from += 3) {
+            int to = Math.max(from, size - from / 2);
+            kernel = new RankHistogram();
+            scalar = new RankHistogram();
+            assertEquals(StrengthKernel.scalarAccumulate(ranks, exps, aliveBits, from, to, scalar),
+                         StrengthKernel.accumulate(ranks, exps, aliveBits, from, to, kernel));
+            assertSameHistogram(scalar, kernel);
+        }
+    }
+
+    @Test
+    @DisplayName("Strength wraps around like int total strength, exp totals do not")
+    void testOverflowWraps() {
+        SplittableRandom random    = new SplittableRandom(3);
+        byte[]           ranks     = ranks(random, 4099);
+        int[]            exps      = exps(random, 4099, Integer.MAX_VALUE);
+        long[]           aliveBits = aliveBits(random, 4099);
+
+        RankHistogram kernel = new RankHistogram();
+        RankHistogram scalar = new RankHistogram();
+        assertEquals(StrengthKernel.scalarAccumulate(ranks, exps, aliveBits, 0, ranks.length, scalar),
+                     StrengthKernel.accumulate(ranks, exps, aliveBits, 0, ranks.length, kernel));
+        assertSameHistogram(scalar, kernel);
+        assertTrue(kernel.getTotalExp(Rank.PRIVATE) > Integer.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("Ranges outside any column are rejected before the histogram changes")
+    void testRejectsRanges() {
+        byte[]        ranks     = new byte[80];
+        int[]         exps      = new int[70];
+        long[]        aliveBits = new long[1];
+        RankHistogram histogram = new RankHistogram();
+
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> StrengthKernel.accumulate(ranks, exps, aliveBits, 0, 75, histogram));
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> StrengthKernel.accumulate(ranks, exps, aliveBits, 3, 2, histogram));
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> StrengthKernel.scalarAccumulate(ranks, exps, aliveBits, -1, 2, histogram));
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> StrengthKernel.scalarAccumulate(ranks, exps, aliveBits, 0, 65, histogram));
+        assertEquals(0, histogram.getCount(Rank.PRIVATE));
+    }
+}
@@ -0,0 +1,228 @@
+package wargames.simulation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import wargames.commands.AttackCommand;
+import wargames.events.publisher.EventDispatcher;
+import wargames.models.*;
+
+public class SimulationEngineTest {
+
+    private static final int STARTING_GOLD = 1000;
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Constructor rejects non-positive batch sizes and Scenario rejects null generals")
+    void testValidation() {
+        General general = new General("Hannibal", STARTING_GOLD);
+
+        assertThrows(IllegalArgumentException.class, () -> new SimulationEngine(pool, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Scenario(null, general));
+        assertThrows(IllegalArgumentException.class, () -> new Scenario(general, null));
+    }
+
+    @Test
+    @DisplayName("Empty simulation has no battles and zero rates")
+    void testEmptySimulation() {
+        SimulationStatistics statistics = new SimulationEngine().run(List.of());
+
+        assertEquals(0, statistics.getBattles());
+        assertEquals(0, statistics.getRejected());
+        assertEquals(0.0, statistics.getAttackerWinRate());
+        assertEquals(0.0, statistics.getDefenderWinRate());
+        assertEquals(0.0, statistics.getDrawRate());
+    }
+
+    @Test
+    @DisplayName("Wins, draws, loot and casualties are recorded for every outcome")
+    void testOutcomes() {
+        List<Scenario> scenarios = List.of(
+            scenario(army(Rank.MAJOR, 2), army(Rank.PRIVATE, 3), STARTING_GOLD),   // attacker wins
+            scenario(army(Rank.PRIVATE, 1), army(Rank.CAPTAIN, 1), STARTING_GOLD), // defender wins
+            scenario(army(Rank.CORPORAL, 2), army(Rank.CORPORAL, 2), STARTING_GOLD), // draw
+            scenario(army(Rank.MAJOR, 1), army(Rank.PRIVATE, 0), STARTING_GOLD),   // empty army
+            scenario(army(Rank.MAJOR, 1), army(Rank.PRIVATE, 1), 0)                // no gold
+        );
+
+        SimulationStatistics statistics = new SimulationEngine(pool, 1).run(scenarios);
+
+        int loot = (int) (STARTING_GOLD * AttackCommand.GOLD_LOOT_PERCENTAGE);
+        assertEquals(1, statistics.getAttackerWins());
+        assertEquals(1, statistics.getDefenderWins());
+        assertEquals(1, statistics.getDraws());
+        assertEquals(2, statistics.getRejected());
+        assertEquals(3, statistics.getBattles());
+        assertEquals(2 * loot, statistics.getGoldLooted());
+        assertEquals(1 + 1, statistics.getAttackerCasualties());
+        assertEquals(3 + 1, statistics.getDefenderCasualties());
+        assertEquals(1.0 / 3, statistics.getAttackerWinRate());
+        assertEquals(1.0 / 3, statistics.getDefenderWinRate());
+        assertEquals(1.0 / 3, statistics.getDrawRate());
+    }
+
+    @Test
+    @DisplayName("Parallel simulation aggregates the same statistics as fighting every battle in turn")
+    void testParallelMatchesSequential() {
+        int quantity = 5000;
+
+        SimulationStatistics parallel = new SimulationEngine(pool, 16).run(seededScenarios(quantity));
+
+        long attackerWins = 0, defenderWins = 0, draws = 0, rejected = 0;
+        long goldLooted = 0, attackerCasualties = 0, defenderCasualties = 0;
+        for (Scenario s : seededScenarios(quantity)) {
+            General attacking = s.getAttacking();
+            General attacked  = s.getAttacked();
+            int     goldBefore     = attacking.getGold();
+            int     attackingAlive = countAlive(attacking.getArmy());
+            int     attackedAlive  = countAlive(attacked.getArmy());
+
+            AttackCommand attack = new AttackCommand(attacking, attacked, s.getSeed(), EventDispatcher.getInstance());
+            try {
+                attack.execute();
+            } catch (Exception e) {
+                rejected++;
+                continue;
+            }
+
+            if (attack.isDraw())                         draws++;
+            else if (attack.getWinner() == attacking)    attackerWins++;
+            else                                         defenderWins++;
+            goldLooted         += Math.abs(attacking.getGold() - goldBefore);
+            attackerCasualties += attackingAlive - countAlive(attacking.getArmy());
+            defenderCasualties += attackedAlive - countAlive(attacked.getArmy());
+        }
+
+        assertEquals(attackerWins, parallel.getAttackerWins());
+        assertEquals(defenderWins, parallel.getDefenderWins());
+        assertEquals(draws, parallel.getDraws());
+        assertEquals(rejected, parallel.getRejected());
+        assertEquals(goldLooted, parallel.getGoldLooted());
+        assertEquals(attackerCasualties, parallel.getAttackerCasualties());
+        assertEquals(defenderCasualties, parallel.getDefenderCasualties());
+        assertEquals(quantity, parallel.getBattles() + parallel.getRejected());
+    }
+
+    @Test
+    @DisplayName("Running the same seeded scenarios twice gives the same statistics and armies")
+    void testReproducible() {
+        List<Scenario> first  = drawScenarios(500);
+        List<Scenario> second = drawScenarios(500);
+
+        SimulationStatistics firstStatistics  = new SimulationEngine(pool, 8).run(first);
+        SimulationStatistics secondStatistics = new SimulationEngine(pool, 8).run(second);
+
+        assertEquals(500, firstStatistics.getDraws());
+        assertEquals(firstStatistics.getDraws(), secondStatistics.getDraws());
+        assertEquals(firstStatistics.getAttackerCasualties(), secondStatistics.getAttackerCasualties());
+        assertEquals(firstStatistics.getDefenderCasualties(), secondStatistics.getDefenderCasualties());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(ranksOf(first.get(i).getAttacking().getArmy()),
+                         ranksOf(second.get(i).getAttacking().getArmy()));
+        }
+    }
+
+    @Test
+    @DisplayName("Failures other than a rejected attack propagate out of the simulation")
+    void testFailuresPropagate() {
+        Army broken = new ListArmy() {
+            @Override
+            public List<Soldier> getSoldiers() {
+                throw new IllegalStateException("broken army");
+            }
+        };
+        broken.add(Soldier.withRank(Rank.MAJOR));
+        List<Scenario> scenarios = List.of(scenario(broken, army(Rank.PRIVATE, 1), STARTING_GOLD));
+
+        assertThrows(IllegalStateException.class, () -> new SimulationEngine(pool, 1).run(scenarios));
+    }
+
+    @Test
+    @DisplayName("A scenario the attack rejects as misuse ends the run instead of counting as rejected")
+    void testMisusePropagates() {
+        General general = new General("Hannibal", STARTING_GOLD, army(Rank.MAJOR, 1));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> new SimulationEngine(pool, 1).run(List.of(new Scenario(general, general))));
+    }
+
+    // draws whose shot attacker depends on the seed: two privates and
+    // a corporal against a major
+    private static List<Scenario> drawScenarios(int quantity) {
+        List<Scenario> scenarios = new ArrayList<>(quantity);
+        for (int i = 0; i < quantity; i++) {
+            Army attacking = army(Rank.PRIVATE, 2);
+            attacking.add(Soldier.withRank(Rank.CORPORAL));
+            scenarios.add(new Scenario(new General("Attacker " + i, STARTING_GOLD, attacking),
+                                       new General("Defender " + i, STARTING_GOLD, army(Rank.MAJOR, 1)),
+                                       i));
+        }
+        return scenarios;
+    }
+
+    private static List<Rank> ranksOf(Army army) {
+        List<Rank> ranks = new ArrayList<>();
+        for (Soldier s : army.getSoldiers()) {
+            ranks.add(s.getRank());
+        }
+        return ranks;
+    }
+
+    // battles of varying army composition and gold, including rejected ones,
+    // reproducible thanks to seeding every army with the scenario number
+    private static List<Scenario> seededScenarios(int quantity) {
+        List<Scenario> scenarios = new ArrayList<>(quantity);
+        for (int i = 0; i < quantity; i++) {
+            Army attacking = new ListArmy(new SplittableRandom(i));
+            Army attacked  = new ListArmy(new SplittableRandom(-i));
+            for (int j = 0; j < i % 11; j++) {
+                attacking.add(Soldier.withRank(Rank.values()[(i + j) % Rank.values().length]));
+            }
+            for (int j = 0; j < i % 7; j++) {
+                attacked.add(Soldier.withRank(Rank.values()[(i * j) % Rank.values().length]));
+            }
+            scenarios.add(new Scenario(new General("Attacker " + i, i % 13 * 10, attacking),
+                                       new General("Defender " + i, i % 17 * 10, attacked),
+                                       i));
+        }
+        return scenarios;
+    }
+
+    private static Scenario scenario(Army attacking, Army attacked, int attackingGold) {
+        return new Scenario(new General("Hannibal", attackingGold, attacking),
+                            new General("Scipio", STARTING_GOLD, attacked));
+    }
+
+    private static Army army(Rank rank, int quantity) {
+        Army army = new ListArmy();
+        for (int i = 0; i < quantity; i++) {
+            army.add(Soldier.withRank(rank));
+        }
+        return army;
+    }
+
+    private static int countAlive(Army army) {
+        int alive = 0;
+        for (Soldier s : army.getSoldiers()) {
+            if (s.isAlive()) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+}
@@ -0,0 +1,456 @@
+package wargames.snapshot;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+import wargames.commands.Command;
+import wargames.events.publisher.EventDispatcher;
+import wargames.events.subscribers.FsyncPolicy;
+import wargames.exceptions.InsufficientGoldException;
+import wargames.factories.*;
+import wargames.journal.CommandJournal;
+import wargames.models.*;
+
+public class CheckpointerTest {
+
+    private static final int      GENERALS = 4;
+    private static final Duration HOURLY   = Duration.ofHours(1);
+
+    private final EventDispatcher dispatcher     = EventDispatcher.getInstance();
+    private final CommandFactory  commandFactory = new CommandFactory(dispatcher, new SoldierFactory());
+
+    @TempDir
+    Path dir;
+
+    private Path           checkpoints;
+    private Path           journalPath;
+    private FileChannel    journalChannel;
+    private CommandJournal journal;
+    private Checkpointer   checkpointer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        checkpoints    = dir.resolve("checkpoints");
+        journalPath    = dir.resolve("commands.journal");
+        journalChannel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        journal        = new CommandJournal(journalChannel, FsyncPolicy.ON_FLUSH);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dispatcher.removeAllSubscribers();
+        if (checkpointer != null) {
+            checkpointer.close();
+        }
+        journalChannel.close();
+    }
+
+    private static List<General> createWorld(String armyKind) {
+        List<General> generals = new ArrayList<>();
+        for (int i = 0; i < GENERALS; i++) {
+            Army army;
+            switch (armyKind) {
+                case "list":     army = new ListArmy(); break;
+                case "columnar": army = new ColumnarArmy(0); break;
+                default:         army = new GroupedArmy();
+            }
+            General general = new General("General " + i, 50_000, army);
+            general.getArmy().recruit(Rank.values()[i % Rank.values().length], 20 + i);
+            generals.add(general);
+        }
+        return generals;
+    }
+
+    private Checkpointer startCheckpointer(List<General> generals, Duration interval, int fullEvery) throws IOException {
+        checkpointer = new Checkpointer(checkpoints, journal, interval, fullEvery);
+        checkpointer.register(generals.toArray(new General[0]));
+        return checkpointer;
+    }
+
+    // executes random commands through the dispatcher, ignoring rejected ones
+    private void playCampaign(List<General> generals, SplittableRandom random, int commands) throws Exception {
+        for (int i = 0; i < commands; i++) {
+            General general = generals.get(random.nextInt(generals.size()));
+            Army    army    = general.getArmy();
+            Command command;
+            switch (random.nextInt(3)) {
+                case 0:
+                    command = commandFactory.createRecruitSoldiers(
+                        general, random.nextInt(1, 5), Rank.values()[random.nextInt(Rank.values().length)]);
+                    break;
+                case 1:
+                    List<Soldier> drilled = new ArrayList<>();
+                    for (int j = 0; j < 3 && !army.isEmpty(); j++) {
+                        drilled.add(army.getSoldiers().get(random.nextInt(army.getSize())));
+                    }
+                    command = commandFactory.createDrillSoldiers(general, drilled);
+                    break;
+                default:
+                    command = commandFactory.createAttack(general, generals.get(random.nextInt(generals.size())));
+                    break;
+            }
+            try {
+                command.executeAndUpdate();
+            } catch (IllegalArgumentException | InsufficientGoldException e) {
+                // rejected command
+            }
+        }
+    }
+
+    private Map<Long, General> recover() throws IOException {
+        journal.flush();
+        return Checkpointer.recover(checkpoints, journalPath);
+    }
+
+    private static void assertSameWorld(List<General> expected, Map<Long, General> recovered) {
+        assertEquals(expected.size(), recovered.size());
+        for (General e : expected) {
+            General a = recovered.get(e.getId());
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getGold(), a.getGold(), e.getName());
+            assertEquals(e.getArmy().getSize(), a.getArmy().getSize(), e.getName());
+            assertEquals(e.getArmy().getTotalStrength(), a.getArmy().getTotalStrength(), e.getName());
+            for (int j = 0; j < e.getArmy().getSize(); j++) {
+                Soldier es = e.getArmy().getSoldiers().get(j);
+                Soldier as = a.getArmy().getSoldiers().get(j);
+                assertEquals(es.getRank(), as.getRank());
+                assertEquals(es.getExp(), as.getExp());
+                assertEquals(es.isAlive(), as.isAlive());
+            }
+        }
+    }
+
+    // a checkpoint taken now waits for the general's lock
+    private static void awaitQueued(General general) {
+        while (!((ReentrantLock) general.getLock()).hasQueuedThreads()) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // returns once a periodic checkpoint got to the registered general,
+    // so the checkpointer's close() waits for it to finish
+    private static void awaitPeriodicCheckpoint(General general) {
+        general.getLock().lock();
+        try {
+            awaitQueued(general);
+        } finally {
+            general.getLock().unlock();
+        }
+    }
+
+    private int snapshotSize(long number) throws IOException {
+        try (WorldSnapshot snapshot = WorldSnapshot.open(
+                 checkpoints.resolve(CheckpointFormat.fileName(number, CheckpointFormat.SNAPSHOT)))) {
+            return snapshot.getGeneralCount();
+        }
+    }
+
+    private List<String> checkpointFiles() throws IOException {
+        try (var files = Files.list(checkpoints)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @ParameterizedTest(name = "{0} armies")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Recovery from full and delta checkpoints and the journal tail rebuilds the exact game state")
+    void testRecoverExactState(String armyKind) throws Exception {
+        List<General> generals = createWorld(armyKind);
+        startCheckpointer(generals, HOURLY, 3);
+        dispatcher.addSubscriber(journal);
+        commandFactory.setExecutionListener(journal);
+
+        SplittableRandom random = new SplittableRandom(2024);
+        for (int round = 0; round < 5; round++) {
+            playCampaign(generals, random, 300);
+            checkpointer.checkpoint();
+        }
+        playCampaign(generals, random, 300);
+
+        assertSameWorld(generals, recover());
+    }
+
+    @Test
+    @DisplayName("Recovery replays purges in the journal tail onto grouped armies with their own threshold and ids")
+    void testRecoverGroupedCompaction() throws Exception {
+        List<General> generals = createWorld("grouped");
+        for (General general : generals) {
+            general.getArmy().setCompactionThreshold(0.05);
+        }
+        startCheckpointer(generals, HOURLY, 3);
+        dispatcher.addSubscriber(journal);
+        commandFactory.setExecutionListener(journal);
+
+        SplittableRandom random = new SplittableRandom(31);
+        playCampaign(generals, random, 300);
+        checkpointer.checkpoint();
+        // grouped armies shift the soldiers after a removed one, so replaying
+        // the purges onto another kind of army would drill other soldiers
+        playCampaign(generals, random, 600);
+
+        Map<Long, General> recovered = recover();
+        assertSameWorld(generals, recovered);
+        long highest = 0;
+        for (General general : generals) {
+            General restored = recovered.get(general.getId());
+            assertEquals(general.getId(), restored.getId());
+            assertInstanceOf(GroupedArmy.class, restored.getArmy());
+            assertEquals(0.05, restored.getArmy().getCompactionThreshold());
+            highest = Math.max(highest, restored.getId());
+        }
+        assertTrue(new General("Newcomer", 0).getId() > highest);
+    }
+
+    @Test
+    @DisplayName("Checkpoints taken in the background while commands run recover the exact game state")
+    void testBackgroundCheckpoints() throws Exception {
+        List<General> generals = createWorld("columnar");
+        startCheckpointer(generals, Duration.ofMillis(1), 4);
+        dispatcher.addSubscriber(journal);
+        commandFactory.setExecutionListener(journal);
+        checkpointer.checkpoint();
+
+        playCampaign(generals, new SplittableRandom(7), 3000);
+        awaitPeriodicCheckpoint(generals.get(0));
+        checkpointer.close();
+
+        assertNull(checkpointer.getLastFailure());
+        assertSameWorld(generals, recover());
+    }
+
+    @Test
+    @DisplayName("A general a command changes while the checkpoint is taken is checkpointed as it was at the cut")
+    void testCopyOnWrite() throws Exception {
+        List<General> generals = createWorld("list");
+        startCheckpointer(generals, HOURLY, 10);
+        dispatcher.addSubscriber(journal);
+        commandFactory.setExecutionListener(journal);
+        checkpointer.checkpoint();
+
+        // both changed, so the checkpoint waits for the first one's lock
+        // before it gets to the second one
+        General held    = generals.get(0);
+        General changed = generals.get(1);
+        held.addGold(1);
+        changed.addGold(1);
+        int sizeAtCut = changed.getArmy().getSize();
+
+        ExecutorService thread = Executors.newSingleThreadExecutor();
+        Future<Long>    checkpoint;
+        held.getLock().lock();
+        try {
+            // the checkpoint takes its cut before it waits for the lock
+            checkpoint = thread.submit(checkpointer::checkpoint);
+            awaitQueued(held);
+            commandFactory.createRecruitSoldiers(changed, 3, Rank.PRIVATE).executeAndUpdate();
+        } finally {
+            held.getLock().unlock();
+            thread.shutdown();
+        }
+
+        assertEquals(2, checkpoint.get(10, TimeUnit.SECONDS));
+        assertEquals(2, snapshotSize(2));
+        try (WorldSnapshot snapshot = WorldSnapshot.open(
+                 checkpoints.resolve(CheckpointFormat.fileName(2, CheckpointFormat.SNAPSHOT)))) {
+            assertEquals(sizeAtCut, snapshot.getGeneral(1).getArmySize());
+        }
+        assertEquals(sizeAtCut + 3, changed.getArmy().getSize());
+        assertSameWorld(generals, recover());
+    }
+
+    @Test
+    @DisplayName("A general registered after a checkpoint is recovered with the commands journaled after it")
+    void testRegisterAfterCheckpoint() throws Exception {
+        List<General> generals = createWorld("columnar");
+        startCheckpointer(generals, HOURLY, 10);
+        dispatcher.addSubscriber(journal);
+        commandFactory.setExecutionListener(journal);
+
+        SplittableRandom random = new SplittableRandom(5);
+        playCampaign(generals, random, 200);
+        checkpointer.checkpoint();
+
+        General newcomer = new General("Newcomer", 50_000, new ColumnarArmy(0));
+        newcomer.getArmy().recruit(Rank.MAJOR, 10);
+        checkpointer.register(newcomer);
+        generals.add(newcomer);
+        playCampaign(generals, random, 300);
+
+        Map<Long, General> recovered = recover();
+        assertSameWorld(generals, recovered);
+        assertInstanceOf(ColumnarArmy.class, recovered.get(newcomer.getId()).getArmy());
+    }
+
+    @Test
+    @DisplayName("Delta checkpoints hold only generals whose gold or army changed, or that are new")
+    void testDeltasHoldChangedGenerals() throws Exception {
+        List<General> generals = createWorld("list");
+        startCheckpointer(generals, HOURLY, 10);
+
+        assertEquals(1, checkpointer.checkpoint());
+        assertEquals(GENERALS, snapshotSize(1));
+        assertEquals(1, checkpointer.checkpoint());
+
+        generals.get(0).addGold(5);
+        assertEquals(2, checkpointer.checkpoint());
+        assertEquals(1, snapshotSize(2));
+
+        generals.get(1).getArmy().getSoldiers().get(0).increaseExpByN(1);
+        assertEquals(3, checkpointer.checkpoint());
+        assertEquals(1, snapshotSize(3));
+
+        General newcomer = new General("Newcomer", 10);
+        assertEquals(4, checkpointer.register(newcomer));
+        assertEquals(1, snapshotSize(4));
+        assertEquals(4, checkpointer.register(newcomer));
+        generals.get(2).getArmy().killAndRemoveRandom();
+        assertEquals(5, checkpointer.checkpoint());
+        assertEquals(1, snapshotSize(5));
+
+        generals.add(newcomer);
+        Map<Long, General> recovered = recover();
+        assertEquals(GENERALS + 1, recovered.size());
+        assertEquals(generals.get(0).getGold(), recovered.get(generals.get(0).getId()).getGold());
+        assertEquals(generals.get(2).getArmy().getSize(), recovered.get(generals.get(2).getId()).getArmy().getSize());
+    }
+
+    @Test
+    @DisplayName("A full checkpoint deletes every older checkpoint file")
+    void testFullCheckpointDeletesOlder() throws Exception {
+        List<General> generals = createWorld("columnar");
+        startCheckpointer(generals, HOURLY, 2);
+        Files.write(checkpoints.resolve("notes.txt"), new byte[] { 1 });
+
+        checkpointer.checkpoint();
+        generals.get(0).addGold(1);
+        checkpointer.checkpoint();
+        Files.write(checkpoints.resolve(CheckpointFormat.fileName(2, CheckpointFormat.SNAPSHOT + CheckpointFormat.TEMPORARY)),
+                    new byte[] { 1 });
+        generals.get(0).addGold(1);
+        assertEquals(3, checkpointer.checkpoint());
+
+        assertEquals(List.of(CheckpointFormat.fileName(3, CheckpointFormat.MANIFEST),
+                             CheckpointFormat.fileName(3, CheckpointFormat.SNAPSHOT),
+                             "notes.txt"),
+                     checkpointFiles());
+        assertEquals(GENERALS, snapshotSize(3));
+    }
+
+    @Test
+    @DisplayName("A new checkpointer numbers on from the directory and starts with a full checkpoint")
+    void testNumberingContinues() throws Exception {
+        List<General> generals = createWorld("list");
+        startCheckpointer(generals, HOURLY, 10);
+        checkpointer.checkpoint();
+        generals.get(1).addGold(1);
+        checkpointer.checkpoint();
+        checkpointer.close();
+
+        startCheckpointer(generals, HOURLY, 10);
+        assertEquals(3, checkpointer.checkpoint());
+        assertEquals(GENERALS, snapshotSize(3));
+        assertEquals(2, checkpointFiles().size());
+    }
+
+    @Test
+    @DisplayName("Failed checkpoints are thrown, or reported when they were periodic")
+    void testFailures() throws Exception {
+        List<General> generals = createWorld("list");
+        startCheckpointer(generals, HOURLY, 10);
+        journalChannel.close();
+
+        generals.get(0).addGold(1);
+        assertThrows(UncheckedIOException.class, checkpointer::checkpoint);
+        assertThrows(UncheckedIOException.class, () -> checkpointer.register(new General("Newcomer", 10)));
+        checkpointer.close();
+
+        checkpointer = new Checkpointer(checkpoints, journal, Duration.ofMillis(1), 10);
+        assertThrows(UncheckedIOException.class, () -> checkpointer.register(generals.get(0)));
+        awaitPeriodicCheckpoint(generals.get(0));
+        checkpointer.close();
+        assertInstanceOf(UncheckedIOException.class, checkpointer.getLastFailure());
+    }
+
+    @Test
+    @DisplayName("Closed checkpointers take no checkpoints, closing keeps the interrupt status")
+    void testClose() throws Exception {
+        List<General> generals = createWorld("list");
+        General       general  = generals.get(0);
+        startCheckpointer(generals, Duration.ofMillis(1), 1);
+
+        // the periodic checkpoint waits for the general, so closing has to wait for it
+        general.getLock().lock();
+        try {
+            awaitQueued(general);
+            Thread.currentThread().interrupt();
+            checkpointer.close();
+            assertTrue(Thread.interrupted());
+        } finally {
+            general.getLock().unlock();
+        }
+        checkpointer.close();
+
+        assertThrows(IllegalStateException.class, checkpointer::checkpoint);
+    }
+
+    @Test
+    @DisplayName("Intervals and full checkpoint periods must be positive")
+    void testRejectsSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new Checkpointer(checkpoints, journal, Duration.ZERO, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Checkpointer(checkpoints, journal, Duration.ofSeconds(-1), 1));
+        assertThrows(IllegalArgumentException.class, () -> new Checkpointer(checkpoints, journal, HOURLY, 0));
+    }
+
+    @Test
+    @DisplayName("Recovery needs a full checkpoint and rejects damaged manifests")
+    void testDamagedCheckpoints() throws Exception {
+        List<General> generals = createWorld("list");
+        Files.createDirectories(checkpoints);
+        assertThrows(IOException.class, this::recover);
+
+        startCheckpointer(generals, HOURLY, 10);
+        checkpointer.checkpoint();
+        Path manifest = checkpoints.resolve(CheckpointFormat.fileName(1, CheckpointFormat.MANIFEST));
+        byte[] valid  = Files.readAllBytes(manifest);
+
+        Files.write(manifest, Arrays.copyOf(valid, CheckpointFormat.HEADER_SIZE - 1));
+        assertThrows(IOException.class, this::recover);
+
+        Files.write(manifest, ByteBuffer.wrap(valid.clone()).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 42).array());
+        assertThrows(IOException.class, this::recover);
+
+        Files.write(manifest, ByteBuffer.wrap(valid.clone()).order(ByteOrder.LITTLE_ENDIAN).putShort(4, (short) 9).array());
+        assertThrows(IOException.class, this::recover);
+
+        Files.write(manifest, Arrays.copyOf(valid, valid.length - 1));
+        assertThrows(IOException.class, this::recover);
+
+        Files.write(manifest, ByteBuffer.wrap(valid.clone()).order(ByteOrder.LITTLE_ENDIAN).putInt(24, -1).array());
+        assertThrows(IOException.class, this::recover);
+
+        byte[] extraId = Arrays.copyOf(valid, valid.length + Long.BYTES);
+        Files.write(manifest, ByteBuffer.wrap(extraId).order(ByteOrder.LITTLE_ENDIAN).putInt(24, GENERALS + 1).array());
+        assertThrows(IOException.class, this::recover);
+
+        Files.write(manifest, ByteBuffer.wrap(valid.clone()).order(ByteOrder.LITTLE_ENDIAN).put(6, (byte) 0).array());
+        assertThrows(IOException.class, this::recover);
+
+        Files.write(manifest, valid);
+        assertSameWorld(generals, recover());
+    }
+}
@@ -0,0 +1,242 @@
+package wargames.snapshot;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+import wargames.models.*;
+
+public class WorldSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private Path snapshotPath;
+
+    @BeforeEach
+    void setUp() {
+        snapshotPath = dir.resolve("world.snapshot");
+    }
+
+    private static Army createArmy(String kind) {
+        switch (kind) {
+            case "list":     return new ListArmy();
+            case "columnar": return new ColumnarArmy();
+            default:         return new GroupedArmy();
+        }
+    }
+
+    // generals with promoted, drilled and dead soldiers and army sizes
+    // that do not fill the last alive word
+    private static List<General> createWorld(String kind) {
+        SplittableRandom random   = new SplittableRandom(42);
+        List<General>    generals = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            General general = new General("General " + i, 1000 * i, createArmy(kind));
+            Army    army    = general.getArmy();
+            army.setCompactionThreshold(1.0);
+            for (Rank rank : Rank.values()) {
+                army.recruit(rank, 30 + 7 * i);
+            }
+            for (int j = 0; j < army.getSize() / 2; j++) {
+                Soldier s = army.getSoldiers().get(random.nextInt(army.getSize()));
+                if (random.nextInt(4) == 0) {
+                    s.decreaseExpByN(random.nextInt(1, 3));
+                } else {
+                    s.increaseExpByN(random.nextInt(1, 10));
+                }
+            }
+            generals.add(general);
+        }
+        generals.add(new General("Énée, sans armée", 5));
+        return generals;
+    }
+
+    private static void assertSameGeneral(General expected, General actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getGold(), actual.getGold());
+        Army e = expected.getArmy();
+        Army a = actual.getArmy();
+        assertEquals(e.getClass(), a.getClass());
+        assertEquals(e.getCompactionThreshold(), a.getCompactionThreshold());
+        assertEquals(e.getSize(), a.getSize());
+        assertEquals(e.getTotalStrength(), a.getTotalStrength());
+        for (Rank rank : Rank.values()) {
+            assertEquals(e.getRankHistogram().getCount(rank), a.getRankHistogram().getCount(rank));
+            assertEquals(e.getRankHistogram().getLivingCount(rank), a.getRankHistogram().getLivingCount(rank));
+        }
+        for (int i = 0; i < e.getSize(); i++) {
+            assertEquals(e.getSoldiers().get(i).getRank(), a.getSoldiers().get(i).getRank());
+            assertEquals(e.getSoldiers().get(i).getExp(), a.getSoldiers().get(i).getExp());
+            assertEquals(e.getSoldiers().get(i).isAlive(), a.getSoldiers().get(i).isAlive());
+        }
+    }
+
+    @ParameterizedTest(name = "{0} armies")
+    @ValueSource(strings = { "list", "columnar", "grouped" })
+    @DisplayName("Restoring a snapshot rebuilds every general and soldier in an army of the same kind")
+    void testRoundTrip(String kind) throws Exception {
+        List<General> world = createWorld(kind);
+
+        WorldSnapshot.write(snapshotPath, world);
+        List<General> restored;
+        try (WorldSnapshot snapshot = WorldSnapshot.open(snapshotPath)) {
+            restored = snapshot.restore();
+        }
+
+        assertEquals(world.size(), restored.size());
+        for (int i = 0; i < world.size(); i++) {
+            assertSameGeneral(world.get(i), restored.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Generals and soldiers can be read from the mapping without restoring them")
+    void testLazyAccess() throws Exception {
+        List<General> world = createWorld("columnar");
+        WorldSnapshot.write(snapshotPath, world);
+
+        try (WorldSnapshot snapshot = WorldSnapshot.open(snapshotPath)) {
+            assertEquals(world.size(), snapshot.getGeneralCount());
+
+            General         general = world.get(2);
+            GeneralSnapshot lazy    = snapshot.getGeneral(2);
+            assertSame(lazy, snapshot.getGeneral(2));
+            assertEquals(general.getName(), lazy.getName());
+            assertEquals(general.getGold(), lazy.getGold());
+            assertEquals(general.getArmy().getTotalStrength(), lazy.getTotalStrength());
+            assertEquals(general.getArmy().getSize(), lazy.getArmySize());
+            assertEquals(general.getArmy().getCompactionThreshold(), lazy.getCompactionThreshold());
+            for (int i = 0; i < lazy.getArmySize(); i++) {
+                Soldier s = general.getArmy().getSoldiers().get(i);
+                assertEquals(s.getRank(), lazy.getRank(i));
+                assertEquals(s.getExp(), lazy.getExp(i));
+                assertEquals(s.isAlive(), lazy.isAlive(i));
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> lazy.getRank(lazy.getArmySize()));
+            assertThrows(IndexOutOfBoundsException.class, () -> lazy.getExp(-1));
+        }
+    }
+
+    @ParameterizedTest(name = "{0} armies")
+    @ValueSource(strings = { "columnar", "grouped" })
+    @DisplayName("Every army kind writes the same bytes for the same soldiers, apart from its kind")
+    void testSameBytes(String kind) throws Exception {
+        Path expected = dir.resolve("list.snapshot");
+        WorldSnapshot.write(expected, createWorld("list"));
+        WorldSnapshot.write(snapshotPath, createWorld(kind));
+
+        ByteBuffer actual = ByteBuffer.wrap(Files.readAllBytes(snapshotPath)).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < actual.getInt(8); i++) {
+            int kindOffset = (int) actual.getLong(SnapshotFormat.HEADER_SIZE + i * SnapshotFormat.DIRECTORY_ENTRY_SIZE)
+                           + SnapshotFormat.KIND_OFFSET;
+            assertEquals(i < 3 ? SnapshotFormat.armyKind(createArmy(kind)) : SnapshotFormat.LIST_ARMY,
+                         actual.getInt(kindOffset));
+            actual.putInt(kindOffset, SnapshotFormat.LIST_ARMY);
+        }
+        assertArrayEquals(Files.readAllBytes(expected), actual.array());
+    }
+
+    @Test
+    @DisplayName("Armies larger than a mapped region are written and restored")
+    void testLargeArmy() throws Exception {
+        General general = new General("Xerxes", 1, new ColumnarArmy());
+        general.getArmy().recruit(Rank.PRIVATE, 300_001);
+        general.getArmy().getSoldiers().get(300_000).decreaseExpByN(1);
+        general.getArmy().getSoldiers().get(123_456).increaseExpByN(5);
+        List<General> generals = List.of(new General("Darius", 2), general, new General("Cyrus", 3));
+
+        WorldSnapshot.write(snapshotPath, generals);
+        try (WorldSnapshot snapshot = WorldSnapshot.open(snapshotPath)) {
+            for (int i = 0; i < generals.size(); i++) {
+                assertSameGeneral(generals.get(i), snapshot.getGeneral(i).restore());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Armies too large for one mapped section are rejected")
+    void testArmyTooLarge() {
+        Army huge = new ListArmy() {
+            @Override public int getSize() { return Integer.MAX_VALUE; }
+        };
+
+        assertThrows(IllegalArgumentException.class,
+            () -> WorldSnapshot.write(snapshotPath, List.of(new General("Xerxes", 1, huge))));
+    }
+
+    @Test
+    @DisplayName("Damaged snapshots are rejected")
+    void testDamagedSnapshots() throws Exception {
+        Files.write(snapshotPath, new byte[3]);
+        assertThrows(IOException.class, () -> WorldSnapshot.open(snapshotPath));
+
+        writeHeader(42, SnapshotFormat.VERSION, 0);
+        assertThrows(IOException.class, () -> WorldSnapshot.open(snapshotPath));
+
+        writeHeader(SnapshotFormat.MAGIC, (short) (SnapshotFormat.VERSION + 1), 0);
+        assertThrows(IOException.class, () -> WorldSnapshot.open(snapshotPath));
+
+        writeHeader(SnapshotFormat.MAGIC, SnapshotFormat.VERSION, 1);
+        assertThrows(IOException.class, () -> WorldSnapshot.open(snapshotPath));
+
+        writeHeader(SnapshotFormat.MAGIC, SnapshotFormat.VERSION, -1);
+        assertThrows(IOException.class, () -> WorldSnapshot.open(snapshotPath));
+
+        for (long[] entry : new long[][] { { -8, 16 }, { 32, 4 }, { 32, Integer.MAX_VALUE + 1L }, { 32, 64 } }) {
+            writeHeader(SnapshotFormat.MAGIC, SnapshotFormat.VERSION, 1, entry[0], entry[1]);
+            assertThrows(IOException.class, () -> WorldSnapshot.open(snapshotPath));
+        }
+
+        // a section claiming more soldiers than it holds
+        WorldSnapshot.write(snapshotPath, List.of(new General("Hannibal", 1)));
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 1000), 32 + 8);
+        }
+        try (WorldSnapshot snapshot = WorldSnapshot.open(snapshotPath)) {
+            assertThrows(IOException.class, () -> snapshot.getGeneral(0));
+        }
+
+        // a header total the soldiers do not add up to, an unknown army kind,
+        // a compaction threshold above 1 and an unknown rank; Hannibal's
+        // section starts at 32 and his ranks at 32 + 60
+        General hannibal = new General("Hannibal", 1);
+        hannibal.getArmy().recruit(Rank.CORPORAL, 3);
+        ByteBuffer strength  = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 7);
+        ByteBuffer kind      = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 3);
+        ByteBuffer threshold = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putDouble(0, 1.5);
+        ByteBuffer rank      = ByteBuffer.wrap(new byte[] { (byte) Rank.values().length });
+        Map<Integer, ByteBuffer> damages = Map.of(32 + 4, strength, 32 + SnapshotFormat.KIND_OFFSET, kind,
+                                                  32 + SnapshotFormat.THRESHOLD_OFFSET, threshold, 32 + 60 + 1, rank);
+        for (Map.Entry<Integer, ByteBuffer> damage : damages.entrySet()) {
+            WorldSnapshot.write(snapshotPath, List.of(hannibal));
+            try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.WRITE)) {
+                channel.write(damage.getValue(), damage.getKey());
+            }
+            try (WorldSnapshot snapshot = WorldSnapshot.open(snapshotPath)) {
+                assertThrows(IOException.class, () -> snapshot.getGeneral(0));
+            }
+        }
+    }
+
+    // header with the given fields, directory entries and 16 bytes of section space
+    private void writeHeader(int magic, short version, int generals, long... directory) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SnapshotFormat.HEADER_SIZE + directory.length * Long.BYTES + 16)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .putInt(magic).putShort(version).putShort((short) 0).putInt(generals).putInt(0);
+        for (long value : directory) {
+            buffer.putLong(value);
+        }
+        Files.write(snapshotPath, buffer.array());
+    }
+}
@@ -0,0 +1,73 @@
+package wargames.models;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD kernel of StrengthKernel, loaded by name when the vector module is
+// present. Each step loads a full vector of rank ordinals and widens it to
+// long lanes a part at a time, together with the exps and alive bits of the
+// part; every rank compares the ordinals into a mask, counts its soldiers
+// and living soldiers from the masks and adds their exps into long lane
+// sums, so exp totals cannot overflow.
+final class VectorStrengthKernel implements StrengthKernel.Kernel {
+
+    private static final VectorSpecies<Long>    LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS  =
+        VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+    private static final VectorSpecies<Byte>    BYTES = VectorSpecies.of(byte.class, LONGS.vectorShape());
+    private static final int                    PARTS = BYTES.length() / LONGS.length();
+
+    private static final Rank[] RANKS = Rank.values();
+
+    @Override
+    public void accumulate(byte[] ranks, int[] exps, long[] aliveBits, int from, int to,
+                           RankHistogram histogram) {
+        int[]        counts       = new int[RANKS.length];
+        int[]        livingCounts = new int[RANKS.length];
+        LongVector[] expSums      = new LongVector[RANKS.length];
+        for (int r = 0; r < RANKS.length; r++) {
+            expSums[r] = LongVector.zero(LONGS);
+        }
+
+        int idx   = from;
+        int bound = from + BYTES.loopBound(to - from);
+        for (; idx < bound; idx += BYTES.length()) {
+            ByteVector ordinals = ByteVector.fromArray(BYTES, ranks, idx);
+            for (int part = 0; part < PARTS; part++) {
+                int        at           = idx + part * LONGS.length();
+                LongVector partOrdinals = (LongVector) ordinals.convertShape(VectorOperators.B2L, LONGS, part);
+                LongVector partExps     = (LongVector) IntVector.fromArray(INTS, exps, at)
+                                              .convertShape(VectorOperators.I2L, LONGS, 0);
+                VectorMask<Long> alive  = VectorMask.fromLong(LONGS, aliveBitsFrom(aliveBits, at));
+                for (int r = 0; r < RANKS.length; r++) {
+                    VectorMask<Long> isRank = partOrdinals.compare(VectorOperators.EQ, r);
+                    counts[r]       += isRank.trueCount();
+                    livingCounts[r] += isRank.and(alive).trueCount();
+                    expSums[r]       = expSums[r].add(partExps, isRank);
+                }
+            }
+        }
+
+        for (int r = 0; r < RANKS.length; r++) {
+            histogram.addTotals(RANKS[r], counts[r], livingCounts[r], expSums[r].reduceLanes(VectorOperators.ADD));
+        }
+        for (; idx < to; idx++) {
+            histogram.add(RANKS[ranks[idx]], exps[idx], (aliveBits[idx >>> 6] & (1L << idx)) != 0, 1);
+        }
+    }
+
+    // the alive bits of the soldiers from idx on, soldier idx in bit 0
+    private static long aliveBitsFrom(long[] aliveBits, int idx) {
+        int  shift = idx & 63;
+        long bits  = aliveBits[idx >>> 6] >>> shift;
+        if (shift + LONGS.length() > 64) {
+            bits |= aliveBits[(idx >>> 6) + 1] << (64 - shift);
+        }
+        return bits;
+    }
+}